@@ -1,16 +1,19 @@
 package dev.mokksy.aimocks.a2a
 
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
 import io.ktor.http.ContentType
 
-public class AgentCardBuildingStep(
+public class AgentCardBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<Nothing>,
-) : AbstractBuildingStep<Nothing, AgentCardResponseSpecification>(mokksy, buildingStep) {
+    context: MockContext = MockContext(),
+) : AbstractBuildingStep<Nothing, AgentCardResponseSpecification>(mokksy, buildingStep, context) {
     override infix fun responds(block: suspend AgentCardResponseSpecification.() -> Unit) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val responseSpecification = AgentCardResponseSpecification()
             block.invoke(responseSpecification)
             contentType = ContentType.Application.Json
@@ -3,18 +3,22 @@ package dev.mokksy.aimocks.a2a
 import dev.mokksy.aimocks.a2a.model.CancelTaskRequest
 import dev.mokksy.aimocks.a2a.model.CancelTaskResponse
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
 
-public class CancelTaskBuildingStep(
+public class CancelTaskBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<CancelTaskRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<CancelTaskRequest, CancelTaskResponseSpecification>(
         mokksy,
         buildingStep,
+        context,
     ) {
     override infix fun responds(block: suspend CancelTaskResponseSpecification.() -> Unit) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val requestBody = request.body()
             val responseSpecification = CancelTaskResponseSpecification()
             block.invoke(responseSpecification)
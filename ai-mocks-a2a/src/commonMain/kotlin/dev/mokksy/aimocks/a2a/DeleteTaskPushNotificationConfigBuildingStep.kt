@@ -2,30 +2,37 @@ package dev.mokksy.aimocks.a2a
 
 import dev.mokksy.aimocks.a2a.model.DeleteTaskPushNotificationConfigRequest
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.time.responseDelay
+import dev.mokksy.aimocks.core.time.timingHeaders
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
 
 /**
  * Building step for configuring delete task push notification config responses.
  */
-public class DeleteTaskPushNotificationConfigBuildingStep(
+public class DeleteTaskPushNotificationConfigBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<DeleteTaskPushNotificationConfigRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<
         DeleteTaskPushNotificationConfigRequest,
         DeleteTaskPushNotificationConfigResponseSpecification,
     >(
         mokksy,
         buildingStep,
+        context,
 ) {
     override infix fun responds(
         block: suspend DeleteTaskPushNotificationConfigResponseSpecification.() -> Unit,
     ) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val responseSpec =
                 DeleteTaskPushNotificationConfigResponseSpecification()
             block.invoke(responseSpec)
-            delay = responseSpec.delay
+            delay = context.clock.responseDelay(responseSpec.delay)
+            headers += context.clock.timingHeaders(responseSpec.delay)
             body = responseSpec.build()
         }
     }
@@ -2,29 +2,36 @@ package dev.mokksy.aimocks.a2a
 
 import dev.mokksy.aimocks.a2a.model.GetAuthenticatedExtendedCardRequest
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.time.responseDelay
+import dev.mokksy.aimocks.core.time.timingHeaders
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
 
 /**
  * Building step for configuring get authenticated extended card responses.
  */
-public class GetAuthenticatedExtendedCardBuildingStep(
+public class GetAuthenticatedExtendedCardBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<GetAuthenticatedExtendedCardRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<
         GetAuthenticatedExtendedCardRequest,
         GetAuthenticatedExtendedCardResponseSpecification,
     >(
         mokksy,
         buildingStep,
+        context,
     ) {
     override infix fun responds(
         block: suspend GetAuthenticatedExtendedCardResponseSpecification.() -> Unit,
     ) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val responseSpec = GetAuthenticatedExtendedCardResponseSpecification()
             block.invoke(responseSpec)
-            delay = responseSpec.delay
+            delay = context.clock.responseDelay(responseSpec.delay)
+            headers += context.clock.timingHeaders(responseSpec.delay)
             body = responseSpec.build()
         }
     }
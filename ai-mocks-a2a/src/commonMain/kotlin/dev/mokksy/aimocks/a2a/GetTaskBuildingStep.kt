@@ -3,18 +3,22 @@ package dev.mokksy.aimocks.a2a
 import dev.mokksy.aimocks.a2a.model.GetTaskRequest
 import dev.mokksy.aimocks.a2a.model.GetTaskResponse
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
 
-public class GetTaskBuildingStep(
+public class GetTaskBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<GetTaskRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<GetTaskRequest, GetTaskResponseSpecification>(
         mokksy,
         buildingStep,
+        context,
     ) {
     override infix fun responds(block: suspend GetTaskResponseSpecification.() -> Unit) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val requestBody = request.body()
             val responseSpecification = GetTaskResponseSpecification()
             block.invoke(responseSpecification)
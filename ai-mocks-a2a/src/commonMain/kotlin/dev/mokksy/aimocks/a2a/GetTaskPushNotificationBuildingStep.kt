@@ -3,23 +3,27 @@ package dev.mokksy.aimocks.a2a
 import dev.mokksy.aimocks.a2a.model.GetTaskPushNotificationRequest
 import dev.mokksy.aimocks.a2a.model.GetTaskPushNotificationResponse
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
 
-public class GetTaskPushNotificationBuildingStep(
+public class GetTaskPushNotificationBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<GetTaskPushNotificationRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<
         GetTaskPushNotificationRequest,
         GetTaskPushNotificationResponseSpecification,
     >(
         mokksy,
         buildingStep,
+        context,
     ) {
     override infix fun responds(
         block: suspend GetTaskPushNotificationResponseSpecification.() -> Unit,
     ) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val requestBody = request.body()
             val responseSpecification =
                 GetTaskPushNotificationResponseSpecification()
@@ -3,23 +3,27 @@ package dev.mokksy.aimocks.a2a
 import dev.mokksy.aimocks.a2a.model.ListTaskPushNotificationConfigRequest
 import dev.mokksy.aimocks.a2a.model.ListTaskPushNotificationConfigResponse
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
 
-public class ListTaskPushNotificationConfigBuildingStep(
+public class ListTaskPushNotificationConfigBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<ListTaskPushNotificationConfigRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<
         ListTaskPushNotificationConfigRequest,
         ListTaskPushNotificationConfigResponseSpecification,
     >(
         mokksy,
         buildingStep,
+        context,
     ) {
     override infix fun responds(
         block: suspend ListTaskPushNotificationConfigResponseSpecification.() -> Unit,
     ) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val requestBody = request.body()
             val responseSpecification =
                 ListTaskPushNotificationConfigResponseSpecification()
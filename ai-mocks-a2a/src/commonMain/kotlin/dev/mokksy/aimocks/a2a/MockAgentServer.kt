@@ -24,6 +24,7 @@ import io.ktor.serialization.kotlinx.json.json
 import kotlinx.serialization.json.Json
 
 private const val DEFAULT_NOTIFICATIONS_URI = "/notifications"
+private const val JSONRPC_PATH = "/"
 
 @Suppress("TooManyFunctions")
 public open class MockAgentServer private constructor(
@@ -151,6 +152,7 @@ public open class MockAgentServer private constructor(
         return AgentCardBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -199,7 +201,8 @@ public open class MockAgentServer private constructor(
         val requestStep =
             mokksy
                 .post(name = name, requestType = SendMessageRequest::class) {
-                    path("/")
+                    path(JSONRPC_PATH)
+                    bodyString += stubPrefilter.register(JSONRPC_PATH, "method", "message/send").guard
                     bodyMatchesPredicate {
                         it?.method == "message/send"
                     }
@@ -208,6 +211,7 @@ public open class MockAgentServer private constructor(
         return SendMessageBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -216,7 +220,8 @@ public open class MockAgentServer private constructor(
         val requestStep =
             mokksy
                 .post(name = name, requestType = CancelTaskRequest::class) {
-                    path("/")
+                    path(JSONRPC_PATH)
+                    bodyString += stubPrefilter.register(JSONRPC_PATH, "method", "tasks/cancel").guard
                     bodyMatchesPredicate {
                         it?.method == "tasks/cancel"
                     }
@@ -225,6 +230,7 @@ public open class MockAgentServer private constructor(
         return CancelTaskBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -233,7 +239,8 @@ public open class MockAgentServer private constructor(
         val requestStep =
             mokksy
                 .post(name = name, requestType = SendStreamingMessageRequest::class) {
-                    path("/")
+                    path(JSONRPC_PATH)
+                    bodyString += stubPrefilter.register(JSONRPC_PATH, "method", "message/stream").guard
                     bodyMatchesPredicate {
                         it?.method == "message/stream"
                     }
@@ -242,6 +249,7 @@ public open class MockAgentServer private constructor(
         return SendStreamingMessageBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -335,7 +343,8 @@ public open class MockAgentServer private constructor(
         val requestStep =
             mokksy
                 .post(name = name, requestType = GetTaskRequest::class) {
-                    path("/")
+                    path(JSONRPC_PATH)
+                    bodyString += stubPrefilter.register(JSONRPC_PATH, "method", "tasks/get").guard
                     bodyMatchesPredicate {
                         it?.method == "tasks/get"
                     }
@@ -344,6 +353,7 @@ public open class MockAgentServer private constructor(
         return GetTaskBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -352,7 +362,9 @@ public open class MockAgentServer private constructor(
         val requestStep =
             mokksy
                 .post(name = name, requestType = GetTaskPushNotificationRequest::class) {
-                    path("/")
+                    path(JSONRPC_PATH)
+                    bodyString +=
+                        stubPrefilter.register(JSONRPC_PATH, "method", "tasks/pushNotificationConfig/get").guard
                     bodyMatchesPredicate {
                         it?.method == "tasks/pushNotificationConfig/get"
                     }
@@ -361,6 +373,7 @@ public open class MockAgentServer private constructor(
         return GetTaskPushNotificationBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -369,7 +382,9 @@ public open class MockAgentServer private constructor(
         val requestStep =
             mokksy
                 .post(name = name, requestType = SetTaskPushNotificationRequest::class) {
-                    path("/")
+                    path(JSONRPC_PATH)
+                    bodyString +=
+                        stubPrefilter.register(JSONRPC_PATH, "method", "tasks/pushNotificationConfig/set").guard
                     bodyMatchesPredicate {
                         it?.method == "tasks/pushNotificationConfig/set"
                     }
@@ -378,6 +393,7 @@ public open class MockAgentServer private constructor(
         return SetTaskPushNotificationBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -388,7 +404,9 @@ public open class MockAgentServer private constructor(
         val requestStep =
             mokksy
                 .post(name = name, requestType = ListTaskPushNotificationConfigRequest::class) {
-                    path("/")
+                    path(JSONRPC_PATH)
+                    bodyString +=
+                        stubPrefilter.register(JSONRPC_PATH, "method", "tasks/pushNotificationConfig/list").guard
                     bodyMatchesPredicate {
                         it?.method == "tasks/pushNotificationConfig/list"
                     }
@@ -397,6 +415,7 @@ public open class MockAgentServer private constructor(
         return ListTaskPushNotificationConfigBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -407,7 +426,9 @@ public open class MockAgentServer private constructor(
         val requestStep =
             mokksy
                 .post(name = name, requestType = DeleteTaskPushNotificationConfigRequest::class) {
-                    path("/")
+                    path(JSONRPC_PATH)
+                    bodyString +=
+                        stubPrefilter.register(JSONRPC_PATH, "method", "tasks/pushNotificationConfig/delete").guard
                     bodyMatchesPredicate {
                         it?.method == "tasks/pushNotificationConfig/delete"
                     }
@@ -416,6 +437,7 @@ public open class MockAgentServer private constructor(
         return DeleteTaskPushNotificationConfigBuildingStep(
             mokksy = mokksy,
             buildingStep = requestStep,
+            context = context.forStub(name),
         )
     }
 
@@ -456,7 +478,8 @@ public open class MockAgentServer private constructor(
         val requestStep =
             mokksy
                 .post(name = name, requestType = TaskResubscriptionRequest::class) {
-                    path("/")
+                    path(JSONRPC_PATH)
+                    bodyString += stubPrefilter.register(JSONRPC_PATH, "method", "tasks/resubscribe").guard
                     bodyMatchesPredicate {
                         it?.method == "tasks/resubscribe"
                     }
@@ -465,6 +488,7 @@ public open class MockAgentServer private constructor(
         return TaskResubscriptionBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -475,7 +499,9 @@ public open class MockAgentServer private constructor(
         val requestStep =
             mokksy
                 .post(name = name, requestType = GetAuthenticatedExtendedCardRequest::class) {
-                    path("/")
+                    path(JSONRPC_PATH)
+                    bodyString +=
+                        stubPrefilter.register(JSONRPC_PATH, "method", "agent/getAuthenticatedExtendedCard").guard
                     bodyMatchesPredicate {
                         it?.method == "agent/getAuthenticatedExtendedCard"
                     }
@@ -484,6 +510,7 @@ public open class MockAgentServer private constructor(
         return GetAuthenticatedExtendedCardBuildingStep(
             mokksy = mokksy,
             buildingStep = requestStep,
+            context = context.forStub(name),
         )
     }
 
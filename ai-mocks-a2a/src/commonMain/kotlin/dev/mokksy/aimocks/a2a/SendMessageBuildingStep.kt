@@ -3,18 +3,22 @@ package dev.mokksy.aimocks.a2a
 import dev.mokksy.aimocks.a2a.model.SendMessageRequest
 import dev.mokksy.aimocks.a2a.model.SendMessageResponse
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
 
-public class SendMessageBuildingStep(
+public class SendMessageBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<SendMessageRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<SendMessageRequest, SendMessageResponseSpecification>(
         mokksy,
         buildingStep,
+        context,
     ) {
     override infix fun responds(block: suspend SendMessageResponseSpecification.() -> Unit) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val requestBody = request.body()
             val responseSpecification = SendMessageResponseSpecification()
             block.invoke(responseSpecification)
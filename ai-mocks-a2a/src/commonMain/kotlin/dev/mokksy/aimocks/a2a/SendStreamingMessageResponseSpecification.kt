@@ -4,6 +4,10 @@ import dev.mokksy.aimocks.a2a.model.JSONRPCError
 import dev.mokksy.aimocks.a2a.model.SendStreamingMessageRequest
 import dev.mokksy.aimocks.a2a.model.TaskUpdateEvent
 import dev.mokksy.aimocks.core.AbstractResponseSpecification
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.stream.BlockingSourcePolicy
+import dev.mokksy.aimocks.core.stream.ChunkGenerator
+import dev.mokksy.aimocks.core.time.StreamTiming
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.stream.consumeAsFlow
 import java.util.stream.Stream
@@ -17,6 +21,24 @@ public class SendStreamingMessageResponseSpecification(
 ) : AbstractResponseSpecification<SendStreamingMessageRequest, String>(
         delay = delay,
     ) {
+    /**
+     * Timing model pacing the streamed events. `null` streams them without modelled delays.
+     */
+    public var timing: StreamTiming? = null
+
+    /**
+     * Lazy source of the events, taking precedence over [responseFlow].
+     */
+    public var responseGenerator: ChunkGenerator<TaskUpdateEvent>? = null
+
+    /**
+     * Execution policy of the Java stream set with [stream],
+     * or `null` for the policy of the mock, see [MockContext.blockingSources].
+     */
+    public var sourcePolicy: BlockingSourcePolicy? = null
+
+    private var blockingSource: Flow<TaskUpdateEvent>? = null
+
     /**
      * Java-friendly setter for [responseFlow].
      */
@@ -36,6 +58,38 @@ public class SendStreamingMessageResponseSpecification(
                 delay
         }
 
+    /**
+     * Streams the events of a Java [stream], which may block:
+     * it is iterated according to the [sourcePolicy].
+     */
     public fun stream(stream: Stream<TaskUpdateEvent>): SendStreamingMessageResponseSpecification =
-        apply { this.responseFlow = stream.consumeAsFlow() }
+        apply {
+            val source = stream.consumeAsFlow()
+            this.responseFlow = source
+            this.blockingSource = source
+        }
+
+    /**
+     * Configures the [timing] model of the streamed events.
+     */
+    public fun timing(block: StreamTiming.() -> Unit): SendStreamingMessageResponseSpecification =
+        apply { timing = StreamTiming().apply(block) }
+
+    /**
+     * Generates the streamed events lazily, e.g. for very long or soak test streams.
+     */
+    public fun generate(block: ChunkGenerator<TaskUpdateEvent>.() -> Unit): SendStreamingMessageResponseSpecification =
+        apply { responseGenerator = ChunkGenerator<TaskUpdateEvent>().apply(block) }
+
+    /**
+     * Returns the events of the response, from [responseGenerator] or [responseFlow].
+     *
+     * @param context State of the mock: its clock spaces generated events,
+     *        and its policy applies to blocking sources unless [sourcePolicy] is set.
+     */
+    public fun chunkFlow(context: MockContext): Flow<TaskUpdateEvent>? =
+        responseGenerator?.asFlow(context.clock)
+            ?: responseFlow?.let { flow ->
+                if (flow === blockingSource) (sourcePolicy ?: context.blockingSources).offload(flow) else flow
+            }
 }
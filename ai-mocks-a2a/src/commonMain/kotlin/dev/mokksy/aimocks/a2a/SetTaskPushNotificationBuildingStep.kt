@@ -3,23 +3,27 @@ package dev.mokksy.aimocks.a2a
 import dev.mokksy.aimocks.a2a.model.SetTaskPushNotificationRequest
 import dev.mokksy.aimocks.a2a.model.SetTaskPushNotificationResponse
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
 
-public class SetTaskPushNotificationBuildingStep(
+public class SetTaskPushNotificationBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<SetTaskPushNotificationRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<
         SetTaskPushNotificationRequest,
         SetTaskPushNotificationResponseSpecification,
     >(
         mokksy,
         buildingStep,
+        context,
     ) {
     override infix fun responds(
         block: suspend SetTaskPushNotificationResponseSpecification.() -> Unit,
     ) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val requestBody = request.body()
             val responseSpecification =
                 SetTaskPushNotificationResponseSpecification()
@@ -3,41 +3,58 @@ package dev.mokksy.aimocks.a2a
 import dev.mokksy.aimocks.a2a.model.SendStreamingMessageResponse
 import dev.mokksy.aimocks.a2a.model.TaskResubscriptionRequest
 import dev.mokksy.aimocks.core.AbstractStreamingBuildingStep
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.stream.framed
+import dev.mokksy.aimocks.core.stream.monitoredBy
+import dev.mokksy.aimocks.core.time.joinFrames
+import dev.mokksy.aimocks.core.time.pacedBy
+import dev.mokksy.aimocks.core.time.responseDelay
+import dev.mokksy.aimocks.core.time.timedBy
+import dev.mokksy.aimocks.core.time.timingHeaders
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
-import io.ktor.sse.ServerSentEvent
 import kotlinx.coroutines.flow.map
-import kotlinx.serialization.json.Json
 
 /**
  * Building step for task resubscription operation.
  */
-public class TaskResubscriptionBuildingStep(
+public class TaskResubscriptionBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<TaskResubscriptionRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractStreamingBuildingStep<
         TaskResubscriptionRequest,
         TaskResubscriptionResponseSpecification,
     >(
         mokksy,
         buildingStep,
+        context,
     ) {
     public override infix fun respondsStream(
         block: suspend TaskResubscriptionResponseSpecification.() -> Unit,
     ) {
         buildingStep.respondsWithStream {
+            context.stubMatched()
             val requestBody = request.body()
             val responseSpecification = TaskResubscriptionResponseSpecification()
             block.invoke(responseSpecification)
+            delay = context.clock.responseDelay(responseSpecification.delay)
+            headers +=
+                context.clock.timingHeaders(responseSpecification.delay, responseSpecification.delayBetweenChunks)
+            // a stream with a timing model is reported once, by the model
+            val framePacing = context.pacing.takeIf { responseSpecification.timing == null }
             flow =
-                responseSpecification.responseFlow
+                responseSpecification
+                    .chunkFlow(context)
+                    ?.timedBy(responseSpecification.timing, context.clock, monitor = context.pacing)
                     ?.map {
                         SendStreamingMessageResponse(
                             id = requestBody.id,
                             result = it,
                         )
-                    }?.map { Json.encodeToString(it) }
-                    ?.map { ServerSentEvent(data = it).toString() + '\n' }
+                    }?.framed(SendStreamingMessageResponse.serializer(), A2A_SSE)
+                    ?.pacedBy(context.clock, responseSpecification.delayBetweenChunks, framePacing, ::joinFrames)
+                    ?.monitoredBy(context.streams)
         }
     }
 }
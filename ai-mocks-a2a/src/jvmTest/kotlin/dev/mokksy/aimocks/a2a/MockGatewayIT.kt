@@ -0,0 +1,76 @@
+package dev.mokksy.aimocks.a2a
+
+import dev.mokksy.aimocks.a2a.model.AgentCard
+import dev.mokksy.aimocks.a2a.model.create
+import dev.mokksy.aimocks.core.MockGateway
+import dev.mokksy.aimocks.gemini.MockGemini
+import io.kotest.assertions.assertSoftly
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldContain
+import io.ktor.client.request.get
+import io.ktor.client.request.post
+import io.ktor.client.request.setBody
+import io.ktor.client.statement.bodyAsText
+import io.ktor.http.ContentType
+import io.ktor.http.contentType
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+internal class MockGatewayIT {
+    private val gateway = MockGateway()
+    private val gemini = MockGemini(verbose = true)
+    private val agent = MockAgentServer(verbose = true)
+    private val client = createA2AClient(url = gateway.endpoint.baseUrl)
+
+    @AfterAll
+    fun afterAll() {
+        gateway.close()
+        gemini.shutdown()
+        agent.shutdown()
+    }
+
+    @Test
+    suspend fun `Should serve several providers on one port`() {
+        gemini.metrics.enabled = true
+        agent.metrics.enabled = true
+        val geminiUrl = gateway.mount(gemini)
+        val agentUrl = gateway.mount(agent)
+
+        gemini.generateContent {
+            model = "gemini-2.0-flash"
+        } responds {
+            content = "Hello from Gemini"
+        }
+        agent.agentCard() responds {
+            card =
+                AgentCard.create {
+                    name = "gateway-agent"
+                    description = "Agent behind a gateway"
+                    url = agentUrl
+                    version = "0.0.1"
+                    capabilities {
+                        streaming = true
+                    }
+                }
+        }
+
+        val geminiResponse =
+            client
+                .post("/models/gemini-2.0-flash:generateContent") {
+                    contentType(ContentType.Application.Json)
+                    setBody("""{"contents":[{"role":"user","parts":[{"text":"Hi"}]}]}""")
+                }.bodyAsText()
+        val agentCard = client.get("/.well-known/agent-card.json").bodyAsText()
+
+        assertSoftly {
+            geminiResponse shouldContain "Hello from Gemini"
+            agentCard shouldContain "gateway-agent"
+            geminiUrl shouldBe gateway.endpoint.baseUrl
+            gateway.mocks shouldBe listOf(gemini, agent)
+            gateway.snapshot().sumOf { it.requests } shouldBe 2
+            gateway.prometheus() shouldContain "MockGemini/"
+        }
+    }
+}
@@ -9,7 +9,8 @@ internal object AnthropicAiMatchers {
         object : Matcher<MessageCreateParams?> {
             override fun test(value: MessageCreateParams?): MatcherResult {
                 val passed =
-                    value?.system?.any { it.text.contains(string) } == true
+                    value != null &&
+                        MessageCreateParamsView.of(value).systemTexts.any { it.contains(string) }
                 return MatcherResult(
                     passed,
                     { "System message should contain \"$string\"" },
@@ -24,8 +25,8 @@ internal object AnthropicAiMatchers {
         object : Matcher<MessageCreateParams?> {
             override fun test(value: MessageCreateParams?): MatcherResult {
                 val passed =
-                    findUserMessages(value)
-                        .any { checkTextBlockContains(it, string) }
+                    value != null &&
+                        MessageCreateParamsView.of(value).userTexts.any { it.contains(string) }
                 return MatcherResult(
                     passed,
                     { "User message should contain \"$string\"" },
@@ -33,15 +34,6 @@ internal object AnthropicAiMatchers {
                 )
             }
 
-            private fun findUserMessages(
-                value: MessageCreateParams?,
-            ): List<MessageCreateParams.Content> =
-                value
-                    ?.messages
-                    ?.filter { it.role == "user" }
-                    ?.map { it.content }
-                    .orEmpty()
-
             override fun toString(): String = "User message should contain \"$string\""
         }
 
@@ -118,24 +110,4 @@ internal object AnthropicAiMatchers {
 
             override fun toString(): String = "maxTokens should be $maxTokens"
         }
-
-    private fun checkTextBlockContains(
-        content: MessageCreateParams.Content?,
-        string: String,
-    ): Boolean =
-        when (content) {
-            is MessageCreateParams.TextContent -> {
-                content.text?.contains(string) == true
-            }
-
-            is MessageCreateParams.ContentList -> {
-                content.blocks.any {
-                    (it as? MessageCreateParams.TextBlock)?.text?.contains(string) == true
-                }
-            }
-
-            else -> {
-                false
-            }
-        }
 }
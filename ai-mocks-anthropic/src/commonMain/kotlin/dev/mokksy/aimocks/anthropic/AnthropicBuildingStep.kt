@@ -4,7 +4,22 @@ import dev.mokksy.aimocks.anthropic.StreamingResponseHelper.randomIdString
 import dev.mokksy.aimocks.anthropic.model.AnthropicSseData
 import dev.mokksy.aimocks.anthropic.model.Message
 import dev.mokksy.aimocks.anthropic.model.MessageCreateParams
+import dev.mokksy.aimocks.anthropic.model.StopReason
+import dev.mokksy.aimocks.anthropic.model.TextBlock
+import dev.mokksy.aimocks.anthropic.model.Usage
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.json.ResponseTemplate
+import dev.mokksy.aimocks.core.json.jsonString
+import dev.mokksy.aimocks.core.stream.FrameFormat
+import dev.mokksy.aimocks.core.stream.StreamFrameWriter
+import dev.mokksy.aimocks.core.stream.monitoredBy
+import dev.mokksy.aimocks.core.time.approximateTokenCount
+import dev.mokksy.aimocks.core.time.joinFrames
+import dev.mokksy.aimocks.core.time.pacedBy
+import dev.mokksy.aimocks.core.time.responseDelay
+import dev.mokksy.aimocks.core.time.timedBy
+import dev.mokksy.aimocks.core.time.timingHeaders
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
 import io.ktor.http.ContentType
@@ -13,13 +28,10 @@ import io.ktor.utils.io.InternalAPI
 import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.Flow
-import kotlinx.coroutines.flow.asFlow
 import kotlinx.coroutines.flow.emitAll
 import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.flow.map
-import kotlinx.coroutines.flow.mapNotNull
 import kotlinx.serialization.json.Json
-import kotlinx.serialization.serializer
 
 /**
  * A specialized implementation of [AbstractBuildingStep] for constructing Anthropic
@@ -30,55 +42,106 @@ import kotlinx.serialization.serializer
  *
  * @param mokksy The [MokksyServer] instance used for handling mock request and response lifecycle.
  * @param buildingStep The underlying [BuildingStep] for managing response configurations.
+ * @param context State shared with the mock which created this step, e.g. its clock.
  * @author Konstantin Pavlov
  */
-public class AnthropicBuildingStep(
+public class AnthropicBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<MessageCreateParams>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<MessageCreateParams, AnthropicMessagesResponseSpecification>(
         mokksy,
         buildingStep,
+        context,
     ) {
-    @Suppress("MagicNumber")
-    @OptIn(ExperimentalStdlibApi::class)
     override infix fun responds(block: suspend AnthropicMessagesResponseSpecification.() -> Unit) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val request = this.request.body()
             val chatResponseSpecification =
                 AnthropicMessagesResponseSpecification()
             block.invoke(chatResponseSpecification)
-            val assistantContent = chatResponseSpecification.assistantContent
-            val stopReason = chatResponseSpecification.stopReason
-            val completionTokens = LongRange(1, 10).random()
-            delay = chatResponseSpecification.delay
+            delay = context.clock.responseDelay(chatResponseSpecification.delay)
+            headers += context.clock.timingHeaders(chatResponseSpecification.delay)
             contentType = ContentType.Application.Json
             headers += "x-request-id" to randomIdString("req_")
             body =
-                Message(
-                    role = "assistant",
+                createMessage(
+                    specification = chatResponseSpecification,
                     id = chatResponseSpecification.messageId,
-                    content =
-                        listOf(
-                            dev.mokksy.aimocks.anthropic.model.TextBlock(
-                                text = assistantContent,
-                            ),
-                        ),
                     model = request.model,
-                    stopReason =
-                        dev.mokksy.aimocks.anthropic.model.StopReason.valueOf(
-                            stopReason.uppercase(),
-                        ),
-                    usage =
-                        dev.mokksy.aimocks.anthropic.model.Usage(
-                            outputTokens = completionTokens,
-                            cacheCreationInputTokens = 0,
-                            inputTokens = LongRange(10, 1000).random(),
-                            cacheReadInputTokens = 0,
-                        ),
+                    usage = randomUsage(),
                 )
         }
     }
 
+    /**
+     * Configures a response which does not depend on the request.
+     *
+     * The message is encoded once; only its `id`, `model` and `usage` fields
+     * are filled in on each request. The `id` is random per request unless
+     * [AnthropicMessagesResponseSpecification.messageId] is set by the [block].
+     *
+     * @param block A configuration block applied once to an [AnthropicMessagesResponseSpecification].
+     */
+    override infix fun respondsStatic(block: AnthropicMessagesResponseSpecification.() -> Unit) {
+        val chatResponseSpecification = AnthropicMessagesResponseSpecification(messageId = "").apply(block)
+        val messageId = chatResponseSpecification.messageId
+        val template =
+            ResponseTemplate.compile(
+                serializer = Message.serializer(),
+                value =
+                    createMessage(
+                        specification = chatResponseSpecification,
+                        id = messageId,
+                        model = "",
+                        usage = randomUsage(),
+                    ),
+                fields = listOf("id", "model", "usage"),
+            )
+        if (template == null) {
+            super.respondsStatic(block)
+            return
+        }
+        respondsWithTemplate(template, chatResponseSpecification.delay) { request ->
+            headers += "x-request-id" to randomIdString("req_")
+            listOf(
+                jsonString(messageId.ifEmpty { randomIdString("msg_") }),
+                jsonString(request.model),
+                Json.encodeToString(Usage.serializer(), randomUsage()),
+            )
+        }
+    }
+
+    @Suppress("MagicNumber")
+    private fun randomUsage(): Usage =
+        Usage(
+            outputTokens = LongRange(1, 10).random(),
+            cacheCreationInputTokens = 0,
+            inputTokens = LongRange(10, 1000).random(),
+            cacheReadInputTokens = 0,
+        )
+
+    private fun createMessage(
+        specification: AnthropicMessagesResponseSpecification,
+        id: String,
+        model: String,
+        usage: Usage,
+    ): Message =
+        Message(
+            role = "assistant",
+            id = id,
+            content =
+                listOf(
+                    TextBlock(
+                        text = specification.assistantContent,
+                    ),
+                ),
+            model = model,
+            stopReason = StopReason.valueOf(specification.stopReason.uppercase()),
+            usage = usage,
+        )
+
     /**
      * Configures a streaming response for a chat completions request by applying the provided specifications.
      *
@@ -96,6 +159,7 @@ public class AnthropicBuildingStep(
         block: suspend AnthropicStreamingChatResponseSpecification.() -> Unit,
     ) {
         buildingStep.respondsWithStream {
+            context.stubMatched()
             val responseSpec =
                 AnthropicStreamingChatResponseSpecification()
             block.invoke(responseSpec)
@@ -106,26 +170,28 @@ public class AnthropicBuildingStep(
 
             val id = randomIdString("msg_")
 
-            val chunkFlow = responseSpec.responseFlow ?: responseSpec.responseChunks?.asFlow()
+            val chunkFlow = responseSpec.chunkFlow(context)
 
             if (chunkFlow == null) {
-                error("Either responseChunks or responseFlow must be defined")
+                error("Either responseChunks, responseFlow or a chunk generator must be defined")
             }
             val request = this.request.body()
+            delay = context.clock.responseDelay(responseSpec.delay)
+            headers += context.clock.timingHeaders(responseSpec.delay, responseSpec.delayBetweenChunks)
+            // a stream with a timing model is reported once, by the model
+            val framePacing = context.pacing.takeIf { responseSpec.timing == null }
+            val frames = StreamFrameWriter(AnthropicSseData.serializer(), FrameFormat.SSE)
             flow =
                 prepareFlow(
                     id = id,
                     model = request.model,
-                    chunksFlow = chunkFlow,
+                    chunksFlow =
+                        chunkFlow.timedBy(responseSpec.timing, context.clock, ::approximateTokenCount, context.pacing),
                     stopReason = responseSpec.stopReason,
-                ).mapNotNull {
-                    val dataJson =
-                        Json.encodeToString(
-                            value = it.data,
-                            serializer = AnthropicSseData.serializersModule.serializer(),
-                        )
-                    "event: ${it.event}\r\ndata: ${dataJson}\r\n\r\n"
-                }
+                ).map { event ->
+                    event.data?.let { frames.frame(it, event.event) } ?: frames.rawFrame("null", event.event)
+                }.pacedBy(context.clock, responseSpec.delayBetweenChunks, framePacing, ::joinFrames)
+                    .monitoredBy(context.streams)
         }
     }
 
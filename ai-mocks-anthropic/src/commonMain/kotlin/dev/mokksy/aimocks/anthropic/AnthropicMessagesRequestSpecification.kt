@@ -2,6 +2,8 @@ package dev.mokksy.aimocks.anthropic
 
 import dev.mokksy.aimocks.anthropic.model.MessageCreateParams
 import dev.mokksy.aimocks.core.AbstractInferenceRequestSpecification
+import dev.mokksy.aimocks.core.matching.MatcherCost
+import dev.mokksy.aimocks.core.matching.withCost
 
 public open class AnthropicMessagesRequestSpecification(
     public var userId: String? = null,
@@ -10,10 +12,10 @@ public open class AnthropicMessagesRequestSpecification(
         apply { this.userId = value }
 
     override fun systemMessageContains(substring: String) {
-        requestBody.add(AnthropicAiMatchers.systemMessageContains(substring))
+        requestBody.add(AnthropicAiMatchers.systemMessageContains(substring).withCost(MatcherCost.SUBSTRING))
     }
 
     override fun userMessageContains(substring: String) {
-        requestBody.add(AnthropicAiMatchers.userMessageContains(substring))
+        requestBody.add(AnthropicAiMatchers.userMessageContains(substring).withCost(MatcherCost.SUBSTRING))
     }
 }
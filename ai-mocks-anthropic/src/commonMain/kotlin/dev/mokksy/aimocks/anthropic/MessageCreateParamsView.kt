@@ -0,0 +1,46 @@
+package dev.mokksy.aimocks.anthropic
+
+import dev.mokksy.aimocks.anthropic.model.MessageCreateParams
+import dev.mokksy.aimocks.core.RequestViewCache
+
+/**
+ * Texts of a [MessageCreateParams] inspected by [AnthropicAiMatchers],
+ * derived once per request and shared by the matchers of all stubs.
+ */
+internal class MessageCreateParamsView(
+    request: MessageCreateParams,
+) {
+    /**
+     * Texts of all system prompt blocks.
+     */
+    val systemTexts: List<String> = request.system?.map { it.text }.orEmpty()
+
+    /**
+     * Texts of all text contents and text blocks of user messages.
+     */
+    val userTexts: List<String> =
+        request.messages
+            .filter { it.role == "user" }
+            .flatMap { textsOf(it.content) }
+
+    companion object {
+        private val cache = RequestViewCache(::MessageCreateParamsView)
+
+        fun of(request: MessageCreateParams): MessageCreateParamsView = cache.of(request)
+
+        private fun textsOf(content: MessageCreateParams.Content?): List<String> =
+            when (content) {
+                is MessageCreateParams.TextContent -> {
+                    listOfNotNull(content.text)
+                }
+
+                is MessageCreateParams.ContentList -> {
+                    content.blocks.mapNotNull { (it as? MessageCreateParams.TextBlock)?.text }
+                }
+
+                else -> {
+                    emptyList()
+                }
+            }
+    }
+}
@@ -2,11 +2,15 @@ package dev.mokksy.aimocks.anthropic
 
 import dev.mokksy.aimocks.anthropic.model.MessageCreateParams
 import dev.mokksy.aimocks.core.AbstractMockLlm
+import dev.mokksy.aimocks.core.matching.MatcherCost
+import dev.mokksy.aimocks.core.matching.withCost
 import dev.mokksy.mokksy.ServerConfiguration
 import io.ktor.serialization.kotlinx.json.json
 import kotlinx.serialization.json.Json
 import java.util.function.Consumer
 
+private const val MESSAGES_PATH = "/v1/messages"
+
 /**
  * Mock implementation of an Anthropic-compatible service for testing purposes.
  *
@@ -67,42 +71,33 @@ public open class MockAnthropic(
                 val chatRequestSpec = AnthropicMessagesRequestSpecification()
                 block(chatRequestSpec)
 
-                path("/v1/messages")
-
-                body += chatRequestSpec.requestBody
-
-                chatRequestSpec.userId?.let {
-                    body += AnthropicAiMatchers.userIdEquals(it)
-                }
-
-                chatRequestSpec.temperature?.let {
-                    body += AnthropicAiMatchers.temperatureEquals(it)
-                }
+                path(MESSAGES_PATH)
 
-                chatRequestSpec.maxTokens?.let {
-                    body += AnthropicAiMatchers.maxTokensEquals(it)
-                }
+                val route = stubPrefilter.register(MESSAGES_PATH, "model", chatRequestSpec.model)
+                chatRequestSpec.requestBodyString += route.guard
 
-                chatRequestSpec.topP?.let {
-                    body += AnthropicAiMatchers.topPEquals(it)
-                }
+                val scalars =
+                    listOfNotNull(
+                        chatRequestSpec.model?.let { AnthropicAiMatchers.modelEquals(it) },
+                        chatRequestSpec.userId?.let { AnthropicAiMatchers.userIdEquals(it) },
+                        chatRequestSpec.temperature?.let { AnthropicAiMatchers.temperatureEquals(it) },
+                        chatRequestSpec.maxTokens?.let { AnthropicAiMatchers.maxTokensEquals(it) },
+                        chatRequestSpec.topP?.let { AnthropicAiMatchers.topPEquals(it) },
+                        chatRequestSpec.topK?.let { AnthropicAiMatchers.topKEquals(it) },
+                    )
+                scalars.forEach { chatRequestSpec.requestBody += it.withCost(MatcherCost.SCALAR) }
 
-                chatRequestSpec.topK?.let {
-                    body += AnthropicAiMatchers.topKEquals(it)
-                }
-
-                chatRequestSpec.model?.let {
-                    body += AnthropicAiMatchers.modelEquals(it)
-                }
-
-                chatRequestSpec.requestBodyString.forEach {
-                    bodyString += it
-                }
+                substringIndex.bind(chatRequestSpec.requestBodyString)
+                body += chatRequestSpec.compileRequestBody()
+                bodyString += chatRequestSpec.compileRequestBodyString()
             }
 
         return AnthropicBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
+
+    override val routePrefixes: List<String> = listOf(MESSAGES_PATH)
 }
@@ -4,6 +4,7 @@ import com.anthropic.models.messages.MessageCreateParams
 import com.anthropic.models.messages.Metadata
 import dev.mokksy.aimocks.anthropic.anthropic
 import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
 import kotlin.jvm.optionals.getOrNull
 import kotlin.test.Test
 import kotlin.time.Duration.Companion.milliseconds
@@ -62,4 +63,34 @@ internal class AnthropicSdkMessagesTest : AbstractAnthropicTest() {
 
         text shouldBe "He-he!"
     }
+
+    @Test
+    fun `Should respond with a static message`() {
+        anthropic.messages {
+            model = modelName
+            systemMessageContains("You are static witch $seedValue")
+        } respondsStatic {
+            assistantContent = "Hi"
+        }
+
+        val params =
+            MessageCreateParams
+                .builder()
+                .model(modelName)
+                .maxTokens(maxTokensValue)
+                .system("You are static witch $seedValue")
+                .addUserMessage("Just say 'Hi' and nothing else")
+                .build()
+
+        val first = client.messages().create(params).validate()
+        val second = client.messages().create(params).validate()
+
+        first.model().asString() shouldBe modelName
+        first
+            .content()
+            .mapNotNull { it.text().getOrNull() }
+            .map { it.text() }
+            .first() shouldBe "Hi"
+        first.id() shouldNotBe second.id()
+    }
 }
@@ -0,0 +1,49 @@
+import org.jetbrains.kotlin.gradle.dsl.JvmTarget
+
+/*
+ * JMH benchmarks for the hot paths of all mocks: stub matching,
+ * response building and streaming.
+ *
+ * Run with `./gradlew :ai-mocks-benchmarks:jmh`.
+ * Narrow the run with `-Pjmh.includes=StreamingBenchmark`.
+ */
+plugins {
+    kotlin("jvm")
+    alias(libs.plugins.jmh)
+}
+
+kotlin {
+    jvmToolchain(17)
+    compilerOptions {
+        jvmTarget = JvmTarget.JVM_17
+    }
+}
+
+dependencies {
+    jmh(project(":ai-mocks-a2a"))
+    jmh(project(":ai-mocks-a2a-models"))
+    jmh(project(":ai-mocks-anthropic"))
+    jmh(project(":ai-mocks-gemini"))
+    jmh(project(":ai-mocks-ollama"))
+    jmh(project(":ai-mocks-openai"))
+    jmh(libs.kotlinx.coroutines.core.jvm)
+    jmh(libs.ktor.server.cio)
+    jmh(libs.ktor.server.netty)
+    jmh(project.dependencies.platform(libs.ktor.bom))
+    jmhRuntimeOnly(libs.slf4j.simple)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    // Reports gc.alloc.rate.norm (bytes allocated per operation) next to the score
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    includes =
+        providers
+            .gradleProperty("jmh.includes")
+            .map { listOf(it) }
+            .orElse(emptyList())
+}
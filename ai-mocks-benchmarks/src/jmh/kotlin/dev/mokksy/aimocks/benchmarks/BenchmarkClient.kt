@@ -0,0 +1,45 @@
+package dev.mokksy.aimocks.benchmarks
+
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.time.Duration
+
+/**
+ * Single HTTP/1.1 client shared by all benchmarks, so connection setup
+ * is amortized across invocations and does not dominate the measurements.
+ */
+internal object BenchmarkClient {
+    private val client: HttpClient =
+        HttpClient
+            .newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build()
+
+    /**
+     * Sends the [request] and returns the response body, failing fast on non-2xx status
+     * so a benchmark never silently measures the "no stub matched" path.
+     */
+    fun send(request: HttpRequest): String {
+        val response = client.send(request, HttpResponse.BodyHandlers.ofString())
+        check(response.statusCode() in 200..299) {
+            "Unexpected status ${response.statusCode()} for ${request.uri()}: ${response.body()}"
+        }
+        return response.body()
+    }
+
+    /**
+     * Sends the [request] and counts streamed frames as they arrive,
+     * without buffering the whole body.
+     */
+    fun stream(request: HttpRequest): Int {
+        val response = client.send(request, HttpResponse.BodyHandlers.ofLines())
+        check(response.statusCode() in 200..299) {
+            "Unexpected status ${response.statusCode()} for ${request.uri()}"
+        }
+        return response.body().use { lines ->
+            lines.filter { it.isNotBlank() && !it.startsWith("event:") }.count().toInt()
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package dev.mokksy.aimocks.benchmarks
+
+import dev.mokksy.aimocks.a2a.MockAgentServer
+import dev.mokksy.aimocks.a2a.model.Message
+import dev.mokksy.aimocks.a2a.model.MessageSendParams
+import dev.mokksy.aimocks.a2a.model.SendMessageRequest
+import dev.mokksy.aimocks.a2a.model.SendStreamingMessageRequest
+import dev.mokksy.aimocks.a2a.model.Task
+import dev.mokksy.aimocks.a2a.model.create
+import dev.mokksy.aimocks.a2a.model.taskArtifactUpdateEvent
+import dev.mokksy.aimocks.anthropic.MockAnthropic
+import dev.mokksy.aimocks.core.AbstractMockLlm
+import dev.mokksy.aimocks.gemini.MockGemini
+import dev.mokksy.aimocks.ollama.MockOllama
+import dev.mokksy.aimocks.openai.MockOpenai
+import kotlinx.coroutines.flow.asFlow
+import kotlinx.coroutines.flow.map
+import kotlinx.serialization.json.Json
+import java.net.URI
+import java.net.http.HttpRequest
+import kotlin.time.Duration
+
+internal const val TARGET_MODEL = "target-model"
+internal const val PROMPT = "Tell me a joke about benchmarks"
+
+/**
+ * Provider-specific knowledge needed by the benchmarks:
+ * how to create a mock, register stubs and build a matching HTTP request.
+ *
+ * Non-target stubs differ from the target stub only by their cheap discriminator
+ * (model name, or JSON-RPC method for A2A), which is the worst case for matching:
+ * every candidate has to be inspected before the target one is found.
+ */
+@Suppress("MagicNumber")
+enum class Provider {
+    OPENAI {
+        override fun createMock(): AbstractMockLlm = MockOpenai(verbose = false)
+
+        override fun stub(
+            mock: AbstractMockLlm,
+            model: String,
+        ) {
+            (mock as MockOpenai).completion {
+                this.model = model
+                userMessageContains("joke")
+            } responds {
+                assistantContent = "Why did the benchmark cross the road?"
+            }
+        }
+
+        override fun streamingStub(
+            mock: AbstractMockLlm,
+            chunks: List<String>,
+        ) {
+            (mock as MockOpenai).completion {
+                model = TARGET_MODEL
+            } respondsStream {
+                responseChunks = chunks
+            }
+        }
+
+        override fun request(
+            mock: AbstractMockLlm,
+            streaming: Boolean,
+        ): HttpRequest =
+            post(
+                uri = "${mock.baseUrl()}/chat/completions",
+                body =
+                    """
+                    {"model":"$TARGET_MODEL","stream":$streaming,
+                    "messages":[{"role":"user","content":"$PROMPT"}]}
+                    """.trimIndent(),
+            )
+    },
+
+    ANTHROPIC {
+        override fun createMock(): AbstractMockLlm = MockAnthropic(verbose = false)
+
+        override fun stub(
+            mock: AbstractMockLlm,
+            model: String,
+        ) {
+            (mock as MockAnthropic).messages {
+                this.model = model
+                userMessageContains("joke")
+            } responds {
+                assistantContent = "Why did the benchmark cross the road?"
+            }
+        }
+
+        override fun streamingStub(
+            mock: AbstractMockLlm,
+            chunks: List<String>,
+        ) {
+            (mock as MockAnthropic).messages {
+                model = TARGET_MODEL
+            } respondsStream {
+                responseChunks = chunks
+            }
+        }
+
+        override fun request(
+            mock: AbstractMockLlm,
+            streaming: Boolean,
+        ): HttpRequest =
+            post(
+                uri = "${mock.baseUrl()}/v1/messages",
+                body =
+                    """
+                    {"model":"$TARGET_MODEL","max_tokens":1024,"stream":$streaming,
+                    "messages":[{"role":"user","content":"$PROMPT"}]}
+                    """.trimIndent(),
+            )
+    },
+
+    GEMINI {
+        override fun createMock(): AbstractMockLlm = MockGemini(port = 0, verbose = false)
+
+        override fun stub(
+            mock: AbstractMockLlm,
+            model: String,
+        ) {
+            (mock as MockGemini).generateContent {
+                this.model = model
+                userMessageContains("joke")
+            } responds {
+                content = "Why did the benchmark cross the road?"
+            }
+        }
+
+        override fun streamingStub(
+            mock: AbstractMockLlm,
+            chunks: List<String>,
+        ) {
+            (mock as MockGemini).generateContentStream {
+                model = TARGET_MODEL
+            } respondsStream {
+                responseChunks = chunks
+            }
+        }
+
+        override fun request(
+            mock: AbstractMockLlm,
+            streaming: Boolean,
+        ): HttpRequest {
+            val action = if (streaming) "streamGenerateContent?alt=sse" else "generateContent"
+            return post(
+                uri = "${mock.baseUrl()}/models/$TARGET_MODEL:$action",
+                body = """{"contents":[{"role":"user","parts":[{"text":"$PROMPT"}]}]}""",
+            )
+        }
+    },
+
+    OLLAMA {
+        override fun createMock(): AbstractMockLlm = MockOllama(verbose = false)
+
+        override fun stub(
+            mock: AbstractMockLlm,
+            model: String,
+        ) {
+            (mock as MockOllama).chat {
+                this.model = model
+                requestBodyContains("joke")
+            } responds {
+                content("Why did the benchmark cross the road?")
+            }
+        }
+
+        override fun streamingStub(
+            mock: AbstractMockLlm,
+            chunks: List<String>,
+        ) {
+            (mock as MockOllama).chat {
+                model = TARGET_MODEL
+            } respondsStream {
+                responseChunks = chunks
+                // Ollama mock paces chunks by default, benchmarks measure raw throughput
+                delayBetweenChunks = Duration.ZERO
+            }
+        }
+
+        override fun request(
+            mock: AbstractMockLlm,
+            streaming: Boolean,
+        ): HttpRequest =
+            post(
+                uri = "${mock.baseUrl()}/api/chat",
+                body =
+                    """
+                    {"model":"$TARGET_MODEL","stream":$streaming,
+                    "messages":[{"role":"user","content":"$PROMPT"}]}
+                    """.trimIndent(),
+            )
+    },
+
+    A2A {
+        private val methods = listOf("tasks/get", "tasks/cancel", "tasks/resubscribe")
+
+        override fun createMock(): AbstractMockLlm = MockAgentServer(verbose = false)
+
+        /**
+         * A2A stubs share the same path, so the JSON-RPC method is the discriminator.
+         * Non-target "models" are mapped onto the other JSON-RPC methods.
+         */
+        override fun stub(
+            mock: AbstractMockLlm,
+            model: String,
+        ) {
+            val server = mock as MockAgentServer
+            if (model == TARGET_MODEL) {
+                server.sendMessage() responds {
+                    result = task
+                }
+            } else {
+                when (methods[model.hashCode().mod(methods.size)]) {
+                    "tasks/get" -> server.getTask() responds { result = task }
+                    "tasks/cancel" -> server.cancelTask() responds { result = task }
+                    else -> server.taskResubscription() responds { }
+                }
+            }
+        }
+
+        override fun streamingStub(
+            mock: AbstractMockLlm,
+            chunks: List<String>,
+        ) {
+            (mock as MockAgentServer).sendStreamingMessage() responds {
+                responseFlow =
+                    chunks.asFlow().map { chunk ->
+                        taskArtifactUpdateEvent {
+                            id = task.id
+                            artifact {
+                                name = "joke"
+                                parts += textPart { text = chunk }
+                                append = true
+                            }
+                        }
+                    }
+            }
+        }
+
+        override fun request(
+            mock: AbstractMockLlm,
+            streaming: Boolean,
+        ): HttpRequest {
+            val params =
+                MessageSendParams.create {
+                    message {
+                        role = Message.Role.user
+                        parts += textPart { text = PROMPT }
+                    }
+                }
+            val body =
+                if (streaming) {
+                    Json.encodeToString(SendStreamingMessageRequest(id = "1", params = params))
+                } else {
+                    Json.encodeToString(SendMessageRequest(id = "1", params = params))
+                }
+            return post(uri = mock.baseUrl(), body = body)
+        }
+    }, ;
+
+    abstract fun createMock(): AbstractMockLlm
+
+    /**
+     * Registers a non-streaming stub matching requests for the given [model].
+     */
+    abstract fun stub(
+        mock: AbstractMockLlm,
+        model: String,
+    )
+
+    /**
+     * Registers a streaming stub for [TARGET_MODEL] emitting the given [chunks].
+     */
+    abstract fun streamingStub(
+        mock: AbstractMockLlm,
+        chunks: List<String>,
+    )
+
+    /**
+     * Builds a request hitting the stub registered for [TARGET_MODEL].
+     */
+    abstract fun request(
+        mock: AbstractMockLlm,
+        streaming: Boolean,
+    ): HttpRequest
+}
+
+private val task =
+    Task.create {
+        id = "tid_12345"
+        contextId = "ctx_12345"
+        status {
+            state = "completed"
+        }
+    }
+
+private fun post(
+    uri: String,
+    body: String,
+): HttpRequest =
+    HttpRequest
+        .newBuilder(URI.create(uri))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build()
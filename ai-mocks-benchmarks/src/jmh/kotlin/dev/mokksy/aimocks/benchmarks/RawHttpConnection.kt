@@ -0,0 +1,85 @@
+package dev.mokksy.aimocks.benchmarks
+
+import java.io.BufferedInputStream
+import java.io.ByteArrayOutputStream
+import java.io.InputStream
+import java.net.SocketAddress
+import java.nio.ByteBuffer
+import java.nio.channels.Channels
+import java.nio.channels.SocketChannel
+
+/**
+ * Minimal keep-alive HTTP/1.1 client over any socket channel, TCP or Unix domain.
+ *
+ * The JDK client does not support Unix domain sockets, so transport benchmarks use this client
+ * for both transports: only the transport differs between their measurements.
+ */
+internal class RawHttpConnection(
+    address: SocketAddress,
+) : AutoCloseable {
+    private val channel = SocketChannel.open(address)
+    private val input = BufferedInputStream(Channels.newInputStream(channel))
+
+    /**
+     * Sends a POST request for [path] with a JSON [body], and returns the response body.
+     */
+    fun post(
+        path: String,
+        body: ByteArray,
+    ): ByteArray {
+        val head =
+            "POST $path HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Content-Type: application/json\r\n" +
+                "Content-Length: ${body.size}\r\n\r\n"
+        val request = ByteBuffer.wrap(head.encodeToByteArray() + body)
+        while (request.hasRemaining()) channel.write(request)
+        return readResponse()
+    }
+
+    private fun readResponse(): ByteArray {
+        val status = input.readLine()
+        check(status.startsWith("HTTP/1.1 2")) { "Unexpected response: $status" }
+        var contentLength = -1
+        var chunked = false
+        while (true) {
+            val header = input.readLine()
+            if (header.isEmpty()) break
+            val name = header.substringBefore(':').trim().lowercase()
+            val value = header.substringAfter(':').trim()
+            when (name) {
+                "content-length" -> contentLength = value.toInt()
+                "transfer-encoding" -> chunked = value.equals("chunked", ignoreCase = true)
+            }
+        }
+        return when {
+            chunked -> readChunked()
+            contentLength >= 0 -> input.readNBytes(contentLength)
+            else -> error("Response without a length on a keep-alive connection")
+        }
+    }
+
+    private fun readChunked(): ByteArray {
+        val body = ByteArrayOutputStream()
+        while (true) {
+            val size = input.readLine().substringBefore(';').trim().toInt(radix = 16)
+            if (size > 0) body.write(input.readNBytes(size))
+            input.readLine()
+            if (size == 0) return body.toByteArray()
+        }
+    }
+
+    private fun InputStream.readLine(): String {
+        val line = StringBuilder()
+        while (true) {
+            val byte = read()
+            check(byte >= 0) { "Connection closed" }
+            if (byte == '\n'.code) return line.trimEnd('\r').toString()
+            line.append(byte.toChar())
+        }
+    }
+
+    override fun close() {
+        channel.close()
+    }
+}
@@ -0,0 +1,45 @@
+package dev.mokksy.aimocks.benchmarks
+
+import dev.mokksy.aimocks.core.AbstractMockLlm
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import java.net.http.HttpRequest
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures throughput of non-streaming responses with a single registered stub,
+ * so the score is dominated by response building and serialization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+open class ResponseBuildingBenchmark {
+    @Param
+    lateinit var provider: Provider
+
+    private lateinit var mock: AbstractMockLlm
+    private lateinit var request: HttpRequest
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        mock = provider.createMock()
+        provider.stub(mock, TARGET_MODEL)
+        request = provider.request(mock, streaming = false)
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        mock.shutdown()
+    }
+
+    @Benchmark
+    fun buildResponse(): String = BenchmarkClient.send(request)
+}
@@ -0,0 +1,71 @@
+package dev.mokksy.aimocks.benchmarks
+
+import dev.mokksy.aimocks.core.AbstractMockLlm
+import org.openjdk.jmh.annotations.AuxCounters
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import java.net.http.HttpRequest
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures end-to-end streaming of [chunkCount] chunks with no pacing.
+ *
+ * Besides time per stream, reports the number of frames received per second
+ * via the [FrameCounter] auxiliary counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+open class StreamingBenchmark {
+    @Param("10", "100", "1000")
+    @JvmField
+    var chunkCount: Int = 0
+
+    @Param
+    lateinit var provider: Provider
+
+    private lateinit var mock: AbstractMockLlm
+    private lateinit var request: HttpRequest
+
+    /**
+     * Frames received by the client, reported by JMH as a rate next to the primary score.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    open class FrameCounter {
+        @JvmField
+        var frames: Long = 0
+
+        @Setup(Level.Iteration)
+        fun reset() {
+            frames = 0
+        }
+    }
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        mock = provider.createMock()
+        provider.streamingStub(mock, List(chunkCount) { "token$it " })
+        request = provider.request(mock, streaming = true)
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        mock.shutdown()
+    }
+
+    @Benchmark
+    fun stream(counter: FrameCounter): Int {
+        val frames = BenchmarkClient.stream(request)
+        counter.frames += frames
+        return frames
+    }
+}
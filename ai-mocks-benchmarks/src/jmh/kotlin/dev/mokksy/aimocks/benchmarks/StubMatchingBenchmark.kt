@@ -0,0 +1,52 @@
+package dev.mokksy.aimocks.benchmarks
+
+import dev.mokksy.aimocks.core.AbstractMockLlm
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import java.net.http.HttpRequest
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures request-to-stub matching latency as the number of registered stubs grows.
+ *
+ * The target stub is registered last, behind [stubCount] - 1 stubs
+ * that differ only in model (or JSON-RPC method for A2A).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+open class StubMatchingBenchmark {
+    @Param("1", "10", "100", "500")
+    @JvmField
+    var stubCount: Int = 0
+
+    @Param
+    lateinit var provider: Provider
+
+    private lateinit var mock: AbstractMockLlm
+    private lateinit var request: HttpRequest
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        mock = provider.createMock()
+        repeat(stubCount - 1) { provider.stub(mock, "model-$it") }
+        provider.stub(mock, TARGET_MODEL)
+        request = provider.request(mock, streaming = false)
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        mock.shutdown()
+    }
+
+    @Benchmark
+    fun matchStub(): String = BenchmarkClient.send(request)
+}
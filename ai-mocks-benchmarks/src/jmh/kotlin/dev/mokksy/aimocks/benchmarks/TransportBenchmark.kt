@@ -0,0 +1,96 @@
+package dev.mokksy.aimocks.benchmarks
+
+import dev.mokksy.aimocks.core.AbstractMockLlm
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import java.net.InetSocketAddress
+import java.net.SocketAddress
+import java.net.UnixDomainSocketAddress
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.TimeUnit
+
+/**
+ * Compares the throughput of non-streaming requests to an Ollama mock over loopback TCP
+ * and over a Unix domain socket.
+ *
+ * With [keepAlive], each thread sends its requests over a single connection;
+ * without it, each request opens a connection, as a load harness churning connections does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+open class TransportBenchmark {
+    enum class Transport { TCP, UNIX_SOCKET }
+
+    @Param
+    lateinit var transport: Transport
+
+    @Param("true", "false")
+    @JvmField
+    var keepAlive: Boolean = true
+
+    private lateinit var mock: AbstractMockLlm
+    private lateinit var socketDirectory: Path
+    private lateinit var address: SocketAddress
+    private val body =
+        """
+        {"model":"$TARGET_MODEL","stream":false,
+        "messages":[{"role":"user","content":"$PROMPT"}]}
+        """.trimIndent().encodeToByteArray()
+
+    /**
+     * Connection of a benchmark thread, kept open across requests with [keepAlive].
+     */
+    @State(Scope.Thread)
+    open class ClientConnection {
+        var connection: RawHttpConnection? = null
+
+        @TearDown(Level.Trial)
+        fun close() {
+            connection?.close()
+        }
+    }
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        mock = Provider.OLLAMA.createMock()
+        Provider.OLLAMA.stub(mock, TARGET_MODEL)
+        address =
+            when (transport) {
+                Transport.TCP -> {
+                    InetSocketAddress("localhost", mock.port())
+                }
+
+                Transport.UNIX_SOCKET -> {
+                    socketDirectory = Files.createTempDirectory("aimocks")
+                    val path = socketDirectory.resolve("ollama.sock")
+                    mock.bindUnixSocket(path)
+                    UnixDomainSocketAddress.of(path)
+                }
+            }
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        mock.shutdown()
+        if (transport == Transport.UNIX_SOCKET) Files.deleteIfExists(socketDirectory)
+    }
+
+    @Benchmark
+    fun chat(client: ClientConnection): ByteArray =
+        if (keepAlive) {
+            val connection = client.connection ?: RawHttpConnection(address).also { client.connection = it }
+            connection.post("/api/chat", body)
+        } else {
+            RawHttpConnection(address).use { it.post("/api/chat", body) }
+        }
+}
@@ -24,8 +24,18 @@ kotlin {
                 api(libs.kotlinLogging)
                 api(libs.kotlinx.schema.json)
                 api(libs.kotlinx.serialization.json)
+                api(libs.ktor.client.core)
                 api(libs.mokksy)
                 api(project.dependencies.platform(libs.ktor.bom))
+                // Optional engines of the Unix domain socket (CIO) and of the tuned Netty front ends,
+                // detected at runtime: applications using those front ends add the engine themselves
+                compileOnly(libs.ktor.server.cio)
+                compileOnly(libs.ktor.server.netty)
+                // Optional native transports, detected at runtime: applications add the native library
+                // for their platform, which brings these classes along
+                compileOnly(libs.netty.transport.classes.epoll)
+                compileOnly(libs.netty.transport.classes.io.uring)
+                implementation(project.dependencies.platform(libs.netty.bom))
             }
         }
         commonTest {
@@ -36,5 +46,14 @@ kotlin {
 
             languageSettings.enableLanguageFeature("MultiDollarInterpolation")
         }
+        jvmTest {
+            dependencies {
+                // Ktor client dependencies for HTTP tests
+                implementation(libs.ktor.client.java)
+                implementation(libs.ktor.server.cio)
+                implementation(libs.ktor.server.netty)
+                runtimeOnly(libs.slf4j.simple)
+            }
+        }
     }
 }
@@ -1,12 +1,19 @@
 package dev.mokksy.aimocks.core
 
+import dev.mokksy.aimocks.core.json.ResponseTemplate
+import dev.mokksy.aimocks.core.time.responseDelay
+import dev.mokksy.aimocks.core.time.timingHeaders
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
 import dev.mokksy.mokksy.response.ResponseDefinitionBuilder
 import io.github.oshai.kotlinlogging.KLogger
 import io.github.oshai.kotlinlogging.KotlinLogging
+import io.ktor.http.ContentType
+import io.ktor.http.content.ByteArrayContent
 import java.util.function.Consumer
+import kotlin.jvm.JvmName
 import kotlin.reflect.KClass
+import kotlin.time.Duration
 
 /**
  * Defines a building step for constructing a mock response based on specific request scenarios
@@ -22,10 +29,12 @@ import kotlin.reflect.KClass
  * @property mokksy A reference to the [MokksyServer] instance.
  * @property buildingStep A reference to the internally managed [BuildingStep]
  *                        for configuring mock response behavior.
+ * @property context State shared with the mock which created this step, e.g. its clock.
  */
-public abstract class AbstractBuildingStep<P : Any, R : AbstractResponseSpecification<P, *>>(
+public abstract class AbstractBuildingStep<P : Any, R : AbstractResponseSpecification<P, *>> @JvmOverloads constructor(
     protected val mokksy: MokksyServer,
     protected val buildingStep: BuildingStep<P>,
+    protected val context: MockContext = MockContext(),
 ) {
     protected val logger: KLogger =
         KotlinLogging.logger(
@@ -48,6 +57,40 @@ public abstract class AbstractBuildingStep<P : Any, R : AbstractResponseSpecific
         }
     }
 
+    /**
+     * Defines a response which does not depend on the request.
+     *
+     * Steps supporting it evaluate the [block] once, when the stub is defined, encode the response once
+     * and only fill in its volatile fields (e.g. id, creation time, token usage) on each request.
+     * Other steps evaluate it on each request, like [responds].
+     *
+     * @param block Configuration of the response, which must not depend on the request or on the call time.
+     */
+    public open infix fun respondsStatic(block: R.() -> Unit) {
+        responds { block() }
+    }
+
+    /**
+     * Responds with the [template] rendered with the field values of each request, as JSON.
+     *
+     * @param simulatedDelay Delay before the response, honoured on the mock clock.
+     * @param values Returns the JSON-encoded values of the template fields for a request.
+     */
+    @JvmName("respondsWithTemplate")
+    protected fun respondsWithTemplate(
+        template: ResponseTemplate,
+        simulatedDelay: Duration,
+        values: suspend ResponseDefinitionBuilder<P, ByteArrayContent>.(request: P) -> List<String>,
+    ) {
+        buildingStep.respondsWith<ByteArrayContent> {
+            context.stubMatched()
+            delay = context.clock.responseDelay(simulatedDelay)
+            headers += context.clock.timingHeaders(simulatedDelay)
+            val fields = values(request.body())
+            body = ByteArrayContent(template.render(fields), ContentType.Application.Json)
+        }
+    }
+
     /**
      * Specifies an error response for a given request scenario.
      * This allows defining the characteristics of an erroneous response,
@@ -62,6 +105,7 @@ public abstract class AbstractBuildingStep<P : Any, R : AbstractResponseSpecific
         block: suspend ResponseDefinitionBuilder<P, T>.() -> Unit,
     ) {
         buildingStep.respondsWith {
+            context.stubMatched()
             block(this)
         }
     }
@@ -89,6 +133,7 @@ public abstract class AbstractBuildingStep<P : Any, R : AbstractResponseSpecific
         block: Consumer<ResponseDefinitionBuilder<P, R>>,
     ) {
         buildingStep.respondsWith {
+            context.stubMatched()
             block.accept(this)
         }
     }
@@ -1,11 +1,38 @@
 package dev.mokksy.aimocks.core
 
+import dev.mokksy.aimocks.core.cassette.Cassette
+import dev.mokksy.aimocks.core.cassette.installCassette
+import dev.mokksy.aimocks.core.dispatch.StubPrefilter
+import dev.mokksy.aimocks.core.journal.ExportFormat
+import dev.mokksy.aimocks.core.journal.JournalExporter
+import dev.mokksy.aimocks.core.journal.MokksyJournalBound
+import dev.mokksy.aimocks.core.journal.RequestJournal
+import dev.mokksy.aimocks.core.journal.installMokksyJournalBound
+import dev.mokksy.aimocks.core.matching.SubstringIndex
+import dev.mokksy.aimocks.core.metrics.MockMetrics
+import dev.mokksy.aimocks.core.metrics.installMetrics
+import dev.mokksy.aimocks.core.stream.BlockingSourcePolicy
+import dev.mokksy.aimocks.core.stream.StreamMonitor
+import dev.mokksy.aimocks.core.time.MockClock
+import dev.mokksy.aimocks.core.time.PacingMonitor
+import dev.mokksy.aimocks.core.transport.DetachedMocks
+import dev.mokksy.aimocks.core.transport.InProcessTransport
+import dev.mokksy.aimocks.core.transport.NettyEndpoint
+import dev.mokksy.aimocks.core.transport.NettyEngineSettings
+import dev.mokksy.aimocks.core.transport.NettyServer
+import dev.mokksy.aimocks.core.transport.ServerEngines
+import dev.mokksy.aimocks.core.transport.UnixSocketServer
+import dev.mokksy.aimocks.core.transport.startDetached
 import dev.mokksy.mokksy.MokksyServer
 import dev.mokksy.mokksy.ServerConfiguration
 import dev.mokksy.mokksy.shutdown
 import dev.mokksy.mokksy.start
+import io.ktor.client.engine.HttpClientEngineConfig
+import io.ktor.client.engine.HttpClientEngineFactory
 import io.ktor.server.application.Application
 import io.ktor.server.application.log
+import io.ktor.server.engine.EmbeddedServer
+import java.nio.file.Path
 
 /**
  * Abstract class representing a mock Language Model (LLM) server.
@@ -13,6 +40,9 @@ import io.ktor.server.application.log
  * Language Model interactions. It is built upon the [MokksyServer] framework for
  * configuring and managing mock servers.
  *
+ * The Mokksy server is started on its [port] as the mock is built, except for the mocks built by a
+ * [MockRuntime] or a [MockGateway], which serve them in-process only: see [MockRuntime.attach].
+ *
  * @constructor Initializes the mock server with the specified configuration.
  * @param port The port number to use for the server. Defaults to 0, which allows
  *             the system to select an available port automatically.
@@ -29,21 +59,302 @@ public abstract class AbstractMockLlm(
     configuration: ServerConfiguration,
     applicationConfigurer: (Application.() -> Unit)? = {},
 ) {
+    /**
+     * State shared with the building steps created by this mock.
+     *
+     * Stub factories pass it, [scoped to the stub][MockContext.forStub], to every building step they create.
+     */
+    protected val context: MockContext = MockContext()
+
+    internal val inProcess: InProcessTransport = InProcessTransport()
+
+    private val mokksyJournal =
+        MokksyJournalBound(
+            verify = { mokksy.verifyNoUnexpectedRequests() },
+            reset = { mokksy.resetMatchState() },
+        )
+
+    @Volatile
+    private var unixSocketServer: UnixSocketServer? = null
+
+    @Volatile
+    private var nettyServer: NettyServer? = null
+
     protected val mokksy: MokksyServer =
         MokksyServer(
             port = port,
             configuration = configuration,
         ) {
+            installMokksyJournalBound(mokksyJournal)
+            installMetrics(context)
+            installCassette(context)
+            inProcess.attach(this)
             applicationConfigurer?.invoke(this)
             log.info("Running ${configuration.name} with $engine engine")
-        }.apply { start() }
+        }
+
+    /**
+     * Embedded server of Mokksy, started without its port, if this mock is served in-process only.
+     */
+    private val detachedServer: EmbeddedServer<*, *>? =
+        if (DetachedMocks.requested()) mokksy.startDetached() else null
+
+    init {
+        if (detachedServer == null) mokksy.start()
+    }
+
+    /**
+     * Whether this mock is served in-process only, without a port of its own.
+     */
+    internal val detached: Boolean
+        get() = detachedServer != null
+
+    /**
+     * Pre-filter of the stubs registered by this mock, bucketed by path and discriminator.
+     *
+     * Stub factories register each stub here and attach the returned route's guard,
+     * so only the stubs in the request's bucket run their full matchers.
+     */
+    protected val stubPrefilter: StubPrefilter = StubPrefilter()
+
+    /**
+     * Substring conditions of all stubs, decided in a single pass over the request body.
+     *
+     * Stub factories pass the specification's body string matchers through
+     * [SubstringIndex.bind] before registering them.
+     */
+    protected val substringIndex: SubstringIndex = SubstringIndex()
+
+    /**
+     * Clock honouring simulated delays (response delay, delay between chunks).
+     *
+     * Defaults to [MockClock.System], which sleeps in wall-clock time.
+     * Set a virtual clock, e.g. [dev.mokksy.aimocks.core.time.VirtualClock],
+     * to honour delays logically without real sleeps:
+     * the simulated timing is then reported in the
+     * [dev.mokksy.aimocks.core.time.TimingHeaders] of each response.
+     */
+    public var clock: MockClock
+        get() = context.clock
+        set(value) {
+            context.clock = value
+        }
+
+    /**
+     * Pacing statistics of the streamed responses: configured versus achieved chunk rate
+     * and how many late chunks were coalesced into a single write.
+     */
+    public val pacing: PacingMonitor
+        get() = context.pacing
+
+    /**
+     * Outcomes of the streamed responses: how many completed, were cancelled by their client or errored,
+     * and how many bytes were written.
+     */
+    public val streams: StreamMonitor
+        get() = context.streams
+
+    /**
+     * Request metrics of this mock: requests and latencies of each stub, streamed chunks and unmatched requests.
+     *
+     * Disabled by default: set [MockMetrics.enabled], or serve them on [MockMetrics.endpoint].
+     */
+    public val metrics: MockMetrics
+        get() = context.metrics
+
+    /**
+     * Memory-bounded journal of the requests received by this mock, with their bodies kept
+     * according to its [retention policy][RequestJournal.bodyRetention].
+     *
+     * Disabled by default: set [RequestJournal.enabled].
+     */
+    public val journal: RequestJournal
+        get() = context.journal
+
+    /**
+     * Number of requests Mokksy keeps in its own journal at most, with their whole bodies,
+     * to [verify][verifyNoUnexpectedRequests] them: once it holds as many, it is cleared,
+     * so a long-running mock keeps a flat heap. `0` never clears it.
+     *
+     * Mokksy clears its journal along with the match state of the stubs. The unexpected requests
+     * of a cleared journal are still reported by [verifyNoUnexpectedRequests], until [resetMatchState].
+     * Defaults to [RequestJournal.DEFAULT_MAX_ENTRIES].
+     *
+     * @throws IllegalArgumentException if set to a negative number.
+     */
+    public var mokksyJournalLimit: Int
+        get() = mokksyJournal.maxEntries
+        set(value) {
+            mokksyJournal.maxEntries = value
+        }
+
+    /**
+     * Starts writing every exchange of this mock to the file at [path] as it completes, in [format]:
+     * see [RequestJournal.export].
+     *
+     * Writes happen on a background thread, so request handling never waits for the disk.
+     * Close the returned exporter, or [shut down][shutdown] the mock, to complete the file.
+     */
+    @JvmOverloads
+    public fun exportJournal(
+        path: Path,
+        format: ExportFormat = ExportFormat.NDJSON,
+    ): JournalExporter = journal.export(path, format)
+
+    /**
+     * Cassette answering the requests which match no stub: in record mode, they are forwarded
+     * to an upstream server and its responses recorded; in replay mode, they are answered
+     * with the recorded responses. See [Cassette].
+     *
+     * `null` by default: such requests are answered with `404 Not Found`.
+     * Setting another cassette closes the previous one, completing its recording.
+     */
+    public var cassette: Cassette?
+        get() = context.cassette
+        @Synchronized
+        set(value) {
+            val previous = context.cassette
+            context.cassette = value
+            if (previous !== value) previous?.close()
+        }
+
+    /**
+     * Execution policy of blocking chunk sources, such as Java streams, of the streamed responses.
+     *
+     * Defaults to [BlockingSourcePolicy.IO]. The policy is [closed][BlockingSourcePolicy.close]
+     * when the mock is [shut down][shutdown], stopping the thread pool of a
+     * [dedicated][BlockingSourcePolicy.dedicated] policy.
+     */
+    public var blockingSources: BlockingSourcePolicy
+        get() = context.blockingSources
+        set(value) {
+            context.blockingSources = value
+        }
 
     /**
      * Returns the port number on which the mock server is running.
      *
      * @return The port number used by the mock server.
+     * @throws IllegalStateException if this mock is served in-process only, by a [MockRuntime] or a [MockGateway].
      */
-    public fun port(): Int = mokksy.port()
+    public fun port(): Int {
+        checkNotDetached()
+        return mokksy.port()
+    }
+
+    /**
+     * Path of the API of this mock under the root of its server, e.g. `/v1`, or empty.
+     *
+     * The [baseUrl] ends with it, as do the base URLs of this mock on a [MockRuntime] or a [MockGateway].
+     */
+    public open val basePath: String
+        get() = ""
+
+    /**
+     * Ktor client engine serving requests to this mock in-process, without a connection:
+     *
+     * ```kotlin
+     * val client = HttpClient(mock.inProcessEngine) { install(ContentNegotiation) { json() } }
+     * client.post("${mock.baseUrl()}/v1/chat/completions") { ... }
+     * ```
+     *
+     * Requests go through the same routing, stubs, metrics and journal as requests over HTTP,
+     * and streamed responses are read chunk by chunk, but no connection is opened,
+     * so requests pay no loopback TCP and use no ephemeral port. The host and port of the request URL are ignored.
+     *
+     * The mock itself still listens on its [port], as it is started there when built,
+     * unless it is built by a [MockRuntime] or a [MockGateway], which serve it in-process only.
+     */
+    public val inProcessEngine: HttpClientEngineFactory<HttpClientEngineConfig>
+        get() = inProcess
+
+    /**
+     * Path prefixes of the routes of this mock, by which a [MockGateway] dispatches requests to it.
+     *
+     * A prefix matches its own path and the paths below it; `/` matches every path.
+     * Defaults to `/`: providers override it with the prefixes of their API.
+     */
+    public open val routePrefixes: List<String>
+        get() = listOf("/")
+
+    /**
+     * Unix domain socket this mock is served on, if [bound][bindUnixSocket].
+     */
+    public val unixSocket: Path?
+        get() = unixSocketServer?.path
+
+    /**
+     * Serves this mock on a Unix domain socket at [path] as well as on its [port],
+     * for clients on the same host which support Unix domain sockets.
+     *
+     * Such clients skip loopback TCP and use no ephemeral port, which dominate at high connection rates.
+     * Send their requests to [unixSocketBaseUrl]. A socket left at [path] by a former run is replaced,
+     * and the socket file is deleted when the mock is [shut down][shutdown].
+     *
+     * Mokksy binds the engine of the mock to its TCP port only, so the socket is served by a separate
+     * CIO engine, which hands each request over to the mock through its [inProcessEngine]:
+     * requests take one more in-memory hop than requests to the [port], but no loopback TCP.
+     *
+     * The CIO engine is an optional dependency: add `io.ktor:ktor-server-cio` to serve a Unix domain socket.
+     *
+     * @throws IllegalStateException if this mock is bound to a Unix domain socket already,
+     *         or if the CIO engine is not on the classpath.
+     * @throws java.nio.file.FileAlreadyExistsException if a file other than a socket exists at [path].
+     */
+    @Synchronized
+    public fun bindUnixSocket(path: Path) {
+        check(unixSocketServer == null) { "Already bound to the Unix domain socket $unixSocket" }
+        ServerEngines.checkCio()
+        unixSocketServer = UnixSocketServer(path, inProcess)
+    }
+
+    /**
+     * Provides the base URL of the mock server for clients connected to its [unixSocket]:
+     * the [baseUrl] on host `localhost`, without a port.
+     */
+    public fun unixSocketBaseUrl(): String = "http://localhost$basePath"
+
+    /**
+     * Netty engine this mock is served on, if [bound][bindNetty].
+     */
+    public val nettyEndpoint: NettyEndpoint?
+        get() = nettyServer?.endpoint()
+
+    /**
+     * Serves this mock on a Netty engine configured with [settings], as well as on its [port]:
+     * choose the socket transport, e.g. native `epoll` or `io_uring` on Linux, the number of threads,
+     * the connection backlog and the write-buffer watermarks, for load tests beyond the capacity of the defaults.
+     *
+     * Returns the engine as started, with the transport actually in use; send requests to its
+     * [baseUrl][NettyEndpoint.baseUrl]. The engine is stopped when the mock is [shut down][shutdown].
+     *
+     * Only requests to this engine benefit from the [settings]: Mokksy starts the engine on the [port]
+     * of the mock itself, with its defaults, and this engine hands each request over to the mock
+     * through its [inProcessEngine].
+     *
+     * The Netty engine is an optional dependency: add `io.ktor:ktor-server-netty` to serve one.
+     *
+     * @throws IllegalStateException if this mock is bound to a Netty engine already,
+     *         if the Netty engine is not on the classpath, or if the chosen native transport is not available.
+     */
+    @Synchronized
+    @JvmOverloads
+    public fun bindNetty(settings: NettyEngineSettings = NettyEngineSettings()): NettyEndpoint {
+        check(nettyServer == null) { "Already bound to $nettyEndpoint" }
+        ServerEngines.checkNetty()
+        val server = NettyServer(settings, inProcess)
+        nettyServer = server
+        return server.endpoint()
+    }
+
+    private fun NettyServer.endpoint(): NettyEndpoint =
+        NettyEndpoint(
+            port = port,
+            baseUrl = "http://localhost:$port$basePath",
+            transport = transport,
+            acceptorThreads = acceptorThreads,
+            workerThreads = workerThreads,
+        )
 
     /**
      * Stops the mock LLM server and releases its resources
@@ -59,25 +370,37 @@ public abstract class AbstractMockLlm(
         gracePeriodMillis: Long = 500,
         timeoutMillis: Long = 1000,
     ) {
-        mokksy.shutdown(gracePeriodMillis, timeoutMillis)
+        unixSocketServer?.close()
+        nettyServer?.close()
+        val server = detachedServer
+        if (server != null) {
+            server.stop(gracePeriodMillis, timeoutMillis)
+        } else {
+            mokksy.shutdown(gracePeriodMillis, timeoutMillis)
+        }
+        journal.closeExport()
+        cassette?.close()
+        blockingSources.close()
     }
 
     /**
-     * Resets the match state of all stubs and clears the request journal.
+     * Resets the match state of all stubs and clears the request journals: Mokksy's and the [journal].
      *
      * Call this in test setup (e.g., `@BeforeEach`) when sharing a single mock
      * server across multiple test classes to prevent cross-test contamination.
      */
     public fun resetMatchState() {
-        mokksy.resetMatchState()
+        mokksyJournal.clear()
+        journal.clear()
     }
 
     /**
      * Verifies that all requests received by the mock server were expected.
-     * Throws an exception if any unexpected requests were made.
+     * Throws an exception if any unexpected requests were made, including those of the journals
+     * cleared to stay within the [mokksyJournalLimit].
      */
     public fun verifyNoUnexpectedRequests() {
-        mokksy.verifyNoUnexpectedRequests()
+        mokksyJournal.verifyNoUnexpectedRequests()
     }
 
     @Deprecated(
@@ -91,6 +414,14 @@ public abstract class AbstractMockLlm(
      * to a language model client.
      *
      * @return The base URL as a string.
+     * @throws IllegalStateException if this mock is served in-process only, by a [MockRuntime] or a [MockGateway].
      */
-    public open fun baseUrl(): String = mokksy.baseUrl()
+    public open fun baseUrl(): String {
+        checkNotDetached()
+        return mokksy.baseUrl() + basePath
+    }
+
+    private fun checkNotDetached() {
+        check(!detached) { "${this::class.simpleName} is served in-process only: use the base URL of its runtime" }
+    }
 }
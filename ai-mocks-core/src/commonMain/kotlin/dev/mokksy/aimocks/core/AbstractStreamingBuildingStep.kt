@@ -7,12 +7,14 @@ import java.util.function.Consumer
 public abstract class AbstractStreamingBuildingStep<
     P : Any,
     R : AbstractResponseSpecification<P, *>,
->(
+> @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<P>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<P, R>(
         mokksy = mokksy,
         buildingStep = buildingStep,
+        context = context,
     ) {
     public abstract infix fun respondsStream(block: suspend R.() -> Unit)
 
@@ -0,0 +1,119 @@
+package dev.mokksy.aimocks.core
+
+import dev.mokksy.aimocks.core.cassette.Cassette
+import dev.mokksy.aimocks.core.journal.RequestJournal
+import dev.mokksy.aimocks.core.metrics.CallMetrics
+import dev.mokksy.aimocks.core.metrics.MockMetrics
+import dev.mokksy.aimocks.core.stream.BlockingSourcePolicy
+import dev.mokksy.aimocks.core.stream.StreamMonitor
+import dev.mokksy.aimocks.core.time.MockClock
+import dev.mokksy.aimocks.core.time.PacingMonitor
+import kotlinx.coroutines.currentCoroutineContext
+import kotlin.concurrent.Volatile
+import kotlin.jvm.JvmOverloads
+
+/**
+ * State shared by a mock and the building steps it creates.
+ *
+ * Building steps read it when a response is produced,
+ * so changes made after the stubs were registered still apply.
+ *
+ * @property stubName Name of the stub this context was created for with [forStub], if any.
+ */
+public class MockContext private constructor(
+    private val shared: Shared,
+    public val stubName: String?,
+) {
+    /**
+     * @param clock Initial [MockClock] honouring simulated delays.
+     */
+    @JvmOverloads
+    public constructor(clock: MockClock = MockClock.System) : this(Shared(clock), null)
+
+    private class Shared(
+        clock: MockClock,
+    ) {
+        @Volatile
+        var clock: MockClock = clock
+
+        val pacing = PacingMonitor()
+
+        val streams = StreamMonitor()
+
+        @Volatile
+        var blockingSources: BlockingSourcePolicy = BlockingSourcePolicy.IO
+
+        val metrics = MockMetrics(streams)
+
+        val journal = RequestJournal()
+
+        @Volatile
+        var cassette: Cassette? = null
+    }
+
+    /**
+     * Clock honouring simulated delays of the responses.
+     */
+    public var clock: MockClock
+        get() = shared.clock
+        set(value) {
+            shared.clock = value
+        }
+
+    /**
+     * Pacing statistics of the streamed responses.
+     */
+    public val pacing: PacingMonitor
+        get() = shared.pacing
+
+    /**
+     * Outcomes of the streamed responses: completed, cancelled by the client or errored.
+     */
+    public val streams: StreamMonitor
+        get() = shared.streams
+
+    /**
+     * Execution policy of blocking chunk sources of the streamed responses.
+     */
+    public var blockingSources: BlockingSourcePolicy
+        get() = shared.blockingSources
+        set(value) {
+            shared.blockingSources = value
+        }
+
+    /**
+     * Request metrics of the mock.
+     */
+    public val metrics: MockMetrics
+        get() = shared.metrics
+
+    /**
+     * Memory-bounded journal of the requests received by the mock.
+     */
+    public val journal: RequestJournal
+        get() = shared.journal
+
+    /**
+     * Cassette answering the requests which match no stub, if any.
+     */
+    public var cassette: Cassette?
+        get() = shared.cassette
+        set(value) {
+            shared.cassette = value
+        }
+
+    /**
+     * Returns a context sharing this state, whose responses are attributed to the stub named [name]
+     * in the [metrics].
+     */
+    public fun forStub(name: String?): MockContext = MockContext(shared, name)
+
+    /**
+     * Attributes the request being answered to the stub of this context in the [metrics].
+     *
+     * Building steps call it first thing when they produce a response.
+     */
+    public suspend fun stubMatched() {
+        currentCoroutineContext()[CallMetrics]?.matched(stubName)
+    }
+}
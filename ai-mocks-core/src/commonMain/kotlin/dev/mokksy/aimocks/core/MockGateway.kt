@@ -0,0 +1,195 @@
+package dev.mokksy.aimocks.core
+
+import dev.mokksy.aimocks.core.metrics.MockMetrics
+import dev.mokksy.aimocks.core.metrics.renderPrometheus
+import dev.mokksy.aimocks.core.transport.DetachedMocks
+import dev.mokksy.aimocks.core.transport.Mount
+import dev.mokksy.aimocks.core.transport.MountTransport
+import dev.mokksy.aimocks.core.transport.NettyEndpoint
+import dev.mokksy.aimocks.core.transport.NettyEngineSettings
+import dev.mokksy.aimocks.core.transport.NettyServer
+import dev.mokksy.aimocks.core.transport.ServerEngines
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * One port serving the APIs of several providers, as a gateway does, each by a [mounted][mount] mock:
+ *
+ * ```kotlin
+ * val gateway = MockGateway()
+ * val openai = gateway.mount { MockOpenai() } // /v1/chat/completions, /v1/responses, ...
+ * val anthropic = gateway.mount { MockAnthropic() } // /v1/messages
+ * val ollama = gateway.mount { MockOllama() } // /api/...
+ * val agent = gateway.mount { MockAgentServer() } // every other path
+ * ```
+ *
+ * Requests are dispatched by their path to the mock with the longest matching
+ * [route prefix][AbstractMockLlm.routePrefixes]: a lookup per path segment, whatever the number of mocks.
+ * Each mock then handles the request in-process, with its own routes, stubs and content negotiation,
+ * so the JSON configuration of each provider is kept. The mocks built by the gateway are served
+ * in-process only, without a port of their own.
+ *
+ * [snapshot] and [prometheus] give a single view of the [metrics][AbstractMockLlm.metrics] of the mounted mocks,
+ * for those with metrics enabled.
+ *
+ * Closing the gateway stops its engine, but not the mounted mocks.
+ *
+ * The Netty engine is an optional dependency: add `io.ktor:ktor-server-netty` to build one.
+ *
+ * @param settings Settings of the engine; see [NettyEngineSettings].
+ * @throws IllegalStateException if the Netty engine is not on the classpath.
+ */
+public class MockGateway
+    @JvmOverloads
+    constructor(
+        settings: NettyEngineSettings = NettyEngineSettings(),
+    ) : AutoCloseable {
+        private class Mounted(
+            val name: String,
+            val mock: AbstractMockLlm,
+        )
+
+        private val routes = ConcurrentHashMap<String, Mounted>()
+        private val mounted = CopyOnWriteArrayList<Mounted>()
+
+        init {
+            ServerEngines.checkNetty()
+        }
+
+        private val server =
+            NettyServer(
+                settings,
+                MountTransport { path -> resolve(path)?.let { Mount(prefix = "", transport = it.mock.inProcess) } },
+            )
+
+        /**
+         * Engine serving the mounted mocks.
+         */
+        public val endpoint: NettyEndpoint =
+            NettyEndpoint(
+                port = server.port,
+                baseUrl = "http://localhost:${server.port}",
+                transport = server.transport,
+                acceptorThreads = server.acceptorThreads,
+                workerThreads = server.workerThreads,
+            )
+
+        /**
+         * Mounted mocks, in the order they were mounted.
+         */
+        public val mocks: List<AbstractMockLlm>
+            get() = mounted.map { it.mock }
+
+        /**
+         * Builds the mock created by [factory] and serves its routes on this gateway, until [unmounted][unmount].
+         *
+         * The mock is served in-process only, without a port of its own: its [port][AbstractMockLlm.port]
+         * and [base URL][AbstractMockLlm.baseUrl] are not available, and its base URL on this gateway is
+         * given by [baseUrl]. Shut it down when done.
+         *
+         * @return The mock, named after the simple name of its class in the [metrics view][snapshot].
+         * @throws IllegalArgumentException If a route prefix of the mock does not start with `/`.
+         * @throws IllegalStateException If another mounted mock serves one of its route prefixes.
+         */
+        public fun <T : AbstractMockLlm> mount(factory: () -> T): T {
+            val mock = DetachedMocks.build(factory)
+            try {
+                mount(mock)
+            } catch (e: IllegalArgumentException) {
+                mock.shutdown()
+                throw e
+            } catch (e: IllegalStateException) {
+                mock.shutdown()
+                throw e
+            }
+            return mock
+        }
+
+        /**
+         * Serves the routes of the [mock] on this gateway, until [unmounted][unmount].
+         *
+         * A mock built beforehand keeps listening on its own port as well:
+         * build it with the gateway to serve it in-process only.
+         *
+         * @param name Name of the mock in the [metrics view][snapshot]. Defaults to the simple name of its class.
+         * @return Base URL of the mock on this gateway, to be provided to a language model client.
+         * @throws IllegalArgumentException If a route prefix of the mock does not start with `/`.
+         * @throws IllegalStateException If another mounted mock serves one of its route prefixes.
+         */
+        @Synchronized
+        @JvmOverloads
+        public fun mount(
+            mock: AbstractMockLlm,
+            name: String = mock::class.simpleName ?: "mock",
+        ): String {
+            if (mounted.none { it.mock === mock }) {
+                val prefixes = mock.routePrefixes.map { it.normalizedPrefix() }
+                prefixes.forEach { prefix ->
+                    check(prefix !in routes) { "The route prefix '$prefix' is served by ${routes[prefix]?.name}" }
+                }
+                val entry = Mounted(name, mock)
+                prefixes.forEach { routes[it] = entry }
+                mounted += entry
+            }
+            return baseUrl(mock)
+        }
+
+        /**
+         * Stops serving the routes of the [mock]; the mock itself keeps running.
+         */
+        @Synchronized
+        public fun unmount(mock: AbstractMockLlm) {
+            routes.values.removeIf { it.mock === mock }
+            mounted.removeIf { it.mock === mock }
+        }
+
+        /**
+         * Returns the base URL of the [mock] on this gateway, to be provided to a language model client.
+         */
+        public fun baseUrl(mock: AbstractMockLlm): String =
+            "${endpoint.baseUrl}${mock.basePath}"
+
+        /**
+         * Returns the metrics of each stub of the mounted mocks, named after their mock as `<mock>/<stub>`.
+         *
+         * @see MockMetrics.snapshot
+         */
+        public fun snapshot(): List<MockMetrics.StubEntry> =
+            mounted.flatMap { entry ->
+                entry.mock.metrics.snapshot().map { it.copy(stub = "${entry.name}/${it.stub}") }
+            }
+
+        /**
+         * Returns the metrics of the mounted mocks in the Prometheus text exposition format,
+         * with stubs named as in [snapshot].
+         */
+        public fun prometheus(): String =
+            renderPrometheus(
+                entries = snapshot(),
+                streamsInFlight = mounted.sumOf { it.mock.metrics.streamsInFlight },
+                unmatchedRequests = mounted.sumOf { it.mock.metrics.unmatchedRequests },
+            )
+
+        override fun close() {
+            server.close()
+        }
+
+        override fun toString(): String = "MockGateway(endpoint=$endpoint, mocks=${mounted.map { it.name }})"
+
+        /**
+         * Returns the mock with the longest route prefix matching the [path], looking up each of its parents in turn.
+         */
+        private fun resolve(path: String): Mounted? {
+            var prefix = path.trimEnd('/')
+            while (prefix.isNotEmpty()) {
+                routes[prefix]?.let { return it }
+                prefix = prefix.substring(0, prefix.lastIndexOf('/'))
+            }
+            return routes["/"]
+        }
+
+        private fun String.normalizedPrefix(): String {
+            require(startsWith('/')) { "Route prefix must start with '/': '$this'" }
+            return trimEnd('/').ifEmpty { "/" }
+        }
+    }
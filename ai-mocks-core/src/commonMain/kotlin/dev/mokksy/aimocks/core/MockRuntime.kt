@@ -0,0 +1,149 @@
+package dev.mokksy.aimocks.core
+
+import dev.mokksy.aimocks.core.transport.DetachedMocks
+import dev.mokksy.aimocks.core.transport.Mount
+import dev.mokksy.aimocks.core.transport.MountTransport
+import dev.mokksy.aimocks.core.transport.NettyEndpoint
+import dev.mokksy.aimocks.core.transport.NettyEngineSettings
+import dev.mokksy.aimocks.core.transport.NettyServer
+import dev.mokksy.aimocks.core.transport.ServerEngines
+import java.util.concurrent.ConcurrentHashMap
+
+private val MountNamePattern = Regex("[A-Za-z0-9._~-]+")
+
+/**
+ * One Netty engine serving many mocks of a JVM, each [attached][attach] under a name of its own:
+ *
+ * ```kotlin
+ * val runtime = MockRuntime()
+ * val openai = runtime.attach("openai") { MockOpenai() }
+ * val agents = (1..20).map { runtime.attach("agent-$it") { MockAgentServer() } }
+ * val agentUrl = runtime.baseUrl("agent-1")
+ * ```
+ *
+ * A mock attached as `agent-1` is served at `http://localhost:<port>/agent-1`, followed by its own
+ * [base path][AbstractMockLlm.basePath]. All the attached mocks share the port and the event loops of the runtime:
+ * requests are handed to each mock in-process. The requests are handled off the event loops,
+ * so a stub blocking its thread stalls no other mock.
+ *
+ * The mocks built by the runtime are served in-process only: their Mokksy server is started without its port,
+ * so they open no socket and start no event loop of their own. A mock built beforehand may be attached too,
+ * but it keeps listening on its own port.
+ *
+ * Closing the runtime stops its engine, but not the attached mocks.
+ *
+ * The Netty engine is an optional dependency: add `io.ktor:ktor-server-netty` to build one.
+ *
+ * @param settings Settings of the engine; see [NettyEngineSettings].
+ * @throws IllegalStateException if the Netty engine is not on the classpath.
+ */
+public class MockRuntime
+    @JvmOverloads
+    constructor(
+        settings: NettyEngineSettings = NettyEngineSettings(),
+    ) : AutoCloseable {
+        private val mocks = ConcurrentHashMap<String, AbstractMockLlm>()
+
+        init {
+            ServerEngines.checkNetty()
+        }
+
+        private val server =
+            NettyServer(
+                settings,
+                MountTransport { path ->
+                    val name = path.removePrefix("/").substringBefore('/')
+                    mocks[name]?.let { Mount(prefix = "/$name", transport = it.inProcess) }
+                },
+            )
+
+        /**
+         * Engine serving the attached mocks; its base URL is the root of the mounts.
+         */
+        public val endpoint: NettyEndpoint =
+            NettyEndpoint(
+                port = server.port,
+                baseUrl = "http://localhost:${server.port}",
+                transport = server.transport,
+                acceptorThreads = server.acceptorThreads,
+                workerThreads = server.workerThreads,
+            )
+
+        /**
+         * Names of the attached mocks.
+         */
+        public val names: Set<String>
+            get() = mocks.keys.toSet()
+
+        /**
+         * Builds the mock created by [factory] and serves it under [name], until [detached][detach].
+         *
+         * The mock is served in-process only, without a port of its own: its [port][AbstractMockLlm.port]
+         * and [base URL][AbstractMockLlm.baseUrl] are not available, and its base URL on this runtime is
+         * given by [baseUrl]. Shut it down when done.
+         *
+         * @param name Name of the mount: letters, digits, `.`, `_`, `~` and `-`.
+         * @return The mock.
+         * @throws IllegalArgumentException If the name is not a valid mount name.
+         * @throws IllegalStateException If another mock is attached under the name.
+         */
+        public fun <T : AbstractMockLlm> attach(
+            name: String,
+            factory: () -> T,
+        ): T {
+            require(MountNamePattern.matches(name)) { "Invalid mount name: '$name'" }
+            check(name !in mocks) { "Another mock is attached as '$name'" }
+            val mock = DetachedMocks.build(factory)
+            try {
+                attach(name, mock)
+            } catch (e: IllegalStateException) {
+                mock.shutdown()
+                throw e
+            }
+            return mock
+        }
+
+        /**
+         * Serves the [mock] under [name], until [detached][detach].
+         *
+         * A mock built beforehand keeps listening on its own port as well:
+         * build it with the runtime to serve it in-process only.
+         *
+         * @param name Name of the mount: letters, digits, `.`, `_`, `~` and `-`.
+         * @return Base URL of the mock on this runtime, to be provided to a language model client.
+         * @throws IllegalArgumentException If the name is not a valid mount name.
+         * @throws IllegalStateException If another mock is attached under the name.
+         */
+        public fun attach(
+            name: String,
+            mock: AbstractMockLlm,
+        ): String {
+            require(MountNamePattern.matches(name)) { "Invalid mount name: '$name'" }
+            val attached = mocks.putIfAbsent(name, mock)
+            check(attached == null || attached === mock) { "Another mock is attached as '$name'" }
+            return baseUrl(name)
+        }
+
+        /**
+         * Stops serving the mock attached under [name]; the mock itself keeps running.
+         *
+         * @return The detached mock, or `null` if none was attached under the name.
+         */
+        public fun detach(name: String): AbstractMockLlm? = mocks.remove(name)
+
+        /**
+         * Returns the base URL of the mock attached under [name], to be provided to a language model client.
+         *
+         * @throws IllegalArgumentException If no mock is attached under the name.
+         */
+        public fun baseUrl(name: String): String {
+            val mock = requireNotNull(mocks[name]) { "No mock is attached as '$name'" }
+            return "${endpoint.baseUrl}/$name${mock.basePath}"
+        }
+
+        override fun close() {
+            server.close()
+        }
+
+        override fun toString(): String = "MockRuntime(endpoint=$endpoint, mocks=${mocks.keys})"
+    }
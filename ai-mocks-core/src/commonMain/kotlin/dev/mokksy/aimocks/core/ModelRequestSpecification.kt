@@ -1,12 +1,15 @@
 package dev.mokksy.aimocks.core
 
+import dev.mokksy.aimocks.core.json.equalJsonTree
+import dev.mokksy.aimocks.core.matching.IndexedSubstringMatcher
+import dev.mokksy.aimocks.core.matching.MatcherCost
+import dev.mokksy.aimocks.core.matching.compileMatchers
+import dev.mokksy.aimocks.core.matching.withCost
 import dev.mokksy.mokksy.kotest.doesNotContain
 import dev.mokksy.mokksy.kotest.doesNotContainIgnoringCase
 import dev.mokksy.mokksy.kotest.objectEquals
 import dev.mokksy.mokksy.request.predicateMatcher
 import dev.mokksy.mokksy.request.successCallMatcher
-import io.kotest.assertions.json.CompareJsonOptions
-import io.kotest.assertions.json.equalJson
 import io.kotest.matchers.Matcher
 import io.kotest.matchers.string.contain
 import io.kotest.matchers.string.containIgnoringCase
@@ -36,7 +39,13 @@ public abstract class ModelRequestSpecification<P>(
      */
     public fun requestBodyContains(substring: String): ModelRequestSpecification<P> =
         apply {
-            requestBodyString += contain(substring)
+            requestBodyString +=
+                IndexedSubstringMatcher(
+                    delegate = contain(substring),
+                    substring = substring,
+                    ignoreCase = false,
+                    negated = false,
+                )
         }
 
     /**
@@ -47,22 +56,20 @@ public abstract class ModelRequestSpecification<P>(
      */
     public fun requestBodyEquals(requestObject: P): ModelRequestSpecification<P> =
         apply {
-            requestBody += objectEquals(requestObject, name = "request body")
+            requestBody += objectEquals(requestObject, name = "request body").withCost(MatcherCost.JSON)
         }
 
     /**
      * Adds a matcher that requires the request body string to exactly match the specified JSON payload.
      *
+     * Property order and number formatting are ignored.
+     *
      * @param payload The expected JSON string for the request body.
      * @return This specification instance for fluent chaining.
      */
     public fun requestBodyEqualsJson(payload: String): ModelRequestSpecification<P> =
         apply {
-            requestBodyString +=
-                equalJson(
-                    expected = payload,
-                    options = CompareJsonOptions(),
-                )
+            requestBodyString += equalJsonTree(payload)
         }
 
     /**
@@ -77,7 +84,7 @@ public abstract class ModelRequestSpecification<P>(
                 objectEquals(
                     payload,
                     name = "request body",
-                )
+                ).withCost(MatcherCost.EQUALITY)
         }
 
     /**
@@ -89,7 +96,13 @@ public abstract class ModelRequestSpecification<P>(
      */
     public fun requestBodyContainsIgnoringCase(substring: String): ModelRequestSpecification<P> =
         apply {
-            requestBodyString += containIgnoringCase(substring)
+            requestBodyString +=
+                IndexedSubstringMatcher(
+                    delegate = containIgnoringCase(substring),
+                    substring = substring,
+                    ignoreCase = true,
+                    negated = false,
+                )
         }
 
     /**
@@ -103,7 +116,13 @@ public abstract class ModelRequestSpecification<P>(
         substring: String,
     ): ModelRequestSpecification<P> =
         apply {
-            requestBodyString += doesNotContainIgnoringCase(substring)
+            requestBodyString +=
+                IndexedSubstringMatcher(
+                    delegate = doesNotContainIgnoringCase(substring),
+                    substring = substring,
+                    ignoreCase = true,
+                    negated = true,
+                )
         }
 
     /**
@@ -114,7 +133,13 @@ public abstract class ModelRequestSpecification<P>(
      */
     public fun requestBodyDoesNotContains(substring: String): ModelRequestSpecification<P> =
         apply {
-            requestBodyString += doesNotContain(substring)
+            requestBodyString +=
+                IndexedSubstringMatcher(
+                    delegate = doesNotContain(substring),
+                    substring = substring,
+                    ignoreCase = false,
+                    negated = true,
+                )
         }
 
     /**
@@ -160,4 +185,20 @@ public abstract class ModelRequestSpecification<P>(
     ) {
         requestBody += successCallMatcher(description = description, call = call)
     }
+
+    /**
+     * Compiles the [requestBody] matchers into a single matcher that evaluates
+     * the cheapest checks first and stops at the first failure.
+     *
+     * @see compileMatchers
+     */
+    public fun compileRequestBody(): Matcher<P?> = compileMatchers(requestBody)
+
+    /**
+     * Compiles the [requestBodyString] matchers into a single matcher that evaluates
+     * the cheapest checks first and stops at the first failure.
+     *
+     * @see compileMatchers
+     */
+    public fun compileRequestBodyString(): Matcher<String?> = compileMatchers(requestBodyString)
 }
@@ -0,0 +1,39 @@
+package dev.mokksy.aimocks.core
+
+/**
+ * Per-thread memo of values derived from the request currently being matched.
+ *
+ * Mokksy evaluates every candidate stub against the same request instance,
+ * so values such as a parsed JSON tree are computed once per request and key
+ * instead of once per matcher. The memo is keyed by request identity:
+ * a different request instance simply replaces it.
+ */
+internal class RequestMemo {
+    private class State {
+        var request: Any? = null
+        val values = HashMap<Any, Any?>(4)
+    }
+
+    private val state = ThreadLocal.withInitial { State() }
+
+    /**
+     * Returns the value memoized for [request] and [key], computing it with [compute] if absent.
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun <V> getOrPut(
+        request: Any,
+        key: Any,
+        compute: () -> V,
+    ): V {
+        val current = state.get()
+        if (current.request !== request) {
+            current.request = request
+            current.values.clear()
+        }
+        return if (current.values.containsKey(key)) {
+            current.values[key] as V
+        } else {
+            compute().also { current.values[key] = it }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package dev.mokksy.aimocks.core
+
+/**
+ * Lazily computed view derived from a deserialized request, shared by all matchers.
+ *
+ * Typed matchers of every candidate stub receive the same request instance,
+ * so expensive derivations (collecting message texts, parsing tool schemas)
+ * are computed once per request instead of once per matcher:
+ *
+ * ```kotlin
+ * private val views = RequestViewCache(::ChatRequestView)
+ *
+ * val passed = request != null && views.of(request).userText?.contains(string) == true
+ * ```
+ *
+ * @param R The request type.
+ * @param V The view type.
+ * @param compute Function deriving the view from a request.
+ */
+public class RequestViewCache<R : Any, V>(
+    private val compute: (R) -> V,
+) {
+    private val memo = RequestMemo()
+
+    /**
+     * Returns the view of the given [request], computing it on first access.
+     */
+    public fun of(request: R): V = memo.getOrPut(request, this) { compute(request) }
+}
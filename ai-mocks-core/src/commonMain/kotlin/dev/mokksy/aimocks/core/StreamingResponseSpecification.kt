@@ -1,6 +1,10 @@
 package dev.mokksy.aimocks.core
 
+import dev.mokksy.aimocks.core.stream.BlockingSourcePolicy
+import dev.mokksy.aimocks.core.stream.ChunkGenerator
+import dev.mokksy.aimocks.core.time.StreamTiming
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.asFlow
 import kotlinx.coroutines.stream.consumeAsFlow
 import java.util.stream.Stream
 import kotlin.time.Duration
@@ -37,6 +41,34 @@ public abstract class AbstractStreamingResponseSpecification<P : Any, T : Any, R
     delay: Duration = Duration.ZERO,
 ) : AbstractResponseSpecification<P, R>(delay = delay),
     StreamingResponseSpecification<T> {
+    /**
+     * Timing model pacing the streamed chunks, applied on top of [delay] and [delayBetweenChunks].
+     * `null` streams the chunks without modelled delays.
+     */
+    public var timing: StreamTiming? = null
+
+    /**
+     * Lazy source of the chunks, taking precedence over [responseFlow] and [responseChunks].
+     */
+    public var responseGenerator: ChunkGenerator<T>? = null
+
+    /**
+     * Execution policy of the Java stream set with [stream],
+     * or `null` for the policy of the mock, see [MockContext.blockingSources].
+     */
+    public var sourcePolicy: BlockingSourcePolicy? = null
+
+    private var blockingSource: Flow<T>? = null
+
+    /**
+     * Configures the [timing] model of the streamed chunks.
+     *
+     * @param block Configuration of time to first token, token rate and jitter.
+     */
+    public fun timing(block: StreamTiming.() -> Unit) {
+        timing = StreamTiming().apply(block)
+    }
+
     public override fun chunks(chunks: List<T>) {
         this.responseChunks = chunks
     }
@@ -51,7 +83,52 @@ public abstract class AbstractStreamingResponseSpecification<P : Any, T : Any, R
         this.responseChunks = chunks.toList()
     }
 
+    /**
+     * Streams the chunks of a Java [stream], which may block:
+     * it is iterated according to the [sourcePolicy].
+     */
     public override fun stream(stream: Stream<T>) {
-        responseFlow = stream.consumeAsFlow()
+        val source = stream.consumeAsFlow()
+        responseFlow = source
+        blockingSource = source
+    }
+
+    /**
+     * Generates the chunks of the streaming response lazily, e.g. for very long or soak test streams.
+     *
+     * @param block Configuration of the [ChunkGenerator]: chunk producer, length and keep-alive.
+     */
+    public fun generate(block: ChunkGenerator<T>.() -> Unit) {
+        responseGenerator = ChunkGenerator<T>().apply(block)
     }
+
+    /**
+     * Generates [count] chunks lazily, each produced from its index.
+     *
+     * @param count Number of chunks.
+     * @param chunk Produces the chunk with a given index, starting from zero.
+     */
+    public fun generate(
+        count: Long,
+        chunk: (index: Long) -> T,
+    ) {
+        generate {
+            this.count = count
+            chunk { index, _ -> chunk(index) }
+        }
+    }
+
+    /**
+     * Returns the chunks of the response: from [responseGenerator], [responseFlow]
+     * or [responseChunks], in this order of precedence, or `null` if none is set.
+     *
+     * @param context State of the mock: its clock spaces generated chunks,
+     *        and its policy applies to blocking sources unless [sourcePolicy] is set.
+     */
+    public fun chunkFlow(context: MockContext): Flow<T>? =
+        responseGenerator?.asFlow(context.clock)
+            ?: responseFlow?.let { flow ->
+                if (flow === blockingSource) (sourcePolicy ?: context.blockingSources).offload(flow) else flow
+            }
+            ?: responseChunks?.asFlow()
 }
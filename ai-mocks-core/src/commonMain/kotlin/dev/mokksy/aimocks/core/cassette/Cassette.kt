@@ -0,0 +1,123 @@
+package dev.mokksy.aimocks.core.cassette
+
+import java.net.http.HttpClient
+import java.nio.file.Path
+import java.util.concurrent.atomic.LongAdder
+import kotlin.jvm.JvmStatic
+
+/**
+ * Store of recorded interactions answering the requests which match no stub of a mock.
+ *
+ * In *record* mode, such requests are forwarded to an [upstream] server, e.g. a real Ollama
+ * or another mock in CI, and its responses are streamed back to the client and recorded,
+ * streamed responses chunk by chunk with their timing:
+ *
+ * ```kotlin
+ * ollama.cassette = Cassette.record(Path.of("src/test/resources/ollama.cassette"), "http://localhost:11434")
+ * ```
+ *
+ * In *replay* mode, they are answered from the cassette, honouring the recorded chunk timing
+ * on the [clock][dev.mokksy.aimocks.core.AbstractMockLlm.clock] of the mock:
+ *
+ * ```kotlin
+ * ollama.cassette = Cassette.replay(Path.of("src/test/resources/ollama.cassette"))
+ * ```
+ *
+ * Requests are looked up by a normalized hash of their method, path, query and body,
+ * ignoring the order of query parameters and JSON keys. The cassette is memory-mapped
+ * and indexed by this hash, so opening it is fast even with tens of thousands of recorded interactions.
+ *
+ * Requests answered from a cassette still count as unmatched by the stubs of the mock.
+ * Close the cassette, or shut the mock down, to complete a recording.
+ *
+ * @property path Data file of the cassette; its index is stored next to it, with the `.idx` extension.
+ * @property upstream Base URL requests are forwarded to in record mode, or `null` in replay mode.
+ */
+public class Cassette private constructor(
+    public val path: Path,
+    public val upstream: String?,
+) : AutoCloseable {
+    private val reader = if (upstream == null) CassetteReader.open(path) else null
+    private val writer = if (upstream != null) CassetteWriter(path) else null
+    private val replayed = LongAdder()
+    private val missed = LongAdder()
+    private val recorded = LongAdder()
+
+    internal val client: HttpClient? =
+        upstream?.let { HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build() }
+
+    /**
+     * Whether the cassette records the responses of the [upstream] server.
+     */
+    public val recording: Boolean
+        get() = upstream != null
+
+    /**
+     * Number of interactions in the cassette.
+     */
+    public val size: Int
+        get() = reader?.size ?: writer?.size ?: 0
+
+    /**
+     * Number of requests answered from the cassette.
+     */
+    public val replayedCount: Long
+        get() = replayed.sum()
+
+    /**
+     * Number of requests not found in the cassette, in replay mode.
+     */
+    public val missedCount: Long
+        get() = missed.sum()
+
+    /**
+     * Number of interactions recorded since the cassette was opened, in record mode.
+     */
+    public val recordedCount: Long
+        get() = recorded.sum()
+
+    internal fun find(fingerprint: ByteArray): RecordedResponse? {
+        val found = reader?.find(fingerprint)
+        when {
+            found != null -> replayed.increment()
+            !recording -> missed.increment()
+        }
+        return found
+    }
+
+    internal fun record(
+        fingerprint: ByteArray,
+        response: RecordedResponse,
+    ) {
+        writer?.append(fingerprint, response)
+        recorded.increment()
+    }
+
+    /**
+     * Completes the recording, if any, by writing the index of the cassette.
+     */
+    override fun close() {
+        writer?.close()
+    }
+
+    override fun toString(): String =
+        if (recording) "Cassette.record($path, $upstream)" else "Cassette.replay($path)"
+
+    public companion object {
+        /**
+         * Opens the cassette at [path] to answer the requests which match no stub with its recorded responses.
+         */
+        @JvmStatic
+        public fun replay(path: Path): Cassette = Cassette(path, null)
+
+        /**
+         * Opens the cassette at [path], or creates it, to forward the requests which match no stub
+         * to the [upstream] server at the given base URL and record its responses.
+         */
+        @JvmStatic
+        public fun record(
+            path: Path,
+            upstream: String,
+        ): Cassette = Cassette(path, upstream.trimEnd('/'))
+    }
+}
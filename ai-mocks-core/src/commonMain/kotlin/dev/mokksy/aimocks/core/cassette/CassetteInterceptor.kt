@@ -0,0 +1,178 @@
+package dev.mokksy.aimocks.core.cassette
+
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.metrics.CallMetrics
+import dev.mokksy.aimocks.core.metrics.requestBody
+import dev.mokksy.aimocks.core.time.MockClock
+import io.ktor.http.ContentType
+import io.ktor.http.HttpStatusCode
+import io.ktor.http.content.OutgoingContent
+import io.ktor.server.application.Application
+import io.ktor.server.application.ApplicationCall
+import io.ktor.server.application.call
+import io.ktor.server.application.log
+import io.ktor.server.request.httpMethod
+import io.ktor.server.request.path
+import io.ktor.server.request.queryString
+import io.ktor.server.request.uri
+import io.ktor.server.response.ApplicationSendPipeline
+import io.ktor.utils.io.ByteWriteChannel
+import io.ktor.utils.io.writeFully
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.future.await
+import kotlinx.coroutines.withContext
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+import java.io.InputStream
+import java.net.URI
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import kotlin.time.Duration.Companion.nanoseconds
+
+/**
+ * Headers which are not forwarded upstream: hop-by-hop headers, headers set by the HTTP client,
+ * and `Accept-Encoding`, so that responses are recorded uncompressed.
+ */
+private val UnforwardedHeaders =
+    setOf(
+        "accept-encoding",
+        "connection",
+        "content-length",
+        "date",
+        "expect",
+        "from",
+        "host",
+        "keep-alive",
+        "proxy-connection",
+        "te",
+        "trailer",
+        "transfer-encoding",
+        "upgrade",
+        "via",
+        "warning",
+    )
+
+/**
+ * Answers the requests which match no stub from the cassette of the [context], if any.
+ *
+ * Mokksy answers such requests with `404 Not Found`: this response is replaced,
+ * before it is sent, by the recorded response, or by the upstream response in record mode.
+ */
+internal fun Application.installCassette(context: MockContext) {
+    sendPipeline.intercept(ApplicationSendPipeline.Before) { message ->
+        val cassette = context.cassette ?: return@intercept
+        val callMetrics = currentCoroutineContext()[CallMetrics] ?: return@intercept
+        val notFound = message == HttpStatusCode.NotFound || call.response.status() == HttpStatusCode.NotFound
+        if (callMetrics.stubName != null || !notFound) return@intercept
+
+        val body = call.requestBody()
+        val request = call.request
+        val fingerprint = RequestFingerprint.of(request.httpMethod.value, request.path(), request.queryString(), body)
+        val content =
+            cassette.find(fingerprint)?.let { ReplayedContent(it, context.clock) }
+                ?: try {
+                    cassette.forward(call, body, fingerprint)
+                } catch (e: IOException) {
+                    this@installCassette.log.warn("Cannot forward ${request.uri} to ${cassette.upstream}", e)
+                    null
+                }
+        if (content != null) proceedWith(content)
+    }
+}
+
+/**
+ * Forwards the [call] to the upstream server in record mode, returning its response as it is received.
+ */
+private suspend fun Cassette.forward(
+    call: ApplicationCall,
+    body: ByteArray,
+    fingerprint: ByteArray,
+): OutgoingContent? {
+    val client = client ?: return null
+    val upstream = upstream ?: return null
+    val publisher =
+        if (body.isEmpty()) HttpRequest.BodyPublishers.noBody() else HttpRequest.BodyPublishers.ofByteArray(body)
+    val request =
+        HttpRequest
+            .newBuilder(URI.create(upstream + call.request.uri))
+            .method(call.request.httpMethod.value, publisher)
+            .apply {
+                call.request.headers.forEach { name, values ->
+                    if (name.lowercase() !in UnforwardedHeaders) values.forEach { header(name, it) }
+                }
+            }.build()
+    val start = System.nanoTime()
+    val response = client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream()).await()
+    return RecordingContent(this, fingerprint, response, start)
+}
+
+/**
+ * Response of the upstream server, streamed to the client as it is received and recorded line by line,
+ * i.e. event by event.
+ */
+private class RecordingContent(
+    private val cassette: Cassette,
+    private val fingerprint: ByteArray,
+    private val response: HttpResponse<InputStream>,
+    private val start: Long,
+) : OutgoingContent.WriteChannelContent() {
+    override val status: HttpStatusCode = HttpStatusCode.fromValue(response.statusCode())
+
+    override val contentType: ContentType? =
+        response.headers().firstValue("Content-Type").map { ContentType.parse(it) }.orElse(null)
+
+    override suspend fun writeTo(channel: ByteWriteChannel) {
+        val chunks = ArrayList<RecordedChunk>()
+        val buffer = ByteArray(READ_BUFFER_SIZE)
+        val line = ByteArrayOutputStream()
+        response.body().use { input ->
+            while (true) {
+                // Returns the bytes received so far, up to the buffer size, so events are not held back
+                val read = withContext(Dispatchers.IO) { input.read(buffer) }
+                if (read < 0) break
+                val offsetNanos = System.nanoTime() - start
+                var from = 0
+                for (i in 0 until read) {
+                    if (buffer[i] == LINE_FEED) {
+                        line.write(buffer, from, i + 1 - from)
+                        chunks += RecordedChunk(offsetNanos, line.toByteArray())
+                        line.reset()
+                        from = i + 1
+                    }
+                }
+                line.write(buffer, from, read - from)
+                channel.writeFully(buffer, 0, read)
+                channel.flush()
+            }
+        }
+        if (line.size() > 0) chunks += RecordedChunk(System.nanoTime() - start, line.toByteArray())
+        cassette.record(fingerprint, RecordedResponse(status.value, contentType?.toString(), chunks))
+    }
+
+    private companion object {
+        const val READ_BUFFER_SIZE = 8 * 1024
+        const val LINE_FEED = '\n'.code.toByte()
+    }
+}
+
+/**
+ * Recorded response, replayed with the recorded timing of its chunks on [clock].
+ */
+private class ReplayedContent(
+    private val response: RecordedResponse,
+    private val clock: MockClock,
+) : OutgoingContent.WriteChannelContent() {
+    override val status: HttpStatusCode = HttpStatusCode.fromValue(response.status)
+
+    override val contentType: ContentType? = response.contentType?.let { ContentType.parse(it) }
+
+    override suspend fun writeTo(channel: ByteWriteChannel) {
+        val start = clock.now()
+        response.chunks.forEach { chunk ->
+            clock.sleep(start + chunk.offsetNanos.nanoseconds - clock.now())
+            channel.writeFully(chunk.data)
+            channel.flush()
+        }
+    }
+}
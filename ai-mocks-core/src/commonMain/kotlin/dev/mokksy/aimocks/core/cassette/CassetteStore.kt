@@ -0,0 +1,283 @@
+package dev.mokksy.aimocks.core.cassette
+
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import java.util.Arrays
+
+private const val DATA_MAGIC = 0x41494D43 // AIMC
+private const val INDEX_MAGIC = 0x41494D49 // AIMI
+private const val VERSION = 1
+private const val DATA_HEADER_SIZE = 8
+private const val INDEX_LENGTH_OFFSET = 8
+private const val INDEX_COUNT_OFFSET = 16
+private const val INDEX_HEADER_SIZE = 20
+private const val INDEX_ENTRY_SIZE = RequestFingerprint.SIZE + Long.SIZE_BYTES
+
+// A file is mapped as a single buffer, so a cassette holds up to 2 GiB
+private const val MAX_FILE_SIZE = Int.MAX_VALUE.toLong()
+
+/**
+ * A chunk of a recorded response, written [offsetNanos] after the request was sent upstream.
+ */
+internal class RecordedChunk(
+    val offsetNanos: Long,
+    val data: ByteArray,
+)
+
+/**
+ * A response recorded in a cassette. Responses which are not streamed have a single chunk.
+ */
+internal class RecordedResponse(
+    val status: Int,
+    val contentType: String?,
+    val chunks: List<RecordedChunk>,
+)
+
+/**
+ * Returns the index file of the cassette at [path].
+ */
+internal fun indexOf(path: Path): Path = path.resolveSibling("${path.fileName}.idx")
+
+/**
+ * Read-only view of a cassette, memory-mapped.
+ *
+ * The cassette is an append-only data file of responses, each prefixed with the fingerprint of its request,
+ * and an index file of the fingerprints, sorted, with the offsets of their responses.
+ * A lookup is a binary search in the index, so opening a cassette takes the same time
+ * whatever the number of recorded interactions. When the index is missing or out of date,
+ * e.g. after an interrupted recording, it is rebuilt from the data file.
+ *
+ * Each file is mapped as a single buffer, so cassettes are limited to 2 GiB.
+ */
+internal class CassetteReader private constructor(
+    private val data: ByteBuffer,
+    private val index: ByteBuffer,
+    val size: Int,
+) {
+    fun find(fingerprint: ByteArray): RecordedResponse? {
+        var low = 0
+        var high = size - 1
+        while (low <= high) {
+            val middle = (low + high) ushr 1
+            val comparison = compareAt(middle, fingerprint)
+            when {
+                comparison < 0 -> low = middle + 1
+                comparison > 0 -> high = middle - 1
+                else -> return readRecord(data, index.getLong(entryAt(middle) + RequestFingerprint.SIZE))
+            }
+        }
+        return null
+    }
+
+    private fun entryAt(position: Int): Int = INDEX_HEADER_SIZE + position * INDEX_ENTRY_SIZE
+
+    private fun compareAt(
+        position: Int,
+        fingerprint: ByteArray,
+    ): Int {
+        val entry = entryAt(position)
+        for (i in 0 until RequestFingerprint.SIZE) {
+            val comparison = java.lang.Byte.compareUnsigned(index.get(entry + i), fingerprint[i])
+            if (comparison != 0) return comparison
+        }
+        return 0
+    }
+
+    companion object {
+        fun open(path: Path): CassetteReader {
+            val data = map(path)
+            require(data.capacity() >= DATA_HEADER_SIZE && data.getInt(0) == DATA_MAGIC) {
+                "Not a cassette: $path"
+            }
+            val indexPath = indexOf(path)
+            val index =
+                indexPath
+                    .takeIf { Files.exists(it) }
+                    ?.let(::map)
+                    ?.takeIf {
+                        it.capacity() >= INDEX_HEADER_SIZE &&
+                            it.getInt(0) == INDEX_MAGIC &&
+                            it.getLong(INDEX_LENGTH_OFFSET) == data.capacity().toLong()
+                    }
+                    ?: run {
+                        writeIndex(indexPath, data.capacity().toLong(), scan(data).records)
+                        map(indexPath)
+                    }
+            return CassetteReader(data, index, index.getInt(INDEX_COUNT_OFFSET))
+        }
+
+        private fun map(path: Path): ByteBuffer =
+            FileChannel.open(path, StandardOpenOption.READ).use { channel ->
+                require(channel.size() <= MAX_FILE_SIZE) { "Cassette larger than 2 GiB: $path" }
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+            }
+    }
+}
+
+/**
+ * Appends responses to a cassette, and writes its index when closed.
+ *
+ * Recording into an existing cassette adds to it: a request recorded again replaces its former response.
+ */
+internal class CassetteWriter(
+    private val path: Path,
+) : AutoCloseable {
+    private val channel =
+        FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+    private val offsets = HashMap<ByteBuffer, Long>()
+    private var position: Long
+
+    init {
+        if (channel.size() == 0L) {
+            val header = ByteBuffer.allocate(DATA_HEADER_SIZE).putInt(DATA_MAGIC).putInt(VERSION).flip()
+            channel.write(header, 0)
+        } else {
+            require(channel.size() <= MAX_FILE_SIZE) { "Cassette larger than 2 GiB: $path" }
+            val data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+            require(data.capacity() >= DATA_HEADER_SIZE && data.getInt(0) == DATA_MAGIC) { "Not a cassette: $path" }
+            val scanned = scan(data)
+            scanned.records.forEach { (fingerprint, offset) -> offsets[ByteBuffer.wrap(fingerprint)] = offset }
+            // Drops a truncated record left by an interrupted recording
+            channel.truncate(scanned.end)
+        }
+        position = channel.size()
+    }
+
+    /**
+     * Number of interactions in the cassette.
+     */
+    val size: Int
+        @Synchronized get() = offsets.size
+
+    @Synchronized
+    fun append(
+        fingerprint: ByteArray,
+        response: RecordedResponse,
+    ) {
+        val record = ByteBuffer.wrap(serialize(fingerprint, response))
+        if (position + record.remaining() > MAX_FILE_SIZE) {
+            throw IOException("Cannot record into $path: the cassette would exceed 2 GiB")
+        }
+        val offset = position
+        while (record.hasRemaining()) {
+            position += channel.write(record, position)
+        }
+        offsets[ByteBuffer.wrap(fingerprint.copyOf())] = offset
+    }
+
+    @Synchronized
+    override fun close() {
+        if (!channel.isOpen) return
+        channel.force(true)
+        writeIndex(indexOf(path), position, offsets.map { (fingerprint, offset) -> fingerprint.array() to offset })
+        channel.close()
+    }
+
+    private fun serialize(
+        fingerprint: ByteArray,
+        response: RecordedResponse,
+    ): ByteArray {
+        val bytes = ByteArrayOutputStream()
+        DataOutputStream(bytes).use { out ->
+            out.write(fingerprint)
+            out.writeInt(response.status)
+            val contentType = response.contentType?.encodeToByteArray()
+            out.writeInt(contentType?.size ?: -1)
+            contentType?.let { out.write(it) }
+            out.writeInt(response.chunks.size)
+            response.chunks.forEach {
+                out.writeLong(it.offsetNanos)
+                out.writeInt(it.data.size)
+                out.write(it.data)
+            }
+        }
+        return bytes.toByteArray()
+    }
+}
+
+private fun readRecord(
+    data: ByteBuffer,
+    offset: Long,
+): RecordedResponse {
+    val buffer = data.duplicate().position(Math.toIntExact(offset) + RequestFingerprint.SIZE)
+    val status = buffer.getInt()
+    val contentType =
+        buffer.getInt().takeIf { it >= 0 }?.let { length -> ByteArray(length).also { buffer.get(it) }.decodeToString() }
+    val chunks =
+        List(buffer.getInt()) {
+            val offsetNanos = buffer.getLong()
+            RecordedChunk(offsetNanos, ByteArray(buffer.getInt()).also { buffer.get(it) })
+        }
+    return RecordedResponse(status, contentType, chunks)
+}
+
+/**
+ * Fingerprint and offset of each record of a data file, oldest first, and the end of the last complete record.
+ */
+private class ScannedRecords(
+    val records: List<Pair<ByteArray, Long>>,
+    val end: Long,
+)
+
+/**
+ * Scans the records of a data file. A truncated record at the end, left by an interrupted recording, is ignored.
+ */
+private fun scan(data: ByteBuffer): ScannedRecords {
+    val records = ArrayList<Pair<ByteArray, Long>>()
+    val buffer = data.duplicate().position(DATA_HEADER_SIZE)
+    var end = DATA_HEADER_SIZE.toLong()
+    while (buffer.remaining() >= RequestFingerprint.SIZE) {
+        val offset = buffer.position().toLong()
+        val fingerprint = ByteArray(RequestFingerprint.SIZE).also { buffer.get(it) }
+        if (!buffer.skipRecord()) break
+        records += fingerprint to offset
+        end = buffer.position().toLong()
+    }
+    return ScannedRecords(records, end)
+}
+
+private fun ByteBuffer.skipRecord(): Boolean {
+    if (remaining() < 2 * Int.SIZE_BYTES) return false
+    getInt()
+    val contentType = getInt()
+    if (contentType > 0 && !skip(contentType)) return false
+    if (remaining() < Int.SIZE_BYTES) return false
+    repeat(getInt()) {
+        if (remaining() < Long.SIZE_BYTES + Int.SIZE_BYTES) return false
+        getLong()
+        if (!skip(getInt())) return false
+    }
+    return true
+}
+
+private fun ByteBuffer.skip(count: Int): Boolean {
+    if (count < 0 || remaining() < count) return false
+    position(position() + count)
+    return true
+}
+
+/**
+ * Writes the index of a data file of [dataLength] bytes, keeping the latest offset of each fingerprint.
+ */
+private fun writeIndex(
+    path: Path,
+    dataLength: Long,
+    records: List<Pair<ByteArray, Long>>,
+) {
+    val latest = LinkedHashMap<ByteBuffer, Long>()
+    records.forEach { (fingerprint, offset) -> latest[ByteBuffer.wrap(fingerprint)] = offset }
+    val entries = latest.entries.sortedWith { a, b -> Arrays.compareUnsigned(a.key.array(), b.key.array()) }
+    val index = ByteBuffer.allocate(INDEX_HEADER_SIZE + entries.size * INDEX_ENTRY_SIZE)
+    index.putInt(INDEX_MAGIC).putInt(VERSION).putLong(dataLength).putInt(entries.size)
+    entries.forEach { (fingerprint, offset) -> index.put(fingerprint.array()).putLong(offset) }
+    val temporary = path.resolveSibling("${path.fileName}.tmp")
+    Files.write(temporary, index.array())
+    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+}
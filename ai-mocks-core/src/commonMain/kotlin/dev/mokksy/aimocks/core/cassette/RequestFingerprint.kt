@@ -0,0 +1,73 @@
+package dev.mokksy.aimocks.core.cassette
+
+import kotlinx.serialization.SerializationException
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonElement
+import kotlinx.serialization.json.JsonNull
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import java.security.MessageDigest
+
+/**
+ * Normalized hash identifying a request in a cassette.
+ *
+ * Requests which differ only by the order of their query parameters, the order of their JSON object keys
+ * or the formatting of their JSON body have the same fingerprint, so a replay does not depend on
+ * how a client library happens to serialize them.
+ */
+internal object RequestFingerprint {
+    const val SIZE = 32
+
+    fun of(
+        method: String,
+        path: String,
+        query: String,
+        body: ByteArray,
+    ): ByteArray {
+        val digest = MessageDigest.getInstance("SHA-256")
+        digest.update(method.uppercase().encodeToByteArray())
+        digest.update(0)
+        digest.update(path.encodeToByteArray())
+        digest.update(0)
+        digest.update(query.split('&').filter { it.isNotEmpty() }.sorted().joinToString("&").encodeToByteArray())
+        digest.update(0)
+        digest.update(normalize(body))
+        return digest.digest()
+    }
+
+    private fun normalize(body: ByteArray): ByteArray {
+        if (body.isEmpty()) return body
+        val json =
+            try {
+                Json.parseToJsonElement(body.decodeToString())
+            } catch (_: SerializationException) {
+                return body
+            }
+        return buildString { appendCanonical(json) }.encodeToByteArray()
+    }
+
+    private fun StringBuilder.appendCanonical(element: JsonElement) {
+        when (element) {
+            is JsonObject -> {
+                append('{')
+                element.entries.sortedBy { it.key }.forEachIndexed { index, (key, value) ->
+                    if (index > 0) append(',')
+                    append(JsonPrimitive(key)).append(':')
+                    appendCanonical(value)
+                }
+                append('}')
+            }
+            is JsonArray -> {
+                append('[')
+                element.forEachIndexed { index, value ->
+                    if (index > 0) append(',')
+                    appendCanonical(value)
+                }
+                append(']')
+            }
+            JsonNull -> append("null")
+            is JsonPrimitive -> append(element)
+        }
+    }
+}
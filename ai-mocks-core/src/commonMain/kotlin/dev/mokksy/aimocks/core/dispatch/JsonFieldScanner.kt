@@ -0,0 +1,137 @@
+package dev.mokksy.aimocks.core.dispatch
+
+/**
+ * Minimal scanner extracting a top-level string field from a JSON object
+ * without building a JSON tree.
+ *
+ * It is used to resolve cheap dispatch discriminators (`model`, `method`)
+ * before any full matcher runs. Malformed input yields `null`, leaving
+ * the final verdict to the regular matchers.
+ */
+internal object JsonFieldScanner {
+    /**
+     * Returns the value of the top-level string [field] of the JSON object in [json],
+     * or `null` if the field is absent, is not a string, or the input is not a JSON object.
+     */
+    @Suppress("CyclomaticComplexMethod", "NestedBlockDepth", "ReturnCount", "LoopWithTooManyJumpStatements")
+    fun topLevelString(
+        json: CharSequence,
+        field: String,
+    ): String? {
+        var i = skipWhitespace(json, 0)
+        if (i >= json.length || json[i] != '{') return null
+        i++
+        var depth = 1
+        var expectKey = true
+        while (i < json.length) {
+            val c = json[i]
+            when {
+                c == '"' -> {
+                    val end = stringEnd(json, i) ?: return null
+                    if (depth == 1 && expectKey) {
+                        val colon = skipWhitespace(json, end + 1)
+                        if (colon >= json.length || json[colon] != ':') return null
+                        if (regionEquals(json, i + 1, end, field)) {
+                            val valueStart = skipWhitespace(json, colon + 1)
+                            if (valueStart >= json.length || json[valueStart] != '"') return null
+                            val valueEnd = stringEnd(json, valueStart) ?: return null
+                            return unescape(json, valueStart + 1, valueEnd)
+                        }
+                        expectKey = false
+                        i = colon + 1
+                        continue
+                    }
+                    i = end + 1
+                    continue
+                }
+
+                c == '{' || c == '[' -> depth++
+
+                c == '}' || c == ']' -> {
+                    depth--
+                    if (depth == 0) return null
+                }
+
+                c == ',' && depth == 1 -> expectKey = true
+            }
+            i++
+        }
+        return null
+    }
+
+    private fun skipWhitespace(
+        json: CharSequence,
+        from: Int,
+    ): Int {
+        var i = from
+        while (i < json.length && json[i].isWhitespace()) i++
+        return i
+    }
+
+    /**
+     * Returns the index of the closing quote of the string starting at [start].
+     */
+    private fun stringEnd(
+        json: CharSequence,
+        start: Int,
+    ): Int? {
+        var i = start + 1
+        while (i < json.length) {
+            when (json[i]) {
+                '\\' -> i += 2
+                '"' -> return i
+                else -> i++
+            }
+        }
+        return null
+    }
+
+    private fun regionEquals(
+        json: CharSequence,
+        from: Int,
+        to: Int,
+        expected: String,
+    ): Boolean {
+        if (to - from != expected.length) return false
+        for (k in expected.indices) {
+            if (json[from + k] != expected[k]) return false
+        }
+        return true
+    }
+
+    @Suppress("MagicNumber", "LoopWithTooManyJumpStatements")
+    private fun unescape(
+        json: CharSequence,
+        from: Int,
+        to: Int,
+    ): String {
+        val escape = json.indexOf('\\', from)
+        if (escape < 0 || escape >= to) return json.substring(from, to)
+        val result = StringBuilder(to - from)
+        result.append(json, from, escape)
+        var i = escape
+        while (i < to) {
+            val c = json[i]
+            if (c != '\\') {
+                result.append(c)
+                i++
+                continue
+            }
+            when (val next = json[i + 1]) {
+                'n' -> result.append('\n')
+                't' -> result.append('\t')
+                'r' -> result.append('\r')
+                'b' -> result.append('\b')
+                'f' -> result.append('\u000C')
+                'u' -> {
+                    result.append(json.substring(i + 2, i + 6).toInt(16).toChar())
+                    i += 4
+                }
+
+                else -> result.append(next)
+            }
+            i += 2
+        }
+        return result.toString()
+    }
+}
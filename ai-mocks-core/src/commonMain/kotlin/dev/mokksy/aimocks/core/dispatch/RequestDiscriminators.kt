@@ -0,0 +1,19 @@
+package dev.mokksy.aimocks.core.dispatch
+
+import dev.mokksy.aimocks.core.RequestMemo
+
+/**
+ * Discriminators resolved from the request body currently being matched.
+ *
+ * All stubs are matched against the same body instance,
+ * so the discriminator is extracted once per request and field
+ * instead of once per stub.
+ */
+internal object RequestDiscriminators {
+    private val memo = RequestMemo()
+
+    fun resolve(
+        body: String,
+        field: String,
+    ): String? = memo.getOrPut(body, field) { JsonFieldScanner.topLevelString(body, field) }
+}
@@ -0,0 +1,38 @@
+package dev.mokksy.aimocks.core.dispatch
+
+/**
+ * Pre-filter guards of registered stubs, bucketed by request path and a cheap discriminator
+ * (model name, JSON-RPC method, or a model embedded in the path).
+ *
+ * Each registered stub gets a [StubRoute] whose [StubRoute.guard] is added
+ * as the first matcher of the stub, and whose [StubRoute.gate] wraps the expensive ones.
+ * The discriminator is extracted from the request body once per request,
+ * so a stub outside the request's bucket is rejected after a single comparison
+ * and its full matchers never run.
+ *
+ * This is not a lookup index: Mokksy still evaluates every stub in turn, so matching stays linear
+ * in the number of stubs. The guards only make each stub outside the bucket cost one memoized comparison
+ * instead of a full body evaluation.
+ *
+ * The pre-filter keeps no state of its own: the buckets live in the guards,
+ * so they stay in line with the stubs Mokksy holds, whatever their match state.
+ */
+public class StubPrefilter {
+    /**
+     * Registers a stub for the given [path], discriminated by the top-level JSON [field]
+     * having the given [value]. A `null` [value] registers a stub accepting any value.
+     *
+     * @return the [StubRoute] to attach to the stub.
+     */
+    public fun register(
+        path: String,
+        field: String,
+        value: String?,
+    ): StubRoute = StubRoute(path = path, field = field, value = value)
+
+    /**
+     * Registers a stub that is discriminated by its [path] only,
+     * e.g. when the model is a part of the path.
+     */
+    public fun register(path: String): StubRoute = register(path = path, field = "", value = null)
+}
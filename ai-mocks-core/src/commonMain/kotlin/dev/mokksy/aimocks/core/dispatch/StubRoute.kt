@@ -0,0 +1,83 @@
+package dev.mokksy.aimocks.core.dispatch
+
+import dev.mokksy.aimocks.core.matching.CostAware
+import dev.mokksy.aimocks.core.matching.MatcherCost
+import dev.mokksy.aimocks.core.matching.costOf
+import dev.mokksy.aimocks.core.matching.withCost
+import dev.mokksy.aimocks.core.metrics.CallMetrics
+import io.kotest.matchers.Matcher
+import io.kotest.matchers.MatcherResult
+
+/**
+ * Dispatch key of a single stub: the request [path] plus an optional [value]
+ * of the top-level JSON [field] used as discriminator (e.g. `model` or JSON-RPC `method`).
+ *
+ * A route with `null` [value] accepts any discriminator.
+ *
+ * Instances are created by [StubPrefilter.register].
+ */
+public class StubRoute internal constructor(
+    public val path: String,
+    public val field: String,
+    public val value: String?,
+) {
+    /**
+     * Cheap matcher rejecting requests whose discriminator differs from [value].
+     *
+     * Register it before any other matcher of the stub, so mismatching stubs
+     * are rejected after a memoized lookup instead of a full body evaluation.
+     * The stubs it accepts are counted as candidates of the request in its flight events.
+     */
+    public val guard: Matcher<String?> =
+        object : Matcher<String?>, CostAware {
+            override val cost: MatcherCost = MatcherCost.SCALAR
+
+            override fun test(value: String?): MatcherResult =
+                verdict(value).also { if (it.passed()) CallMetrics.current()?.candidate() }
+
+            override fun toString(): String = "$field should be \"${this@StubRoute.value}\""
+        }
+
+    /**
+     * Wraps the [matcher] so it is evaluated only for requests accepted by [guard].
+     */
+    public fun gate(matcher: Matcher<String?>): Matcher<String?> =
+        if (value == null) {
+            matcher
+        } else {
+            object : Matcher<String?> {
+                override fun test(value: String?): MatcherResult {
+                    val result = verdict(value)
+                    return if (result.passed()) matcher.test(value) else result
+                }
+
+                override fun toString(): String = matcher.toString()
+            }.withCost(costOf(matcher))
+        }
+
+    /**
+     * Wraps all the [matchers] with [gate].
+     */
+    public fun gate(matchers: Iterable<Matcher<String?>>): List<Matcher<String?>> = matchers.map(::gate)
+
+    /**
+     * Returns `true` if the given request [body] belongs to this route's bucket.
+     */
+    public fun accepts(body: String?): Boolean =
+        value == null ||
+            (body != null && RequestDiscriminators.resolve(body, field) == value)
+
+    private fun verdict(body: String?): MatcherResult {
+        val passed = accepts(body)
+        return MatcherResult(
+            passed,
+            {
+                val actual = body?.let { RequestDiscriminators.resolve(it, field) }
+                "$field should be \"$value\" but was \"$actual\""
+            },
+            { "$field should not be \"$value\"" },
+        )
+    }
+
+    override fun toString(): String = "StubRoute(path=$path, $field=$value)"
+}
@@ -0,0 +1,70 @@
+package dev.mokksy.aimocks.core.journal
+
+import java.security.MessageDigest
+
+/**
+ * Retention policy of the request bodies kept by the [RequestJournal].
+ *
+ * Bodies are kept as raw bytes, never as deserialized requests, so a journal entry holds no object graph:
+ *
+ * ```kotlin
+ * ollama.journal.bodyRetention = BodyRetention.truncated(maxBytes = 1024)
+ * ```
+ *
+ * @property maxBytes Number of bytes of a body kept at most.
+ */
+public class BodyRetention private constructor(
+    private val kind: Kind,
+    public val maxBytes: Int,
+) {
+    private enum class Kind { FULL, TRUNCATED, HASH, DROP }
+
+    /**
+     * Returns the part of [body] to keep, if any.
+     */
+    internal fun retain(body: ByteArray): ByteArray? =
+        when (kind) {
+            Kind.FULL -> body
+            Kind.TRUNCATED -> if (body.size <= maxBytes) body else body.copyOf(maxBytes)
+            Kind.HASH, Kind.DROP -> null
+        }
+
+    /**
+     * Returns the hexadecimal SHA-256 digest of [body] if this policy keeps it.
+     */
+    internal fun digest(body: ByteArray): String? {
+        if (kind != Kind.HASH) return null
+        return MessageDigest.getInstance("SHA-256").digest(body).joinToString("") { "%02x".format(it) }
+    }
+
+    override fun toString(): String =
+        when (kind) {
+            Kind.TRUNCATED -> "BodyRetention.truncated($maxBytes)"
+            else -> "BodyRetention.$kind"
+        }
+
+    public companion object {
+        /**
+         * Keeps whole bodies.
+         */
+        public val FULL: BodyRetention = BodyRetention(Kind.FULL, Int.MAX_VALUE)
+
+        /**
+         * Keeps the SHA-256 digest of bodies only, enough to tell identical requests apart.
+         */
+        public val HASH: BodyRetention = BodyRetention(Kind.HASH, 0)
+
+        /**
+         * Keeps no body, only its size.
+         */
+        public val DROP: BodyRetention = BodyRetention(Kind.DROP, 0)
+
+        /**
+         * Keeps the first [maxBytes] bytes of bodies.
+         */
+        public fun truncated(maxBytes: Int): BodyRetention {
+            require(maxBytes > 0) { "maxBytes must be positive, but was $maxBytes" }
+            return BodyRetention(Kind.TRUNCATED, maxBytes)
+        }
+    }
+}
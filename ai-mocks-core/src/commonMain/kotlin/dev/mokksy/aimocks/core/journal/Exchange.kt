@@ -0,0 +1,95 @@
+package dev.mokksy.aimocks.core.journal
+
+import dev.mokksy.aimocks.core.stream.utf8Length
+import java.util.concurrent.ConcurrentLinkedQueue
+import kotlin.concurrent.Volatile
+
+/**
+ * A chunk of a streamed response, written [offsetNanos] after the request was received.
+ */
+internal class StreamedChunk(
+    val offsetNanos: Long,
+    val data: String,
+)
+
+/**
+ * Response of a request as sent by the mock, captured for the [JournalExporter].
+ *
+ * Streamed responses are captured chunk by chunk as they are written, other responses as a whole body,
+ * up to [maxBytes]: the rest of the response is not kept, and the capture is marked [truncated],
+ * so a long-lived stream does not grow the heap.
+ */
+internal class ResponseCapture(
+    private val maxBytes: Int = RequestJournal.DEFAULT_MAX_RESPONSE_BYTES,
+) {
+    private val start = System.nanoTime()
+
+    // Chunks of a response are written one at a time, by its stream
+    private var captured = 0L
+
+    @Volatile
+    var contentType: String? = null
+        private set
+
+    @Volatile
+    var body: ByteArray? = null
+        private set
+
+    @Volatile
+    var firstByteNanos: Long = -1
+        private set
+
+    @Volatile
+    var truncated: Boolean = false
+        private set
+
+    val chunks = ConcurrentLinkedQueue<StreamedChunk>()
+
+    fun elapsed(): Long = System.nanoTime() - start
+
+    fun responded(
+        contentType: String?,
+        body: ByteArray?,
+    ) {
+        this.contentType = contentType
+        if (body != null) {
+            truncated = body.size > maxBytes
+            this.body = if (truncated) body.copyOf(maxBytes) else body
+            firstByte()
+        }
+    }
+
+    fun chunk(
+        data: String,
+        bytes: Long = utf8Length(data),
+    ) {
+        val offset = elapsed()
+        if (firstByteNanos < 0) firstByteNanos = offset
+        if (truncated || captured + bytes > maxBytes) {
+            truncated = true
+            return
+        }
+        captured += bytes
+        chunks += StreamedChunk(offset, data)
+    }
+
+    private fun firstByte() {
+        if (firstByteNanos < 0) firstByteNanos = elapsed()
+    }
+}
+
+/**
+ * A request and its response, as recorded in the [RequestJournal] and exported by the [JournalExporter].
+ */
+internal class Exchange(
+    val receivedAtMillis: Long,
+    val method: String,
+    val uri: String,
+    val url: String,
+    val stub: String?,
+    val status: Int?,
+    val contentType: String?,
+    val body: ByteArray,
+    val response: ResponseCapture?,
+    val durationNanos: Long,
+)
@@ -0,0 +1,149 @@
+package dev.mokksy.aimocks.core.journal
+
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.addJsonObject
+import kotlinx.serialization.json.buildJsonArray
+import kotlinx.serialization.json.buildJsonObject
+import kotlinx.serialization.json.put
+import kotlinx.serialization.json.putJsonArray
+import kotlinx.serialization.json.putJsonObject
+import java.io.Writer
+import java.time.Instant
+
+private const val NANOS_PER_MILLI = 1_000_000.0
+
+/**
+ * File format of an exported journal.
+ */
+public enum class ExportFormat {
+    /**
+     * One JSON object per exchange and per line, readable while the export is in progress.
+     *
+     * Responses captured truncated have a `truncated` field.
+     */
+    NDJSON,
+
+    /**
+     * An HTTP Archive 1.2 document, readable by browsers and HAR viewers once the export is closed.
+     *
+     * The stub of each exchange and the chunks of streamed responses are exported
+     * in the custom `_stub` and `_chunks` fields. Responses captured truncated have a `truncated` content comment.
+     */
+    HAR,
+    ;
+
+    internal fun begin(writer: Writer) {
+        if (this == HAR) {
+            writer.write("""{"log":{"version":"1.2","creator":{"name":"ai-mocks","version":"1"},"entries":[""")
+            writer.write("\n")
+        }
+    }
+
+    internal fun write(
+        writer: Writer,
+        exchange: Exchange,
+        first: Boolean,
+    ) {
+        when (this) {
+            NDJSON -> {
+                writer.write(exchange.toNdjson().toString())
+                writer.write("\n")
+            }
+            HAR -> {
+                if (!first) writer.write(",\n")
+                writer.write(exchange.toHar().toString())
+            }
+        }
+    }
+
+    internal fun end(writer: Writer) {
+        if (this == HAR) writer.write("\n]}}\n")
+    }
+}
+
+private fun Long.millis(): Double = this / NANOS_PER_MILLI
+
+private fun Exchange.chunks(): JsonArray? =
+    response?.chunks?.takeIf { it.isNotEmpty() }?.let { chunks ->
+        buildJsonArray {
+            chunks.forEach { chunk ->
+                addJsonObject {
+                    put("time", chunk.offsetNanos.millis())
+                    put("data", chunk.data)
+                }
+            }
+        }
+    }
+
+private fun Exchange.responseText(): String? =
+    response?.body?.decodeToString() ?: response?.chunks?.takeIf { it.isNotEmpty() }?.joinToString("") { it.data }
+
+private fun Exchange.toNdjson(): JsonObject =
+    buildJsonObject {
+        put("startedDateTime", Instant.ofEpochMilli(receivedAtMillis).toString())
+        put("time", durationNanos.millis())
+        put("method", method)
+        put("uri", uri)
+        put("stub", stub)
+        put("status", status)
+        putJsonObject("request") {
+            put("contentType", contentType)
+            put("body", body.decodeToString())
+        }
+        putJsonObject("response") {
+            put("contentType", response?.contentType)
+            val chunks = chunks()
+            if (chunks != null) put("chunks", chunks) else put("body", responseText())
+            if (response?.truncated == true) put("truncated", true)
+        }
+    }
+
+private fun Exchange.toHar(): JsonObject {
+    val firstByte = response?.firstByteNanos?.takeIf { it >= 0 } ?: durationNanos
+    val responseText = responseText()
+    return buildJsonObject {
+        put("startedDateTime", Instant.ofEpochMilli(receivedAtMillis).toString())
+        put("time", durationNanos.millis())
+        putJsonObject("request") {
+            put("method", method)
+            put("url", url)
+            put("httpVersion", "HTTP/1.1")
+            putJsonArray("cookies") {}
+            putJsonArray("headers") {}
+            putJsonArray("queryString") {}
+            if (body.isNotEmpty()) {
+                putJsonObject("postData") {
+                    put("mimeType", contentType.orEmpty())
+                    put("text", body.decodeToString())
+                }
+            }
+            put("headersSize", -1)
+            put("bodySize", body.size)
+        }
+        putJsonObject("response") {
+            put("status", status ?: 0)
+            put("statusText", "")
+            put("httpVersion", "HTTP/1.1")
+            putJsonArray("cookies") {}
+            putJsonArray("headers") {}
+            putJsonObject("content") {
+                put("size", responseText?.encodeToByteArray()?.size ?: 0)
+                put("mimeType", response?.contentType.orEmpty())
+                if (responseText != null) put("text", responseText)
+                if (response?.truncated == true) put("comment", "truncated")
+            }
+            put("redirectURL", "")
+            put("headersSize", -1)
+            put("bodySize", -1)
+        }
+        putJsonObject("cache") {}
+        putJsonObject("timings") {
+            put("send", 0)
+            put("wait", firstByte.millis())
+            put("receive", (durationNanos - firstByte).coerceAtLeast(0).millis())
+        }
+        put("_stub", stub)
+        chunks()?.let { put("_chunks", it) }
+    }
+}
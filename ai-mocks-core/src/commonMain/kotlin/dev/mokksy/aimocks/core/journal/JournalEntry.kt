@@ -0,0 +1,61 @@
+package dev.mokksy.aimocks.core.journal
+
+/**
+ * A request recorded by the [RequestJournal].
+ *
+ * @property receivedAtMillis Time the request was received, in milliseconds since the epoch.
+ * @property method HTTP method of the request.
+ * @property uri Path and query of the request.
+ * @property stub Name of the stub which answered the request, or its path when the stub has no name,
+ *                or `null` if no stub matched.
+ * @property status HTTP status of the response, if any.
+ * @property contentType Content type of the request body, if any.
+ * @property bodySize Size of the request body in bytes, whether it was kept or not.
+ * @property bodySha256 Hexadecimal SHA-256 digest of the body, kept by [BodyRetention.HASH].
+ */
+public class JournalEntry internal constructor(
+    public val receivedAtMillis: Long,
+    public val method: String,
+    public val uri: String,
+    public val stub: String?,
+    public val status: Int?,
+    public val contentType: String?,
+    public val bodySize: Int,
+    private val body: ByteArray?,
+    public val bodySha256: String?,
+) {
+    /**
+     * Whether a stub answered the request.
+     */
+    public val matched: Boolean
+        get() = stub != null
+
+    /**
+     * Whether only the beginning of the body was kept.
+     */
+    public val bodyTruncated: Boolean
+        get() = body != null && body.size < bodySize
+
+    /**
+     * Returns the kept body, or its kept beginning, decoded as UTF-8, or `null` if it was not kept.
+     */
+    public fun body(): String? = body?.decodeToString()
+
+    /**
+     * Returns a copy of the kept body, or of its kept beginning, or `null` if it was not kept.
+     */
+    public fun bodyBytes(): ByteArray? = body?.copyOf()
+
+    /**
+     * Approximate number of bytes retained by this entry.
+     */
+    internal val retainedBytes: Long
+        get() = ENTRY_OVERHEAD + 2L * uri.length + (body?.size ?: 0) + (bodySha256?.length ?: 0)
+
+    override fun toString(): String =
+        "JournalEntry(method=$method, uri=$uri, stub=$stub, status=$status, bodySize=$bodySize)"
+
+    private companion object {
+        const val ENTRY_OVERHEAD = 128L
+    }
+}
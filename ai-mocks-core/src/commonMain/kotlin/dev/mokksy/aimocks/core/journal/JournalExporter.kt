@@ -0,0 +1,143 @@
+package dev.mokksy.aimocks.core.journal
+
+import java.io.BufferedWriter
+import java.io.IOException
+import java.io.OutputStreamWriter
+import java.nio.channels.Channels
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.LongAdder
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+import kotlin.concurrent.Volatile
+
+/**
+ * Exports the exchanges of a mock to a file as they complete, see [RequestJournal.export].
+ *
+ * Exchanges are handed over to a background writer through a queue of bounded capacity,
+ * so request handling never waits for the disk: when the queue is full, the exchange is dropped
+ * and counted in [droppedCount]. The writer drains the queue in batches and forces its writes to the disk
+ * at most every `syncIntervalMillis`.
+ *
+ * Close the exporter to flush the remaining exchanges and complete the file.
+ *
+ * @property path File the exchanges are written to.
+ * @property format Format of the file.
+ * @property maxResponseBytes Number of bytes captured of each response at most.
+ */
+public class JournalExporter internal constructor(
+    public val path: Path,
+    public val format: ExportFormat,
+    queueCapacity: Int,
+    private val syncIntervalMillis: Long,
+    public val maxResponseBytes: Int,
+    private val onClose: (JournalExporter) -> Unit,
+) : AutoCloseable {
+    private val lock = ReentrantLock()
+    private val queue = ArrayBlockingQueue<Exchange>(queueCapacity)
+    private val exported = LongAdder()
+    private val dropped = LongAdder()
+
+    // Written under the lock, so no exchange is queued once the writer may have stopped
+    @Volatile
+    private var closed = false
+
+    /**
+     * Failure which stopped the export, if any.
+     */
+    @Volatile
+    public var failure: IOException? = null
+        private set
+
+    private val writer =
+        Thread(::export, "aimocks-journal-exporter").apply {
+            isDaemon = true
+            start()
+        }
+
+    /**
+     * Number of exchanges written to the file.
+     */
+    public val exportedCount: Long
+        get() = exported.sum()
+
+    /**
+     * Number of exchanges dropped because the queue was full, or the export had failed.
+     */
+    public val droppedCount: Long
+        get() = dropped.sum()
+
+    internal fun offer(exchange: Exchange) {
+        val queued = lock.withLock { !closed && failure == null && queue.offer(exchange) }
+        if (!queued) dropped.increment()
+    }
+
+    /**
+     * Writes the queued exchanges, completes the file and stops the export.
+     */
+    override fun close() {
+        lock.withLock {
+            if (closed) return
+            closed = true
+        }
+        onClose(this)
+        writer.join()
+    }
+
+    private fun export() {
+        try {
+            FileChannel
+                .open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+                .use { channel ->
+                    val out = BufferedWriter(OutputStreamWriter(Channels.newOutputStream(channel), Charsets.UTF_8))
+                    drain(channel, out)
+                }
+        } catch (e: IOException) {
+            lock.withLock {
+                failure = e
+                dropped.add(queue.size.toLong())
+                queue.clear()
+            }
+        }
+    }
+
+    private fun drain(
+        channel: FileChannel,
+        out: BufferedWriter,
+    ) {
+        format.begin(out)
+        val batch = ArrayList<Exchange>(MAX_BATCH)
+        var first = true
+        var dirty = false
+        var lastSync = System.nanoTime()
+        while (!closed || queue.isNotEmpty()) {
+            queue.poll(syncIntervalMillis, TimeUnit.MILLISECONDS)?.let {
+                batch += it
+                queue.drainTo(batch, MAX_BATCH - 1)
+            }
+            batch.forEach {
+                format.write(out, it, first)
+                first = false
+            }
+            exported.add(batch.size.toLong())
+            dirty = dirty || batch.isNotEmpty()
+            batch.clear()
+            if (dirty && System.nanoTime() - lastSync >= TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis)) {
+                out.flush()
+                channel.force(false)
+                dirty = false
+                lastSync = System.nanoTime()
+            }
+        }
+        format.end(out)
+        out.flush()
+        channel.force(true)
+    }
+
+    private companion object {
+        const val MAX_BATCH = 256
+    }
+}
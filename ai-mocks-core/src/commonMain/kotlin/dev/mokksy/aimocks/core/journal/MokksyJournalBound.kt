@@ -0,0 +1,98 @@
+package dev.mokksy.aimocks.core.journal
+
+import io.ktor.server.application.Application
+import io.ktor.server.application.ApplicationCallPipeline
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.Volatile
+import kotlin.concurrent.withLock
+
+/**
+ * Keeps the journal Mokksy records of every request, with its whole body, within [maxEntries] requests.
+ *
+ * Mokksy can only clear its journal as a whole, along with the match state of the stubs, so the journal is
+ * [cleared][reset] every [maxEntries] requests. The unexpected requests it held are [verified][verify] first,
+ * so a later verification still reports them.
+ *
+ * @param verify Verifies that the journal holds no unexpected request, throwing an [AssertionError] otherwise.
+ * @param reset Clears the journal.
+ */
+internal class MokksyJournalBound(
+    private val verify: () -> Unit,
+    private val reset: () -> Unit,
+) {
+    private val lock = ReentrantLock()
+    private val requests = AtomicLong()
+
+    @Volatile
+    private var unexpected: AssertionError? = null
+
+    /**
+     * Number of requests after which Mokksy's journal is cleared, or `0` to never clear it.
+     */
+    @Volatile
+    var maxEntries: Int = RequestJournal.DEFAULT_MAX_ENTRIES
+        set(value) {
+            require(value >= 0) { "maxEntries must not be negative, but was $value" }
+            field = value
+        }
+
+    /**
+     * Counts a request answered, clearing the journal once it holds [maxEntries] requests.
+     */
+    fun answered() {
+        val max = maxEntries
+        if (max > 0 && requests.incrementAndGet() >= max) {
+            lock.withLock {
+                if (requests.get() >= max) prune()
+            }
+        }
+    }
+
+    /**
+     * Verifies that no unexpected request was received since the last [clear], including those
+     * of the journals cleared in between.
+     *
+     * @throws AssertionError if an unexpected request was received.
+     */
+    fun verifyNoUnexpectedRequests() {
+        unexpected?.let { throw it }
+        verify()
+    }
+
+    /**
+     * Clears the journal and forgets the unexpected requests it held.
+     */
+    fun clear() {
+        lock.withLock {
+            reset()
+            requests.set(0)
+            unexpected = null
+        }
+    }
+
+    private fun prune() {
+        if (unexpected == null) {
+            try {
+                verify()
+            } catch (e: AssertionError) {
+                unexpected = e
+            }
+        }
+        reset()
+        requests.set(0)
+    }
+}
+
+/**
+ * Counts the requests answered by the application in [bound].
+ */
+internal fun Application.installMokksyJournalBound(bound: MokksyJournalBound) {
+    intercept(ApplicationCallPipeline.Monitoring) {
+        try {
+            proceed()
+        } finally {
+            bound.answered()
+        }
+    }
+}
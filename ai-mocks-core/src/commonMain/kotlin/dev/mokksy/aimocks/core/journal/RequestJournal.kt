@@ -0,0 +1,216 @@
+package dev.mokksy.aimocks.core.journal
+
+import java.nio.file.Path
+import java.util.concurrent.atomic.AtomicReference
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.Volatile
+import kotlin.concurrent.withLock
+import kotlin.jvm.JvmOverloads
+
+/**
+ * Memory-bounded journal of the requests received by a mock.
+ *
+ * The journal is a ring buffer: once it holds [maxEntries] entries, or its entries retain more than [maxBytes],
+ * the oldest ones are evicted. Bodies are kept according to [bodyRetention], so a mock shared by a whole test run
+ * or running in a soak environment keeps a flat heap however large its requests are, e.g. embedding batches
+ * or images.
+ *
+ * Disabled by default. Enable it with the `aimocks.journal=true` system property or by setting [enabled]:
+ *
+ * ```kotlin
+ * ollama.journal.enabled = true
+ * // ... send requests, then
+ * ollama.journal.entries().filter { !it.matched }
+ * ```
+ *
+ * To keep a complete record of the traffic, [export] it to a file instead.
+ *
+ * Mokksy keeps its own journal of the requests, for `verifyNoUnexpectedRequests`:
+ * the mock clears it every `mokksyJournalLimit` requests, so it stays bounded too.
+ */
+public class RequestJournal internal constructor() {
+    private val lock = ReentrantLock()
+    private val entries = ArrayDeque<JournalEntry>()
+    private var retained = 0L
+    private var evicted = 0L
+    private val exporter = AtomicReference<JournalExporter?>()
+
+    /**
+     * Whether requests are recorded in memory.
+     */
+    @Volatile
+    public var enabled: Boolean = java.lang.Boolean.getBoolean("aimocks.journal")
+
+    /**
+     * Number of entries kept at most.
+     */
+    @Volatile
+    public var maxEntries: Int = DEFAULT_MAX_ENTRIES
+        set(value) {
+            require(value > 0) { "maxEntries must be positive, but was $value" }
+            field = value
+            lock.withLock { trim() }
+        }
+
+    /**
+     * Approximate number of bytes retained by the entries at most.
+     */
+    @Volatile
+    public var maxBytes: Long = DEFAULT_MAX_BYTES
+        set(value) {
+            require(value > 0) { "maxBytes must be positive, but was $value" }
+            field = value
+            lock.withLock { trim() }
+        }
+
+    /**
+     * Retention policy of the request bodies, applied to the requests recorded from now on.
+     */
+    @Volatile
+    public var bodyRetention: BodyRetention = BodyRetention.truncated(DEFAULT_TRUNCATED_BYTES)
+
+    /**
+     * Number of entries in the journal.
+     */
+    public val size: Int
+        get() = lock.withLock { entries.size }
+
+    /**
+     * Approximate number of bytes retained by the entries.
+     */
+    public val retainedBytes: Long
+        get() = lock.withLock { retained }
+
+    /**
+     * Number of entries evicted to stay within the bounds since the journal was created or [cleared][clear].
+     */
+    public val evictedCount: Long
+        get() = lock.withLock { evicted }
+
+    /**
+     * Returns the entries of the journal, oldest first.
+     */
+    public fun entries(): List<JournalEntry> = lock.withLock { entries.toList() }
+
+    /**
+     * Removes all entries.
+     */
+    public fun clear() {
+        lock.withLock {
+            entries.clear()
+            retained = 0
+            evicted = 0
+        }
+    }
+
+    /**
+     * Exporter of the exchanges to a file, if an export is in progress.
+     */
+    public val activeExport: JournalExporter?
+        get() = exporter.get()
+
+    /**
+     * Starts writing every exchange to the file at [path] in [format] as it completes,
+     * with its whole request body and its response, streamed responses chunk by chunk with their timing,
+     * up to [maxResponseBytes][JournalExporter.maxResponseBytes].
+     *
+     * The export is independent of [enabled] and of the bounds of the journal. It replaces the export
+     * in progress, if any, and lasts until the returned exporter is closed or the mock is shut down.
+     *
+     * @param queueCapacity Number of exchanges waiting to be written at most: beyond, exchanges are dropped.
+     * @param syncIntervalMillis Longest time between two syncs of the file to the disk.
+     * @param maxResponseBytes Number of bytes captured of each response at most: beyond, the response
+     *        is exported truncated.
+     */
+    @JvmOverloads
+    public fun export(
+        path: Path,
+        format: ExportFormat = ExportFormat.NDJSON,
+        queueCapacity: Int = DEFAULT_EXPORT_QUEUE_CAPACITY,
+        syncIntervalMillis: Long = DEFAULT_SYNC_INTERVAL_MILLIS,
+        maxResponseBytes: Int = DEFAULT_MAX_RESPONSE_BYTES,
+    ): JournalExporter {
+        require(queueCapacity > 0) { "queueCapacity must be positive, but was $queueCapacity" }
+        require(syncIntervalMillis > 0) { "syncIntervalMillis must be positive, but was $syncIntervalMillis" }
+        require(maxResponseBytes >= 0) { "maxResponseBytes must not be negative, but was $maxResponseBytes" }
+        val started =
+            JournalExporter(path, format, queueCapacity, syncIntervalMillis, maxResponseBytes) {
+                exporter.compareAndSet(it, null)
+            }
+        exporter.getAndSet(started)?.close()
+        return started
+    }
+
+    /**
+     * Whether the exchanges are recorded, in memory or to a file.
+     */
+    internal val recording: Boolean
+        get() = enabled || exporter.get() != null
+
+    internal fun closeExport() {
+        exporter.get()?.close()
+    }
+
+    internal fun record(exchange: Exchange) {
+        exporter.get()?.offer(exchange)
+        if (!enabled) return
+        val retention = bodyRetention
+        val body = exchange.body
+        val entry =
+            JournalEntry(
+                receivedAtMillis = exchange.receivedAtMillis,
+                method = exchange.method,
+                uri = exchange.uri,
+                stub = exchange.stub,
+                status = exchange.status,
+                contentType = exchange.contentType,
+                bodySize = body.size,
+                body = retention.retain(body),
+                bodySha256 = retention.digest(body),
+            )
+        lock.withLock {
+            entries.addLast(entry)
+            retained += entry.retainedBytes
+            trim()
+        }
+    }
+
+    private fun trim() {
+        while (entries.size > maxEntries || (retained > maxBytes && entries.size > 1)) {
+            retained -= entries.removeFirst().retainedBytes
+            evicted++
+        }
+    }
+
+    public companion object {
+        /**
+         * Default number of entries kept at most.
+         */
+        public const val DEFAULT_MAX_ENTRIES: Int = 1_000
+
+        /**
+         * Default number of bytes retained by the entries at most: 16 MiB.
+         */
+        public const val DEFAULT_MAX_BYTES: Long = 16L * 1024 * 1024
+
+        /**
+         * Default number of bytes kept of each body.
+         */
+        public const val DEFAULT_TRUNCATED_BYTES: Int = 4 * 1024
+
+        /**
+         * Default number of exchanges waiting to be exported at most.
+         */
+        public const val DEFAULT_EXPORT_QUEUE_CAPACITY: Int = 10_000
+
+        /**
+         * Default longest time between two syncs of an exported file to the disk.
+         */
+        public const val DEFAULT_SYNC_INTERVAL_MILLIS: Long = 1_000
+
+        /**
+         * Default number of bytes captured of each exported response at most: 1 MiB.
+         */
+        public const val DEFAULT_MAX_RESPONSE_BYTES: Int = 1024 * 1024
+    }
+}
@@ -0,0 +1,156 @@
+package dev.mokksy.aimocks.core.json
+
+import dev.mokksy.aimocks.core.matching.CostAware
+import dev.mokksy.aimocks.core.matching.MatcherCost
+import io.kotest.matchers.Matcher
+import io.kotest.matchers.MatcherResult
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonElement
+import kotlinx.serialization.json.JsonNull
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.booleanOrNull
+import java.math.BigDecimal
+
+/**
+ * Creates a matcher verifying that the JSON request body contains [value] at the given [path].
+ *
+ * Drop-in replacement for Kotest's `containJsonKeyValue` reading the body tree
+ * shared by all matchers of the request instead of re-parsing the body.
+ * Supports the path subset used by the mocks: an optional `$.` prefix,
+ * dot-separated keys and array indices, e.g. `model`, `$.options.seed`, `$.messages[0].role`.
+ *
+ * Numbers are compared by the type of [t]; a [String] value matches any primitive
+ * with the same textual content.
+ *
+ * @param path The path of the element in the JSON body.
+ * @param t The expected value.
+ * @return A matcher for the request body string.
+ */
+public fun <T> containJsonKeyValue(
+    path: String,
+    t: T,
+): Matcher<String?> {
+    val segments = JsonPathSegments.parse(path)
+    return object : Matcher<String?>, CostAware {
+        override val cost: MatcherCost = MatcherCost.JSON
+
+        override fun test(value: String?): MatcherResult {
+            val actual =
+                value
+                    ?.let { ParsedJsonCache.parse(it) }
+                    ?.let { JsonPathSegments.resolve(it, segments) }
+            return MatcherResult(
+                actual != null && primitiveEquals(actual, t),
+                { "Request body should contain JSON element $path = $t but was $actual" },
+                { "Request body should not contain JSON element $path = $t" },
+            )
+        }
+
+        override fun toString(): String = "JSON element $path should be $t"
+    }
+}
+
+/**
+ * Creates a matcher verifying that the JSON request body is equal to the [expected] JSON.
+ *
+ * Matches the defaults of Kotest's `equalJson`: object properties may come in any order,
+ * array elements must keep their order, numbers are compared by value regardless of format
+ * (`1` equals `1.0`), and no type coercion is applied (`"1"` does not equal `1`).
+ *
+ * The expected JSON is parsed once; the request body tree is shared by all matchers of the request.
+ *
+ * @param expected The expected JSON document.
+ * @return A matcher for the request body string.
+ */
+public fun equalJsonTree(expected: String): Matcher<String?> {
+    val expectedTree = Json.parseToJsonElement(expected)
+    return object : Matcher<String?>, CostAware {
+        override val cost: MatcherCost = MatcherCost.JSON
+
+        override fun test(value: String?): MatcherResult {
+            val actual = value?.let { ParsedJsonCache.parse(it) }
+            return MatcherResult(
+                actual != null && jsonTreeEquals(expectedTree, actual),
+                { "Request body should be equal to JSON $expectedTree but was $value" },
+                { "Request body should not be equal to JSON $expectedTree" },
+            )
+        }
+
+        override fun toString(): String = "Request body should be equal to JSON $expectedTree"
+    }
+}
+
+internal fun jsonTreeEquals(
+    expected: JsonElement,
+    actual: JsonElement,
+): Boolean =
+    when (expected) {
+        is JsonObject -> {
+            actual is JsonObject &&
+                expected.size == actual.size &&
+                expected.all { (key, element) ->
+                    actual[key]?.let { jsonTreeEquals(element, it) } == true
+                }
+        }
+
+        is JsonArray -> {
+            actual is JsonArray &&
+                expected.size == actual.size &&
+                expected.indices.all { jsonTreeEquals(expected[it], actual[it]) }
+        }
+
+        JsonNull -> {
+            actual == JsonNull
+        }
+
+        is JsonPrimitive -> {
+            actual is JsonPrimitive && actual != JsonNull && primitiveTreeEquals(expected, actual)
+        }
+    }
+
+private fun primitiveTreeEquals(
+    expected: JsonPrimitive,
+    actual: JsonPrimitive,
+): Boolean =
+    when {
+        expected.isString || actual.isString -> {
+            expected.isString == actual.isString && expected.content == actual.content
+        }
+
+        expected.booleanOrNull != null || actual.booleanOrNull != null -> {
+            expected.content == actual.content
+        }
+
+        else -> {
+            val expectedNumber = expected.content.toBigDecimalOrNull()
+            val actualNumber = actual.content.toBigDecimalOrNull()
+            expectedNumber != null && actualNumber != null && expectedNumber.compareTo(actualNumber) == 0
+        }
+    }
+
+@Suppress("ReturnCount")
+private fun primitiveEquals(
+    actual: JsonElement,
+    expected: Any?,
+): Boolean {
+    if (actual !is JsonPrimitive) return false
+    if (actual == JsonNull) return expected == null
+    val content = actual.content
+    return when (expected) {
+        null -> false
+        is String -> content == expected
+        is Boolean -> !actual.isString && actual.booleanOrNull == expected
+        is Int -> !actual.isString && content.toIntOrNull() == expected
+        is Long -> !actual.isString && content.toLongOrNull() == expected
+        is Double -> !actual.isString && content.toDoubleOrNull() == expected
+        is Float -> !actual.isString && content.toFloatOrNull() == expected
+        is Number -> {
+            !actual.isString &&
+                content.toBigDecimalOrNull()?.compareTo(BigDecimal(expected.toString())) == 0
+        }
+
+        else -> content == expected.toString()
+    }
+}
@@ -0,0 +1,51 @@
+package dev.mokksy.aimocks.core.json
+
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonElement
+import kotlinx.serialization.json.JsonObject
+
+/**
+ * Minimal JSONPath support for request body matchers:
+ * an optional `$` root, dot-separated keys and `[index]` array accessors.
+ */
+internal object JsonPathSegments {
+    /**
+     * Splits [path] into keys ([String]) and array indices ([Int]).
+     */
+    fun parse(path: String): List<Any> {
+        val segments = mutableListOf<Any>()
+        path
+            .removePrefix("$")
+            .split('.')
+            .filter { it.isNotEmpty() }
+            .forEach { part ->
+                val bracket = part.indexOf('[')
+                val key = if (bracket < 0) part else part.substring(0, bracket)
+                if (key.isNotEmpty()) segments += key
+                if (bracket >= 0) {
+                    INDEX_PATTERN.findAll(part.substring(bracket)).forEach {
+                        segments += it.groupValues[1].toInt()
+                    }
+                }
+            }
+        require(segments.isNotEmpty()) { "JSON path must not be empty: '$path'" }
+        return segments
+    }
+
+    /**
+     * Returns the element of [root] at the given [segments], or `null` if there is none.
+     */
+    fun resolve(
+        root: JsonElement,
+        segments: List<Any>,
+    ): JsonElement? =
+        segments.fold(root as JsonElement?) { element, segment ->
+            when {
+                element is JsonObject && segment is String -> element[segment]
+                element is JsonArray && segment is Int -> element.getOrNull(segment)
+                else -> null
+            }
+        }
+
+    private val INDEX_PATTERN = Regex("""\[(\d+)]""")
+}
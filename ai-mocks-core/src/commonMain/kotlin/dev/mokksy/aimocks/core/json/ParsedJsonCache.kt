@@ -0,0 +1,28 @@
+package dev.mokksy.aimocks.core.json
+
+import dev.mokksy.aimocks.core.RequestMemo
+import kotlinx.serialization.SerializationException
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonElement
+
+/**
+ * Parses the request body into a [JsonElement] once per request.
+ *
+ * Every JSON-aware body matcher of every candidate stub reads the same tree,
+ * so a large prompt is tokenized once instead of once per matcher.
+ */
+internal object ParsedJsonCache {
+    private val memo = RequestMemo()
+
+    /**
+     * Returns the parsed [body], or `null` if it is not valid JSON.
+     */
+    fun parse(body: String): JsonElement? =
+        memo.getOrPut(body, ParsedJsonCache) {
+            try {
+                Json.parseToJsonElement(body)
+            } catch (_: SerializationException) {
+                null
+            }
+        }
+}
@@ -0,0 +1,90 @@
+package dev.mokksy.aimocks.core.json
+
+import kotlinx.serialization.SerializationStrategy
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.jsonObject
+
+/**
+ * JSON response encoded once, with the values of its volatile fields filled in on each request.
+ *
+ * The response is split into UTF-8 encoded segments around the volatile top-level fields,
+ * so rendering it only encodes the field values and copies bytes.
+ *
+ * ```kotlin
+ * val template = ResponseTemplate.compile(ChatResponse.serializer(), response, listOf("id", "created"))
+ * val bytes = template?.render(listOf(jsonString(nextId()), now.toString()))
+ * ```
+ *
+ * @property fields Names of the volatile top-level fields, in the order of the values passed to [render].
+ */
+public class ResponseTemplate private constructor(
+    public val fields: List<String>,
+    private val segments: List<ByteArray>,
+    private val valueOrder: IntArray,
+) {
+    /**
+     * Renders the response with the given field [values].
+     *
+     * @param values JSON-encoded values of the [fields], in the same order,
+     *        e.g. `"\"abc\""` for a string (see [jsonString]) or `"42"` for a number.
+     * @return The UTF-8 encoded response body.
+     */
+    public fun render(values: List<String>): ByteArray {
+        require(values.size == fields.size) { "Expected ${fields.size} values, but got ${values.size}" }
+        val encoded = Array(valueOrder.size) { values[valueOrder[it]].encodeToByteArray() }
+        val result = ByteArray(segments.sumOf { it.size } + encoded.sumOf { it.size })
+        var position = 0
+        segments.forEachIndexed { index, segment ->
+            segment.copyInto(result, position)
+            position += segment.size
+            if (index < encoded.size) {
+                encoded[index].copyInto(result, position)
+                position += encoded[index].size
+            }
+        }
+        return result
+    }
+
+    public companion object {
+        /**
+         * Encodes [value] once as a template with the given volatile top-level [fields].
+         *
+         * Fields missing from the encoded value are appended.
+         *
+         * @return The template, or `null` if the fields cannot be told apart from the rest of the response,
+         *         in which case the response should be encoded on every request.
+         */
+        public fun <T> compile(
+            serializer: SerializationStrategy<T>,
+            value: T,
+            fields: List<String>,
+        ): ResponseTemplate? {
+            val encoded = Json.encodeToJsonElement(serializer, value).jsonObject
+            val markers = fields.indices.map { JsonPrimitive("\u0000aimocks-template-$it\u0000") }
+            val marked = JsonObject(encoded + fields.zip(markers))
+            val text = Json.encodeToString(JsonObject.serializer(), marked)
+
+            val positions = markers.map { marker -> marker.toString().let { it to text.indexOf(it) } }
+            val unique = positions.all { (marker, at) -> at >= 0 && text.indexOf(marker, at + 1) < 0 }
+            if (!unique) return null
+
+            val order = positions.indices.sortedBy { positions[it].second }
+            val segments = ArrayList<ByteArray>(order.size + 1)
+            var start = 0
+            order.forEach {
+                val (marker, at) = positions[it]
+                segments += text.substring(start, at).encodeToByteArray()
+                start = at + marker.length
+            }
+            segments += text.substring(start).encodeToByteArray()
+            return ResponseTemplate(fields, segments, order.toIntArray())
+        }
+    }
+}
+
+/**
+ * Encodes [value] as a JSON string literal, for use as a [ResponseTemplate] value.
+ */
+public fun jsonString(value: String): String = JsonPrimitive(value).toString()
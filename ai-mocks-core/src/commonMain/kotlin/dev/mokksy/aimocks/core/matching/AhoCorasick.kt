@@ -0,0 +1,84 @@
+package dev.mokksy.aimocks.core.matching
+
+/**
+ * Aho–Corasick automaton finding all occurrences of many patterns in a single pass over a text.
+ *
+ * Immutable once built, so it can be shared between threads.
+ *
+ * @param patterns Non-empty patterns; the index in this list is the pattern id reported on match.
+ * @param fold Character transformation applied to both patterns and text, e.g. case folding.
+ */
+internal class AhoCorasick(
+    patterns: List<String>,
+    private val fold: (Char) -> Char = { it },
+) {
+    private val transitions = ArrayList<HashMap<Char, Int>>()
+    private val failure: IntArray
+    private val outputs: Array<IntArray>
+
+    init {
+        transitions += HashMap()
+        val terminal = ArrayList<MutableList<Int>>()
+        terminal += mutableListOf()
+        patterns.forEachIndexed { id, pattern ->
+            require(pattern.isNotEmpty()) { "Pattern must not be empty" }
+            var state = 0
+            for (c in pattern) {
+                val ch = fold(c)
+                state =
+                    transitions[state].getOrPut(ch) {
+                        transitions += HashMap()
+                        terminal += mutableListOf()
+                        transitions.size - 1
+                    }
+            }
+            terminal[state] += id
+        }
+
+        failure = IntArray(transitions.size)
+        val merged = arrayOfNulls<IntArray>(transitions.size)
+        merged[0] = terminal[0].toIntArray()
+        val queue = ArrayDeque<Int>()
+        transitions[0].values.forEach {
+            failure[it] = 0
+            queue.addLast(it)
+        }
+        while (queue.isNotEmpty()) {
+            val state = queue.removeFirst()
+            val fallback = failure[state]
+            merged[state] = (terminal[state] + merged[fallback]!!.asList()).toIntArray()
+            transitions[state].forEach { (ch, next) ->
+                failure[next] = if (state == 0) 0 else step(failure[state], ch)
+                queue.addLast(next)
+            }
+        }
+        outputs = Array(transitions.size) { merged[it] ?: IntArray(0) }
+    }
+
+    private fun step(
+        from: Int,
+        ch: Char,
+    ): Int {
+        var state = from
+        while (true) {
+            transitions[state][ch]?.let { return it }
+            if (state == 0) return 0
+            state = failure[state]
+        }
+    }
+
+    /**
+     * Scans [text] once and reports the id of every pattern occurring in it to [onMatch].
+     * An id may be reported more than once.
+     */
+    fun search(
+        text: CharSequence,
+        onMatch: (Int) -> Unit,
+    ) {
+        var state = 0
+        for (i in text.indices) {
+            state = step(state, fold(text[i]))
+            outputs[state].forEach(onMatch)
+        }
+    }
+}
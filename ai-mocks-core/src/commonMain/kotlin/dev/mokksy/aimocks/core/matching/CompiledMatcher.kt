@@ -0,0 +1,45 @@
+package dev.mokksy.aimocks.core.matching
+
+import io.kotest.matchers.Matcher
+import io.kotest.matchers.MatcherResult
+
+/**
+ * Compiles matchers into a single matcher evaluating them in order of [MatcherCost]
+ * and stopping at the first failure, whose result is returned.
+ *
+ * Matchers of equal cost keep their registration order.
+ *
+ * @param matchers The matchers that must all pass.
+ * @return A matcher passing only if all [matchers] pass.
+ */
+public fun <T> compileMatchers(matchers: Iterable<Matcher<T>>): Matcher<T> =
+    CompiledMatcher(matchers.sortedBy { costOf(it) })
+
+private class CompiledMatcher<T>(
+    private val matchers: List<Matcher<T>>,
+) : Matcher<T>,
+    CostAware {
+    override val cost: MatcherCost = matchers.maxOfOrNull { costOf(it) } ?: MatcherCost.SCALAR
+
+    private val names = matchers.map { it.toString() }
+
+    override fun test(value: T): MatcherResult {
+        val stats = MatcherStats.takeIf { it.enabled }
+        for (index in matchers.indices) {
+            val result =
+                if (stats == null) {
+                    matchers[index].test(value)
+                } else {
+                    stats.measure(names[index]) { matchers[index].test(value) }
+                }
+            if (!result.passed()) return result
+        }
+        return MatcherResult(
+            true,
+            { "Request should satisfy: $this" },
+            { "Request should not satisfy: $this" },
+        )
+    }
+
+    override fun toString(): String = names.joinToString(separator = " and ")
+}
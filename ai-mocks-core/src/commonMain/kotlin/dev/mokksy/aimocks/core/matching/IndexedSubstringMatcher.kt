@@ -0,0 +1,58 @@
+package dev.mokksy.aimocks.core.matching
+
+import io.kotest.matchers.Matcher
+import io.kotest.matchers.MatcherResult
+import kotlin.concurrent.Volatile
+import kotlin.jvm.Synchronized
+
+/**
+ * Substring condition on the request body that can be decided by a [SubstringIndex].
+ *
+ * Until bound, it evaluates the [delegate] matcher. Once bound with [SubstringIndex.bind],
+ * the verdict comes from the index's single pass over the body; the [delegate] is
+ * only consulted to render failure messages.
+ *
+ * @param delegate The equivalent plain matcher.
+ * @param substring The substring to look for.
+ * @param ignoreCase Whether the substring is matched case-insensitively.
+ * @param negated Whether the condition requires the substring to be absent.
+ */
+internal class IndexedSubstringMatcher(
+    private val delegate: Matcher<String?>,
+    val substring: String,
+    val ignoreCase: Boolean,
+    val negated: Boolean,
+) : Matcher<String?>,
+    CostAware {
+    override val cost: MatcherCost = MatcherCost.SUBSTRING
+
+    @Volatile
+    private var binding: Pair<SubstringIndex, Int>? = null
+
+    /**
+     * Binds this matcher to the [index], removing its substring from the index it was bound to before.
+     * The substring is removed from the [index] once this matcher, and so its stub, is garbage collected.
+     */
+    @Synchronized
+    fun bind(index: SubstringIndex) {
+        val previous = binding
+        if (previous?.first !== index) {
+            binding = index to index.register(substring, ignoreCase, owner = this)
+            previous?.let { (previousIndex, id) -> previousIndex.unregister(id) }
+        }
+    }
+
+    override fun test(value: String?): MatcherResult {
+        val current = binding
+        if (current == null || value == null) return delegate.test(value)
+        val (index, id) = current
+        val passed = index.contains(value, id) != negated
+        return MatcherResult(
+            passed,
+            { delegate.test(value).failureMessage() },
+            { delegate.test(value).negatedFailureMessage() },
+        )
+    }
+
+    override fun toString(): String = delegate.toString()
+}
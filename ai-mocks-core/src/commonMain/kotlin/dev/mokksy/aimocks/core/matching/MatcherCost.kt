@@ -0,0 +1,58 @@
+package dev.mokksy.aimocks.core.matching
+
+import io.kotest.matchers.Matcher
+import io.kotest.matchers.MatcherResult
+
+/**
+ * Estimated evaluation cost of a request matcher, from cheapest to most expensive.
+ *
+ * Compiled matchers evaluate cheaper checks first, so a trivial mismatch
+ * (e.g. another model) rejects the request before any JSON comparison or schema parsing.
+ */
+public enum class MatcherCost {
+    /** Equality of a scalar field, e.g. model, temperature or JSON-RPC method. */
+    SCALAR,
+
+    /** Exact equality of the whole body, which rejects most mismatches on their length alone. */
+    EQUALITY,
+
+    /** Substring search in the body or in message texts. */
+    SUBSTRING,
+
+    /** Lookup in or comparison of the JSON tree. */
+    JSON,
+
+    /** User-provided matcher or predicate with unknown cost. */
+    CUSTOM,
+
+    /** Parsing and inspection of JSON schemas, e.g. tool parameters. */
+    SCHEMA,
+}
+
+/**
+ * A matcher declaring its estimated evaluation [cost].
+ * Matchers not implementing it are treated as [MatcherCost.CUSTOM].
+ */
+public interface CostAware {
+    public val cost: MatcherCost
+}
+
+/**
+ * Tags this matcher with the given evaluation [cost].
+ */
+public fun <T> Matcher<T>.withCost(cost: MatcherCost): Matcher<T> = CostTaggedMatcher(this, cost)
+
+/**
+ * Returns the declared cost of the [matcher], or [MatcherCost.CUSTOM] if it declares none.
+ */
+public fun costOf(matcher: Matcher<*>): MatcherCost = (matcher as? CostAware)?.cost ?: MatcherCost.CUSTOM
+
+private class CostTaggedMatcher<T>(
+    private val delegate: Matcher<T>,
+    override val cost: MatcherCost,
+) : Matcher<T>,
+    CostAware {
+    override fun test(value: T): MatcherResult = delegate.test(value)
+
+    override fun toString(): String = delegate.toString()
+}
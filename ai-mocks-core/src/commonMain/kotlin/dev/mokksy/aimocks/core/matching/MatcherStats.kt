@@ -0,0 +1,90 @@
+package dev.mokksy.aimocks.core.matching
+
+import io.kotest.matchers.MatcherResult
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.LongAdder
+import kotlin.concurrent.Volatile
+
+/**
+ * Debug statistics of compiled matcher evaluations: how often each matcher ran,
+ * how often it rejected the request, and the time spent in it.
+ *
+ * Disabled by default. Enable it with the `aimocks.matcher.stats=true` system property
+ * or by setting [enabled], then inspect [report] to see which conditions dominate matching.
+ */
+public object MatcherStats {
+    /**
+     * Evaluation statistics of a single matcher.
+     *
+     * @property matcher Matcher description.
+     * @property evaluations How many times the matcher was evaluated.
+     * @property failures How many evaluations did not pass.
+     * @property totalNanos Total time spent evaluating the matcher, in nanoseconds.
+     */
+    public data class Entry(
+        val matcher: String,
+        val evaluations: Long,
+        val failures: Long,
+        val totalNanos: Long,
+    )
+
+    private class Counters {
+        val evaluations = LongAdder()
+        val failures = LongAdder()
+        val nanos = LongAdder()
+    }
+
+    private val counters = ConcurrentHashMap<String, Counters>()
+
+    /**
+     * Whether statistics are collected.
+     */
+    @Volatile
+    public var enabled: Boolean = java.lang.Boolean.getBoolean("aimocks.matcher.stats")
+
+    /**
+     * Returns the collected statistics, most time-consuming matchers first.
+     */
+    public fun snapshot(): List<Entry> =
+        counters
+            .map { (name, c) ->
+                Entry(
+                    matcher = name,
+                    evaluations = c.evaluations.sum(),
+                    failures = c.failures.sum(),
+                    totalNanos = c.nanos.sum(),
+                )
+            }.sortedByDescending { it.totalNanos }
+
+    /**
+     * Returns the collected statistics as a human-readable table.
+     */
+    public fun report(): String =
+        snapshot().joinToString(separator = "\n") {
+            "${it.evaluations} evaluations, ${it.failures} failures, " +
+                "${it.totalNanos / NANOS_PER_MICRO} µs: ${it.matcher}"
+        }
+
+    /**
+     * Clears the collected statistics.
+     */
+    public fun reset() {
+        counters.clear()
+    }
+
+    internal fun measure(
+        name: String,
+        block: () -> MatcherResult,
+    ): MatcherResult {
+        val start = System.nanoTime()
+        val result = block()
+        val elapsed = System.nanoTime() - start
+        val c = counters.computeIfAbsent(name) { Counters() }
+        c.evaluations.increment()
+        if (!result.passed()) c.failures.increment()
+        c.nanos.add(elapsed)
+        return result
+    }
+
+    private const val NANOS_PER_MICRO = 1_000
+}
@@ -0,0 +1,216 @@
+package dev.mokksy.aimocks.core.matching
+
+import dev.mokksy.aimocks.core.RequestMemo
+import io.kotest.matchers.Matcher
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.WeakReference
+import java.util.BitSet
+import kotlin.concurrent.Volatile
+import kotlin.jvm.Synchronized
+
+/**
+ * Registry of substring conditions of all stubs of a mock server,
+ * compiled into multi-pattern automata.
+ *
+ * A single pass over the request body decides every registered
+ * `contains`/`doesNotContain` condition at once: one case-sensitive pass, plus
+ * one case-folded pass when case-insensitive conditions exist. The result is
+ * memoized per request, so matching stays O(body) instead of O(stubs × body).
+ *
+ * The automata are built incrementally, in append-only generations: the first request after new conditions
+ * have been added compiles those conditions alone into a new generation, and a generation is merged into
+ * the previous one once it is as large, so the automata already built are not recompiled on every registration,
+ * and a body is scanned once per generation, of which there are at most log₂ of the number of conditions.
+ * Conditions of removed stubs are dropped when their generation is merged,
+ * and all generations are merged once more than half of the conditions they hold are removed.
+ */
+public class SubstringIndex {
+    private class Pattern(
+        val text: String,
+        val ignoreCase: Boolean,
+        val id: Int,
+    )
+
+    /**
+     * Automata of a batch of patterns, immutable once built.
+     */
+    private class Generation(
+        val patterns: List<Pattern>,
+    ) {
+        private val exactIds: IntArray
+        private val exact: AhoCorasick?
+        private val foldedIds: IntArray
+        private val folded: AhoCorasick?
+        private val emptyIds: IntArray
+
+        init {
+            val (empty, nonEmpty) = patterns.partition { it.text.isEmpty() }
+            val (foldedPatterns, exactPatterns) = nonEmpty.partition { it.ignoreCase }
+            exactIds = exactPatterns.map { it.id }.toIntArray()
+            exact = if (exactPatterns.isEmpty()) null else AhoCorasick(exactPatterns.map { it.text })
+            foldedIds = foldedPatterns.map { it.id }.toIntArray()
+            folded = if (foldedPatterns.isEmpty()) null else AhoCorasick(foldedPatterns.map { it.text }, ::foldCase)
+            emptyIds = empty.map { it.id }.toIntArray()
+        }
+
+        fun scan(
+            body: String,
+            found: BitSet,
+        ) {
+            emptyIds.forEach { found.set(it) }
+            exact?.search(body) { found.set(exactIds[it]) }
+            folded?.search(body) { found.set(foldedIds[it]) }
+        }
+    }
+
+    /**
+     * Reference to the owner of a pattern, enqueued once the owner is garbage collected.
+     */
+    private class Owner(
+        owner: Any,
+        queue: ReferenceQueue<Any>,
+        val id: Int,
+    ) : WeakReference<Any>(owner, queue)
+
+    private val pending = mutableListOf<Pattern>()
+    private val live = BitSet()
+    private val removed = HashSet<Int>()
+    private val owners = HashMap<Int, Owner>()
+    private val collected = ReferenceQueue<Any>()
+    private var nextId = 0
+
+    @Volatile
+    private var generations: List<Generation> = emptyList()
+
+    @Volatile
+    private var stale = false
+
+    private val memo = RequestMemo()
+
+    /**
+     * Registers a substring [pattern] and returns its id.
+     *
+     * @param pattern The substring to look for.
+     * @param ignoreCase Whether the pattern is matched case-insensitively.
+     */
+    @Synchronized
+    public fun register(
+        pattern: String,
+        ignoreCase: Boolean,
+    ): Int {
+        expunge()
+        val id = nextId++
+        pending += Pattern(pattern, ignoreCase, id)
+        live.set(id)
+        stale = true
+        return id
+    }
+
+    /**
+     * Registers a substring [pattern] of a condition of a stub, the [owner],
+     * and returns its id. The pattern is removed once the [owner] is garbage collected, along with its stub.
+     */
+    @Synchronized
+    internal fun register(
+        pattern: String,
+        ignoreCase: Boolean,
+        owner: Any,
+    ): Int =
+        register(pattern, ignoreCase).also { id ->
+            owners[id] = Owner(owner, collected, id)
+        }
+
+    /**
+     * Removes the pattern with the given [id]. It is no longer decided once removed.
+     */
+    @Synchronized
+    public fun unregister(id: Int) {
+        owners.remove(id)
+        if (!live[id]) return
+        live.clear(id)
+        if (pending.removeIf { it.id == id }) return
+        removed += id
+        if (removed.size * 2 > generations.sumOf { it.patterns.size }) stale = true
+    }
+
+    /**
+     * Binds all [IndexedSubstringMatcher]s among the [matchers] to this index.
+     * Other matchers are left untouched.
+     *
+     * @return The same [matchers], for chaining.
+     */
+    public fun bind(matchers: List<Matcher<String?>>): List<Matcher<String?>> {
+        matchers.forEach { (it as? IndexedSubstringMatcher)?.bind(this) }
+        return matchers
+    }
+
+    /**
+     * Returns `true` if the pattern with the given [id] occurs in the [body].
+     */
+    public fun contains(
+        body: String,
+        id: Int,
+    ): Boolean {
+        val current = if (stale) build() else generations
+        return memo.getOrPut(body, current) { scan(current, body) }[id]
+    }
+
+    @Synchronized
+    private fun build(): List<Generation> {
+        if (!stale) return generations
+        expunge()
+        val built = generations.toMutableList()
+        if (removed.size * 2 > built.sumOf { it.patterns.size }) {
+            val all = merge(built.flatMap { it.patterns })
+            built.clear()
+            if (all.patterns.isNotEmpty()) built += all
+        }
+        if (pending.isNotEmpty()) {
+            var newest = merge(pending.toList())
+            pending.clear()
+            while (built.isNotEmpty() && built.last().patterns.size <= newest.patterns.size) {
+                newest = merge(built.removeAt(built.lastIndex).patterns + newest.patterns)
+            }
+            if (newest.patterns.isNotEmpty()) built += newest
+        }
+        stale = false
+        generations = built
+        return built
+    }
+
+    /**
+     * Builds a generation of the [patterns] that are not removed.
+     */
+    private fun merge(patterns: List<Pattern>): Generation {
+        if (removed.isEmpty()) return Generation(patterns)
+        val (dropped, kept) = patterns.partition { it.id in removed }
+        dropped.forEach { removed -= it.id }
+        return Generation(kept)
+    }
+
+    /**
+     * Removes the patterns whose owner was garbage collected.
+     */
+    private fun expunge() {
+        while (true) {
+            val owner = collected.poll() as? Owner ?: return
+            if (owners[owner.id] === owner) unregister(owner.id)
+        }
+    }
+
+    private fun scan(
+        generations: List<Generation>,
+        body: String,
+    ): BitSet {
+        val found = BitSet()
+        generations.forEach { it.scan(body, found) }
+        return found
+    }
+
+    private companion object {
+        /**
+         * Folds the case the way [String.contains] with `ignoreCase = true` compares characters.
+         */
+        fun foldCase(c: Char): Char = c.uppercaseChar().lowercaseChar()
+    }
+}
@@ -0,0 +1,184 @@
+package dev.mokksy.aimocks.core.metrics
+
+import dev.mokksy.aimocks.core.journal.ResponseCapture
+import dev.mokksy.aimocks.core.time.MockClock
+import kotlinx.coroutines.asContextElement
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.concurrent.Volatile
+import kotlin.coroutines.AbstractCoroutineContextElement
+import kotlin.coroutines.CoroutineContext
+import kotlin.time.Duration
+
+/**
+ * Metrics of a single request, carried in the coroutine context of its handling.
+ *
+ * Reports to the [metrics] of the mock, if they are collected, to the [FlightEvents] if [tracing],
+ * and to the [capture] of the response, if it is exported.
+ */
+internal class CallMetrics(
+    private val metrics: MockMetrics?,
+    private val path: String,
+    private val tracing: Boolean,
+    val capture: ResponseCapture? = null,
+) : AbstractCoroutineContextElement(CallMetrics) {
+    companion object Key : CoroutineContext.Key<CallMetrics> {
+        private val currentCall = ThreadLocal<CallMetrics?>()
+
+        /**
+         * Returns the metrics of the request handled by the current thread, for code which cannot suspend,
+         * such as matchers.
+         */
+        fun current(): CallMetrics? = currentCall.get()
+    }
+
+    val start = System.nanoTime()
+    private val firstByteSeen = AtomicBoolean()
+    private val candidates = AtomicInteger()
+
+    /**
+     * Name of the stub which answered the request, or its path when the stub has no name.
+     */
+    @Volatile
+    var stubName: String? = null
+        private set
+
+    @Volatile
+    private var stub: MockMetrics.StubMetrics? = null
+
+    @Volatile
+    private var encoding: ResponseEncodedEvent? = null
+
+    @Volatile
+    private var clock: MockClock? = null
+
+    @Volatile
+    private var streamOrigin = Duration.ZERO
+
+    @Volatile
+    private var scheduledAt: Duration? = null
+
+    @Volatile
+    private var timeline: StreamTimeline? = null
+
+    /**
+     * Returns the coroutine context elements making this request current on the threads handling it.
+     */
+    fun asContext(): CoroutineContext = this + currentCall.asContextElement(this)
+
+    /**
+     * Counts a stub accepted by its pre-filter guard, i.e. a candidate to answer the request.
+     */
+    fun candidate() {
+        candidates.incrementAndGet()
+    }
+
+    /**
+     * Attributes the request to the stub named [name], or to the request path when the stub has no name.
+     */
+    fun matched(name: String?) {
+        if (stubName != null) return
+        val label = name ?: path
+        stubName = label
+        val elapsed = elapsed()
+        metrics?.stub(label)?.also {
+            it.requests.increment()
+            it.matching.record(elapsed)
+            stub = it
+        }
+        if (tracing) {
+            StubMatchedEvent().apply {
+                stub = label
+                candidates = this@CallMetrics.candidates.get()
+                matchDuration = elapsed
+            }.commit()
+        }
+    }
+
+    fun firstByte() {
+        val matched = stub ?: return
+        if (firstByteSeen.compareAndSet(false, true)) matched.timeToFirstByte.record(elapsed())
+    }
+
+    fun encodingStarted() {
+        if (tracing) encoding = ResponseEncodedEvent().apply { begin() }
+    }
+
+    /**
+     * Completes the encoding of a body which is not streamed: streamed bodies report their chunks instead.
+     */
+    fun encoded(
+        contentType: String?,
+        size: Long,
+        streamed: Boolean,
+    ) {
+        val event = encoding ?: return
+        encoding = null
+        if (streamed) return
+        event.end()
+        event.stub = stubName
+        event.contentType = contentType
+        event.size = size
+        event.commit()
+    }
+
+    /**
+     * Records the deadline of the next chunk of the stream: [deadline] after [origin] on [clock].
+     *
+     * When several pacers schedule the same chunk, the latest deadline applies.
+     */
+    fun chunkScheduled(
+        clock: MockClock,
+        origin: Duration,
+        deadline: Duration,
+    ) {
+        if (this.clock == null) {
+            this.clock = clock
+            streamOrigin = origin
+        }
+        val at = origin + deadline
+        scheduledAt = scheduledAt?.let { maxOf(it, at) } ?: at
+    }
+
+    fun chunkWritten(
+        chunk: String,
+        bytes: Long,
+    ) {
+        capture?.chunk(chunk, bytes)
+        val matched = stub
+        matched?.let {
+            it.chunks.increment()
+            it.bytes.add(bytes)
+        }
+        val scheduled = scheduledAt
+        scheduledAt = null
+        val writtenAt = clock?.now()
+        if (matched != null && scheduled != null && writtenAt != null) {
+            matched.chunkLag.record((writtenAt - scheduled).inWholeNanoseconds)
+            val timeline = timeline ?: StreamTimeline().also { timeline = it }
+            timeline.add(scheduled - streamOrigin, writtenAt - streamOrigin)
+        }
+        if (tracing) {
+            val actual = writtenAt?.let { (it - streamOrigin).inWholeNanoseconds } ?: elapsed()
+            ChunkWrittenEvent().apply {
+                stub = stubName
+                size = bytes
+                scheduledTime = scheduled?.let { (it - streamOrigin).inWholeNanoseconds } ?: actual
+                actualTime = actual
+            }.commit()
+        }
+    }
+
+    fun finished() {
+        val matched = stub
+        if (stubName == null) {
+            metrics?.unmatched()
+        } else if (matched != null) {
+            firstByte()
+            matched.response.record(elapsed())
+            timeline?.let { metrics?.streamFinished(it.fidelity(requireNotNull(stubName))) }
+        }
+    }
+
+    private fun elapsed(): Long = System.nanoTime() - start
+}
@@ -0,0 +1,121 @@
+package dev.mokksy.aimocks.core.metrics
+
+import jdk.jfr.Category
+import jdk.jfr.DataAmount
+import jdk.jfr.Description
+import jdk.jfr.Event
+import jdk.jfr.EventType
+import jdk.jfr.Label
+import jdk.jfr.Name
+import jdk.jfr.StackTrace
+import jdk.jfr.Timespan
+
+private const val CATEGORY = "AI-Mocks"
+
+/**
+ * Java Flight Recorder events of the mocks, recorded on the same timeline as the threads of the application
+ * under test, e.g. with `jcmd <pid> JFR.start`.
+ *
+ * The events are off until a recording enables them: the mocks then only check [enabled] once per request.
+ */
+internal object FlightEvents {
+    private val types =
+        listOf(
+            RequestReceivedEvent::class.java,
+            StubMatchedEvent::class.java,
+            ResponseEncodedEvent::class.java,
+            ChunkWrittenEvent::class.java,
+        ).map(EventType::getEventType)
+
+    /**
+     * Whether a recording enables any event of the mocks.
+     */
+    val enabled: Boolean
+        get() = types.any { it.isEnabled }
+}
+
+@Name("dev.mokksy.aimocks.RequestReceived")
+@Label("Request Received")
+@Category(CATEGORY)
+@Description("A mock received a request.")
+@StackTrace(false)
+internal class RequestReceivedEvent : Event() {
+    @field:Label("Method")
+    @JvmField
+    var method: String? = null
+
+    @field:Label("Path")
+    @JvmField
+    var path: String? = null
+}
+
+@Name("dev.mokksy.aimocks.StubMatched")
+@Label("Stub Matched")
+@Category(CATEGORY)
+@Description("A stub started responding to a request.")
+@StackTrace(false)
+internal class StubMatchedEvent : Event() {
+    @field:Label("Stub")
+    @field:Description("Name of the stub, or the request path when the stub has no name.")
+    @JvmField
+    var stub: String? = null
+
+    @field:Label("Candidates")
+    @field:Description("Number of stubs whose pre-filter guard accepted the request, so their full matchers ran.")
+    @JvmField
+    var candidates: Int = 0
+
+    @field:Label("Match Duration")
+    @field:Description("Time from the reception of the request until the stub started responding.")
+    @field:Timespan(Timespan.NANOSECONDS)
+    @JvmField
+    var matchDuration: Long = 0
+}
+
+@Name("dev.mokksy.aimocks.ResponseEncoded")
+@Label("Response Encoded")
+@Category(CATEGORY)
+@Description("The body of a response which is not streamed was encoded.")
+@StackTrace(false)
+internal class ResponseEncodedEvent : Event() {
+    @field:Label("Stub")
+    @JvmField
+    var stub: String? = null
+
+    @field:Label("Content Type")
+    @JvmField
+    var contentType: String? = null
+
+    @field:Label("Size")
+    @field:DataAmount
+    @JvmField
+    var size: Long = 0
+}
+
+@Name("dev.mokksy.aimocks.ChunkWritten")
+@Label("Chunk Written")
+@Category(CATEGORY)
+@Description("A chunk of a streamed response was written.")
+@StackTrace(false)
+internal class ChunkWrittenEvent : Event() {
+    @field:Label("Stub")
+    @JvmField
+    var stub: String? = null
+
+    @field:Label("Size")
+    @field:DataAmount
+    @JvmField
+    var size: Long = 0
+
+    @field:Label("Scheduled Time")
+    @field:Description("Time of the chunk in the schedule of the stream, on the clock of the mock.")
+    @field:Timespan(Timespan.NANOSECONDS)
+    @JvmField
+    var scheduledTime: Long = 0
+
+    @field:Label("Actual Time")
+    @field:Description("Time at which the chunk was written, from the start of the stream, on the clock of the mock.")
+    @field:Timespan(Timespan.NANOSECONDS)
+    @JvmField
+    var actualTime: Long = 0
+}
@@ -0,0 +1,94 @@
+package dev.mokksy.aimocks.core.metrics
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.LongAdder
+import kotlin.math.ceil
+
+/**
+ * Lock-free histogram of durations in nanoseconds with HDR-style log-linear buckets.
+ *
+ * Each power of two is split into [SUB_BUCKET_COUNT] linear sub-buckets, so any non-negative `Long`
+ * is recorded in a fixed amount of memory with a relative error below 1/[SUB_BUCKET_COUNT].
+ * Recording a value takes a few atomic increments and never allocates, so it may be called
+ * from any number of threads on the request path.
+ */
+internal class LatencyHistogram {
+    private val counts = AtomicLongArray(BUCKET_COUNT)
+    private val total = LongAdder()
+    private val max = AtomicLong()
+
+    /**
+     * Number of recorded values.
+     */
+    val count: Long
+        get() = counts().sum()
+
+    /**
+     * Sum of the recorded values.
+     */
+    val totalNanos: Long
+        get() = total.sum()
+
+    /**
+     * Highest recorded value.
+     */
+    val maxNanos: Long
+        get() = max.get()
+
+    fun record(nanos: Long) {
+        val value = nanos.coerceAtLeast(0)
+        counts.incrementAndGet(bucketOf(value))
+        total.add(value)
+        max.accumulateAndGet(value, ::maxOf)
+    }
+
+    /**
+     * Returns the highest value equivalent to the given [percentile] (from 0 to 100) of the recorded values,
+     * or 0 when no value was recorded.
+     */
+    fun percentile(percentile: Double): Long {
+        val counts = counts()
+        val recorded = counts.sum()
+        if (recorded == 0L) return 0
+        val target = ceil(recorded * percentile / PERCENT).toLong().coerceIn(1, recorded)
+        var seen = 0L
+        for (bucket in counts.indices) {
+            seen += counts[bucket]
+            if (seen >= target) return minOf(highestValueIn(bucket), maxNanos)
+        }
+        return maxNanos
+    }
+
+    fun reset() {
+        for (bucket in 0 until BUCKET_COUNT) counts.set(bucket, 0)
+        total.reset()
+        max.set(0)
+    }
+
+    private fun counts(): LongArray = LongArray(BUCKET_COUNT) { counts.get(it) }
+
+    internal companion object {
+        private const val SUB_BUCKET_BITS = 5
+        const val SUB_BUCKET_COUNT = 1 shl SUB_BUCKET_BITS
+        private const val BUCKET_COUNT = (Long.SIZE_BITS - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT
+        private const val PERCENT = 100.0
+
+        /**
+         * Values below [SUB_BUCKET_COUNT] get a bucket each; larger values are bucketed
+         * by their highest bit and the [SUB_BUCKET_BITS] bits following it.
+         */
+        fun bucketOf(value: Long): Int {
+            if (value < SUB_BUCKET_COUNT) return value.toInt()
+            val shift = Long.SIZE_BITS - 1 - value.countLeadingZeroBits() - SUB_BUCKET_BITS
+            return (shift * SUB_BUCKET_COUNT + (value ushr shift)).toInt()
+        }
+
+        fun highestValueIn(bucket: Int): Long {
+            if (bucket < 2 * SUB_BUCKET_COUNT) return bucket.toLong()
+            val shift = bucket / SUB_BUCKET_COUNT - 1
+            val mantissa = (bucket - shift * SUB_BUCKET_COUNT).toLong()
+            return ((mantissa + 1) shl shift) - 1
+        }
+    }
+}
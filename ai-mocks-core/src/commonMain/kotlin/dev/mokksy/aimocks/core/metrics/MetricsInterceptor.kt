@@ -0,0 +1,98 @@
+package dev.mokksy.aimocks.core.metrics
+
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.journal.Exchange
+import dev.mokksy.aimocks.core.journal.RequestJournal
+import dev.mokksy.aimocks.core.journal.ResponseCapture
+import io.ktor.http.ContentType
+import io.ktor.http.content.OutgoingContent
+import io.ktor.server.application.Application
+import io.ktor.server.application.ApplicationCall
+import io.ktor.server.application.ApplicationCallPipeline
+import io.ktor.server.application.call
+import io.ktor.server.request.contentType
+import io.ktor.server.request.httpMethod
+import io.ktor.server.request.path
+import io.ktor.server.request.uri
+import io.ktor.server.response.ApplicationSendPipeline
+import io.ktor.server.response.respondText
+import io.ktor.server.util.url
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.withContext
+
+private val PrometheusContentType = ContentType.parse("text/plain; version=0.0.4; charset=utf-8")
+
+/**
+ * Measures the requests handled by the application in the metrics of the [context] and the [FlightEvents],
+ * serves the metrics on [MockMetrics.endpoint], and records the requests in the journal of the [context].
+ *
+ * The metrics of a request travel in its coroutine context, so the stub answering it,
+ * and the stream it writes, can report to them without access to the call.
+ * They are also current on the threads handling the request, for its matchers.
+ */
+internal fun Application.installMetrics(context: MockContext) {
+    val metrics = context.metrics
+    val journal = context.journal
+    captureRequestBodies { journal.recording || context.cassette != null }
+    intercept(ApplicationCallPipeline.Monitoring) {
+        val path = call.request.path()
+        if (path == metrics.endpoint) {
+            call.respondText(metrics.prometheus(), PrometheusContentType)
+            finish()
+            return@intercept
+        }
+        val receivedAt = System.currentTimeMillis()
+        val journaled = journal.recording
+        val capture = journal.activeExport?.let { ResponseCapture(it.maxResponseBytes) }
+        // Cassettes tell unmatched requests from the stub name
+        val tracked = journaled || context.cassette != null
+        val callMetrics =
+            metrics.startCall(call.request.httpMethod.value, path, tracked, capture) ?: return@intercept
+        try {
+            withContext(callMetrics.asContext()) { proceed() }
+        } finally {
+            callMetrics.finished()
+        }
+        if (journaled) journal.record(call, receivedAt, callMetrics)
+    }
+    sendPipeline.intercept(ApplicationSendPipeline.Before) {
+        currentCoroutineContext()[CallMetrics]?.encodingStarted()
+    }
+    sendPipeline.intercept(ApplicationSendPipeline.After) { content ->
+        val callMetrics = currentCoroutineContext()[CallMetrics] ?: return@intercept
+        // Streamed bodies report their chunks themselves
+        val streamed = content is OutgoingContent.WriteChannelContent || content is OutgoingContent.ReadChannelContent
+        if (!streamed) callMetrics.firstByte()
+        if (content is OutgoingContent) {
+            val contentType = content.contentType?.toString()
+            callMetrics.encoded(contentType, content.contentLength ?: -1, streamed)
+            callMetrics.capture?.responded(contentType, (content as? OutgoingContent.ByteArrayContent)?.bytes())
+        }
+    }
+}
+
+/**
+ * Records the [call] once answered, with its body as received by the stubs
+ * and its response as captured by [callMetrics].
+ */
+private suspend fun RequestJournal.record(
+    call: ApplicationCall,
+    receivedAt: Long,
+    callMetrics: CallMetrics,
+) {
+    val body = call.requestBody()
+    record(
+        Exchange(
+            receivedAtMillis = receivedAt,
+            method = call.request.httpMethod.value,
+            uri = call.request.uri,
+            url = call.url(),
+            stub = callMetrics.stubName,
+            status = call.response.status()?.value,
+            contentType = body.takeIf { it.isNotEmpty() }?.let { call.request.contentType().toString() },
+            body = body,
+            response = callMetrics.capture,
+            durationNanos = System.nanoTime() - callMetrics.start,
+        ),
+    )
+}
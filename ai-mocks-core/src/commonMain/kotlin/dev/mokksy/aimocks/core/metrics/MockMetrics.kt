@@ -0,0 +1,309 @@
+package dev.mokksy.aimocks.core.metrics
+
+import dev.mokksy.aimocks.core.journal.ResponseCapture
+import dev.mokksy.aimocks.core.stream.StreamMonitor
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedDeque
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.LongAdder
+import kotlin.concurrent.Volatile
+import kotlin.time.Duration
+
+private const val NANOS_PER_SECOND = 1_000_000_000.0
+
+/**
+ * Request metrics of a mock: requests and latency histograms of each stub,
+ * streamed chunks and bytes, streams in flight and unmatched requests.
+ *
+ * Disabled by default. Enable it with the `aimocks.metrics=true` system property or by setting [enabled],
+ * then read it with [snapshot], or in the Prometheus text format with [prometheus] or from the [endpoint].
+ *
+ * Latencies are measured on the mock's side of the connection:
+ * - *matching*: from the reception of a request until its stub starts responding;
+ * - *time to first byte*: until the first chunk of a stream, or the body of another response, is ready;
+ * - *response*: until the whole response is sent;
+ * - *chunk lag*: from the scheduled time of a stream chunk, given its simulated delays, until it is written.
+ *
+ * A chunk lag growing while the client keeps up points at the mock, e.g. garbage collection pauses
+ * or a busy event loop, rather than at a slow consumer.
+ *
+ * When a performance test goes wrong, compare them with the latencies observed by the system under test:
+ * a slow mock shows up here, a slow system under test does not.
+ */
+public class MockMetrics internal constructor(
+    private val streams: StreamMonitor,
+) {
+    /**
+     * Summary of a latency histogram, in nanoseconds.
+     *
+     * Percentiles are accurate within about 3%.
+     */
+    public data class Latency(
+        val count: Long,
+        val totalNanos: Long,
+        val p50Nanos: Long,
+        val p90Nanos: Long,
+        val p99Nanos: Long,
+        val maxNanos: Long,
+    )
+
+    /**
+     * Metrics of a single stub.
+     *
+     * @property stub Name of the stub, or the request path when the stub has no name.
+     * @property requests Number of requests answered by the stub.
+     * @property requestsPerSecond Average request rate since the metrics were created or [reset].
+     * @property chunkLag Delays of the paced stream chunks past their scheduled time, on the mock clock.
+     * @property chunks Number of stream chunks written.
+     * @property bytes Number of UTF-8 bytes of stream chunks written.
+     */
+    public data class StubEntry(
+        val stub: String,
+        val requests: Long,
+        val requestsPerSecond: Double,
+        val matching: Latency,
+        val timeToFirstByte: Latency,
+        val response: Latency,
+        val chunkLag: Latency,
+        val chunks: Long,
+        val bytes: Long,
+    )
+
+    /**
+     * Timing fidelity of a single paced stream: when its chunks were scheduled and when they were written,
+     * from the start of the stream on the mock clock. At most the first 10 000 chunks are kept.
+     *
+     * @property stub Name of the stub, or the request path when the stub has no name.
+     * @property deviation Delays of the writes past their scheduled time.
+     */
+    public data class StreamFidelity(
+        val stub: String,
+        val scheduled: List<Duration>,
+        val written: List<Duration>,
+        val deviation: Latency,
+    )
+
+    internal class StubMetrics {
+        val requests = LongAdder()
+        val matching = LatencyHistogram()
+        val timeToFirstByte = LatencyHistogram()
+        val response = LatencyHistogram()
+        val chunkLag = LatencyHistogram()
+        val chunks = LongAdder()
+        val bytes = LongAdder()
+    }
+
+    private val stubs = ConcurrentHashMap<String, StubMetrics>()
+    private val unmatched = LongAdder()
+    private val recentStreams = ConcurrentLinkedDeque<StreamFidelity>()
+    private val recentStreamCount = AtomicInteger()
+
+    @Volatile
+    private var since = System.nanoTime()
+
+    /**
+     * Whether metrics are collected.
+     */
+    @Volatile
+    public var enabled: Boolean = java.lang.Boolean.getBoolean("aimocks.metrics")
+
+    /**
+     * Path on which the mock serves its metrics in the Prometheus text format, e.g. `/metrics`,
+     * or `null` to not serve them.
+     *
+     * Metrics are collected while an endpoint is set, even if not [enabled].
+     */
+    @Volatile
+    public var endpoint: String? = System.getProperty("aimocks.metrics.endpoint")
+
+    /**
+     * Number of requests which matched no stub.
+     */
+    public val unmatchedRequests: Long
+        get() = unmatched.sum()
+
+    /**
+     * Number of streamed responses in progress.
+     */
+    public val streamsInFlight: Long
+        get() = streams.activeCount
+
+    /**
+     * Returns the metrics of each stub which answered a request, sorted by stub name.
+     */
+    public fun snapshot(): List<StubEntry> {
+        val seconds = (System.nanoTime() - since).coerceAtLeast(1) / NANOS_PER_SECOND
+        return stubs
+            .map { (name, stub) ->
+                val requests = stub.requests.sum()
+                StubEntry(
+                    stub = name,
+                    requests = requests,
+                    requestsPerSecond = requests / seconds,
+                    matching = stub.matching.latency(),
+                    timeToFirstByte = stub.timeToFirstByte.latency(),
+                    response = stub.response.latency(),
+                    chunkLag = stub.chunkLag.latency(),
+                    chunks = stub.chunks.sum(),
+                    bytes = stub.bytes.sum(),
+                )
+            }.sortedBy { it.stub }
+    }
+
+    /**
+     * Returns the timing fidelity of the last 100 paced streams, oldest first.
+     */
+    public fun streamFidelity(): List<StreamFidelity> = recentStreams.toList()
+
+    /**
+     * Returns the metrics in the Prometheus text exposition format.
+     */
+    public fun prometheus(): String = renderPrometheus(snapshot(), streamsInFlight, unmatchedRequests)
+
+    /**
+     * Clears the collected metrics and restarts the measurement of request rates.
+     */
+    public fun reset() {
+        stubs.clear()
+        unmatched.reset()
+        recentStreams.clear()
+        recentStreamCount.set(0)
+        since = System.nanoTime()
+    }
+
+    internal val collecting: Boolean
+        get() = enabled || endpoint != null
+
+    internal fun startCall(
+        method: String,
+        path: String,
+        tracked: Boolean = false,
+        capture: ResponseCapture? = null,
+    ): CallMetrics? {
+        val measured = collecting
+        val tracing = FlightEvents.enabled
+        if (!measured && !tracing && !tracked) return null
+        if (tracing) {
+            RequestReceivedEvent().apply {
+                this.method = method
+                this.path = path
+            }.commit()
+        }
+        return CallMetrics(metrics = if (measured) this else null, path = path, tracing = tracing, capture = capture)
+    }
+
+    internal fun stub(name: String): StubMetrics = stubs.computeIfAbsent(name) { StubMetrics() }
+
+    internal fun unmatched() {
+        unmatched.increment()
+    }
+
+    internal fun streamFinished(fidelity: StreamFidelity) {
+        recentStreams.addLast(fidelity)
+        if (recentStreamCount.incrementAndGet() > RECENT_STREAMS && recentStreams.pollFirst() != null) {
+            recentStreamCount.decrementAndGet()
+        }
+    }
+
+    private fun LatencyHistogram.latency(): Latency =
+        Latency(
+            count = count,
+            totalNanos = totalNanos,
+            p50Nanos = percentile(P50),
+            p90Nanos = percentile(P90),
+            p99Nanos = percentile(P99),
+            maxNanos = maxNanos,
+        )
+
+    private companion object {
+        const val RECENT_STREAMS = 100
+        const val P50 = 50.0
+        const val P90 = 90.0
+        const val P99 = 99.0
+    }
+}
+
+/**
+ * Renders the metrics [entries] of stubs, with the totals of their mocks,
+ * in the Prometheus text exposition format.
+ */
+internal fun renderPrometheus(
+    entries: List<MockMetrics.StubEntry>,
+    streamsInFlight: Long,
+    unmatchedRequests: Long,
+): String =
+    buildString {
+        counter("aimocks_requests_total", "Requests answered by each stub.", entries) { it.requests }
+        summary("aimocks_matching_seconds", "Time until the stub of a request starts responding.", entries) {
+            it.matching
+        }
+        summary("aimocks_time_to_first_byte_seconds", "Time until the first chunk or body is ready.", entries) {
+            it.timeToFirstByte
+        }
+        summary("aimocks_response_seconds", "Time until the response is sent.", entries) { it.response }
+        summary("aimocks_stream_chunk_lag_seconds", "Delay of stream chunks past their schedule.", entries) {
+            it.chunkLag
+        }
+        counter("aimocks_stream_chunks_total", "Stream chunks written by each stub.", entries) { it.chunks }
+        counter("aimocks_stream_bytes_total", "Stream bytes written by each stub.", entries) { it.bytes }
+        metric("aimocks_streams_in_flight", "gauge", "Streamed responses in progress.")
+        append("aimocks_streams_in_flight ").append(streamsInFlight).append('\n')
+        metric("aimocks_unmatched_requests_total", "counter", "Requests which matched no stub.")
+        append("aimocks_unmatched_requests_total ").append(unmatchedRequests).append('\n')
+    }
+
+private fun StringBuilder.metric(
+    name: String,
+    type: String,
+    help: String,
+) {
+    append("# HELP ").append(name).append(' ').append(help).append('\n')
+    append("# TYPE ").append(name).append(' ').append(type).append('\n')
+}
+
+private fun StringBuilder.counter(
+    name: String,
+    help: String,
+    entries: List<MockMetrics.StubEntry>,
+    value: (MockMetrics.StubEntry) -> Long,
+) {
+    metric(name, "counter", help)
+    entries.forEach { append(name).append(label(it.stub)).append(' ').append(value(it)).append('\n') }
+}
+
+private fun StringBuilder.summary(
+    name: String,
+    help: String,
+    entries: List<MockMetrics.StubEntry>,
+    value: (MockMetrics.StubEntry) -> MockMetrics.Latency,
+) {
+    metric(name, "summary", help)
+    entries.forEach { entry ->
+        val latency = value(entry)
+        val stub = escape(entry.stub)
+        quantile(name, stub, "0.5", latency.p50Nanos)
+        quantile(name, stub, "0.9", latency.p90Nanos)
+        quantile(name, stub, "0.99", latency.p99Nanos)
+        append(name).append("_sum").append(label(entry.stub)).append(' ')
+        append(latency.totalNanos / NANOS_PER_SECOND).append('\n')
+        append(name).append("_count").append(label(entry.stub)).append(' ').append(latency.count).append('\n')
+    }
+}
+
+private fun StringBuilder.quantile(
+    name: String,
+    escapedStub: String,
+    quantile: String,
+    nanos: Long,
+) {
+    append(name).append("{stub=\"").append(escapedStub).append("\",quantile=\"").append(quantile).append("\"} ")
+    append(nanos / NANOS_PER_SECOND).append('\n')
+}
+
+private fun label(stub: String): String = "{stub=\"${escape(stub)}\"}"
+
+private fun escape(value: String): String =
+    value
+        .replace("\\", "\\\\")
+        .replace("\"", "\\\"")
+        .replace("\n", "\\n")
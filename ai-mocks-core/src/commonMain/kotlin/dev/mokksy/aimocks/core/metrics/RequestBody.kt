@@ -0,0 +1,38 @@
+package dev.mokksy.aimocks.core.metrics
+
+import io.ktor.server.application.Application
+import io.ktor.server.application.ApplicationCall
+import io.ktor.server.application.call
+import io.ktor.server.request.ApplicationReceivePipeline
+import io.ktor.server.request.receive
+import io.ktor.util.AttributeKey
+import io.ktor.utils.io.ByteReadChannel
+import io.ktor.utils.io.toByteArray
+
+private val RequestBodyKey = AttributeKey<ByteArray>("aimocks.requestBody")
+
+private val EmptyBody = ByteArray(0)
+
+/**
+ * Keeps a copy of the raw request body of each call, as it is first received, e.g. by the stub matchers,
+ * while [capture] returns `true`.
+ *
+ * Without the `DoubleReceive` plugin, Ktor lets a request body be received only once:
+ * the journal and the cassette read this copy with [requestBody] instead of receiving the body again.
+ */
+internal fun Application.captureRequestBodies(capture: () -> Boolean) {
+    receivePipeline.intercept(ApplicationReceivePipeline.Before) { body ->
+        if (body !is ByteReadChannel || call.attributes.contains(RequestBodyKey) || !capture()) return@intercept
+        val bytes = body.toByteArray()
+        call.attributes.put(RequestBodyKey, bytes)
+        proceedWith(ByteReadChannel(bytes))
+    }
+}
+
+/**
+ * Returns the raw body of this request: the copy kept by [captureRequestBodies] when the body was received,
+ * or the body itself when nothing received it yet. Empty when the body cannot be received anymore.
+ */
+internal suspend fun ApplicationCall.requestBody(): ByteArray =
+    attributes.getOrNull(RequestBodyKey)
+        ?: runCatching { receive<ByteArray>() }.getOrDefault(EmptyBody)
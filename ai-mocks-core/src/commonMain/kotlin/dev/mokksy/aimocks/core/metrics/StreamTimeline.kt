@@ -0,0 +1,68 @@
+package dev.mokksy.aimocks.core.metrics
+
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.nanoseconds
+
+/**
+ * Most chunks of a stream whose schedule and writes are kept for its [MockMetrics.StreamFidelity],
+ * so that endless streams do not grow the heap.
+ */
+private const val MAX_TIMELINE_CHUNKS = 10_000
+
+private const val INITIAL_CAPACITY = 16
+
+/**
+ * Scheduled and actual write times of the chunks of a single stream, from the start of the stream,
+ * in nanoseconds of the mock clock.
+ */
+internal class StreamTimeline {
+    private var scheduled = LongArray(INITIAL_CAPACITY)
+    private var written = LongArray(INITIAL_CAPACITY)
+    private var size = 0
+
+    fun add(
+        scheduledAt: Duration,
+        writtenAt: Duration,
+    ) {
+        if (size == MAX_TIMELINE_CHUNKS) return
+        if (size == scheduled.size) {
+            val capacity = minOf(size * 2, MAX_TIMELINE_CHUNKS)
+            scheduled = scheduled.copyOf(capacity)
+            written = written.copyOf(capacity)
+        }
+        scheduled[size] = scheduledAt.inWholeNanoseconds
+        written[size] = writtenAt.inWholeNanoseconds
+        size++
+    }
+
+    fun fidelity(stub: String): MockMetrics.StreamFidelity {
+        val deviations = LongArray(size) { (written[it] - scheduled[it]).coerceAtLeast(0) }.apply { sort() }
+        return MockMetrics.StreamFidelity(
+            stub = stub,
+            scheduled = List(size) { scheduled[it].nanoseconds },
+            written = List(size) { written[it].nanoseconds },
+            deviation =
+                MockMetrics.Latency(
+                    count = size.toLong(),
+                    totalNanos = deviations.sum(),
+                    p50Nanos = deviations.percentile(P50),
+                    p90Nanos = deviations.percentile(P90),
+                    p99Nanos = deviations.percentile(P99),
+                    maxNanos = deviations.lastOrNull() ?: 0,
+                ),
+        )
+    }
+
+    /**
+     * Returns the nearest-rank [percentile] of these sorted values.
+     */
+    private fun LongArray.percentile(percentile: Int): Long =
+        if (isEmpty()) 0 else this[((this.size * percentile + PERCENT - 1) / PERCENT - 1).coerceAtLeast(0)]
+
+    private companion object {
+        const val PERCENT = 100
+        const val P50 = 50
+        const val P90 = 90
+        const val P99 = 99
+    }
+}
@@ -0,0 +1,106 @@
+package dev.mokksy.aimocks.core.stream
+
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExecutorCoroutineDispatcher
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.buffer
+import kotlinx.coroutines.flow.flowOn
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Execution policy of chunk sources which may block, such as a Java [java.util.stream.Stream]
+ * reading a file or waiting on a queue.
+ *
+ * Such a source is iterated on [dispatcher] and hands its chunks over through a buffer
+ * of [bufferCapacity] chunks, so that a slow producer neither blocks the server threads
+ * nor starves unrelated streams.
+ *
+ * ```kotlin
+ * ollama.blockingSources = BlockingSourcePolicy.virtualThreads()
+ * ```
+ *
+ * A policy created by [dedicated] owns its thread pool: [close] it, or shut down the mock using it,
+ * to stop the threads. Closing any other policy does nothing: its dispatcher belongs to the caller.
+ *
+ * @property dispatcher Dispatcher iterating the blocking sources.
+ * @property bufferCapacity Number of chunks a source may produce ahead of the response.
+ */
+public class BlockingSourcePolicy internal constructor(
+    public val dispatcher: CoroutineDispatcher,
+    public val bufferCapacity: Int,
+    private val ownedDispatcher: ExecutorCoroutineDispatcher?,
+) : AutoCloseable {
+    public constructor(
+        dispatcher: CoroutineDispatcher,
+        bufferCapacity: Int = DEFAULT_BUFFER_CAPACITY,
+    ) : this(dispatcher, bufferCapacity, ownedDispatcher = null)
+
+    init {
+        require(bufferCapacity > 0) { "bufferCapacity must be positive, but was $bufferCapacity" }
+    }
+
+    /**
+     * Stops the thread pool owned by this policy, if any. Sources still being iterated on it fail.
+     */
+    override fun close() {
+        ownedDispatcher?.close()
+    }
+
+    /**
+     * Moves the collection of [source] to [dispatcher], behind a buffer of [bufferCapacity] chunks.
+     */
+    public fun <T> offload(source: Flow<T>): Flow<T> = source.buffer(bufferCapacity).flowOn(dispatcher)
+
+    override fun toString(): String = "BlockingSourcePolicy(dispatcher=$dispatcher, bufferCapacity=$bufferCapacity)"
+
+    public companion object {
+        /**
+         * Default number of chunks a source may produce ahead of the response.
+         */
+        public const val DEFAULT_BUFFER_CAPACITY: Int = 64
+
+        /**
+         * Iterates blocking sources on [Dispatchers.IO].
+         */
+        public val IO: BlockingSourcePolicy = BlockingSourcePolicy(Dispatchers.IO)
+
+        private val virtualThreadDispatcher: CoroutineDispatcher? by lazy {
+            runCatching {
+                (Executors::class.java.getMethod("newVirtualThreadPerTaskExecutor").invoke(null) as ExecutorService)
+                    .asCoroutineDispatcher()
+            }.getOrNull()
+        }
+
+        /**
+         * Iterates blocking sources on virtual threads, one per source.
+         *
+         * Virtual threads require Java 21: on older runtimes, sources are iterated on [Dispatchers.IO].
+         */
+        public fun virtualThreads(bufferCapacity: Int = DEFAULT_BUFFER_CAPACITY): BlockingSourcePolicy =
+            BlockingSourcePolicy(virtualThreadDispatcher ?: Dispatchers.IO, bufferCapacity)
+
+        /**
+         * Iterates blocking sources on a dedicated pool of [threads] daemon threads,
+         * isolating them from other blocking work of the application.
+         *
+         * The returned policy owns the pool: [close] it when no longer needed.
+         */
+        public fun dedicated(
+            threads: Int,
+            bufferCapacity: Int = DEFAULT_BUFFER_CAPACITY,
+        ): BlockingSourcePolicy {
+            require(threads > 0) { "threads must be positive, but was $threads" }
+            val counter = AtomicInteger()
+            val executor =
+                Executors.newFixedThreadPool(threads) { task ->
+                    Thread(task, "aimocks-stream-source-${counter.incrementAndGet()}").apply { isDaemon = true }
+                }
+            val dispatcher = executor.asCoroutineDispatcher()
+            return BlockingSourcePolicy(dispatcher, bufferCapacity, ownedDispatcher = dispatcher)
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package dev.mokksy.aimocks.core.stream
+
+import dev.mokksy.aimocks.core.time.MockClock
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.FlowCollector
+import kotlinx.coroutines.flow.flow
+import kotlin.random.Random
+import kotlin.time.Duration
+
+/**
+ * Lazy source of the chunks of a streamed response, for streams too long to be listed,
+ * e.g. million-chunk or hours-long soak test streams.
+ *
+ * Chunks are produced from their index and a random generator as they are sent,
+ * so the memory used by the mock does not grow with the length of the stream.
+ *
+ * ```kotlin
+ * generate {
+ *     duration = 2.hours
+ *     interval = 5.seconds
+ *     keepAlive(every = 1.seconds, chunk = "")
+ *     seed = 42
+ *     chunk { index, random -> "token-$index-${random.nextInt(100)} " }
+ * }
+ * ```
+ *
+ * The stream ends after [count] chunks or once [duration] has passed on the mock clock,
+ * whichever comes first, or when the client disconnects if neither is limited.
+ *
+ * @param T The type of the chunks.
+ */
+public class ChunkGenerator<T : Any> {
+    private var producer: ((index: Long, random: Random) -> T)? = null
+    private var keepAliveEvery: Duration? = null
+    private var keepAliveChunk: T? = null
+
+    /**
+     * Number of chunks to generate, keep-alive chunks excluded, or `null` for no limit.
+     */
+    public var count: Long? = null
+        set(value) {
+            require(value == null || value >= 0) { "count must not be negative, but was $value" }
+            field = value
+        }
+
+    /**
+     * Time after which no more chunks are generated, unlimited by default.
+     */
+    public var duration: Duration = Duration.INFINITE
+
+    /**
+     * Time between generated chunks on the mock clock, on top of any delay applied when streaming them.
+     */
+    public var interval: Duration = Duration.ZERO
+
+    /**
+     * Seed of the random generator passed to [chunk], or `null` for different chunks on every response.
+     */
+    public var seed: Long? = null
+
+    /**
+     * Sets the function producing the chunk with a given index, starting from zero.
+     */
+    public fun chunk(producer: (index: Long, random: Random) -> T) {
+        this.producer = producer
+    }
+
+    /**
+     * Sends [chunk] every [every] while waiting for the next generated chunk,
+     * so that idle connections are not closed during long [interval]s.
+     */
+    public fun keepAlive(
+        every: Duration,
+        chunk: T,
+    ) {
+        require(every.isPositive()) { "Keep-alive period must be positive, but was $every" }
+        keepAliveEvery = every
+        keepAliveChunk = chunk
+    }
+
+    /**
+     * Returns the generated chunks, spaced on [clock]. Each collection starts a new stream.
+     */
+    public fun asFlow(clock: MockClock): Flow<T> {
+        val produce = checkNotNull(producer) { "Chunk producer must be defined" }
+        val count = count
+        val duration = duration
+        val interval = interval
+        val keepAliveEvery = keepAliveEvery
+        val keepAliveChunk = keepAliveChunk
+        val seed = seed
+        return flow {
+            val random = seed?.let { Random(it) } ?: Random.Default
+            val start = clock.now()
+            fun running(): Boolean = clock.now() - start < duration
+
+            fun active(index: Long): Boolean = (count == null || index < count) && running()
+
+            var index = 0L
+            while (active(index)) {
+                if (index > 0) {
+                    awaitInterval(clock, interval, keepAliveEvery, keepAliveChunk, ::running)
+                    if (!active(index)) break
+                }
+                emit(produce(index, random))
+                index++
+            }
+        }
+    }
+}
+
+/**
+ * Waits [interval] on [clock], emitting [keepAliveChunk] every [keepAliveEvery] meanwhile
+ * as long as the stream is [running].
+ */
+private suspend fun <T : Any> FlowCollector<T>.awaitInterval(
+    clock: MockClock,
+    interval: Duration,
+    keepAliveEvery: Duration?,
+    keepAliveChunk: T?,
+    running: () -> Boolean,
+) {
+    var waited = Duration.ZERO
+    if (keepAliveEvery != null && keepAliveChunk != null) {
+        while (waited + keepAliveEvery < interval) {
+            clock.sleep(keepAliveEvery)
+            waited += keepAliveEvery
+            if (!running()) return
+            emit(keepAliveChunk)
+        }
+    }
+    if (interval > waited) clock.sleep(interval - waited)
+}
@@ -0,0 +1,95 @@
+package dev.mokksy.aimocks.core.stream
+
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import kotlinx.serialization.SerializationStrategy
+import kotlinx.serialization.json.Json
+
+/**
+ * Framing of the chunks of a streamed response.
+ *
+ * A frame is an optional `event: <name>` line, then [dataPrefix], the encoded chunk and [frameEnd].
+ *
+ * @property dataPrefix Written before each chunk, e.g. `data: ` for server-sent events.
+ * @property lineEnd Ends the event line.
+ * @property frameEnd Written after each chunk.
+ */
+public class FrameFormat(
+    public val dataPrefix: String = "data: ",
+    public val lineEnd: String = "\r\n",
+    public val frameEnd: String = lineEnd + lineEnd,
+) {
+    public companion object {
+        /**
+         * Server-sent events with CRLF line endings.
+         */
+        public val SSE: FrameFormat = FrameFormat()
+
+        /**
+         * Newline-delimited JSON.
+         */
+        public val NDJSON: FrameFormat = FrameFormat(dataPrefix = "", lineEnd = "\n", frameEnd = "\n")
+    }
+}
+
+/**
+ * Encodes the chunks of a single streamed response into frames of the given [format].
+ *
+ * Frames are built around the JSON text of the chunk in a single pre-sized string, as Mokksy streams
+ * take text: the response encodes them to UTF-8 as it writes them.
+ *
+ * ```kotlin
+ * val frames = StreamFrameWriter(Chunk.serializer(), FrameFormat.SSE)
+ * flow = chunks.map { frames.frame(it) }
+ * ```
+ *
+ * @param T Type of the chunks.
+ * @param serializer Serializer of the chunks, resolved once for the whole response.
+ * @param json Json configuration of the chunks.
+ */
+public class StreamFrameWriter<T>(
+    private val serializer: SerializationStrategy<T>,
+    private val format: FrameFormat = FrameFormat.SSE,
+    private val json: Json = Json,
+) {
+    /**
+     * Encodes [value] as a text frame, preceded by an [event] line when given.
+     */
+    public fun frame(
+        value: T,
+        event: String? = null,
+    ): String = rawFrame(json.encodeToString(serializer, value), event)
+
+    /**
+     * Frames already encoded [data], e.g. the `[DONE]` marker of OpenAI streams.
+     */
+    public fun rawFrame(
+        data: String,
+        event: String? = null,
+    ): String {
+        val eventLine = event?.let { "event: $it${format.lineEnd}" }.orEmpty()
+        val capacity = eventLine.length + format.dataPrefix.length + data.length + format.frameEnd.length
+        return StringBuilder(capacity)
+            .append(eventLine)
+            .append(format.dataPrefix)
+            .append(data)
+            .append(format.frameEnd)
+            .toString()
+    }
+}
+
+/**
+ * Encodes each element of this flow as a frame of the given [format],
+ * with a [StreamFrameWriter] per collection.
+ */
+public fun <T> Flow<T>.framed(
+    serializer: SerializationStrategy<T>,
+    format: FrameFormat = FrameFormat.SSE,
+    json: Json = Json,
+): Flow<String> {
+    val upstream = this
+    return flow {
+        val frames = StreamFrameWriter(serializer, format, json)
+        upstream.collect { emit(frames.frame(it)) }
+    }
+}
@@ -0,0 +1,166 @@
+package dev.mokksy.aimocks.core.stream
+
+import dev.mokksy.aimocks.core.metrics.CallMetrics
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import java.util.concurrent.atomic.LongAdder
+import kotlin.coroutines.cancellation.CancellationException
+
+/**
+ * Outcome counters of the streamed responses of a mock.
+ *
+ * A stream is cancelled when writing to the client fails, e.g. when the client disconnects,
+ * or when the response is cancelled; it is errored when its chunk source fails.
+ */
+public class StreamMonitor {
+    private val started = LongAdder()
+    private val completed = LongAdder()
+    private val cancelled = LongAdder()
+    private val errored = LongAdder()
+    private val bytes = LongAdder()
+    private val cancelledBytes = LongAdder()
+
+    /**
+     * Number of streams started.
+     */
+    public val startedCount: Long
+        get() = started.sum()
+
+    /**
+     * Number of streams in progress.
+     */
+    public val activeCount: Long
+        get() = started.sum() - completed.sum() - cancelled.sum() - errored.sum()
+
+    /**
+     * Number of streams sent completely.
+     */
+    public val completedCount: Long
+        get() = completed.sum()
+
+    /**
+     * Number of streams cancelled, e.g. by a client disconnecting.
+     */
+    public val cancelledCount: Long
+        get() = cancelled.sum()
+
+    /**
+     * Number of streams whose chunk source failed.
+     */
+    public val erroredCount: Long
+        get() = errored.sum()
+
+    /**
+     * Number of UTF-8 bytes written by all streams.
+     */
+    public val bytesWritten: Long
+        get() = bytes.sum()
+
+    /**
+     * Number of UTF-8 bytes written by the cancelled streams before they were cancelled.
+     */
+    public val bytesWrittenBeforeCancel: Long
+        get() = cancelledBytes.sum()
+
+    internal fun started() {
+        started.increment()
+    }
+
+    internal fun written(count: Long) {
+        bytes.add(count)
+    }
+
+    internal fun completed() {
+        completed.increment()
+    }
+
+    internal fun cancelled(written: Long) {
+        cancelled.increment()
+        cancelledBytes.add(written)
+    }
+
+    internal fun errored() {
+        errored.increment()
+    }
+
+    /**
+     * Clears the counters. Streams in progress are not counted afterwards.
+     */
+    public fun reset() {
+        started.reset()
+        completed.reset()
+        cancelled.reset()
+        errored.reset()
+        bytes.reset()
+        cancelledBytes.reset()
+    }
+
+    override fun toString(): String =
+        "StreamMonitor(started=$startedCount, completed=$completedCount, cancelled=$cancelledCount, " +
+            "errored=$erroredCount, bytesWritten=$bytesWritten)"
+}
+
+/**
+ * Records the outcome of this stream of frames in [monitor].
+ *
+ * A failure to write a frame, e.g. because the client disconnected, propagates upstream
+ * and cancels the generation of the remaining chunks, together with their pending delays.
+ * The chunks are also reported to the [dev.mokksy.aimocks.core.metrics.MockMetrics] of the request, if any.
+ */
+@Suppress("TooGenericExceptionCaught")
+public fun Flow<String>.monitoredBy(monitor: StreamMonitor): Flow<String> {
+    val upstream = this
+    return flow {
+        monitor.started()
+        val call = currentCoroutineContext()[CallMetrics]
+        var written = 0L
+        var writeFailed = false
+        try {
+            upstream.collect { frame ->
+                call?.firstByte()
+                try {
+                    emit(frame)
+                } catch (e: Throwable) {
+                    writeFailed = true
+                    throw e
+                }
+                val size = utf8Length(frame)
+                monitor.written(size)
+                call?.chunkWritten(frame, size)
+                written += size
+            }
+        } catch (e: Throwable) {
+            if (writeFailed || e is CancellationException) monitor.cancelled(written) else monitor.errored()
+            throw e
+        }
+        monitor.completed()
+    }
+}
+
+private const val ONE_BYTE_LIMIT = 0x80
+private const val TWO_BYTES_LIMIT = 0x800
+
+/**
+ * Returns the length of [text] encoded in UTF-8, without encoding it.
+ */
+@Suppress("MagicNumber")
+internal fun utf8Length(text: CharSequence): Long {
+    var length = 0L
+    var index = 0
+    while (index < text.length) {
+        val char = text[index]
+        length +=
+            when {
+                char.code < ONE_BYTE_LIMIT -> 1
+                char.code < TWO_BYTES_LIMIT -> 2
+                char.isHighSurrogate() && index + 1 < text.length && text[index + 1].isLowSurrogate() -> {
+                    index++
+                    4
+                }
+                else -> 3
+            }
+        index++
+    }
+    return length
+}
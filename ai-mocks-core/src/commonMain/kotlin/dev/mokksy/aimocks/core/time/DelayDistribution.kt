@@ -0,0 +1,154 @@
+package dev.mokksy.aimocks.core.time
+
+import kotlin.jvm.JvmName
+import kotlin.math.PI
+import kotlin.math.cos
+import kotlin.math.exp
+import kotlin.math.ln
+import kotlin.math.sqrt
+import kotlin.random.Random
+import kotlin.time.Duration
+
+/**
+ * Distribution of simulated delays, sampled with a caller-supplied [Random]
+ * so that a seeded [StreamTiming] produces a reproducible cadence.
+ *
+ * Samples may be negative (e.g. [normal] jitter centred on zero);
+ * the resulting delay is clamped at zero where it is applied.
+ */
+public interface DelayDistribution {
+    /**
+     * Draws a delay from this distribution.
+     */
+    public fun sample(random: Random): Duration
+
+    public companion object {
+        /**
+         * Always zero.
+         */
+        public val ZERO: DelayDistribution = fixed(Duration.ZERO)
+
+        /**
+         * Always the given [value].
+         */
+        @JvmName("fixed")
+        public fun fixed(value: Duration): DelayDistribution = FixedDistribution(value)
+
+        /**
+         * Uniformly distributed between [min] (inclusive) and [max] (exclusive).
+         */
+        @JvmName("uniform")
+        public fun uniform(
+            min: Duration,
+            max: Duration,
+        ): DelayDistribution {
+            require(min <= max) { "min ($min) must not be greater than max ($max)" }
+            return UniformDistribution(min, max)
+        }
+
+        /**
+         * Normally distributed around [mean] with the given [standardDeviation].
+         */
+        @JvmName("normal")
+        public fun normal(
+            mean: Duration,
+            standardDeviation: Duration,
+        ): DelayDistribution {
+            require(!standardDeviation.isNegative()) { "standardDeviation must not be negative" }
+            return NormalDistribution(mean, standardDeviation)
+        }
+
+        /**
+         * Log-normally distributed with the given [median] and shape [sigma],
+         * the long-tailed shape typical of observed network and inference latencies.
+         */
+        @JvmName("logNormal")
+        public fun logNormal(
+            median: Duration,
+            sigma: Double,
+        ): DelayDistribution {
+            require(median.isPositive()) { "median must be positive" }
+            require(sigma >= 0.0) { "sigma must not be negative" }
+            return LogNormalDistribution(median, sigma)
+        }
+
+        /**
+         * Samples the values of a recorded histogram, each with probability proportional to its count.
+         *
+         * @param buckets Recorded delays mapped to the number of times they were observed.
+         */
+        public fun histogram(buckets: Map<Duration, Long>): DelayDistribution {
+            val observed = buckets.filterValues { it > 0 }
+            require(observed.isNotEmpty()) { "Histogram must contain at least one observation" }
+            return HistogramDistribution(observed)
+        }
+
+        /**
+         * Samples recorded delays with equal probability each.
+         *
+         * @param samples Recorded delays, e.g. inter-chunk gaps captured from a real provider.
+         */
+        public fun histogram(samples: List<Duration>): DelayDistribution =
+            histogram(samples.groupingBy { it }.eachCount().mapValues { it.value.toLong() })
+    }
+}
+
+private class FixedDistribution(
+    private val value: Duration,
+) : DelayDistribution {
+    override fun sample(random: Random): Duration = value
+
+    override fun toString(): String = "fixed($value)"
+}
+
+private class UniformDistribution(
+    private val min: Duration,
+    private val max: Duration,
+) : DelayDistribution {
+    override fun sample(random: Random): Duration = min + (max - min) * random.nextDouble()
+
+    override fun toString(): String = "uniform($min, $max)"
+}
+
+private class NormalDistribution(
+    private val mean: Duration,
+    private val standardDeviation: Duration,
+) : DelayDistribution {
+    override fun sample(random: Random): Duration = mean + standardDeviation * random.nextGaussian()
+
+    override fun toString(): String = "normal($mean, $standardDeviation)"
+}
+
+private class LogNormalDistribution(
+    private val median: Duration,
+    private val sigma: Double,
+) : DelayDistribution {
+    override fun sample(random: Random): Duration = median * exp(sigma * random.nextGaussian())
+
+    override fun toString(): String = "logNormal($median, $sigma)"
+}
+
+private class HistogramDistribution(
+    buckets: Map<Duration, Long>,
+) : DelayDistribution {
+    private val values = buckets.keys.toList()
+    private val cumulativeCounts = buckets.values.runningReduce(Long::plus).toLongArray()
+
+    override fun sample(random: Random): Duration {
+        val target = random.nextLong(cumulativeCounts.last())
+        val index = cumulativeCounts.binarySearch(target + 1)
+        return values[if (index >= 0) index else -index - 1]
+    }
+
+    override fun toString(): String = "histogram(${values.size} buckets)"
+}
+
+/**
+ * Standard normal sample (Box-Muller transform).
+ */
+private fun Random.nextGaussian(): Double {
+    // nextDouble() may return 0.0, which ln() cannot take
+    val u1 = 1.0 - nextDouble()
+    val u2 = nextDouble()
+    return sqrt(-2.0 * ln(u1)) * cos(2.0 * PI * u2)
+}
@@ -0,0 +1,86 @@
+package dev.mokksy.aimocks.core.time
+
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.withContext
+import kotlin.time.Duration
+import kotlin.time.TimeSource
+
+/**
+ * Time source used by mocks to honour simulated delays
+ * (response delay, delay between chunks).
+ *
+ * [MockClock.System] sleeps in wall-clock time. A virtual clock, such as [VirtualClock]
+ * or [CoroutineMockClock], only moves its own time forward, so latency-sensitive client
+ * logic can be tested at full speed.
+ */
+public interface MockClock {
+    /**
+     * Whether sleeping on this clock takes no wall-clock time.
+     *
+     * Delays of a virtual clock are honoured by the mock itself and reported
+     * in the [TimingHeaders] of the response.
+     */
+    public val isVirtual: Boolean
+
+    /**
+     * Returns the time elapsed on this clock since its origin.
+     */
+    public fun now(): Duration
+
+    /**
+     * Suspends until the given [duration] has passed on this clock.
+     */
+    public suspend fun sleep(duration: Duration)
+
+    public companion object {
+        /**
+         * Wall-clock time, sleeping with coroutine [delay].
+         */
+        public val System: MockClock = SystemMockClock
+    }
+}
+
+private object SystemMockClock : MockClock {
+    private val origin = TimeSource.Monotonic.markNow()
+
+    override val isVirtual: Boolean = false
+
+    override fun now(): Duration = origin.elapsedNow()
+
+    override suspend fun sleep(duration: Duration) {
+        delay(duration)
+    }
+
+    override fun toString(): String = "MockClock.System"
+}
+
+/**
+ * Clock driven by a coroutine dispatcher and its time source,
+ * e.g. the virtual time of `kotlinx-coroutines-test`:
+ *
+ * ```kotlin
+ * @Test
+ * fun test() = runTest {
+ *     mock.clock = CoroutineMockClock(StandardTestDispatcher(testScheduler), testScheduler.timeSource)
+ *     // delays of the mock now advance with testScheduler
+ * }
+ * ```
+ *
+ * @param dispatcher Dispatcher the simulated delays are scheduled on.
+ * @param timeSource Time source reporting the time of the [dispatcher].
+ */
+public class CoroutineMockClock(
+    private val dispatcher: CoroutineDispatcher,
+    timeSource: TimeSource,
+) : MockClock {
+    private val origin = timeSource.markNow()
+
+    override val isVirtual: Boolean = true
+
+    override fun now(): Duration = origin.elapsedNow()
+
+    override suspend fun sleep(duration: Duration) {
+        withContext(dispatcher) { delay(duration) }
+    }
+}
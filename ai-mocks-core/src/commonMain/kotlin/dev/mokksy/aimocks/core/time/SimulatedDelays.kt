@@ -0,0 +1,80 @@
+package dev.mokksy.aimocks.core.time
+
+import kotlinx.coroutines.flow.Flow
+import kotlin.jvm.JvmName
+import kotlin.time.Duration
+
+/**
+ * Names of the response headers reporting simulated timing when a virtual [MockClock] is used.
+ */
+public object TimingHeaders {
+    /** Simulated delay before the response (time to first byte), in milliseconds. */
+    public const val DELAY: String = "x-mock-simulated-delay-ms"
+
+    /** Simulated delay between streamed chunks, in milliseconds. */
+    public const val CHUNK_DELAY: String = "x-mock-simulated-chunk-delay-ms"
+
+    /** Virtual time at which the response was produced, in milliseconds since the clock origin. */
+    public const val VIRTUAL_TIME: String = "x-mock-virtual-time-ms"
+}
+
+/**
+ * Honours a response [delay] on this clock.
+ *
+ * A virtual clock sleeps on its own time here, so the returned delay,
+ * which the server applies in wall-clock time, is zero.
+ * Otherwise, [delay] is returned unchanged for the server to apply.
+ *
+ * @return The delay to be applied by the server.
+ */
+@JvmName("responseDelay")
+public suspend fun MockClock.responseDelay(delay: Duration): Duration {
+    if (!isVirtual) return delay
+    sleep(delay)
+    return Duration.ZERO
+}
+
+/**
+ * Paces this flow on the given [clock], waiting [delayBetweenChunks] between elements.
+ *
+ * On a wall-clock clock, elements are scheduled against absolute deadlines,
+ * so timer granularity does not add up to drift, and elements which are already due
+ * are combined by [coalesce] into a single write. A virtual clock sleeps on its own time.
+ *
+ * @param monitor Receives the [PacingReport] of the flow when it completes.
+ * @param coalesce Combines elements which are already due, or `null` to emit them one by one.
+ */
+@JvmName("pacedBy")
+public fun <T : Any> Flow<T>.pacedBy(
+    clock: MockClock,
+    delayBetweenChunks: Duration,
+    monitor: PacingMonitor? = null,
+    coalesce: ((List<T>) -> T)? = null,
+): Flow<T> {
+    if (!delayBetweenChunks.isPositive()) return this
+    return pacedWith(clock, monitor, coalesce) { index, _ ->
+        if (index == 0) Duration.ZERO else delayBetweenChunks
+    }
+}
+
+/**
+ * Combines streamed text frames into a single write, for use as `coalesce` of [pacedBy].
+ */
+public fun joinFrames(frames: List<String>): String = frames.joinToString(separator = "")
+
+/**
+ * Returns the [TimingHeaders] describing the simulated [delay] and [delayBetweenChunks],
+ * or no headers for a wall-clock clock.
+ */
+@JvmName("timingHeaders")
+public fun MockClock.timingHeaders(
+    delay: Duration,
+    delayBetweenChunks: Duration? = null,
+): List<Pair<String, String>> {
+    if (!isVirtual) return emptyList()
+    return buildList {
+        add(TimingHeaders.DELAY to delay.inWholeMilliseconds.toString())
+        delayBetweenChunks?.let { add(TimingHeaders.CHUNK_DELAY to it.inWholeMilliseconds.toString()) }
+        add(TimingHeaders.VIRTUAL_TIME to now().inWholeMilliseconds.toString())
+    }
+}
@@ -0,0 +1,265 @@
+package dev.mokksy.aimocks.core.time
+
+import dev.mokksy.aimocks.core.metrics.CallMetrics
+import kotlinx.coroutines.channels.ReceiveChannel
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.FlowCollector
+import kotlinx.coroutines.flow.buffer
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.produceIn
+import java.util.concurrent.atomic.LongAdder
+import kotlin.concurrent.Volatile
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.Duration.Companion.nanoseconds
+import kotlin.time.DurationUnit
+
+/**
+ * Most chunks written at once when emission is behind schedule.
+ */
+private const val MAX_COALESCED_CHUNKS = 64
+
+/**
+ * Resolution of coroutine delays: the pacer sleeps in whole multiples of it, rounding up,
+ * so a chunk is written at most one tick late. Deadlines are absolute, so that lateness
+ * shortens the next gap instead of accumulating.
+ */
+private val TIMER_RESOLUTION = 1.milliseconds
+
+private fun Duration.roundedUpToTimerTick(): Duration {
+    val tick = TIMER_RESOLUTION.inWholeNanoseconds
+    return ((inWholeNanoseconds + tick - 1) / tick * tick).nanoseconds
+}
+
+/**
+ * Pacing outcome of a single streamed response.
+ *
+ * @property chunks Number of chunks emitted.
+ * @property writes Number of writes: lower than [chunks] when late chunks were coalesced.
+ * @property configuredRate Scheduled rate, in chunks per second.
+ * @property achievedRate Rate at which chunks were actually emitted, in chunks per second.
+ * @property maxLag Largest delay of a write past its deadline.
+ */
+public data class PacingReport(
+    val chunks: Int,
+    val writes: Int,
+    val configuredRate: Double,
+    val achievedRate: Double,
+    val maxLag: Duration,
+)
+
+/**
+ * Collects the [PacingReport]s of the streams paced for a mock.
+ */
+public class PacingMonitor {
+    private val streams = LongAdder()
+    private val chunks = LongAdder()
+    private val writes = LongAdder()
+
+    /**
+     * Report of the most recently completed stream, or `null` if none completed yet.
+     */
+    @Volatile
+    public var lastReport: PacingReport? = null
+        private set
+
+    /**
+     * Number of paced streams completed.
+     */
+    public val streamCount: Long
+        get() = streams.sum()
+
+    /**
+     * Number of chunks emitted by the completed streams.
+     */
+    public val chunkCount: Long
+        get() = chunks.sum()
+
+    /**
+     * Number of writes of the completed streams, lower than [chunkCount] when chunks were coalesced.
+     */
+    public val writeCount: Long
+        get() = writes.sum()
+
+    /**
+     * Records the [report] of a completed stream.
+     */
+    public fun record(report: PacingReport) {
+        streams.increment()
+        chunks.add(report.chunks.toLong())
+        writes.add(report.writes.toLong())
+        lastReport = report
+    }
+
+    /**
+     * Clears the collected statistics.
+     */
+    public fun reset() {
+        streams.reset()
+        chunks.reset()
+        writes.reset()
+        lastReport = null
+    }
+}
+
+/**
+ * Schedules chunks against absolute deadlines measured from the start of the stream,
+ * so that timer overshoot does not accumulate into drift.
+ *
+ * On a virtual clock, which cannot overshoot, gaps are slept one after another.
+ */
+internal class StreamPacer(
+    private val clock: MockClock,
+) {
+    private val origin = clock.now()
+    private var deadline = Duration.ZERO
+    private var emitDeadline = Duration.ZERO
+    private var pendingGap = Duration.ZERO
+    private var scheduledSpan = Duration.ZERO
+    private var scheduled = 0
+    private var firstWrite: Duration? = null
+    private var lastWrite = Duration.ZERO
+    private var chunks = 0
+    private var writes = 0
+    private var maxLag = Duration.ZERO
+
+    private fun elapsed(): Duration = clock.now() - origin
+
+    /**
+     * Schedules the next chunk [gap] after the previous deadline.
+     *
+     * @param stalled Whether the chunk was not available by then, e.g. a slow upstream:
+     *        the gap then starts when the chunk became available.
+     */
+    fun schedule(
+        gap: Duration,
+        stalled: Boolean,
+    ) {
+        if (stalled) deadline = maxOf(deadline, elapsed())
+        val positiveGap = gap.coerceAtLeast(Duration.ZERO)
+        deadline += positiveGap
+        pendingGap += positiveGap
+        if (scheduled++ > 0) scheduledSpan += positiveGap
+    }
+
+    fun isDue(): Boolean = !clock.isVirtual && elapsed() >= deadline
+
+    suspend fun awaitDeadline() {
+        if (clock.isVirtual) {
+            clock.sleep(pendingGap)
+        } else {
+            var remaining = deadline - elapsed()
+            while (remaining.isPositive()) {
+                clock.sleep(remaining.roundedUpToTimerTick())
+                remaining = deadline - elapsed()
+            }
+        }
+        emitDeadline = deadline
+        pendingGap = Duration.ZERO
+    }
+
+    /**
+     * Reports the deadline of the chunk about to be written to the metrics of its request, if any.
+     */
+    fun announce(call: CallMetrics?) {
+        call?.chunkScheduled(clock, origin, emitDeadline)
+    }
+
+    fun written(count: Int) {
+        val now = elapsed()
+        if (firstWrite == null) firstWrite = now
+        lastWrite = now
+        maxLag = maxOf(maxLag, now - emitDeadline)
+        chunks += count
+        writes++
+    }
+
+    fun report(): PacingReport =
+        PacingReport(
+            chunks = chunks,
+            writes = writes,
+            configuredRate = rate(scheduledSpan),
+            achievedRate = rate(lastWrite - (firstWrite ?: lastWrite)),
+            maxLag = maxLag,
+        )
+
+    private fun rate(span: Duration): Double =
+        if (chunks < 2 || !span.isPositive()) 0.0 else (chunks - 1) / span.toDouble(DurationUnit.SECONDS)
+}
+
+/**
+ * Paces this flow with a [StreamPacer], waiting [gap] before each element.
+ *
+ * @param gap Delay before an element, given its index, counted from the deadline of the previous one.
+ * @param monitor Receives the [PacingReport] when the flow completes.
+ * @param coalesce Combines chunks which are already due into a single one,
+ *        or `null` to emit late chunks one by one.
+ */
+internal fun <T : Any> Flow<T>.pacedWith(
+    clock: MockClock,
+    monitor: PacingMonitor?,
+    coalesce: ((List<T>) -> T)?,
+    gap: (index: Int, element: T) -> Duration,
+): Flow<T> {
+    val upstream = this
+    return flow {
+        val pacer = StreamPacer(clock)
+        val call = currentCoroutineContext()[CallMetrics]
+        var index = 0
+        if (clock.isVirtual) {
+            upstream.collect {
+                pacer.schedule(gap(index++, it), stalled = false)
+                pacer.awaitDeadline()
+                pacer.announce(call)
+                emit(it)
+                pacer.written(1)
+            }
+        } else {
+            coroutineScope {
+                val channel = upstream.buffer(MAX_COALESCED_CHUNKS).produceIn(this)
+                emitPaced(channel, pacer, call, coalesce) { gap(index++, it) }
+            }
+        }
+        monitor?.record(pacer.report())
+    }
+}
+
+private suspend fun <T : Any> FlowCollector<T>.emitPaced(
+    channel: ReceiveChannel<T>,
+    pacer: StreamPacer,
+    call: CallMetrics?,
+    coalesce: ((List<T>) -> T)?,
+    gap: (T) -> Duration,
+) {
+    var peeked: T? = null
+    while (true) {
+        val element =
+            peeked ?: channel.tryReceive().getOrNull()?.also { pacer.schedule(gap(it), stalled = false) }
+                ?: channel.receiveOrNull()?.also { pacer.schedule(gap(it), stalled = true) }
+                ?: break
+        peeked = null
+        pacer.awaitDeadline()
+        val batch = mutableListOf(element)
+        while (coalesce != null && batch.size < MAX_COALESCED_CHUNKS) {
+            val next = channel.tryReceive().getOrNull() ?: break
+            pacer.schedule(gap(next), stalled = false)
+            if (pacer.isDue()) {
+                batch += next
+            } else {
+                peeked = next
+                break
+            }
+        }
+        pacer.announce(call)
+        emit(if (batch.size == 1 || coalesce == null) element else coalesce(batch))
+        pacer.written(batch.size)
+    }
+}
+
+private suspend fun <T : Any> ReceiveChannel<T>.receiveOrNull(): T? {
+    val result = receiveCatching()
+    result.exceptionOrNull()?.let { throw it }
+    return result.getOrNull()
+}
@@ -0,0 +1,102 @@
+package dev.mokksy.aimocks.core.time
+
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.flow
+import kotlin.random.Random
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.seconds
+
+/**
+ * Timing model of a streamed response, reproducing the cadence of a real provider:
+ * a time to first token, then a generation rate with jitter between the following chunks.
+ *
+ * ```kotlin
+ * timing {
+ *     timeToFirstToken = DelayDistribution.logNormal(median = 400.milliseconds, sigma = 0.3)
+ *     tokensPerSecond = 60.0
+ *     jitter = DelayDistribution.normal(Duration.ZERO, 5.milliseconds)
+ *     seed = 42
+ * }
+ * ```
+ *
+ * Each response draws its delays from a fresh random generator,
+ * so with a [seed] every response gets the same cadence.
+ */
+public class StreamTiming {
+    /**
+     * Delay before the first chunk.
+     */
+    public var timeToFirstToken: DelayDistribution = DelayDistribution.ZERO
+
+    /**
+     * Generation rate: each chunk after the first one is delayed by its token count divided by this rate.
+     * `null` disables rate-based delays.
+     */
+    public var tokensPerSecond: Double? = null
+        set(value) {
+            require(value == null || value > 0.0) { "tokensPerSecond must be positive, but was $value" }
+            field = value
+        }
+
+    /**
+     * Delay added to each gap between chunks.
+     */
+    public var jitter: DelayDistribution = DelayDistribution.ZERO
+
+    /**
+     * Seed of the random generator, or `null` for a different cadence on every response.
+     */
+    public var seed: Long? = null
+
+    internal fun newSchedule(): Schedule = Schedule(seed?.let { Random(it) } ?: Random.Default)
+
+    /**
+     * Delays of a single streamed response.
+     */
+    internal inner class Schedule(
+        private val random: Random,
+    ) {
+        fun firstChunkDelay(): Duration = timeToFirstToken.sample(random).coerceAtLeast(Duration.ZERO)
+
+        fun nextChunkDelay(tokens: Int): Duration {
+            val generation = tokensPerSecond?.let { (tokens / it).seconds } ?: Duration.ZERO
+            return (generation + jitter.sample(random)).coerceAtLeast(Duration.ZERO)
+        }
+    }
+
+    override fun toString(): String =
+        "StreamTiming(timeToFirstToken=$timeToFirstToken, tokensPerSecond=$tokensPerSecond, " +
+            "jitter=$jitter, seed=$seed)"
+}
+
+/**
+ * Approximates the number of tokens in a text chunk, assuming four characters per token.
+ */
+public fun approximateTokenCount(text: CharSequence): Int = maxOf(1, (text.length + 3) / 4)
+
+/**
+ * Paces this flow with the given [timing] model on [clock].
+ *
+ * Returns this flow unchanged when [timing] is `null`.
+ *
+ * @param tokens Number of tokens in an element, one by default.
+ * @param monitor Receives the [PacingReport] of the flow when it completes.
+ */
+public fun <T : Any> Flow<T>.timedBy(
+    timing: StreamTiming?,
+    clock: MockClock,
+    tokens: (T) -> Int = { 1 },
+    monitor: PacingMonitor? = null,
+): Flow<T> {
+    if (timing == null) return this
+    val upstream = this
+    return flow {
+        val schedule = timing.newSchedule()
+        emitAll(
+            upstream.pacedWith(clock, monitor, coalesce = null) { index, element ->
+                if (index == 0) schedule.firstChunkDelay() else schedule.nextChunkDelay(tokens(element))
+            },
+        )
+    }
+}
@@ -0,0 +1,137 @@
+package dev.mokksy.aimocks.core.time
+
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.withTimeoutOrNull
+import kotlinx.coroutines.yield
+import java.util.PriorityQueue
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.Duration.Companion.nanoseconds
+
+/**
+ * Idle time after which concurrent sleeps in auto-advance mode move the clock to the earliest deadline.
+ */
+private val AUTO_ADVANCE_GRACE = 1.milliseconds
+
+/**
+ * Virtual clock whose sleeps take no wall-clock time of their own.
+ *
+ * Each sleep is due its duration after the virtual time it started at, and sleeps are released
+ * earliest deadline first, so concurrent delays overlap instead of adding up.
+ *
+ * With [autoAdvance] enabled (the default), the clock moves by itself to the earliest deadline
+ * once no other sleep was started or released meanwhile: a lone sleep returns right away,
+ * and concurrent sleeps are released one deadline at a time, after at most a millisecond of idleness.
+ *
+ * With [autoAdvance] disabled, sleeps suspend until the test moves the clock
+ * past their deadline with [advanceBy]:
+ *
+ * ```kotlin
+ * val clock = VirtualClock(autoAdvance = false)
+ * mock.clock = clock
+ * // ... send a request, then
+ * clock.advanceBy(2.seconds) // releases responses delayed by up to 2 seconds
+ * ```
+ *
+ * @param autoAdvance Whether sleeps advance the clock by themselves.
+ */
+public class VirtualClock(
+    private val autoAdvance: Boolean = true,
+) : MockClock {
+    private class Sleeper(
+        val deadlineNanos: Long,
+        val sequence: Long,
+        val signal: CompletableDeferred<Unit> = CompletableDeferred(),
+    )
+
+    private val lock = ReentrantLock()
+    private val sleepers =
+        PriorityQueue<Sleeper>(compareBy<Sleeper> { it.deadlineNanos }.thenBy { it.sequence })
+    private var nowNanos = 0L
+    private var sequence = 0L
+
+    /**
+     * Number of sleeps started or released so far, telling whether the clock was idle.
+     */
+    private var epoch = 0L
+
+    override val isVirtual: Boolean = true
+
+    override fun now(): Duration = lock.withLock { nowNanos.nanoseconds }
+
+    /**
+     * Number of sleeps waiting for the clock to be advanced.
+     */
+    public val pendingSleeps: Int
+        get() = lock.withLock { sleepers.size }
+
+    override suspend fun sleep(duration: Duration) {
+        if (!duration.isPositive()) return
+        val (sleeper, started) =
+            lock.withLock {
+                Sleeper(deadlineAfter(duration), sequence++).also { sleepers += it } to ++epoch
+            }
+        if (!autoAdvance) {
+            sleeper.signal.await()
+            return
+        }
+        try {
+            // lets the sleeps started concurrently join the queue before the clock moves
+            yield()
+            var seen = started
+            while (true) {
+                releaseEarliestIfIdle(seen)
+                seen = lock.withLock { epoch }
+                if (withTimeoutOrNull(AUTO_ADVANCE_GRACE) { sleeper.signal.await() } != null) return
+            }
+        } finally {
+            if (!sleeper.signal.isCompleted) lock.withLock { sleepers.remove(sleeper) }
+        }
+    }
+
+    /**
+     * Moves the clock to the earliest deadline and releases the sleeps due then,
+     * unless a sleep was started or released since [seen].
+     */
+    private fun releaseEarliestIfIdle(seen: Long) {
+        val due =
+            lock.withLock {
+                if (epoch != seen || sleepers.isEmpty()) return
+                epoch++
+                nowNanos = maxOf(nowNanos, sleepers.peek().deadlineNanos)
+                pollDue()
+            }
+        due.forEach { it.signal.complete(Unit) }
+    }
+
+    /**
+     * Moves the clock forward by [duration], waking up all sleeps that are due,
+     * earliest deadline first.
+     */
+    public fun advanceBy(duration: Duration) {
+        require(!duration.isNegative()) { "Cannot move the clock backwards: $duration" }
+        val due =
+            lock.withLock {
+                nowNanos = deadlineAfter(duration)
+                epoch++
+                pollDue()
+            }
+        due.forEach { it.signal.complete(Unit) }
+    }
+
+    private fun pollDue(): List<Sleeper> =
+        buildList {
+            while (sleepers.isNotEmpty() && sleepers.peek().deadlineNanos <= nowNanos) {
+                add(sleepers.poll())
+            }
+        }
+
+    private fun deadlineAfter(duration: Duration): Long {
+        val nanos = duration.inWholeNanoseconds
+        return if (nanos >= Long.MAX_VALUE - nowNanos) Long.MAX_VALUE else nowNanos + nanos
+    }
+
+    override fun toString(): String = "VirtualClock(now=${now()}, autoAdvance=$autoAdvance)"
+}
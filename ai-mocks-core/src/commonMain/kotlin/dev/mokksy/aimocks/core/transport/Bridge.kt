@@ -0,0 +1,135 @@
+package dev.mokksy.aimocks.core.transport
+
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.HttpClientEngineConfig
+import io.ktor.client.engine.HttpClientEngineFactory
+import io.ktor.client.request.prepareRequest
+import io.ktor.client.request.setBody
+import io.ktor.client.request.url
+import io.ktor.client.statement.HttpResponse
+import io.ktor.client.statement.bodyAsChannel
+import io.ktor.http.ContentType
+import io.ktor.http.Headers
+import io.ktor.http.HttpHeaders
+import io.ktor.http.HttpStatusCode
+import io.ktor.http.content.OutgoingContent
+import io.ktor.http.contentLength
+import io.ktor.http.contentType
+import io.ktor.server.application.Application
+import io.ktor.server.application.ApplicationCall
+import io.ktor.server.application.ApplicationCallPipeline
+import io.ktor.server.application.call
+import io.ktor.server.engine.EmbeddedServer
+import io.ktor.server.request.contentLength
+import io.ktor.server.request.httpMethod
+import io.ktor.server.request.receiveChannel
+import io.ktor.server.request.uri
+import io.ktor.server.response.respond
+import io.ktor.utils.io.ByteReadChannel
+import io.ktor.utils.io.ByteWriteChannel
+import io.ktor.utils.io.copyTo
+
+private const val GRACE_PERIOD_MILLIS = 100L
+private const val TIMEOUT_MILLIS = 500L
+
+/**
+ * Headers set by either side of the bridge itself, rather than copied across it.
+ */
+private val BridgeHeaders =
+    setOf(
+        "connection",
+        "content-length",
+        "content-type",
+        "host",
+        "keep-alive",
+        "transfer-encoding",
+        "upgrade",
+    )
+
+/**
+ * Creates the client bridging requests to a mock through its in-process [engine].
+ *
+ * Mokksy owns the engine of a mock and binds it to a TCP port of its choosing.
+ * To serve a mock on other endpoints, an engine of our own accepts the connections
+ * and bridges each request to the mock in memory.
+ *
+ * The mock handles the bridged requests on the IO dispatcher, off the event loops of the bridging engine:
+ * a stub blocking its thread, e.g. on cassette I/O, stalls no connection of the other mocks it serves.
+ */
+internal fun bridgeClient(engine: HttpClientEngineFactory<HttpClientEngineConfig>): HttpClient =
+    HttpClient(engine) {
+        expectSuccess = false
+        followRedirects = false
+    }
+
+/**
+ * Answers every call of the application with the response of the mock behind the [client].
+ */
+internal fun Application.bridgeTo(client: HttpClient) {
+    intercept(ApplicationCallPipeline.Call) {
+        call.forward(client)
+        finish()
+    }
+}
+
+/**
+ * Stops the engine of a bridge, letting in-flight requests complete briefly.
+ */
+internal fun EmbeddedServer<*, *>.stopBridge() {
+    stop(GRACE_PERIOD_MILLIS, TIMEOUT_MILLIS)
+}
+
+private suspend fun ApplicationCall.forward(client: HttpClient) {
+    val incoming = request
+    val body =
+        ForwardedBody(
+            channel = receiveChannel(),
+            contentType = incoming.headers[HttpHeaders.ContentType]?.let { ContentType.parse(it) },
+            contentLength = incoming.contentLength(),
+        )
+    client
+        .prepareRequest {
+            method = incoming.httpMethod
+            // The in-process engine ignores the host
+            url("http://localhost${incoming.uri}")
+            incoming.headers.forEach { name, values ->
+                if (name.lowercase() !in BridgeHeaders) headers.appendAll(name, values)
+            }
+            setBody(body)
+        }.execute { response -> respond(ForwardedContent(response)) }
+}
+
+/**
+ * Body of a request, read by the mock from the connection as it arrives, rather than buffered whole first.
+ */
+private class ForwardedBody(
+    private val channel: ByteReadChannel,
+    override val contentType: ContentType?,
+    override val contentLength: Long?,
+) : OutgoingContent.ReadChannelContent() {
+    override fun readFrom(): ByteReadChannel = channel
+}
+
+/**
+ * Response of the mock, copied to the connection as it is read, so streamed responses keep their chunks.
+ */
+private class ForwardedContent(
+    private val response: HttpResponse,
+) : OutgoingContent.WriteChannelContent() {
+    override val status: HttpStatusCode = response.status
+
+    override val contentType: ContentType? = response.contentType()
+
+    override val contentLength: Long? = response.contentLength()
+
+    override val headers: Headers =
+        Headers.build {
+            response.headers.forEach { name, values ->
+                if (name.lowercase() !in BridgeHeaders) appendAll(name, values)
+            }
+        }
+
+    override suspend fun writeTo(channel: ByteWriteChannel) {
+        response.bodyAsChannel().copyTo(channel)
+    }
+}
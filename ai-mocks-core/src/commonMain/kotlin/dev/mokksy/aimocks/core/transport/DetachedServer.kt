@@ -0,0 +1,68 @@
+package dev.mokksy.aimocks.core.transport
+
+import dev.mokksy.mokksy.MokksyServer
+import io.github.oshai.kotlinlogging.KotlinLogging
+import io.ktor.server.engine.EmbeddedServer
+
+private val logger = KotlinLogging.logger {}
+
+/**
+ * Builds the mocks created by a [factory][build] detached from a port of their own:
+ * their application is served in-process only, by the engine of a
+ * [dev.mokksy.aimocks.core.MockRuntime] or a [dev.mokksy.aimocks.core.MockGateway].
+ */
+internal object DetachedMocks {
+    private val building = ThreadLocal.withInitial { false }
+
+    /**
+     * Whether the mock being built on this thread is to be detached.
+     */
+    fun requested(): Boolean = building.get()
+
+    /**
+     * Builds the mocks created by [factory] on this thread detached.
+     */
+    fun <T> build(factory: () -> T): T {
+        val previous = building.get()
+        building.set(true)
+        try {
+            return factory()
+        } finally {
+            building.set(previous)
+        }
+    }
+}
+
+/**
+ * Starts the application of this Mokksy server without binding its port: its modules are installed,
+ * so its routes and stubs serve requests [in-process][InProcessTransport], but its engine has no connector,
+ * so it opens no socket and, with no channel to serve, starts no event loop.
+ *
+ * Mokksy 0.11 offers no way to build its application module alone, so its embedded server is looked up
+ * among the fields of this server.
+ *
+ * @return The embedded server, to be stopped with the mock, or `null` if it could not be found:
+ *         the server is left unstarted then.
+ */
+internal fun MokksyServer.startDetached(): EmbeddedServer<*, *>? {
+    val server = embeddedServer()
+    if (server == null) {
+        logger.warn { "Embedded server of $this not found: starting it on its port" }
+        return null
+    }
+    server.engineConfig.connectors.clear()
+    server.start(wait = false)
+    return server
+}
+
+private fun MokksyServer.embeddedServer(): EmbeddedServer<*, *>? =
+    generateSequence<Class<*>>(javaClass) { it.superclass }
+        .flatMap { it.declaredFields.asSequence() }
+        .firstNotNullOfOrNull { field ->
+            val value = runCatching { field.apply { isAccessible = true }.get(this) }.getOrNull()
+            when (value) {
+                is EmbeddedServer<*, *> -> value
+                is Lazy<*> -> value.value as? EmbeddedServer<*, *>
+                else -> null
+            }
+        }
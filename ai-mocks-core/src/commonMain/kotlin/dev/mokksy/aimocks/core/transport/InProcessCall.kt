@@ -0,0 +1,148 @@
+package dev.mokksy.aimocks.core.transport
+
+import io.ktor.http.Headers
+import io.ktor.http.HeadersBuilder
+import io.ktor.http.HttpHeaders
+import io.ktor.http.HttpMethod
+import io.ktor.http.HttpProtocolVersion
+import io.ktor.http.HttpStatusCode
+import io.ktor.http.Parameters
+import io.ktor.http.RequestConnectionPoint
+import io.ktor.http.content.OutgoingContent
+import io.ktor.http.parseQueryString
+import io.ktor.server.application.Application
+import io.ktor.server.engine.BaseApplicationCall
+import io.ktor.server.engine.BaseApplicationRequest
+import io.ktor.server.engine.BaseApplicationResponse
+import io.ktor.server.request.RequestCookies
+import io.ktor.server.response.ResponseHeaders
+import io.ktor.utils.io.ByteChannel
+import io.ktor.utils.io.ByteReadChannel
+import io.ktor.utils.io.ByteWriteChannel
+import kotlinx.coroutines.CompletableDeferred
+import kotlin.coroutines.CoroutineContext
+
+private const val IN_PROCESS_ADDRESS = "in-process"
+private const val DEFAULT_HTTP_PORT = 80
+
+/**
+ * A call handed to the application directly by the [InProcessEngine], rather than read from a connection.
+ */
+internal class InProcessCall(
+    application: Application,
+    method: HttpMethod,
+    uri: String,
+    headers: Headers,
+    body: ByteReadChannel,
+    override val coroutineContext: CoroutineContext,
+) : BaseApplicationCall(application) {
+    override val request: InProcessRequest = InProcessRequest(this, method, uri, headers, body)
+    override val response: InProcessResponse = InProcessResponse(this)
+
+    init {
+        putResponseAttribute()
+    }
+}
+
+internal class InProcessRequest(
+    call: InProcessCall,
+    method: HttpMethod,
+    uri: String,
+    override val engineHeaders: Headers,
+    override val engineReceiveChannel: ByteReadChannel,
+) : BaseApplicationRequest(call) {
+    private val query = uri.substringAfter('?', "")
+
+    override val local: RequestConnectionPoint = InProcessConnectionPoint(method, uri, engineHeaders[HttpHeaders.Host])
+
+    override val cookies: RequestCookies = RequestCookies(this)
+
+    override val queryParameters: Parameters = parseQueryString(query)
+
+    override val rawQueryParameters: Parameters = parseQueryString(query, decode = false)
+}
+
+/**
+ * Response of an [InProcessCall]: its body is the read side of the channel the application writes to,
+ * so the client reads a streamed response chunk by chunk, as it is written.
+ */
+internal class InProcessResponse(
+    call: InProcessCall,
+) : BaseApplicationResponse(call) {
+    private val body = CompletableDeferred<ByteReadChannel>()
+
+    override val headers: ResponseHeaders =
+        object : ResponseHeaders() {
+            private val values = HeadersBuilder()
+
+            override fun engineAppendHeader(
+                name: String,
+                value: String,
+            ) {
+                values.append(name, value)
+            }
+
+            override fun getEngineHeaderNames(): List<String> = values.names().toList()
+
+            override fun getEngineHeaderValues(name: String): List<String> = values.getAll(name).orEmpty()
+        }
+
+    // The status is kept by the base class
+    override fun setStatus(statusCode: HttpStatusCode) = Unit
+
+    override suspend fun responseChannel(): ByteWriteChannel {
+        val channel = ByteChannel()
+        body.complete(channel)
+        return channel
+    }
+
+    override suspend fun respondUpgrade(upgrade: OutgoingContent.ProtocolUpgrade) {
+        throw UnsupportedOperationException("Protocol upgrades are not supported in-process")
+    }
+
+    /**
+     * Waits until the response is committed, and returns its body.
+     */
+    suspend fun awaitBody(): ByteReadChannel = body.await()
+
+    /**
+     * Completes a response which was sent without a body, if any.
+     */
+    fun completed() {
+        body.complete(ByteReadChannel.Empty)
+    }
+}
+
+private class InProcessConnectionPoint(
+    override val method: HttpMethod,
+    override val uri: String,
+    hostHeader: String?,
+) : RequestConnectionPoint {
+    override val scheme: String = "http"
+
+    override val version: String = HttpProtocolVersion.HTTP_1_1.toString()
+
+    override val localHost: String = hostHeader?.substringBefore(':') ?: "localhost"
+
+    override val localPort: Int = hostHeader?.substringAfter(':', "")?.toIntOrNull() ?: DEFAULT_HTTP_PORT
+
+    override val serverHost: String = localHost
+
+    override val serverPort: Int = localPort
+
+    override val localAddress: String = IN_PROCESS_ADDRESS
+
+    override val remoteHost: String = IN_PROCESS_ADDRESS
+
+    override val remotePort: Int = 0
+
+    override val remoteAddress: String = IN_PROCESS_ADDRESS
+
+    @Deprecated("Use localHost or serverHost instead", level = DeprecationLevel.ERROR)
+    override val host: String
+        get() = localHost
+
+    @Deprecated("Use localPort or serverPort instead", level = DeprecationLevel.ERROR)
+    override val port: Int
+        get() = localPort
+}
@@ -0,0 +1,136 @@
+package dev.mokksy.aimocks.core.transport
+
+import io.ktor.client.engine.HttpClientEngine
+import io.ktor.client.engine.HttpClientEngineBase
+import io.ktor.client.engine.HttpClientEngineConfig
+import io.ktor.client.engine.HttpClientEngineFactory
+import io.ktor.client.engine.callContext
+import io.ktor.client.engine.mergeHeaders
+import io.ktor.client.request.HttpRequestData
+import io.ktor.client.request.HttpResponseData
+import io.ktor.http.Headers
+import io.ktor.http.HttpHeaders
+import io.ktor.http.HttpProtocolVersion
+import io.ktor.http.HttpStatusCode
+import io.ktor.http.content.OutgoingContent
+import io.ktor.http.hostWithPort
+import io.ktor.server.application.Application
+import io.ktor.server.application.log
+import io.ktor.server.response.respond
+import io.ktor.util.date.GMTDate
+import io.ktor.utils.io.ByteReadChannel
+import io.ktor.utils.io.InternalAPI
+import io.ktor.utils.io.writer
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.launch
+
+/**
+ * Serves the requests of Ktor clients to the application of a mock in-process, without a connection.
+ *
+ * Attached to the application when the mock starts; the engines it creates hand each request
+ * to the application pipeline directly, so routing, matching and streaming run in memory.
+ */
+internal class InProcessTransport : HttpClientEngineFactory<HttpClientEngineConfig> {
+    @Volatile
+    private var application: Application? = null
+
+    fun attach(application: Application) {
+        this.application = application
+    }
+
+    /**
+     * Returns the application of the mock.
+     *
+     * @throws IllegalStateException if the mock is not started.
+     */
+    fun application(): Application = checkNotNull(application) { "The mock is not started" }
+
+    override fun create(block: HttpClientEngineConfig.() -> Unit): HttpClientEngine =
+        InProcessEngine(this, HttpClientEngineConfig().apply(block))
+}
+
+/**
+ * Client engine executing each request as an [InProcessCall] of the application of the [transport].
+ *
+ * Requests are handled on the dispatcher of the engine, by default the IO dispatcher,
+ * like the requests of the engine of the mock, so a blocking stub does not stall the event loops.
+ */
+internal class InProcessEngine(
+    private val transport: InProcessTransport,
+    override val config: HttpClientEngineConfig,
+) : HttpClientEngineBase("aimocks-in-process") {
+    @InternalAPI
+    override suspend fun execute(data: HttpRequestData): HttpResponseData =
+        transport.application().executeInProcess(data, data.url.encodedPathAndQuery)
+}
+
+/**
+ * Executes the request [data] for [uri] as an [InProcessCall] of this application.
+ *
+ * The response is returned as soon as it is committed; its body is read as the application writes it.
+ * Cancelling the request cancels its handling, as closing the connection would.
+ */
+@InternalAPI
+internal suspend fun Application.executeInProcess(
+    data: HttpRequestData,
+    uri: String,
+): HttpResponseData {
+    val callContext = callContext()
+    val requestTime = GMTDate()
+    val scope = CoroutineScope(callContext)
+    val headers =
+        Headers.build {
+            mergeHeaders(data.headers, data.body) { name, value -> append(name, value) }
+            if (!contains(HttpHeaders.Host)) append(HttpHeaders.Host, data.url.hostWithPort)
+        }
+    val call =
+        InProcessCall(
+            application = this,
+            method = data.method,
+            uri = uri,
+            headers = headers,
+            body = data.body.toChannel(scope),
+            coroutineContext = callContext,
+        )
+    scope.launch {
+        try {
+            call.handle()
+        } finally {
+            call.response.completed()
+        }
+    }
+    val body = call.response.awaitBody()
+    return HttpResponseData(
+        statusCode = call.response.status() ?: HttpStatusCode.OK,
+        requestTime = requestTime,
+        headers = call.response.headers.allValues(),
+        version = HttpProtocolVersion.HTTP_1_1,
+        body = body,
+        callContext = callContext,
+    )
+}
+
+@Suppress("TooGenericExceptionCaught")
+private suspend fun InProcessCall.handle() {
+    try {
+        application.execute(this, Unit)
+        // No route answered the request
+        if (!response.isCommitted) respond(HttpStatusCode.NotFound)
+    } catch (e: CancellationException) {
+        throw e
+    } catch (e: Throwable) {
+        application.log.error("Unhandled in-process request: ${request.local.method.value} ${request.local.uri}", e)
+        if (!response.isCommitted) respond(HttpStatusCode.InternalServerError)
+    }
+}
+
+private fun OutgoingContent.toChannel(scope: CoroutineScope): ByteReadChannel =
+    when (this) {
+        is OutgoingContent.NoContent -> ByteReadChannel.Empty
+        is OutgoingContent.ByteArrayContent -> ByteReadChannel(bytes())
+        is OutgoingContent.ReadChannelContent -> readFrom()
+        is OutgoingContent.WriteChannelContent -> scope.writer { writeTo(channel) }.channel
+        is OutgoingContent.ContentWrapper -> delegate().toChannel(scope)
+        else -> throw UnsupportedOperationException("Unsupported request body in-process: $this")
+    }
@@ -0,0 +1,64 @@
+package dev.mokksy.aimocks.core.transport
+
+import io.ktor.client.engine.HttpClientEngine
+import io.ktor.client.engine.HttpClientEngineBase
+import io.ktor.client.engine.HttpClientEngineConfig
+import io.ktor.client.engine.HttpClientEngineFactory
+import io.ktor.client.engine.callContext
+import io.ktor.client.request.HttpRequestData
+import io.ktor.client.request.HttpResponseData
+import io.ktor.http.Headers
+import io.ktor.http.HttpProtocolVersion
+import io.ktor.http.HttpStatusCode
+import io.ktor.http.fullPath
+import io.ktor.util.date.GMTDate
+import io.ktor.utils.io.ByteReadChannel
+import io.ktor.utils.io.InternalAPI
+
+/**
+ * A mock served under a path [prefix]: requests to the prefix are handed to its in-process [transport],
+ * with the prefix removed from their path.
+ *
+ * An empty prefix hands the requests over unchanged.
+ */
+internal class Mount(
+    val prefix: String,
+    val transport: InProcessTransport,
+)
+
+/**
+ * Serves the requests of Ktor clients to several mocks in-process, each request to the mock
+ * its path [resolves][resolve] to.
+ *
+ * Requests resolving to no mount are answered with `404 Not Found`.
+ */
+internal class MountTransport(
+    private val resolve: (path: String) -> Mount?,
+) : HttpClientEngineFactory<HttpClientEngineConfig> {
+    override fun create(block: HttpClientEngineConfig.() -> Unit): HttpClientEngine =
+        MountEngine(resolve, HttpClientEngineConfig().apply(block))
+}
+
+private class MountEngine(
+    private val resolve: (path: String) -> Mount?,
+    override val config: HttpClientEngineConfig,
+) : HttpClientEngineBase("aimocks-mounts") {
+    @InternalAPI
+    override suspend fun execute(data: HttpRequestData): HttpResponseData {
+        val mount = resolve(data.url.encodedPath)
+        val application = mount?.transport?.application() ?: return notFound()
+        val uri = data.url.fullPath.removePrefix(mount.prefix)
+        return application.executeInProcess(data, if (uri.startsWith('/')) uri else "/$uri")
+    }
+
+    @InternalAPI
+    private suspend fun notFound(): HttpResponseData =
+        HttpResponseData(
+            statusCode = HttpStatusCode.NotFound,
+            requestTime = GMTDate(),
+            headers = Headers.Empty,
+            version = HttpProtocolVersion.HTTP_1_1,
+            body = ByteReadChannel.Empty,
+            callContext = callContext(),
+        )
+}
@@ -0,0 +1,22 @@
+package dev.mokksy.aimocks.core.transport
+
+/**
+ * A Netty engine serving a mock, as actually started.
+ *
+ * @property port Port the engine listens on.
+ * @property baseUrl Base URL of the mock on this engine, to be provided to a language model client.
+ * @property transport Socket transport in use: never [NettyTransport.AUTO].
+ * @property acceptorThreads Number of threads accepting connections.
+ * @property workerThreads Number of threads serving the connections.
+ */
+public class NettyEndpoint internal constructor(
+    public val port: Int,
+    public val baseUrl: String,
+    public val transport: NettyTransport,
+    public val acceptorThreads: Int,
+    public val workerThreads: Int,
+) {
+    override fun toString(): String =
+        "NettyEndpoint(port=$port, transport=$transport, acceptorThreads=$acceptorThreads, " +
+            "workerThreads=$workerThreads)"
+}
@@ -0,0 +1,79 @@
+package dev.mokksy.aimocks.core.transport
+
+/**
+ * Settings of a Netty engine serving a mock, see [dev.mokksy.aimocks.core.AbstractMockLlm.bindNetty].
+ * They apply to that engine only, not to the engine Mokksy starts on the port of the mock.
+ *
+ * The defaults suit a few thousand concurrent connections. For more, e.g. streaming load tests,
+ * prefer a native [transport], more [workerThreads] and a larger [backlog]:
+ *
+ * ```kotlin
+ * openai.bindNetty(
+ *     NettyEngineSettings().apply {
+ *         transport = NettyTransport.EPOLL
+ *         workerThreads = 16
+ *         backlog = 8192
+ *     },
+ * )
+ * ```
+ */
+public class NettyEngineSettings {
+    /**
+     * Host the engine listens on.
+     */
+    public var host: String = "127.0.0.1"
+
+    /**
+     * Port the engine listens on, or 0 to choose a free port.
+     */
+    public var port: Int = 0
+
+    /**
+     * Socket transport. Explicit native transports fail to start when they are not available.
+     */
+    public var transport: NettyTransport = NettyTransport.AUTO
+
+    /**
+     * Number of threads accepting connections.
+     */
+    public var acceptorThreads: Int = 1
+        set(value) {
+            require(value > 0) { "acceptorThreads must be positive, but was $value" }
+            field = value
+        }
+
+    /**
+     * Number of threads serving the connections, or 0 for Netty's default of twice the available processors.
+     */
+    public var workerThreads: Int = 0
+        set(value) {
+            require(value >= 0) { "workerThreads must not be negative, but was $value" }
+            field = value
+        }
+
+    /**
+     * Maximum number of connections waiting to be accepted, as `SO_BACKLOG`.
+     */
+    public var backlog: Int = DEFAULT_BACKLOG
+        set(value) {
+            require(value > 0) { "backlog must be positive, but was $value" }
+            field = value
+        }
+
+    /**
+     * Pending bytes of a connection under which it is writable again, after reaching [writeBufferHighWaterMark].
+     */
+    public var writeBufferLowWaterMark: Int = DEFAULT_WRITE_BUFFER_LOW_WATER_MARK
+
+    /**
+     * Pending bytes of a connection over which it is not writable: streams to slow clients
+     * wait instead of buffering more.
+     */
+    public var writeBufferHighWaterMark: Int = DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK
+
+    public companion object {
+        public const val DEFAULT_BACKLOG: Int = 1024
+        public const val DEFAULT_WRITE_BUFFER_LOW_WATER_MARK: Int = 32 * 1024
+        public const val DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK: Int = 64 * 1024
+    }
+}
@@ -0,0 +1,185 @@
+package dev.mokksy.aimocks.core.transport
+
+import io.ktor.client.engine.HttpClientEngineConfig
+import io.ktor.client.engine.HttpClientEngineFactory
+import io.ktor.server.engine.connector
+import io.ktor.server.engine.embeddedServer
+import io.ktor.server.netty.Netty
+import io.netty.channel.ChannelOption
+import io.netty.channel.IoHandlerFactory
+import io.netty.channel.MultiThreadIoEventLoopGroup
+import io.netty.channel.ServerChannel
+import io.netty.channel.WriteBufferWaterMark
+import io.netty.channel.epoll.Epoll
+import io.netty.channel.epoll.EpollIoHandler
+import io.netty.channel.epoll.EpollServerSocketChannel
+import io.netty.channel.nio.NioIoHandler
+import io.netty.channel.socket.nio.NioServerSocketChannel
+import io.netty.channel.uring.IoUring
+import io.netty.channel.uring.IoUringIoHandler
+import io.netty.channel.uring.IoUringServerSocketChannel
+import io.netty.util.concurrent.DefaultThreadFactory
+import kotlinx.coroutines.runBlocking
+
+/**
+ * Serves a mock on a Netty engine configured with [settings].
+ *
+ * The engine owns its event loops, created for the chosen transport, and bridges each request to the mock
+ * through its [in-process engine][InProcessTransport], or to the mock [mounted][MountTransport] at its path.
+ * Only this engine is configured with the [settings]: the engine Mokksy starts on the port of the mock
+ * keeps its defaults.
+ *
+ * The native transports are optional dependencies, detected at runtime: see [NettyTransport].
+ * So is the Netty engine itself: check it with [ServerEngines.checkNetty] before building this server.
+ */
+internal class NettyServer(
+    settings: NettyEngineSettings,
+    engine: HttpClientEngineFactory<HttpClientEngineConfig>,
+) : AutoCloseable {
+    /**
+     * Transport in use, [NettyTransport.AUTO] resolved.
+     */
+    val transport: NettyTransport = settings.transport.resolve()
+
+    private val acceptors =
+        MultiThreadIoEventLoopGroup(
+            settings.acceptorThreads,
+            DefaultThreadFactory("aimocks-netty-acceptor"),
+            transport.ioHandlerFactory(),
+        )
+
+    private val workers =
+        MultiThreadIoEventLoopGroup(
+            settings.workerThreads,
+            DefaultThreadFactory("aimocks-netty-worker"),
+            transport.ioHandlerFactory(),
+        )
+
+    private val client = bridgeClient(engine)
+
+    private val server =
+        embeddedServer(
+            Netty,
+            configure = {
+                connector {
+                    host = settings.host
+                    port = settings.port
+                }
+                configureBootstrap = {
+                    group(acceptors, workers)
+                    channel(transport.serverChannel())
+                    option(ChannelOption.SO_BACKLOG, settings.backlog)
+                    childOption(
+                        ChannelOption.WRITE_BUFFER_WATER_MARK,
+                        WriteBufferWaterMark(settings.writeBufferLowWaterMark, settings.writeBufferHighWaterMark),
+                    )
+                    childOption(ChannelOption.TCP_NODELAY, true)
+                }
+            },
+        ) {
+            bridgeTo(client)
+        }
+
+    init {
+        server.start(wait = false)
+    }
+
+    val port: Int = runBlocking { server.engine.resolvedConnectors().first().port }
+
+    val acceptorThreads: Int
+        get() = acceptors.executorCount()
+
+    val workerThreads: Int
+        get() = workers.executorCount()
+
+    override fun close() {
+        server.stopBridge()
+        acceptors.shutdownGracefully()
+        workers.shutdownGracefully()
+        client.close()
+    }
+}
+
+private fun NettyTransport.resolve(): NettyTransport =
+    when (this) {
+        NettyTransport.AUTO -> {
+            val epoll = EpollSupport.present && EpollSupport.Transport.isAvailable()
+            if (epoll) NettyTransport.EPOLL else NettyTransport.NIO
+        }
+
+        NettyTransport.EPOLL -> {
+            check(EpollSupport.present) {
+                "The epoll transport is not available: netty-transport-native-epoll is not on the classpath"
+            }
+            check(EpollSupport.Transport.isAvailable()) {
+                "The epoll transport is not available: ${EpollSupport.Transport.unavailabilityCause()}"
+            }
+            this
+        }
+
+        NettyTransport.IO_URING -> {
+            check(IoUringSupport.present) {
+                "The io_uring transport is not available: netty-transport-native-io_uring is not on the classpath"
+            }
+            check(IoUringSupport.Transport.isAvailable()) {
+                "The io_uring transport is not available: ${IoUringSupport.Transport.unavailabilityCause()}"
+            }
+            this
+        }
+
+        NettyTransport.NIO -> {
+            this
+        }
+    }
+
+private fun NettyTransport.ioHandlerFactory(): IoHandlerFactory =
+    when (this) {
+        NettyTransport.EPOLL -> EpollSupport.Transport.ioHandlerFactory()
+        NettyTransport.IO_URING -> IoUringSupport.Transport.ioHandlerFactory()
+        NettyTransport.NIO, NettyTransport.AUTO -> NioIoHandler.newFactory()
+    }
+
+private fun NettyTransport.serverChannel(): Class<out ServerChannel> =
+    when (this) {
+        NettyTransport.EPOLL -> EpollSupport.Transport.serverChannel()
+        NettyTransport.IO_URING -> IoUringSupport.Transport.serverChannel()
+        NettyTransport.NIO, NettyTransport.AUTO -> NioServerSocketChannel::class.java
+    }
+
+/**
+ * The `epoll` transport, if its classes are on the classpath.
+ *
+ * Its classes are referenced from the nested object only, so they are loaded after [present] is checked.
+ */
+private object EpollSupport {
+    val present: Boolean = isPresent("io.netty.channel.epoll.Epoll")
+
+    object Transport {
+        fun isAvailable(): Boolean = Epoll.isAvailable()
+
+        fun unavailabilityCause(): Throwable? = Epoll.unavailabilityCause()
+
+        fun ioHandlerFactory(): IoHandlerFactory = EpollIoHandler.newFactory()
+
+        fun serverChannel(): Class<out ServerChannel> = EpollServerSocketChannel::class.java
+    }
+}
+
+/**
+ * The `io_uring` transport, if its classes are on the classpath.
+ *
+ * Its classes are referenced from the nested object only, so they are loaded after [present] is checked.
+ */
+private object IoUringSupport {
+    val present: Boolean = isPresent("io.netty.channel.uring.IoUring")
+
+    object Transport {
+        fun isAvailable(): Boolean = IoUring.isAvailable()
+
+        fun unavailabilityCause(): Throwable? = IoUring.unavailabilityCause()
+
+        fun ioHandlerFactory(): IoHandlerFactory = IoUringIoHandler.newFactory()
+
+        fun serverChannel(): Class<out ServerChannel> = IoUringServerSocketChannel::class.java
+    }
+}
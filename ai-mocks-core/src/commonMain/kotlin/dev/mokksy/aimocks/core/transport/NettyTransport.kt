@@ -0,0 +1,32 @@
+package dev.mokksy.aimocks.core.transport
+
+/**
+ * Socket transport of a Netty engine.
+ *
+ * The native transports are optional: they are detected at runtime, once their native library
+ * for the platform, e.g. `io.netty:netty-transport-native-epoll` with classifier `linux-x86_64`,
+ * is added to the classpath of the application.
+ */
+public enum class NettyTransport {
+    /**
+     * Native `epoll` when available, i.e. on Linux with `netty-transport-native-epoll` on the classpath,
+     * otherwise [NIO].
+     */
+    AUTO,
+
+    /**
+     * Java NIO, available everywhere.
+     */
+    NIO,
+
+    /**
+     * Linux native `epoll`. Requires `netty-transport-native-epoll` for the platform on the classpath.
+     */
+    EPOLL,
+
+    /**
+     * Linux `io_uring`. Requires `netty-transport-native-io_uring` for the platform on the classpath
+     * and a kernel allowing `io_uring`, which containers often do not.
+     */
+    IO_URING,
+}
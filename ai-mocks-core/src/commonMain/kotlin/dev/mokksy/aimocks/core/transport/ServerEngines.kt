@@ -0,0 +1,45 @@
+package dev.mokksy.aimocks.core.transport
+
+/**
+ * Server engines of the optional front ends of a mock, detected at runtime.
+ *
+ * The engines are optional dependencies, so that applications serving mocks on their Mokksy port only
+ * do not carry them: this file references none of their classes, so it can check for them
+ * before the front ends which use them are loaded.
+ */
+internal object ServerEngines {
+    /**
+     * Checks that the Ktor Netty engine, serving [NettyServer], is on the classpath.
+     *
+     * @throws IllegalStateException if it is not.
+     */
+    fun checkNetty() {
+        check(isPresent("io.ktor.server.netty.Netty")) {
+            "A Netty engine, a MockRuntime or a MockGateway requires io.ktor:ktor-server-netty on the classpath"
+        }
+    }
+
+    /**
+     * Checks that the Ktor CIO engine, serving [UnixSocketServer], is on the classpath.
+     *
+     * @throws IllegalStateException if it is not.
+     */
+    fun checkCio() {
+        check(isPresent("io.ktor.server.cio.CIO")) {
+            "A Unix domain socket requires io.ktor:ktor-server-cio on the classpath"
+        }
+    }
+}
+
+/**
+ * Whether the class named [className] can be loaded, without initializing it.
+ */
+internal fun isPresent(className: String): Boolean =
+    try {
+        Class.forName(className, false, ServerEngines::class.java.classLoader)
+        true
+    } catch (_: ClassNotFoundException) {
+        false
+    } catch (_: LinkageError) {
+        false
+    }
@@ -0,0 +1,71 @@
+package dev.mokksy.aimocks.core.transport
+
+import io.ktor.client.engine.HttpClientEngineConfig
+import io.ktor.client.engine.HttpClientEngineFactory
+import io.ktor.server.cio.CIO
+import io.ktor.server.engine.embeddedServer
+import java.io.IOException
+import java.nio.file.FileAlreadyExistsException
+import java.nio.file.Files
+import java.nio.file.LinkOption
+import java.nio.file.Path
+import java.nio.file.attribute.BasicFileAttributes
+
+/**
+ * Serves a mock on a Unix domain socket at [path].
+ *
+ * The socket is served by a CIO engine of its own, which bridges each request to the mock
+ * through its [in-process engine][InProcessTransport]: no request crosses loopback TCP,
+ * and clients use no ephemeral port. The CIO engine is an optional dependency:
+ * check it with [ServerEngines.checkCio] before building this server.
+ *
+ * @throws FileAlreadyExistsException if a file other than a socket exists at [path].
+ */
+internal class UnixSocketServer(
+    val path: Path,
+    engine: HttpClientEngineFactory<HttpClientEngineConfig>,
+) : AutoCloseable {
+    init {
+        // A socket file left by a former run would fail the bind, but any other file is kept
+        if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            if (!isSocket(path)) throw FileAlreadyExistsException(path.toString(), null, "Not a Unix domain socket")
+            Files.delete(path)
+        }
+    }
+
+    private val client = bridgeClient(engine)
+
+    private val server =
+        embeddedServer(CIO, configure = { unixConnector(path.toString()) }) {
+            bridgeTo(client)
+        }
+
+    init {
+        server.start(wait = false)
+    }
+
+    override fun close() {
+        server.stopBridge()
+        client.close()
+        if (isSocket(path)) Files.deleteIfExists(path)
+    }
+}
+
+private const val FILE_TYPE_MASK = 0xF000 // S_IFMT
+private const val SOCKET_TYPE = 0xC000 // S_IFSOCK
+
+/**
+ * Whether the file at [path] is a socket, or, on file systems without Unix attributes,
+ * neither a regular file, a directory nor a symbolic link.
+ */
+private fun isSocket(path: Path): Boolean =
+    try {
+        val mode = Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS) as Int
+        (mode and FILE_TYPE_MASK) == SOCKET_TYPE
+    } catch (_: UnsupportedOperationException) {
+        Files.readAttributes(path, BasicFileAttributes::class.java, LinkOption.NOFOLLOW_LINKS).isOther
+    } catch (_: IllegalArgumentException) {
+        Files.readAttributes(path, BasicFileAttributes::class.java, LinkOption.NOFOLLOW_LINKS).isOther
+    } catch (_: IOException) {
+        false
+    }
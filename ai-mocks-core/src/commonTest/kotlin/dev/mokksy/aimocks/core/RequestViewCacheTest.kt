@@ -0,0 +1,30 @@
+package dev.mokksy.aimocks.core
+
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import kotlin.test.Test
+
+class RequestViewCacheTest {
+    private class Request(
+        val text: String,
+    )
+
+    @Test
+    fun `Should compute view once per request instance`() {
+        var computations = 0
+        val subject =
+            RequestViewCache<Request, String> {
+                computations++
+                it.text.uppercase()
+            }
+        val first = Request("hello")
+        val second = Request("hello")
+
+        val view = subject.of(first)
+        subject.of(first) shouldBeSameInstanceAs view
+        computations shouldBe 1
+
+        subject.of(second) shouldBe "HELLO"
+        computations shouldBe 2
+    }
+}
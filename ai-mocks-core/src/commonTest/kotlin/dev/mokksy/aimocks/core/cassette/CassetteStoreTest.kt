@@ -0,0 +1,77 @@
+package dev.mokksy.aimocks.core.cassette
+
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.nulls.shouldNotBeNull
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.test.Test
+
+class CassetteStoreTest {
+    private fun fingerprint(content: String): ByteArray =
+        RequestFingerprint.of("POST", "/api/chat", "", """{"model":"llama3","prompt":"$content"}""".encodeToByteArray())
+
+    private fun response(vararg chunks: String) =
+        RecordedResponse(
+            status = 200,
+            contentType = "application/x-ndjson",
+            chunks = chunks.mapIndexed { index, chunk -> RecordedChunk(index * 1_000_000L, chunk.encodeToByteArray()) },
+        )
+
+    private fun cassette(): Path = Files.createTempFile("aimocks", ".cassette").also { Files.delete(it) }
+
+    @Test
+    fun `Should ignore the order of JSON keys and query parameters`() {
+        fun fingerprint(
+            method: String,
+            query: String,
+            body: String,
+        ) = RequestFingerprint.of(method, "/api/chat", query, body.encodeToByteArray()).toList()
+
+        val fingerprint = fingerprint("post", "b=2&a=1", """{"a": 1, "b": [true, null]}""")
+
+        fingerprint shouldBe fingerprint("POST", "a=1&b=2", """{"b":[true,null],"a":1}""")
+        fingerprint shouldNotBe fingerprint("POST", "a=1&b=2", """{"a":2}""")
+    }
+
+    @Test
+    fun `Should find recorded responses by fingerprint`() {
+        val path = cassette()
+        CassetteWriter(path).use { writer ->
+            repeat(100) { writer.append(fingerprint("prompt $it"), response("chunk $it\n", "done\n")) }
+        }
+
+        val reader = CassetteReader.open(path)
+
+        reader.size shouldBe 100
+        val found = reader.find(fingerprint("prompt 42")).shouldNotBeNull()
+        found.contentType shouldBe "application/x-ndjson"
+        found.chunks.map { it.data.decodeToString() } shouldContainExactly listOf("chunk 42\n", "done\n")
+        found.chunks.map { it.offsetNanos } shouldContainExactly listOf(0L, 1_000_000L)
+        reader.find(fingerprint("prompt 100")).shouldBeNull()
+    }
+
+    @Test
+    fun `Should replace responses recorded again`() {
+        val path = cassette()
+        CassetteWriter(path).use { it.append(fingerprint("hello"), response("first\n")) }
+        CassetteWriter(path).use { it.append(fingerprint("hello"), response("second\n")) }
+
+        val reader = CassetteReader.open(path)
+
+        reader.size shouldBe 1
+        reader.find(fingerprint("hello"))?.chunks?.single()?.data?.decodeToString() shouldBe "second\n"
+    }
+
+    @Test
+    fun `Should rebuild a missing index`() {
+        val path = cassette()
+        CassetteWriter(path).use { it.append(fingerprint("hello"), response("hi\n")) }
+        Files.delete(indexOf(path))
+
+        CassetteReader.open(path).find(fingerprint("hello")).shouldNotBeNull()
+        Files.exists(indexOf(path)) shouldBe true
+    }
+}
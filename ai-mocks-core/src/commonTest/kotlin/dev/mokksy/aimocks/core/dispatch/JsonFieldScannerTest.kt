@@ -0,0 +1,38 @@
+package dev.mokksy.aimocks.core.dispatch
+
+import io.kotest.matchers.shouldBe
+import kotlin.test.Test
+
+class JsonFieldScannerTest {
+    @Test
+    fun `Should find top-level string field`() {
+        JsonFieldScanner.topLevelString(
+            """{"messages":[{"role":"user","model":"nested"}], "model" : "gpt-4o"}""",
+            "model",
+        ) shouldBe "gpt-4o"
+    }
+
+    @Test
+    fun `Should ignore nested fields and string contents`() {
+        JsonFieldScanner.topLevelString(
+            """{"options":{"model":"nested"},"prompt":"\"model\":\"fake\""}""",
+            "model",
+        ) shouldBe null
+    }
+
+    @Test
+    fun `Should unescape string value`() {
+        JsonFieldScanner.topLevelString(
+            """{"method":"tasks\/get!\n"}""",
+            "method",
+        ) shouldBe "tasks/get!\n"
+    }
+
+    @Test
+    fun `Should return null for non-string value or malformed input`() {
+        JsonFieldScanner.topLevelString("""{"model":42}""", "model") shouldBe null
+        JsonFieldScanner.topLevelString("""["model","x"]""", "model") shouldBe null
+        JsonFieldScanner.topLevelString("""{"model":"unterminated""", "model") shouldBe null
+        JsonFieldScanner.topLevelString("", "model") shouldBe null
+    }
+}
@@ -0,0 +1,49 @@
+package dev.mokksy.aimocks.core.dispatch
+
+import io.kotest.matchers.Matcher
+import io.kotest.matchers.MatcherResult
+import io.kotest.matchers.shouldBe
+import kotlin.test.Test
+
+class StubPrefilterTest {
+    private val subject = StubPrefilter()
+
+    @Test
+    fun `Guard should accept only requests in the bucket`() {
+        val route = subject.register("/", "method", "tasks/get")
+
+        route.guard.test("""{"jsonrpc":"2.0","method":"tasks/get"}""").passed() shouldBe true
+        route.guard.test("""{"jsonrpc":"2.0","method":"tasks/cancel"}""").let {
+            it.passed() shouldBe false
+            it.failureMessage() shouldBe "method should be \"tasks/get\" but was \"tasks/cancel\""
+        }
+        route.guard.test(null).passed() shouldBe false
+    }
+
+    @Test
+    fun `Route without discriminator should accept any request`() {
+        val route = subject.register("/models/gemini:generateContent")
+
+        route.guard.test("""{"contents":[]}""").passed() shouldBe true
+        route.guard.test(null).passed() shouldBe true
+    }
+
+    @Test
+    fun `Gated matcher should not run outside the bucket`() {
+        var invocations = 0
+        val matcher =
+            object : Matcher<String?> {
+                override fun test(value: String?): MatcherResult {
+                    invocations++
+                    return MatcherResult(true, { "" }, { "" })
+                }
+            }
+        val gated = subject.register("/api/chat", "model", "llama3").gate(matcher)
+
+        gated.test("""{"model":"qwen3"}""").passed() shouldBe false
+        invocations shouldBe 0
+
+        gated.test("""{"model":"llama3"}""").passed() shouldBe true
+        invocations shouldBe 1
+    }
+}
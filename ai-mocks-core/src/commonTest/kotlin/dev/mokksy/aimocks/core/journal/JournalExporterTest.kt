@@ -0,0 +1,103 @@
+package dev.mokksy.aimocks.core.journal
+
+import io.kotest.matchers.shouldBe
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.jsonArray
+import kotlinx.serialization.json.jsonObject
+import kotlinx.serialization.json.jsonPrimitive
+import java.nio.file.Files
+import kotlin.test.Test
+
+class JournalExporterTest {
+    private fun exchange(
+        uri: String,
+        response: ResponseCapture,
+    ) = Exchange(
+        receivedAtMillis = 0,
+        method = "POST",
+        uri = uri,
+        url = "http://localhost$uri",
+        stub = "chat",
+        status = 200,
+        contentType = "application/json",
+        body = """{"model":"llama3"}""".encodeToByteArray(),
+        response = response,
+        durationNanos = 1_000_000,
+    )
+
+    @Test
+    fun `Should export streamed exchanges chunk by chunk to NDJSON`() {
+        val file = Files.createTempFile("aimocks", ".ndjson")
+        val journal = RequestJournal()
+        val response =
+            ResponseCapture().apply {
+                responded("application/x-ndjson", null)
+                chunk("{\"response\":\"Hello\"}\n")
+                chunk("{\"done\":true}\n")
+            }
+
+        journal.export(file).use { journal.record(exchange("/api/chat", response)) }
+
+        val line = Files.readAllLines(file).also { Files.delete(file) }.single()
+        val exported = Json.parseToJsonElement(line).jsonObject
+        exported["stub"]?.jsonPrimitive?.content shouldBe "chat"
+        exported["request"]!!.jsonObject["body"]?.jsonPrimitive?.content shouldBe """{"model":"llama3"}"""
+        val chunks = exported["response"]!!.jsonObject["chunks"]!!.jsonArray
+        chunks.map { it.jsonObject["data"]?.jsonPrimitive?.content } shouldBe
+            listOf("{\"response\":\"Hello\"}\n", "{\"done\":true}\n")
+        journal.activeExport shouldBe null
+    }
+
+    @Test
+    fun `Should export a complete HAR document`() {
+        val file = Files.createTempFile("aimocks", ".har")
+        val journal = RequestJournal()
+
+        val exporter = journal.export(file, ExportFormat.HAR)
+        repeat(3) {
+            journal.record(exchange("/api/chat/$it", ResponseCapture().apply { responded("text/plain", ByteArray(2)) }))
+        }
+        exporter.close()
+
+        val har = Json.parseToJsonElement(Files.readString(file).also { Files.delete(file) }).jsonObject
+        val entries = har["log"]!!.jsonObject["entries"]!!.jsonArray
+        entries.size shouldBe 3
+        entries[0].jsonObject["request"]!!.jsonObject["url"]?.jsonPrimitive?.content shouldBe
+            "http://localhost/api/chat/0"
+        exporter.exportedCount shouldBe 3
+        exporter.droppedCount shouldBe 0
+    }
+
+    @Test
+    fun `Should capture streamed responses up to the byte limit`() {
+        val file = Files.createTempFile("aimocks", ".ndjson")
+        val journal = RequestJournal()
+        val exporter = journal.export(file, maxResponseBytes = 10)
+        val response =
+            ResponseCapture(exporter.maxResponseBytes).apply {
+                responded("text/event-stream", null)
+                repeat(5) { chunk("data: $it\n") }
+            }
+
+        exporter.use { journal.record(exchange("/api/chat", response)) }
+
+        val line = Files.readAllLines(file).also { Files.delete(file) }.single()
+        val exported = Json.parseToJsonElement(line).jsonObject["response"]!!.jsonObject
+        exported["chunks"]!!.jsonArray.map { it.jsonObject["data"]?.jsonPrimitive?.content } shouldBe
+            listOf("data: 0\n")
+        exported["truncated"]?.jsonPrimitive?.content shouldBe "true"
+    }
+
+    @Test
+    fun `Should count the exchanges offered once closed as dropped`() {
+        val file = Files.createTempFile("aimocks", ".ndjson")
+        val exporter = RequestJournal().export(file)
+
+        exporter.close()
+        exporter.offer(exchange("/api/chat", ResponseCapture()))
+
+        Files.delete(file)
+        exporter.exportedCount shouldBe 0
+        exporter.droppedCount shouldBe 1
+    }
+}
@@ -0,0 +1,58 @@
+package dev.mokksy.aimocks.core.journal
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.matchers.shouldBe
+import kotlin.test.Test
+
+class MokksyJournalBoundTest {
+    private val requests = mutableListOf<String>()
+    private var resets = 0
+
+    private val bound =
+        MokksyJournalBound(
+            verify = { if ("unexpected" in requests) throw AssertionError("Unexpected requests: $requests") },
+            reset = {
+                requests.clear()
+                resets++
+            },
+        ).apply { maxEntries = 2 }
+
+    private fun answer(request: String) {
+        requests += request
+        bound.answered()
+    }
+
+    @Test
+    fun `Should clear the journal every maxEntries requests`() {
+        answer("one")
+        answer("two")
+        answer("three")
+
+        resets shouldBe 1
+        requests shouldBe listOf("three")
+    }
+
+    @Test
+    fun `Should report the unexpected requests of a cleared journal`() {
+        answer("unexpected")
+        answer("two")
+        answer("three")
+
+        requests shouldBe listOf("three")
+        shouldThrow<AssertionError> { bound.verifyNoUnexpectedRequests() }
+
+        bound.clear()
+
+        bound.verifyNoUnexpectedRequests()
+    }
+
+    @Test
+    fun `Should never clear the journal without a limit`() {
+        bound.maxEntries = 0
+
+        repeat(5) { answer("request-$it") }
+
+        resets shouldBe 0
+        requests.size shouldBe 5
+    }
+}
@@ -0,0 +1,102 @@
+package dev.mokksy.aimocks.core.journal
+
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.longs.shouldBeLessThanOrEqual
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.shouldBe
+import kotlin.test.Test
+
+class RequestJournalTest {
+    private fun RequestJournal.record(
+        uri: String,
+        body: String = "",
+        stub: String? = "stub",
+    ) = record(
+        Exchange(
+            receivedAtMillis = 0,
+            method = "POST",
+            uri = uri,
+            url = "http://localhost$uri",
+            stub = stub,
+            status = 200,
+            contentType = "application/json",
+            body = body.encodeToByteArray(),
+            response = null,
+            durationNanos = 0,
+        ),
+    )
+
+    @Test
+    fun `Should evict the oldest entries beyond the entry limit`() {
+        val journal = RequestJournal().apply { maxEntries = 2 }
+
+        journal.record("/one")
+        journal.record("/two")
+        journal.record("/three")
+
+        journal.entries().map { it.uri } shouldContainExactly listOf("/two", "/three")
+        journal.evictedCount shouldBe 1
+    }
+
+    @Test
+    fun `Should evict the oldest entries beyond the byte limit`() {
+        val journal =
+            RequestJournal().apply {
+                bodyRetention = BodyRetention.FULL
+                maxBytes = 4_096
+            }
+
+        repeat(10) { journal.record("/embed/$it", "x".repeat(1_000)) }
+
+        journal.retainedBytes shouldBeLessThanOrEqual 4_096
+        journal.entries().last().uri shouldBe "/embed/9"
+        journal.evictedCount shouldBe 10L - journal.size
+    }
+
+    @Test
+    fun `Should truncate bodies`() {
+        val journal = RequestJournal().apply { bodyRetention = BodyRetention.truncated(5) }
+
+        journal.record("/api/chat", "Hello, world")
+
+        val entry = journal.entries().single()
+        entry.body() shouldBe "Hello"
+        entry.bodySize shouldBe 12
+        entry.bodyTruncated shouldBe true
+    }
+
+    @Test
+    fun `Should keep the digest of bodies only`() {
+        val journal = RequestJournal().apply { bodyRetention = BodyRetention.HASH }
+
+        journal.record("/api/chat", "abc")
+
+        val entry = journal.entries().single()
+        entry.body().shouldBeNull()
+        entry.bodySha256 shouldBe "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad"
+    }
+
+    @Test
+    fun `Should drop bodies`() {
+        val journal = RequestJournal().apply { bodyRetention = BodyRetention.DROP }
+
+        journal.record("/unknown", "abc", stub = null)
+
+        val entry = journal.entries().single()
+        entry.body().shouldBeNull()
+        entry.bodySha256.shouldBeNull()
+        entry.bodySize shouldBe 3
+        entry.matched shouldBe false
+    }
+
+    @Test
+    fun `Should clear entries`() {
+        val journal = RequestJournal()
+        journal.record("/api/chat", "abc")
+
+        journal.clear()
+
+        journal.size shouldBe 0
+        journal.retainedBytes shouldBe 0
+    }
+}
@@ -0,0 +1,51 @@
+package dev.mokksy.aimocks.core.json
+
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldContain
+import kotlin.test.Test
+
+class JsonMatchersTest {
+    private val body =
+        """
+        {
+          "model": "llama3",
+          "stream": false,
+          "options": {"seed": 42, "temperature": 0.7, "num_ctx": 2048},
+          "messages": [{"role": "system"}, {"role": "user", "content": "Hi"}]
+        }
+        """.trimIndent()
+
+    @Test
+    fun `containJsonKeyValue should resolve simple paths`() {
+        containJsonKeyValue("model", "llama3").test(body).passed() shouldBe true
+        containJsonKeyValue("stream", false).test(body).passed() shouldBe true
+        containJsonKeyValue("$.options.seed", 42).test(body).passed() shouldBe true
+        containJsonKeyValue("$.options.seed", 42L).test(body).passed() shouldBe true
+        containJsonKeyValue("$.options.temperature", 0.7).test(body).passed() shouldBe true
+        containJsonKeyValue("$.options.num_ctx", "2048").test(body).passed() shouldBe true
+        containJsonKeyValue("$.messages[1].role", "user").test(body).passed() shouldBe true
+    }
+
+    @Test
+    fun `containJsonKeyValue should fail on mismatch`() {
+        containJsonKeyValue("model", "qwen3").test(body).let {
+            it.passed() shouldBe false
+            it.failureMessage() shouldContain "model = qwen3"
+        }
+        containJsonKeyValue("$.options.seed", "43").test(body).passed() shouldBe false
+        containJsonKeyValue("$.options.top_k", 1).test(body).passed() shouldBe false
+        containJsonKeyValue("$.messages[5].role", "user").test(body).passed() shouldBe false
+        containJsonKeyValue("model", "llama3").test("not a json").passed() shouldBe false
+        containJsonKeyValue("model", "llama3").test(null).passed() shouldBe false
+    }
+
+    @Test
+    fun `equalJsonTree should ignore property order and number format`() {
+        val matcher = equalJsonTree("""{"b": [1, 2.0], "a": {"x": null, "y": "1"}}""")
+
+        matcher.test("""{"a":{"y":"1","x":null},"b":[1.0,2]}""").passed() shouldBe true
+        matcher.test("""{"a":{"y":1,"x":null},"b":[1,2]}""").passed() shouldBe false
+        matcher.test("""{"a":{"y":"1","x":null},"b":[2,1]}""").passed() shouldBe false
+        matcher.test("""{"a":{"y":"1","x":null},"b":[1,2],"c":true}""").passed() shouldBe false
+    }
+}
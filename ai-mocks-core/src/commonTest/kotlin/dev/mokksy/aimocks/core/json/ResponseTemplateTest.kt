@@ -0,0 +1,61 @@
+package dev.mokksy.aimocks.core.json
+
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.nulls.shouldNotBeNull
+import io.kotest.matchers.shouldBe
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.buildJsonObject
+import kotlinx.serialization.json.put
+import kotlin.test.Test
+
+class ResponseTemplateTest {
+    private val response =
+        buildJsonObject {
+            put("id", "")
+            put("model", "gpt-4o")
+            put("content", "Hello, \"world\"")
+            put("created", 0)
+        }
+
+    @Test
+    fun `Should render volatile fields in place`() {
+        val template =
+            ResponseTemplate
+                .compile(JsonObject.serializer(), response, listOf("created", "id"))
+                .shouldNotBeNull()
+
+        val rendered = template.render(listOf("1700000000", jsonString("chatcmpl-1"))).decodeToString()
+
+        Json.parseToJsonElement(rendered) shouldBe
+            buildJsonObject {
+                put("id", "chatcmpl-1")
+                put("model", "gpt-4o")
+                put("content", "Hello, \"world\"")
+                put("created", 1700000000)
+            }
+        rendered shouldBe
+            """{"id":"chatcmpl-1","model":"gpt-4o","content":"Hello, \"world\"","created":1700000000}"""
+    }
+
+    @Test
+    fun `Should append missing fields`() {
+        val template =
+            ResponseTemplate
+                .compile(JsonObject.serializer(), response, listOf("usage"))
+                .shouldNotBeNull()
+
+        val rendered = template.render(listOf("""{"total_tokens":3}""")).decodeToString()
+
+        Json.parseToJsonElement(rendered) shouldBe
+            JsonObject(response + ("usage" to buildJsonObject { put("total_tokens", 3) }))
+    }
+
+    @Test
+    fun `Should not compile when a field cannot be told apart`() {
+        val ambiguous = JsonObject(response + ("content" to JsonPrimitive("\u0000aimocks-template-0\u0000")))
+
+        ResponseTemplate.compile(JsonObject.serializer(), ambiguous, listOf("id")).shouldBeNull()
+    }
+}
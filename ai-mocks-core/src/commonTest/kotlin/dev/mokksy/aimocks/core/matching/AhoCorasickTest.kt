@@ -0,0 +1,24 @@
+package dev.mokksy.aimocks.core.matching
+
+import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import kotlin.test.Test
+
+class AhoCorasickTest {
+    private fun AhoCorasick.found(text: String): Set<Int> = buildSet { search(text) { add(it) } }
+
+    @Test
+    fun `Should find all overlapping patterns in one pass`() {
+        val subject = AhoCorasick(listOf("he", "she", "his", "hers", "x"))
+
+        subject.found("ushers").shouldContainExactlyInAnyOrder(0, 1, 3)
+        subject.found("this").shouldContainExactlyInAnyOrder(2)
+        subject.found("nothing").shouldContainExactlyInAnyOrder()
+    }
+
+    @Test
+    fun `Should apply folding to patterns and text`() {
+        val subject = AhoCorasick(listOf("Hello World")) { it.lowercaseChar() }
+
+        subject.found("say HELLO world!").shouldContainExactlyInAnyOrder(0)
+    }
+}
@@ -0,0 +1,104 @@
+package dev.mokksy.aimocks.core.matching
+
+import io.kotest.matchers.Matcher
+import io.kotest.matchers.MatcherResult
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import kotlin.test.AfterTest
+import kotlin.test.Test
+
+class CompiledMatcherTest {
+    private val evaluated = mutableListOf<String>()
+
+    private fun recording(
+        name: String,
+        passes: Boolean,
+    ): Matcher<String?> =
+        object : Matcher<String?> {
+            override fun test(value: String?): MatcherResult {
+                evaluated += name
+                return MatcherResult(passes, { "$name failed" }, { "$name passed" })
+            }
+
+            override fun toString(): String = name
+        }
+
+    @AfterTest
+    fun afterEach() {
+        MatcherStats.enabled = false
+        MatcherStats.reset()
+    }
+
+    @Test
+    fun `Should evaluate cheaper matchers first`() {
+        val compiled =
+            compileMatchers(
+                listOf(
+                    recording("schema", true).withCost(MatcherCost.SCHEMA),
+                    recording("custom", true),
+                    recording("substring", true).withCost(MatcherCost.SUBSTRING),
+                    recording("scalar", true).withCost(MatcherCost.SCALAR),
+                    recording("json", true).withCost(MatcherCost.JSON),
+                    recording("equality", true).withCost(MatcherCost.EQUALITY),
+                ),
+            )
+
+        compiled.test("body").passed() shouldBe true
+
+        evaluated shouldContainExactly listOf("scalar", "equality", "substring", "json", "custom", "schema")
+    }
+
+    @Test
+    fun `Should stop at the first failure`() {
+        val compiled =
+            compileMatchers(
+                listOf(
+                    recording("expensive", true).withCost(MatcherCost.SCHEMA),
+                    recording("model", false).withCost(MatcherCost.SCALAR),
+                ),
+            )
+
+        val result = compiled.test("body")
+
+        result.passed() shouldBe false
+        result.failureMessage() shouldBe "model failed"
+        evaluated shouldContainExactly listOf("model")
+    }
+
+    @Test
+    fun `Should keep registration order for equal costs`() {
+        val compiled =
+            compileMatchers(
+                listOf(
+                    recording("first", true),
+                    recording("second", true),
+                ),
+            )
+
+        compiled.test("body")
+
+        evaluated shouldContainExactly listOf("first", "second")
+        costOf(compiled) shouldBe MatcherCost.CUSTOM
+    }
+
+    @Test
+    fun `Should collect stats when enabled`() {
+        MatcherStats.enabled = true
+        val compiled =
+            compileMatchers(
+                listOf(
+                    recording("model", true).withCost(MatcherCost.SCALAR),
+                    recording("joke", false).withCost(MatcherCost.SUBSTRING),
+                ),
+            )
+
+        compiled.test("body")
+        compiled.test("body")
+
+        val entries = MatcherStats.snapshot().associateBy { it.matcher }
+        entries.getValue("model").evaluations shouldBe 2
+        entries.getValue("model").failures shouldBe 0
+        entries.getValue("joke").evaluations shouldBe 2
+        entries.getValue("joke").failures shouldBe 2
+    }
+}
@@ -0,0 +1,78 @@
+package dev.mokksy.aimocks.core.matching
+
+import dev.mokksy.aimocks.core.ModelRequestSpecification
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldContain
+import kotlin.test.Test
+
+class SubstringIndexTest {
+    private val subject = SubstringIndex()
+
+    @Test
+    fun `Should decide all registered patterns`() {
+        val joke = subject.register("joke", ignoreCase = false)
+        val hello = subject.register("HELLO", ignoreCase = true)
+        val empty = subject.register("", ignoreCase = false)
+        val body = """{"messages":[{"content":"Hello, tell me a joke"}]}"""
+
+        subject.contains(body, joke) shouldBe true
+        subject.contains(body, hello) shouldBe true
+        subject.contains(body, empty) shouldBe true
+
+        val poem = subject.register("poem", ignoreCase = false)
+        subject.contains(body, poem) shouldBe false
+    }
+
+    @Test
+    fun `Should decide patterns registered across generations`() {
+        val body = "tell me a joke about a poem"
+        val ids =
+            listOf("joke", "poem", "story", "JOKE", "tell", "song").mapIndexed { i, pattern ->
+                subject.register(pattern, ignoreCase = i == 3).also { subject.contains(body, it) }
+            }
+
+        ids.map { subject.contains(body, it) } shouldBe listOf(true, true, false, true, true, false)
+    }
+
+    @Test
+    fun `Should drop unregistered patterns`() {
+        val body = "tell me a joke"
+        val joke = subject.register("joke", ignoreCase = false)
+        val poem = subject.register("poem", ignoreCase = false)
+        val tell = subject.register("TELL", ignoreCase = true)
+        subject.contains(body, joke) shouldBe true
+
+        subject.unregister(joke)
+        subject.unregister(poem)
+        subject.unregister(poem)
+
+        subject.contains(body, tell) shouldBe true
+        subject.contains(body, poem) shouldBe false
+    }
+
+    @Test
+    fun `Bound matchers should behave like plain matchers`() {
+        val spec = object : ModelRequestSpecification<String>() {}
+        spec.requestBodyContains("joke")
+        spec.requestBodyContainsIgnoringCase("TELL ME")
+        spec.requestBodyDoesNotContains("poem")
+        spec.requestBodyDoesNotContainsIgnoringCase("POEM")
+
+        val bound = subject.bind(spec.requestBodyString)
+
+        listOf(
+            "Tell me a joke",
+            "tell me a poem",
+            "A JOKE",
+        ).forEach { body ->
+            bound.map { it.test(body).passed() } shouldBe
+                listOf(
+                    body.contains("joke"),
+                    body.contains("TELL ME", ignoreCase = true),
+                    !body.contains("poem"),
+                    !body.contains("POEM", ignoreCase = true),
+                )
+        }
+        bound.first().test("no match").failureMessage() shouldContain "joke"
+    }
+}
@@ -0,0 +1,55 @@
+package dev.mokksy.aimocks.core.metrics
+
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.stream.monitoredBy
+import dev.mokksy.aimocks.core.time.VirtualClock
+import dev.mokksy.aimocks.core.time.pacedBy
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordingFile
+import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.withContext
+import java.nio.file.Files
+import java.time.Duration
+import kotlin.test.Test
+import kotlin.time.Duration.Companion.seconds
+
+class FlightEventsTest {
+    @Test
+    fun `Should record requests, matches and chunks with their schedule`() =
+        runTest {
+            val file = Files.createTempFile("aimocks", ".jfr")
+            Recording().use { recording ->
+                recording.enable("dev.mokksy.aimocks.RequestReceived")
+                recording.enable("dev.mokksy.aimocks.StubMatched")
+                recording.enable("dev.mokksy.aimocks.ChunkWritten")
+                recording.start()
+
+                val context = MockContext()
+                val call = context.metrics.startCall("POST", "/api/chat")!!
+                withContext(call.asContext()) {
+                    context.forStub("chat").stubMatched()
+                    flowOf("a", "bc")
+                        .pacedBy(VirtualClock(), 1.seconds)
+                        .monitoredBy(context.streams)
+                        .toList()
+                }
+                call.finished()
+
+                recording.stop()
+                recording.dump(file)
+            }
+
+            val events = RecordingFile.readAllEvents(file).also { Files.delete(file) }
+            val chunks = events.filter { it.eventType.name == "dev.mokksy.aimocks.ChunkWritten" }
+            events.single { it.eventType.name == "dev.mokksy.aimocks.RequestReceived" }.getString("path") shouldBe
+                "/api/chat"
+            events.single { it.eventType.name == "dev.mokksy.aimocks.StubMatched" }.getString("stub") shouldBe "chat"
+            chunks.map { it.getLong("size") } shouldContainExactly listOf(1L, 2L)
+            chunks.map { it.getDuration("scheduledTime") } shouldContainExactly
+                listOf(Duration.ZERO, Duration.ofSeconds(1))
+        }
+}
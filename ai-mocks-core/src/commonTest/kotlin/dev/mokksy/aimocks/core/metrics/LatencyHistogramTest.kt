@@ -0,0 +1,39 @@
+package dev.mokksy.aimocks.core.metrics
+
+import io.kotest.matchers.doubles.plusOrMinus
+import io.kotest.matchers.shouldBe
+import kotlin.test.Test
+
+class LatencyHistogramTest {
+    @Test
+    fun `Should report percentiles within the bucket precision`() {
+        val histogram = LatencyHistogram()
+        for (value in 1L..10_000L) histogram.record(value * 1_000)
+
+        histogram.count shouldBe 10_000
+        histogram.maxNanos shouldBe 10_000_000
+        histogram.percentile(50.0).toDouble() shouldBe (5_000_000.0 plusOrMinus 5_000_000.0 / 32)
+        histogram.percentile(99.0).toDouble() shouldBe (9_900_000.0 plusOrMinus 9_900_000.0 / 32)
+        histogram.percentile(100.0) shouldBe 10_000_000
+    }
+
+    @Test
+    fun `Should map every value to a bucket containing it`() {
+        val values = listOf(0L, 1L, 31L, 32L, 63L, 64L, 65L, 1_000_000L, Long.MAX_VALUE / 3, Long.MAX_VALUE)
+        values.forEach { value ->
+            val bucket = LatencyHistogram.bucketOf(value)
+            (LatencyHistogram.highestValueIn(bucket) >= value) shouldBe true
+            if (bucket > 0) (LatencyHistogram.highestValueIn(bucket - 1) < value) shouldBe true
+        }
+    }
+
+    @Test
+    fun `Should be empty after reset`() {
+        val histogram = LatencyHistogram()
+        histogram.record(42)
+        histogram.reset()
+
+        histogram.count shouldBe 0
+        histogram.percentile(50.0) shouldBe 0
+    }
+}
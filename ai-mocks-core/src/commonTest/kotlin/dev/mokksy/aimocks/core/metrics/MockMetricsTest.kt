@@ -0,0 +1,97 @@
+package dev.mokksy.aimocks.core.metrics
+
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.stream.monitoredBy
+import dev.mokksy.aimocks.core.time.VirtualClock
+import dev.mokksy.aimocks.core.time.pacedBy
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.collections.shouldHaveSize
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldContain
+import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.withContext
+import kotlin.test.Test
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.seconds
+
+class MockMetricsTest {
+    @Test
+    fun `Should attribute requests and stream chunks to their stub`() =
+        runTest {
+            val context = MockContext().apply { metrics.enabled = true }
+            val stub = context.forStub("chat \"stream\"")
+            val call = context.metrics.startCall("POST", "/api/chat")!!
+
+            withContext(call) {
+                stub.stubMatched()
+                flowOf("one", "two").monitoredBy(context.streams).toList()
+            }
+            call.finished()
+
+            val entry = context.metrics.snapshot().single()
+            entry.stub shouldBe "chat \"stream\""
+            entry.requests shouldBe 1
+            entry.chunks shouldBe 2
+            entry.bytes shouldBe 6
+            entry.matching.count shouldBe 1
+            entry.timeToFirstByte.count shouldBe 1
+            entry.response.count shouldBe 1
+            context.metrics.prometheus() shouldContain "aimocks_requests_total{stub=\"chat \\\"stream\\\"\"} 1"
+        }
+
+    @Test
+    fun `Should report the timing fidelity of paced streams`() =
+        runTest {
+            val context = MockContext().apply { metrics.enabled = true }
+            val call = context.metrics.startCall("POST", "/api/chat")!!
+
+            withContext(call) {
+                context.forStub("chat").stubMatched()
+                flowOf("a", "b", "c")
+                    .pacedBy(VirtualClock(), 1.seconds)
+                    .monitoredBy(context.streams)
+                    .toList()
+            }
+            call.finished()
+
+            val fidelity = context.metrics.streamFidelity().single()
+            fidelity.stub shouldBe "chat"
+            fidelity.scheduled shouldContainExactly listOf(Duration.ZERO, 1.seconds, 2.seconds)
+            fidelity.written shouldContainExactly fidelity.scheduled
+            fidelity.deviation.count shouldBe 3
+            fidelity.deviation.maxNanos shouldBe 0
+            context.metrics.snapshot().single().chunkLag.count shouldBe 3
+            context.metrics.prometheus() shouldContain "aimocks_stream_chunk_lag_seconds_count{stub=\"chat\"} 3"
+        }
+
+    @Test
+    fun `Should attribute requests of unnamed stubs to their path`() =
+        runTest {
+            val context = MockContext().apply { metrics.enabled = true }
+            val call = context.metrics.startCall("POST", "/v1/chat/completions")!!
+
+            withContext(call) { context.forStub(null).stubMatched() }
+            call.finished()
+
+            context.metrics.snapshot().single().stub shouldBe "/v1/chat/completions"
+        }
+
+    @Test
+    fun `Should count unmatched requests`() =
+        runTest {
+            val metrics = MockContext().metrics.apply { endpoint = "/metrics" }
+
+            metrics.startCall("POST", "/unknown")!!.finished()
+
+            metrics.unmatchedRequests shouldBe 1
+            metrics.snapshot() shouldHaveSize 0
+            metrics.prometheus() shouldContain "aimocks_unmatched_requests_total 1"
+        }
+
+    @Test
+    fun `Should not collect when disabled`() {
+        MockContext().metrics.startCall("POST", "/api/chat") shouldBe null
+    }
+}
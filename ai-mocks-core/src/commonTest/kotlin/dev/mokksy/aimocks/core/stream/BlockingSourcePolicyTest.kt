@@ -0,0 +1,66 @@
+package dev.mokksy.aimocks.core.stream
+
+import dev.mokksy.aimocks.core.AbstractStreamingResponseSpecification
+import dev.mokksy.aimocks.core.MockContext
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.collections.shouldContainOnly
+import io.kotest.matchers.nulls.shouldNotBeNull
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldStartWith
+import kotlinx.coroutines.ExecutorCoroutineDispatcher
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.runTest
+import java.util.concurrent.ExecutorService
+import java.util.stream.Stream
+import kotlin.test.Test
+
+class BlockingSourcePolicyTest {
+    private class Specification : AbstractStreamingResponseSpecification<String, String, String>(
+        responseFlow = null,
+        responseChunks = null,
+    )
+
+    @Test
+    fun `Should iterate Java streams with the policy of the mock`() =
+        runTest {
+            val threads = mutableListOf<String>()
+            BlockingSourcePolicy.dedicated(threads = 1).use { policy ->
+                val context = MockContext().apply { blockingSources = policy }
+                val specification =
+                    Specification().apply {
+                        stream(
+                            Stream.of("a", "b", "c").peek {
+                                synchronized(threads) { threads += Thread.currentThread().name }
+                            },
+                        )
+                    }
+
+                specification.chunkFlow(context).shouldNotBeNull().toList() shouldContainExactly
+                    listOf("a", "b", "c")
+            }
+            threads.toSet().shouldContainOnly(threads.first())
+            threads.first() shouldStartWith "aimocks-stream-source-"
+        }
+
+    @Test
+    fun `Should not offload flows and chunks`() =
+        runTest {
+            BlockingSourcePolicy.dedicated(threads = 1).use { policy ->
+                val context = MockContext().apply { blockingSources = policy }
+                val specification = Specification().apply { chunks("a", "b") }
+
+                specification.chunkFlow(context).shouldNotBeNull().toList() shouldContainExactly listOf("a", "b")
+            }
+        }
+
+    @Test
+    fun `Should stop the pool of a dedicated policy when closed`() =
+        runTest {
+            val policy = BlockingSourcePolicy.dedicated(threads = 1)
+            val executor = (policy.dispatcher as ExecutorCoroutineDispatcher).executor as ExecutorService
+
+            policy.close()
+
+            executor.isShutdown shouldBe true
+        }
+}
@@ -0,0 +1,58 @@
+package dev.mokksy.aimocks.core.stream
+
+import dev.mokksy.aimocks.core.time.VirtualClock
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.flow.count
+import kotlinx.coroutines.flow.take
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.runTest
+import kotlin.test.Test
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.Duration.Companion.seconds
+
+class ChunkGeneratorTest {
+    @Test
+    fun `Should generate a fixed number of chunks lazily`() =
+        runTest {
+            val generator =
+                ChunkGenerator<String>().apply {
+                    count = 1_000_000
+                    chunk { index, _ -> "chunk $index" }
+                }
+
+            generator.asFlow(VirtualClock()).count() shouldBe 1_000_000
+            generator.asFlow(VirtualClock()).take(3).toList() shouldContainExactly
+                listOf("chunk 0", "chunk 1", "chunk 2")
+        }
+
+    @Test
+    fun `Should generate chunks for a duration with keep-alive`() =
+        runTest {
+            val clock = VirtualClock()
+            val generator =
+                ChunkGenerator<String>().apply {
+                    duration = 9.seconds
+                    interval = 4.seconds
+                    keepAlive(every = 1500.milliseconds, chunk = "")
+                    chunk { index, _ -> "chunk $index" }
+                }
+
+            generator.asFlow(clock).toList() shouldContainExactly
+                listOf("chunk 0", "", "", "chunk 1", "", "", "chunk 2")
+            clock.now() shouldBe 9500.milliseconds
+        }
+
+    @Test
+    fun `Should reproduce chunks with a seed`() =
+        runTest {
+            val generator =
+                ChunkGenerator<Int>().apply {
+                    count = 20
+                    seed = 42
+                    chunk { _, random -> random.nextInt() }
+                }
+
+            generator.asFlow(VirtualClock()).toList() shouldBe generator.asFlow(VirtualClock()).toList()
+        }
+}
@@ -0,0 +1,34 @@
+package dev.mokksy.aimocks.core.stream
+
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.flow.asFlow
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.runTest
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.buildJsonObject
+import kotlinx.serialization.json.put
+import kotlin.test.Test
+
+class StreamFrameWriterTest {
+    private val chunk = buildJsonObject { put("text", "Привет, \"мир\"") }
+    private val json = """{"text":"Привет, \"мир\""}"""
+
+    @Test
+    fun `Should frame server-sent events`() {
+        val frames = StreamFrameWriter(JsonObject.serializer(), FrameFormat.SSE)
+
+        frames.frame(chunk) shouldBe "data: $json\r\n\r\n"
+        frames.frame(chunk, event = "delta") shouldBe "event: delta\r\ndata: $json\r\n\r\n"
+        frames.rawFrame("[DONE]") shouldBe "data: [DONE]\r\n\r\n"
+    }
+
+    @Test
+    fun `Should frame newline-delimited JSON`() =
+        runTest {
+            listOf(chunk, chunk)
+                .asFlow()
+                .framed(JsonObject.serializer(), FrameFormat.NDJSON)
+                .toList() shouldContainExactly listOf("$json\n", "$json\n")
+        }
+}
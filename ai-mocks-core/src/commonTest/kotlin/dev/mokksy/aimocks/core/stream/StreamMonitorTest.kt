@@ -0,0 +1,68 @@
+package dev.mokksy.aimocks.core.stream
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.flow.take
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.runTest
+import kotlin.test.Test
+
+class StreamMonitorTest {
+    @Test
+    fun `Should count completed streams and their bytes`() =
+        runTest {
+            val monitor = StreamMonitor()
+
+            flowOf("data: a\n\n", "data: é\n\n").monitoredBy(monitor).toList()
+
+            monitor.startedCount shouldBe 1
+            monitor.completedCount shouldBe 1
+            monitor.activeCount shouldBe 0
+            monitor.bytesWritten shouldBe 19
+        }
+
+    @Test
+    fun `Should stop generating chunks when the client goes away`() =
+        runTest {
+            val monitor = StreamMonitor()
+            var generated = 0
+            val chunks =
+                flow {
+                    repeat(1_000) {
+                        generated++
+                        emit("chunk")
+                    }
+                }
+
+            chunks.monitoredBy(monitor).take(2).toList()
+
+            generated shouldBe 2
+            monitor.cancelledCount shouldBe 1
+            monitor.completedCount shouldBe 0
+            monitor.bytesWrittenBeforeCancel shouldBe 5
+        }
+
+    @Test
+    fun `Should count streams whose source fails`() =
+        runTest {
+            val monitor = StreamMonitor()
+            val chunks =
+                flow {
+                    emit("chunk")
+                    error("source failed")
+                }
+
+            shouldThrow<IllegalStateException> { chunks.monitoredBy(monitor).toList() }
+
+            monitor.erroredCount shouldBe 1
+            monitor.cancelledCount shouldBe 0
+            monitor.bytesWritten shouldBe 5
+        }
+
+    @Test
+    fun `Should count bytes of surrogate pairs`() {
+        utf8Length("aé€😀") shouldBe 10
+    }
+}
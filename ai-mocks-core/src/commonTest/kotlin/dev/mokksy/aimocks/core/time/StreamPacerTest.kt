@@ -0,0 +1,85 @@
+package dev.mokksy.aimocks.core.time
+
+import io.kotest.matchers.doubles.plusOrMinus
+import io.kotest.matchers.nulls.shouldNotBeNull
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.asFlow
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.TestCoroutineScheduler
+import kotlinx.coroutines.test.runTest
+import kotlin.test.Test
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+
+/**
+ * Clock paced like the wall clock, against deadlines, but running on the virtual time of [scheduler].
+ */
+private class SchedulerClock(
+    private val scheduler: TestCoroutineScheduler,
+) : MockClock {
+    override val isVirtual: Boolean = false
+
+    override fun now(): Duration = scheduler.currentTime.milliseconds
+
+    override suspend fun sleep(duration: Duration) {
+        delay(duration)
+    }
+}
+
+class StreamPacerTest {
+    @Test
+    fun `Should keep configured rate without drift`() =
+        runTest {
+            val clock = SchedulerClock(testScheduler)
+            val monitor = PacingMonitor()
+            val start = clock.now()
+
+            val chunks = (1..100).map { "$it," }.asFlow().pacedBy(clock, 2.milliseconds, monitor).toList()
+
+            chunks.joinToString("") shouldBe (1..100).joinToString("") { "$it," }
+            clock.now() - start shouldBe 198.milliseconds
+            val report = monitor.lastReport.shouldNotBeNull()
+            report.chunks shouldBe 100
+            report.writes shouldBe 100
+            report.configuredRate shouldBe (500.0 plusOrMinus 0.001)
+            report.achievedRate shouldBe (500.0 plusOrMinus 0.001)
+            report.maxLag shouldBe Duration.ZERO
+        }
+
+    @Test
+    fun `Should coalesce chunks which are already due`() =
+        runTest {
+            val clock = SchedulerClock(testScheduler)
+            val monitor = PacingMonitor()
+            val frames = mutableListOf<String>()
+
+            (1..10)
+                .map { "$it," }
+                .asFlow()
+                .pacedBy(clock, 5.milliseconds, monitor, ::joinFrames)
+                .collect {
+                    frames += it
+                    // a slow writer falls behind schedule
+                    if (frames.size == 1) delay(30.milliseconds)
+                }
+
+            // chunks 2 to 7 are due by the time the writer is back, chunks 8 to 10 are on schedule
+            frames shouldBe listOf("1,", "2,3,4,5,6,7,", "8,", "9,", "10,")
+            monitor.chunkCount shouldBe 10
+            monitor.writeCount shouldBe 5
+        }
+
+    @Test
+    fun `Should sleep gaps on virtual clock`() =
+        runTest {
+            val clock = VirtualClock()
+            val monitor = PacingMonitor()
+
+            listOf("a", "b", "c").asFlow().pacedBy(clock, 100.milliseconds, monitor, ::joinFrames).toList() shouldBe
+                listOf("a", "b", "c")
+
+            clock.now() shouldBe 200.milliseconds
+            monitor.lastReport.shouldNotBeNull().achievedRate shouldBe (10.0 plusOrMinus 0.001)
+        }
+}
@@ -0,0 +1,84 @@
+package dev.mokksy.aimocks.core.time
+
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.collections.shouldContainOnly
+import io.kotest.matchers.comparables.shouldBeGreaterThanOrEqualTo
+import io.kotest.matchers.comparables.shouldBeLessThan
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.flow.asFlow
+import kotlinx.coroutines.flow.collect
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.runTest
+import kotlin.random.Random
+import kotlin.test.Test
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.Duration.Companion.seconds
+
+class StreamTimingTest {
+    @Test
+    fun `Should delay first chunk and pace the rest by token rate`() =
+        runTest {
+            val clock = VirtualClock()
+            val timing =
+                StreamTiming().apply {
+                    timeToFirstToken = DelayDistribution.fixed(300.milliseconds)
+                    tokensPerSecond = 10.0
+                }
+
+            val chunks =
+                listOf("Hi", "there, ", "friend")
+                    .asFlow()
+                    .timedBy(timing, clock, ::approximateTokenCount)
+                    .toList()
+
+            chunks shouldContainExactly listOf("Hi", "there, ", "friend")
+            // 300ms, then 2 tokens and 2 tokens at 100ms per token
+            clock.now() shouldBe 700.milliseconds
+        }
+
+    @Test
+    fun `Should reproduce the cadence with a seed`() =
+        runTest {
+            val timing =
+                StreamTiming().apply {
+                    timeToFirstToken = DelayDistribution.logNormal(median = 200.milliseconds, sigma = 0.5)
+                    tokensPerSecond = 50.0
+                    jitter = DelayDistribution.normal(Duration.ZERO, 10.milliseconds)
+                    seed = 42
+                }
+
+            suspend fun elapsed(): Duration {
+                val clock = VirtualClock()
+                (1..20).map { "chunk $it" }.asFlow().timedBy(timing, clock).collect()
+                return clock.now()
+            }
+
+            elapsed() shouldBe elapsed()
+        }
+
+    @Test
+    fun `Should return flow unchanged without timing`() =
+        runTest {
+            val clock = VirtualClock()
+
+            listOf(1, 2, 3).asFlow().timedBy(null, clock).toList() shouldContainExactly listOf(1, 2, 3)
+            clock.now() shouldBe Duration.ZERO
+        }
+
+    @Test
+    fun `Should sample within distribution bounds`() {
+        val random = Random(7)
+        val uniform = DelayDistribution.uniform(10.milliseconds, 20.milliseconds)
+        val histogram = DelayDistribution.histogram(mapOf(5.milliseconds to 3L, 1.seconds to 1L, 2.seconds to 0L))
+
+        repeat(100) {
+            uniform.sample(random).let {
+                it shouldBeGreaterThanOrEqualTo 10.milliseconds
+                it shouldBeLessThan 20.milliseconds
+            }
+        }
+        List(100) { histogram.sample(random) }.toSet() shouldContainOnly setOf(5.milliseconds, 1.seconds)
+        DelayDistribution.histogram(listOf(3.milliseconds)).sample(random) shouldBe 3.milliseconds
+    }
+}
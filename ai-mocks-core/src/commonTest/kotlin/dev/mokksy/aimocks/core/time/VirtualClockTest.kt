@@ -0,0 +1,95 @@
+package dev.mokksy.aimocks.core.time
+
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.async
+import kotlinx.coroutines.flow.asFlow
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.yield
+import kotlin.test.Test
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.Duration.Companion.seconds
+
+class VirtualClockTest {
+    @Test
+    fun `Should advance on sleep without waiting`() =
+        runTest {
+            val clock = VirtualClock()
+
+            clock.sleep(10.seconds)
+            clock.sleep(5.seconds)
+
+            clock.now() shouldBe 15.seconds
+        }
+
+    @Test
+    fun `Should overlap concurrent sleeps in deadline order`() =
+        runTest {
+            val clock = VirtualClock()
+            val woken = mutableListOf<String>()
+
+            val late = async { clock.sleep(2.seconds).also { woken += "late" } }
+            val early =
+                async {
+                    clock.sleep(1.seconds)
+                    clock.sleep(500.milliseconds).also { woken += "early" }
+                }
+            early.await()
+            late.await()
+
+            woken shouldContainExactly listOf("early", "late")
+            clock.now() shouldBe 2.seconds
+        }
+
+    @Test
+    fun `Should release sleeps when advanced manually`() =
+        runTest {
+            val clock = VirtualClock(autoAdvance = false)
+            val woken = mutableListOf<String>()
+
+            val late = async { clock.sleep(2.seconds).also { woken += "late" } }
+            val early = async { clock.sleep(1.seconds).also { woken += "early" } }
+            yield()
+            clock.pendingSleeps shouldBe 2
+
+            clock.advanceBy(1500.milliseconds)
+            early.await()
+            woken shouldContainExactly listOf("early")
+            clock.pendingSleeps shouldBe 1
+
+            clock.advanceBy(1.seconds)
+            late.await()
+            woken shouldContainExactly listOf("early", "late")
+            clock.now() shouldBe 2500.milliseconds
+        }
+
+    @Test
+    fun `Should honour delays on virtual clock only`() =
+        runTest {
+            val clock = VirtualClock()
+
+            MockClock.System.responseDelay(3.seconds) shouldBe 3.seconds
+            MockClock.System.timingHeaders(3.seconds) shouldBe emptyList()
+
+            clock.responseDelay(3.seconds) shouldBe Duration.ZERO
+            clock.timingHeaders(3.seconds, 1.seconds) shouldContainExactly
+                listOf(
+                    TimingHeaders.DELAY to "3000",
+                    TimingHeaders.CHUNK_DELAY to "1000",
+                    TimingHeaders.VIRTUAL_TIME to "3000",
+                )
+        }
+
+    @Test
+    fun `Should pace flow on virtual clock`() =
+        runTest {
+            val clock = VirtualClock()
+
+            val chunks = listOf("a", "b", "c").asFlow().pacedBy(clock, 100.milliseconds).toList()
+
+            chunks shouldContainExactly listOf("a", "b", "c")
+            clock.now() shouldBe 200.milliseconds
+        }
+}
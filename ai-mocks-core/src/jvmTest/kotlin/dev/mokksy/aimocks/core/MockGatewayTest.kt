@@ -0,0 +1,88 @@
+package dev.mokksy.aimocks.core
+
+import io.kotest.assertions.assertSoftly
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.matchers.shouldBe
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.java.Java
+import io.ktor.client.request.post
+import io.ktor.client.request.setBody
+import io.ktor.client.statement.bodyAsText
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+
+/**
+ * Mounts stand-ins with the route prefixes of each provider on one gateway: OpenAI and Gemini serve paths
+ * below `/v1`, next to `/v1/messages` of Anthropic, and A2A serves every other path.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+internal class MockGatewayTest {
+    private val gateway = MockGateway()
+    private val client = HttpClient(Java)
+
+    private val openai =
+        gateway.mount {
+            TestMock(
+                name = "openai",
+                routePrefixes = listOf("/v1/chat/completions", "/v1/responses", "/v1/moderations", "/v1/embeddings"),
+                basePath = "/v1",
+            )
+        }
+    private val anthropic = gateway.mount { TestMock(name = "anthropic", routePrefixes = listOf("/v1/messages")) }
+    private val gemini =
+        gateway.mount {
+            TestMock(name = "gemini", routePrefixes = listOf("/models", "/v1/projects", "/v1beta1/projects"))
+        }
+    private val ollama = gateway.mount { TestMock(name = "ollama", routePrefixes = listOf("/api")) }
+    private val a2a = gateway.mount { TestMock(name = "a2a") }
+
+    private val mocks = listOf(openai, anthropic, gemini, ollama, a2a)
+
+    @AfterAll
+    fun afterAll() {
+        client.close()
+        gateway.close()
+        mocks.forEach { it.shutdown() }
+    }
+
+    @Test
+    suspend fun `Should dispatch each path to the mock with the longest route prefix`() {
+        val paths =
+            mapOf(
+                openai to listOf("/v1/chat/completions", "/v1/responses", "/v1/embeddings"),
+                anthropic to listOf("/v1/messages", "/v1/messages/count_tokens"),
+                gemini to listOf("/v1/projects/demo/locations/us/models/flash:generateContent"),
+                ollama to listOf("/api/chat"),
+                a2a to listOf("/", "/v1/models", "/v1/messagesx"),
+            )
+        paths.forEach { (mock, mockPaths) ->
+            mockPaths.forEach { mock.post(name = "${mock.name} $it", path = it, response = mock.name) }
+        }
+
+        assertSoftly {
+            gateway.baseUrl(openai) shouldBe "${gateway.endpoint.baseUrl}/v1"
+            gateway.baseUrl(anthropic) shouldBe gateway.endpoint.baseUrl
+            gateway.mocks shouldBe mocks
+            mocks.all { it.detached } shouldBe true
+            paths.forEach { (mock, mockPaths) ->
+                mockPaths.forEach { path ->
+                    val answer = client.post("${gateway.endpoint.baseUrl}$path") { setBody("{}") }.bodyAsText()
+                    answer shouldBe mock.name
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `Should reject a mock serving a route prefix of a mounted mock`() {
+        val other = TestMock(name = "other", routePrefixes = listOf("/v1/messages/"))
+        try {
+            shouldThrow<IllegalStateException> { gateway.mount(other) }
+            shouldThrow<IllegalStateException> { gateway.mount { TestMock(routePrefixes = listOf("/api")) } }
+            gateway.mocks shouldBe mocks
+        } finally {
+            other.shutdown()
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package dev.mokksy.aimocks.core
+
+import io.kotest.assertions.assertSoftly
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import io.kotest.matchers.ints.shouldBeGreaterThan
+import io.kotest.matchers.shouldBe
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.java.Java
+import io.ktor.client.request.post
+import io.ktor.client.request.setBody
+import io.ktor.client.statement.bodyAsText
+import io.ktor.http.HttpStatusCode
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+internal class MockRuntimeTest {
+    private val runtime = MockRuntime()
+    private val client = HttpClient(Java)
+
+    @AfterAll
+    fun afterAll() {
+        client.close()
+        runtime.close()
+    }
+
+    @Test
+    suspend fun `Should serve several mocks on a shared runtime`() {
+        val first = TestMock(name = "first")
+        val second = TestMock(name = "second")
+        try {
+            first.post(name = "hello", path = "/hello", response = "Served by the first mock")
+            second.post(name = "hello", path = "/hello", response = "Served by the second mock")
+
+            val firstUrl = runtime.attach("first", first)
+            val secondUrl = runtime.attach("second", second)
+            val firstAnswer = client.post("$firstUrl/hello") { setBody("Hello") }.bodyAsText()
+            val secondAnswer = client.post("$secondUrl/hello") { setBody("Hello") }.bodyAsText()
+
+            runtime.detach("second")
+
+            assertSoftly {
+                firstAnswer shouldBe "Served by the first mock"
+                secondAnswer shouldBe "Served by the second mock"
+                firstUrl shouldBe "${runtime.endpoint.baseUrl}/first"
+                runtime.names shouldContainExactlyInAnyOrder listOf("first")
+                client.post("$secondUrl/hello") { setBody("Hello") }.status shouldBe HttpStatusCode.NotFound
+            }
+        } finally {
+            runtime.detach("first")
+            first.shutdown()
+            second.shutdown()
+        }
+    }
+
+    @Test
+    suspend fun `Should serve a mock it builds without a port of its own`() {
+        val mock = runtime.attach("detached") { TestMock() }
+        try {
+            mock.post(name = "ping", path = "/ping", response = "pong")
+
+            val answer = client.post("${runtime.baseUrl("detached")}/ping") { setBody("ping") }.bodyAsText()
+
+            assertSoftly {
+                answer shouldBe "pong"
+                mock.detached shouldBe true
+                shouldThrow<IllegalStateException> { mock.port() }
+            }
+        } finally {
+            runtime.detach("detached")
+            mock.shutdown()
+        }
+    }
+
+    @Test
+    fun `Should start a mock built beforehand on its own port`() {
+        val mock = TestMock()
+        try {
+            runtime.attach("eager", mock)
+
+            mock.detached shouldBe false
+            mock.port() shouldBeGreaterThan 0
+        } finally {
+            runtime.detach("eager")
+            mock.shutdown()
+        }
+    }
+}
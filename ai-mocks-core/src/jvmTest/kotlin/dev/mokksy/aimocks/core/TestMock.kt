@@ -0,0 +1,75 @@
+package dev.mokksy.aimocks.core
+
+import dev.mokksy.aimocks.core.stream.monitoredBy
+import dev.mokksy.aimocks.core.time.joinFrames
+import dev.mokksy.aimocks.core.time.pacedBy
+import dev.mokksy.aimocks.core.time.responseDelay
+import dev.mokksy.aimocks.core.time.timingHeaders
+import dev.mokksy.mokksy.ServerConfiguration
+import io.kotest.matchers.string.contain
+import kotlinx.coroutines.flow.asFlow
+import kotlin.time.Duration
+
+/**
+ * Minimal mock answering plain-text stubs, to test the features of [AbstractMockLlm]
+ * independently of any provider.
+ *
+ * @param name Name of the mock.
+ * @param routePrefixes Route prefixes of the mock, e.g. those of the provider it stands in for.
+ * @param basePath Base path of the mock.
+ */
+internal class TestMock(
+    val name: String = "TestMock",
+    override val routePrefixes: List<String> = listOf("/"),
+    override val basePath: String = "",
+) : AbstractMockLlm(
+        port = 0,
+        configuration = ServerConfiguration(verbose = false, name = name),
+    ) {
+    /**
+     * Answers `POST` requests to [path], whose body contains [bodyContains] if given, with [response].
+     */
+    fun post(
+        name: String,
+        path: String,
+        bodyContains: String? = null,
+        response: String,
+    ) {
+        val stub = context.forStub(name)
+        mokksy
+            .post(name = name, requestType = String::class) {
+                path(path)
+                bodyContains?.let { bodyString += contain(it) }
+            }.respondsWith {
+                stub.stubMatched()
+                body = response
+            }
+    }
+
+    /**
+     * Streams [chunks] in answer to `POST` requests to [path], after [initialDelay]
+     * and with [chunkDelay] between chunks, both on the [clock] of the mock.
+     */
+    fun postStream(
+        name: String,
+        path: String,
+        chunks: List<String>,
+        initialDelay: Duration = Duration.ZERO,
+        chunkDelay: Duration = Duration.ZERO,
+    ) {
+        val stub = context.forStub(name)
+        mokksy
+            .post(name = name, requestType = String::class) {
+                path(path)
+            }.respondsWithStream {
+                stub.stubMatched()
+                delay = stub.clock.responseDelay(initialDelay)
+                headers += stub.clock.timingHeaders(initialDelay, chunkDelay)
+                flow =
+                    chunks
+                        .asFlow()
+                        .pacedBy(stub.clock, chunkDelay, stub.pacing, ::joinFrames)
+                        .monitoredBy(stub.streams)
+            }
+    }
+}
@@ -0,0 +1,60 @@
+package dev.mokksy.aimocks.core.cassette
+
+import dev.mokksy.aimocks.core.TestMock
+import io.kotest.assertions.assertSoftly
+import io.kotest.matchers.shouldBe
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.java.Java
+import io.ktor.client.request.post
+import io.ktor.client.request.setBody
+import io.ktor.client.statement.HttpResponse
+import io.ktor.client.statement.bodyAsText
+import io.ktor.http.HttpStatusCode
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+import java.nio.file.Files
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+internal class CassetteReplayTest {
+    private val upstream = TestMock(name = "upstream")
+    private val recorder = TestMock(name = "recorder")
+    private val player = TestMock(name = "player")
+    private val client = HttpClient(Java)
+    private val cassettePath = Files.createTempFile("aimocks", ".cassette").also { Files.delete(it) }
+
+    @AfterAll
+    fun afterAll() {
+        client.close()
+        upstream.shutdown()
+        recorder.shutdown()
+        player.shutdown()
+    }
+
+    private suspend fun count(
+        mock: TestMock,
+        content: String,
+    ): HttpResponse = client.post("${mock.baseUrl()}/count") { setBody(content) }
+
+    @Test
+    suspend fun `Should record unmatched requests upstream and replay them`() {
+        upstream.postStream(name = "count", path = "/count", chunks = listOf("One", "Two", "Three"))
+
+        recorder.cassette = Cassette.record(cassettePath, upstream.baseUrl())
+        val recorded = count(recorder, "Count to three").bodyAsText()
+        recorder.cassette?.close()
+
+        player.cassette = Cassette.replay(cassettePath)
+        val replayed = count(player, "Count to three")
+        val missed = count(player, "Count to four")
+
+        assertSoftly {
+            recorded shouldBe "OneTwoThree"
+            replayed.bodyAsText() shouldBe recorded
+            missed.status shouldBe HttpStatusCode.NotFound
+            player.cassette?.size shouldBe 1
+            player.cassette?.replayedCount shouldBe 1
+            player.cassette?.missedCount shouldBe 1
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package dev.mokksy.aimocks.core.cassette
+
+import dev.mokksy.aimocks.core.TestMock
+import io.kotest.matchers.shouldBe
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+import java.nio.file.Files
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+internal class CassetteSwapTest {
+    private val mock = TestMock()
+
+    @AfterAll
+    fun afterAll() {
+        mock.shutdown()
+    }
+
+    @Test
+    fun `Should complete the previous cassette when replaced`() {
+        val path = Files.createTempFile("aimocks", ".cassette").also { Files.delete(it) }
+
+        mock.cassette = Cassette.record(path, "http://localhost:1")
+        Files.exists(indexOf(path)) shouldBe false
+        mock.cassette = null
+
+        Files.exists(indexOf(path)) shouldBe true
+        Files.delete(indexOf(path))
+        Files.delete(path)
+    }
+}
@@ -0,0 +1,48 @@
+package dev.mokksy.aimocks.core.metrics
+
+import dev.mokksy.aimocks.core.TestMock
+import io.kotest.assertions.assertSoftly
+import io.kotest.matchers.longs.shouldBeGreaterThan
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldContain
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.java.Java
+import io.ktor.client.request.get
+import io.ktor.client.request.post
+import io.ktor.client.request.setBody
+import io.ktor.client.statement.bodyAsText
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+internal class MetricsEndpointTest {
+    private val mock = TestMock().also { it.metrics.endpoint = "/metrics" }
+    private val client = HttpClient(Java)
+
+    @AfterAll
+    fun afterAll() {
+        client.close()
+        mock.shutdown()
+    }
+
+    @Test
+    suspend fun `Should report stub metrics on the metrics endpoint`() {
+        mock.postStream(name = "streaming-count", path = "/count", chunks = listOf("One", "Two", "Three"))
+
+        client.post("${mock.baseUrl()}/count") { setBody("Count to three") }.bodyAsText()
+        client.post("${mock.baseUrl()}/unknown").bodyAsText()
+
+        val metrics = client.get("${mock.baseUrl()}/metrics").bodyAsText()
+        val entry = mock.metrics.snapshot().single()
+
+        assertSoftly {
+            metrics shouldContain "aimocks_requests_total{stub=\"streaming-count\"} 1"
+            metrics shouldContain "aimocks_unmatched_requests_total 1"
+            metrics shouldContain "aimocks_streams_in_flight 0"
+            entry.bytes shouldBeGreaterThan 0
+            entry.timeToFirstByte.count shouldBe 1
+            entry.response.count shouldBe 1
+        }
+    }
+}
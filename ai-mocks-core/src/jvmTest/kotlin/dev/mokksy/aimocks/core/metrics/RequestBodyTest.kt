@@ -0,0 +1,47 @@
+package dev.mokksy.aimocks.core.metrics
+
+import dev.mokksy.aimocks.core.TestMock
+import dev.mokksy.aimocks.core.journal.BodyRetention
+import io.kotest.assertions.nondeterministic.eventually
+import io.kotest.matchers.shouldBe
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.java.Java
+import io.ktor.client.request.post
+import io.ktor.client.request.setBody
+import io.ktor.client.statement.bodyAsText
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+import kotlin.time.Duration.Companion.seconds
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+internal class RequestBodyTest {
+    private val mock = TestMock()
+    private val client = HttpClient(Java)
+
+    @AfterAll
+    fun afterAll() {
+        client.close()
+        mock.shutdown()
+    }
+
+    @Test
+    suspend fun `Should record the body read by the stub matchers`() {
+        mock.journal.enabled = true
+        mock.journal.bodyRetention = BodyRetention.FULL
+        mock.post(name = "greeting", path = "/greet", bodyContains = "hello", response = "Hi!")
+
+        val answer =
+            client
+                .post("${mock.baseUrl()}/greet") {
+                    setBody("""{"text":"hello, mock"}""")
+                }.bodyAsText()
+
+        answer shouldBe "Hi!"
+        eventually(5.seconds) {
+            val entry = mock.journal.entries().single()
+            entry.stub shouldBe "greeting"
+            entry.body() shouldBe """{"text":"hello, mock"}"""
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package dev.mokksy.aimocks.core.time
+
+import dev.mokksy.aimocks.core.TestMock
+import io.kotest.assertions.assertSoftly
+import io.kotest.matchers.comparables.shouldBeLessThan
+import io.kotest.matchers.shouldBe
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.java.Java
+import io.ktor.client.request.post
+import io.ktor.client.request.setBody
+import io.ktor.client.statement.bodyAsText
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+import kotlin.time.Duration.Companion.seconds
+import kotlin.time.measureTimedValue
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+internal class VirtualTimeTest {
+    private val clock = VirtualClock()
+    private val mock = TestMock().also { it.clock = clock }
+    private val client = HttpClient(Java)
+
+    @AfterAll
+    fun afterAll() {
+        client.close()
+        mock.shutdown()
+    }
+
+    @Test
+    suspend fun `Should honour simulated delays without sleeping`() {
+        val chunks = listOf("One", "Two", "Three")
+        mock.postStream(
+            name = "count",
+            path = "/count",
+            chunks = chunks,
+            initialDelay = 30.seconds,
+            chunkDelay = 10.seconds,
+        )
+
+        val before = clock.now()
+        val (response, elapsed) =
+            measureTimedValue {
+                client.post("${mock.baseUrl()}/count") { setBody("Count to three") }
+            }
+        val body = response.bodyAsText()
+
+        assertSoftly {
+            elapsed shouldBeLessThan 10.seconds
+            body shouldBe chunks.joinToString("")
+            response.headers[TimingHeaders.DELAY] shouldBe "30000"
+            response.headers[TimingHeaders.CHUNK_DELAY] shouldBe "10000"
+            // initial delay, then the delays between the chunks
+            clock.now() - before shouldBe 30.seconds + 10.seconds * (chunks.size - 1)
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package dev.mokksy.aimocks.core.transport
+
+import dev.mokksy.aimocks.core.TestMock
+import io.kotest.assertions.assertSoftly
+import io.kotest.matchers.shouldBe
+import io.ktor.client.HttpClient
+import io.ktor.client.request.post
+import io.ktor.client.request.preparePost
+import io.ktor.client.request.setBody
+import io.ktor.client.statement.bodyAsChannel
+import io.ktor.client.statement.bodyAsText
+import io.ktor.http.HttpStatusCode
+import io.ktor.utils.io.readUTF8Line
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+internal class InProcessEngineTest {
+    private val mock = TestMock()
+    private val client = HttpClient(mock.inProcessEngine)
+
+    @AfterAll
+    fun afterAll() {
+        client.close()
+        mock.shutdown()
+    }
+
+    @Test
+    suspend fun `Should respond in-process`() {
+        mock.post(
+            name = "in-process",
+            path = "/answer",
+            bodyContains = "in-process",
+            response = "Served without a socket",
+        )
+
+        val answer = client.post("http://localhost/answer") { setBody("Answer in-process") }.bodyAsText()
+
+        answer shouldBe "Served without a socket"
+    }
+
+    @Test
+    suspend fun `Should stream in-process`() {
+        val chunks = listOf("One", "Two", "Three")
+        mock.postStream(name = "in-process-stream", path = "/stream", chunks = chunks.map { "$it\n" })
+
+        val lines = mutableListOf<String>()
+        var status: HttpStatusCode? = null
+        client
+            .preparePost("http://localhost/stream") {
+                setBody("Count in-process")
+            }.execute { response ->
+                status = response.status
+                val channel = response.bodyAsChannel()
+                while (true) {
+                    lines += channel.readUTF8Line() ?: break
+                }
+            }
+
+        assertSoftly {
+            status shouldBe HttpStatusCode.OK
+            lines shouldBe chunks
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package dev.mokksy.aimocks.core.transport
+
+import dev.mokksy.aimocks.core.TestMock
+import io.kotest.assertions.assertSoftly
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.java.Java
+import io.ktor.client.request.post
+import io.ktor.client.request.setBody
+import io.ktor.client.statement.bodyAsText
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+internal class NettyServerTest {
+    private val mock = TestMock()
+    private val client = HttpClient(Java)
+
+    @AfterAll
+    fun afterAll() {
+        client.close()
+        mock.shutdown()
+    }
+
+    @Test
+    suspend fun `Should serve the mock on a configured Netty engine`() {
+        mock.post(name = "tuned", path = "/tuned", response = "Served by a tuned engine")
+
+        val endpoint =
+            mock.bindNetty(
+                NettyEngineSettings().apply {
+                    transport = NettyTransport.NIO
+                    workerThreads = 2
+                    backlog = 4096
+                },
+            )
+        val answer = client.post("${endpoint.baseUrl}/tuned") { setBody("Hello") }.bodyAsText()
+
+        assertSoftly {
+            answer shouldBe "Served by a tuned engine"
+            endpoint.transport shouldBe NettyTransport.NIO
+            endpoint.workerThreads shouldBe 2
+            endpoint.port shouldNotBe mock.port()
+            mock.nettyEndpoint?.port shouldBe endpoint.port
+        }
+    }
+}
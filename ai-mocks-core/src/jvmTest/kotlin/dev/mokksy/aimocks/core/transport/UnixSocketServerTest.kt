@@ -0,0 +1,71 @@
+package dev.mokksy.aimocks.core.transport
+
+import dev.mokksy.aimocks.core.TestMock
+import io.kotest.assertions.assertSoftly
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldContain
+import io.kotest.matchers.string.shouldStartWith
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+import java.net.UnixDomainSocketAddress
+import java.nio.ByteBuffer
+import java.nio.channels.Channels
+import java.nio.channels.SocketChannel
+import java.nio.file.FileAlreadyExistsException
+import java.nio.file.Files
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+internal class UnixSocketServerTest {
+    private val mock = TestMock()
+    private val socketDirectory = Files.createTempDirectory("aimocks")
+    private val socket = socketDirectory.resolve("mock.sock")
+
+    @AfterAll
+    fun afterAll() {
+        mock.shutdown()
+        Files.deleteIfExists(socketDirectory)
+    }
+
+    @Test
+    fun `Should serve the mock on a Unix domain socket`() {
+        mock.post(name = "uds", path = "/uds", response = "Served over a Unix domain socket")
+        mock.bindUnixSocket(socket)
+
+        val body = "Hi"
+        val request =
+            "POST /uds HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Content-Type: text/plain\r\n" +
+                "Content-Length: ${body.length}\r\n" +
+                "Connection: close\r\n\r\n" +
+                body
+        val response =
+            SocketChannel.open(UnixDomainSocketAddress.of(socket)).use { channel ->
+                channel.write(ByteBuffer.wrap(request.encodeToByteArray()))
+                Channels.newInputStream(channel).readAllBytes().decodeToString()
+            }
+
+        assertSoftly {
+            response shouldStartWith "HTTP/1.1 200"
+            response shouldContain "Served over a Unix domain socket"
+            mock.unixSocket shouldBe socket
+            mock.unixSocketBaseUrl() shouldBe "http://localhost"
+        }
+    }
+
+    @Test
+    fun `Should not replace a file which is not a socket`() {
+        val file = Files.createTempFile(socketDirectory, "mock", ".sock")
+        val other = TestMock()
+        try {
+            shouldThrow<FileAlreadyExistsException> { other.bindUnixSocket(file) }
+            Files.exists(file) shouldBe true
+            other.unixSocket shouldBe null
+        } finally {
+            other.shutdown()
+            Files.delete(file)
+        }
+    }
+}
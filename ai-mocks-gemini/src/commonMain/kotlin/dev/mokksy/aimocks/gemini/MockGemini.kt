@@ -63,15 +63,17 @@ public open class MockGemini(
                 requestType = GenerateContentRequest::class,
             ) {
                 val chatRequestSpec = matchRequestSpec(this, block)
+                val apiPath = buildApiPath(chatRequestSpec, "generateContent")
 
-                path(
-                    buildApiPath(chatRequestSpec, "generateContent"),
-                )
+                // The model is a part of the path, so the path alone discriminates stubs
+                stubPrefilter.register(apiPath)
+                path(apiPath)
             }
 
         return GeminiContentBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -100,18 +102,22 @@ public open class MockGemini(
                 requestType = GenerateContentRequest::class,
             ) {
                 val chatRequestSpec = matchRequestSpec(this, block)
+                val apiPath = buildApiPath(chatRequestSpec, "streamGenerateContent")
 
-                path(
-                    buildApiPath(chatRequestSpec, "streamGenerateContent"),
-                )
+                // The model is a part of the path, so the path alone discriminates stubs
+                stubPrefilter.register(apiPath)
+                path(apiPath)
             }
 
         return GeminiStreamingContentBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
+    override val routePrefixes: List<String> = listOf("/models", "/v1/projects", "/v1beta1/projects")
+
     override fun baseUrl(): String = "http://localhost:${port()}"
 
     private fun matchRequestSpec(
@@ -121,8 +127,6 @@ public open class MockGemini(
         val chatRequestSpec = GeminiContentRequestSpecification()
         block.invoke(chatRequestSpec)
 
-        builder.body += chatRequestSpec.requestBody
-
         chatRequestSpec.maxOutputTokens?.let { maxOutputTokens ->
             builder.bodyMatchesPredicate(
                 description = "Max output tokens should be $maxOutputTokens.",
@@ -174,9 +178,9 @@ public open class MockGemini(
             }
         }
 
-        chatRequestSpec.requestBodyString.forEach {
-            builder.bodyString += it
-        }
+        substringIndex.bind(chatRequestSpec.requestBodyString)
+        builder.body += chatRequestSpec.compileRequestBody()
+        builder.bodyString += chatRequestSpec.compileRequestBodyString()
         return chatRequestSpec
     }
 
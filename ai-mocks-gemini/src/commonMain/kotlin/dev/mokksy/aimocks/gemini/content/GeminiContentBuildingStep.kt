@@ -1,6 +1,9 @@
 package dev.mokksy.aimocks.gemini.content
 
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.time.responseDelay
+import dev.mokksy.aimocks.core.time.timingHeaders
 import dev.mokksy.aimocks.gemini.GenerateContentRequest
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
@@ -14,13 +17,16 @@ import io.ktor.http.ContentType
  *
  * @property mokksy The MokksyServer instance to use for configuring responses.
  * @property buildingStep The BuildingStep instance to use for configuring responses.
+ * @param context State shared with the mock which created this step, e.g. its clock.
  */
-public class GeminiContentBuildingStep(
+public class GeminiContentBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<GenerateContentRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<GenerateContentRequest, GeminiContentResponseSpecification>(
         mokksy = mokksy,
         buildingStep = buildingStep,
+        context = context,
     ) {
     /**
      * Configures a regular (non-streaming) response to a Gemini content generation request.
@@ -32,11 +38,13 @@ public class GeminiContentBuildingStep(
         block: suspend GeminiContentResponseSpecification.() -> Unit,
     ) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val generateContentRequest = this.request.body()
             val chatResponseSpecification = GeminiContentResponseSpecification()
             block.invoke(chatResponseSpecification)
             val assistantContent = chatResponseSpecification.content
-            delay = chatResponseSpecification.delay
+            delay = context.clock.responseDelay(chatResponseSpecification.delay)
+            headers += context.clock.timingHeaders(chatResponseSpecification.delay)
             contentType = ContentType.Application.Json
             body =
                 generateContentResponse(
@@ -16,9 +16,7 @@ internal object GeminiContentMatchers {
             override fun test(value: GenerateContentRequest?): MatcherResult =
                 MatcherResult.Companion(
                     value != null &&
-                        value.systemInstruction
-                            ?.parts
-                            ?.any { it.text?.contains(string) == true } == true,
+                        GenerateContentRequestView.of(value).systemTexts.any { it.contains(string) },
                     { "System message should contain \"$string\"" },
                     { "System message should not contain \"$string\"" },
                 )
@@ -31,11 +29,7 @@ internal object GeminiContentMatchers {
             override fun test(value: GenerateContentRequest?): MatcherResult =
                 MatcherResult.Companion(
                     value != null &&
-                        value.contents.any {
-                            it.parts.any { part ->
-                                part.text?.contains(string) == true
-                            }
-                        },
+                        GenerateContentRequestView.of(value).contentTexts.any { it.contains(string) },
                     { "User message should contain \"$string\"" },
                     { "User message should not contain \"$string\"" },
                 )
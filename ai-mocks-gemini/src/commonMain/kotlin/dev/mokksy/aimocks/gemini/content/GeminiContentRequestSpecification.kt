@@ -2,6 +2,8 @@ package dev.mokksy.aimocks.gemini.content
 
 import dev.mokksy.aimocks.core.AbstractInferenceRequestSpecification
 import dev.mokksy.aimocks.core.ModelRequestSpecification
+import dev.mokksy.aimocks.core.matching.MatcherCost
+import dev.mokksy.aimocks.core.matching.withCost
 import dev.mokksy.aimocks.gemini.GenerateContentRequest
 
 /**
@@ -73,11 +75,11 @@ public open class GeminiContentRequestSpecification(
         }
 
     override fun systemMessageContains(substring: String) {
-        requestBody.add(GeminiContentMatchers.systemMessageContains(substring))
+        requestBody.add(GeminiContentMatchers.systemMessageContains(substring).withCost(MatcherCost.SUBSTRING))
     }
 
     override fun userMessageContains(substring: String) {
-        requestBody.add(GeminiContentMatchers.userMessageContains(substring))
+        requestBody.add(GeminiContentMatchers.userMessageContains(substring).withCost(MatcherCost.SUBSTRING))
     }
 
     public fun path(value: String) {
@@ -1,23 +1,38 @@
 package dev.mokksy.aimocks.gemini.content
 
 import dev.mokksy.aimocks.core.AbstractStreamingBuildingStep
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.stream.FrameFormat
+import dev.mokksy.aimocks.core.stream.StreamFrameWriter
+import dev.mokksy.aimocks.core.stream.monitoredBy
+import dev.mokksy.aimocks.core.time.approximateTokenCount
+import dev.mokksy.aimocks.core.time.joinFrames
+import dev.mokksy.aimocks.core.time.pacedBy
+import dev.mokksy.aimocks.core.time.responseDelay
+import dev.mokksy.aimocks.core.time.timedBy
+import dev.mokksy.aimocks.core.time.timingHeaders
 import dev.mokksy.aimocks.gemini.GenerateContentRequest
 import dev.mokksy.aimocks.gemini.GenerateContentResponse
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
-
-import io.ktor.sse.TypedServerSentEvent
-import io.ktor.utils.io.InternalAPI
 import kotlinx.coroutines.flow.Flow
-import kotlinx.coroutines.flow.asFlow
 import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.mapNotNull
 import kotlinx.coroutines.flow.onCompletion
 import kotlinx.coroutines.flow.onStart
-import kotlinx.serialization.json.Json
 import kotlin.uuid.ExperimentalUuidApi
 import kotlin.uuid.Uuid
 
+/**
+ * Framing of the elements of a JSON array stream, except the last one.
+ */
+private val ARRAY_ELEMENT = FrameFormat(dataPrefix = "", frameEnd = ",\r\n")
+
+/**
+ * Framing of the last element of a JSON array stream.
+ */
+private val ARRAY_END = FrameFormat(dataPrefix = "", frameEnd = "")
+
 /**
  * Building step for configuring responses to Gemini content generation requests.
  *
@@ -26,16 +41,19 @@ import kotlin.uuid.Uuid
  *
  * @property mokksy The MokksyServer instance to use for configuring responses.
  * @property buildingStep The BuildingStep instance to use for configuring responses.
+ * @param context State shared with the mock which created this step, e.g. its clock.
  */
-public class GeminiStreamingContentBuildingStep(
+public class GeminiStreamingContentBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<GenerateContentRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractStreamingBuildingStep<
         GenerateContentRequest,
         GeminiStreamingContentResponseSpecification,
     >(
         mokksy = mokksy,
         buildingStep = buildingStep,
+        context = context,
     ) {
     public override infix fun respondsStream(
         block: suspend GeminiStreamingContentResponseSpecification.() -> Unit,
@@ -49,6 +67,7 @@ public class GeminiStreamingContentBuildingStep(
         block: suspend GeminiStreamingContentResponseSpecification.() -> Unit,
     ) {
         buildingStep.respondsWithStream {
+            context.stubMatched()
             val responseSpec =
                 GeminiStreamingContentResponseSpecification()
             block.invoke(responseSpec)
@@ -56,23 +75,29 @@ public class GeminiStreamingContentBuildingStep(
             headers += "Content-Type" to "text/event-stream"
             headers += "Connection" to "keep-alive"
 
-            val chunkFlow = responseSpec.responseFlow ?: responseSpec.responseChunks?.asFlow()
+            val chunkFlow = responseSpec.chunkFlow(context)
 
             if (chunkFlow == null) {
-                error("Either responseChunks or responseFlow must be defined")
+                error("Either responseChunks, responseFlow or a chunk generator must be defined")
             }
             val request = this.request.body()
             val responseId = Uuid.random().toHexString()
-            delayBetweenChunks = responseSpec.delayBetweenChunks
-            delay = responseSpec.delay
+            val frames =
+                StreamFrameWriter(GenerateContentResponse.serializer(), if (sse) FrameFormat.SSE else ARRAY_ELEMENT)
+            val lastFrames = if (sse) frames else StreamFrameWriter(GenerateContentResponse.serializer(), ARRAY_END)
+            delay = context.clock.responseDelay(responseSpec.delay)
+            headers += context.clock.timingHeaders(responseSpec.delay, responseSpec.delayBetweenChunks)
+            // a stream with a timing model is reported once, by the model
+            val framePacing = context.pacing.takeIf { responseSpec.timing == null }
             flow =
                 prepareFlow(
                     responseId = responseId,
                     model = request.model,
-                    chunksFlow = chunkFlow,
+                    chunksFlow =
+                        chunkFlow.timedBy(responseSpec.timing, context.clock, ::approximateTokenCount, context.pacing),
                     finishReason = responseSpec.finishReason,
                 ).map {
-                    encodeChunk(it, sse = sse, lastChunk = false)
+                    frames.frame(it)
                 }.onStart {
                     if (!sse) {
                         emit("[")
@@ -83,32 +108,15 @@ public class GeminiStreamingContentBuildingStep(
                             finishReason = responseSpec.finishReason,
                             responseId = responseId,
                         )
-                    emit(encodeChunk(chunk, sse = sse, lastChunk = true))
+                    emit(lastFrames.frame(chunk))
                     if (!sse) {
                         emit("]")
                     }
-                }
+                }.pacedBy(context.clock, responseSpec.delayBetweenChunks, framePacing, ::joinFrames)
+                    .monitoredBy(context.streams)
         }
     }
 
-    @OptIn(InternalAPI::class)
-    private fun encodeChunk(
-        chunk: GenerateContentResponse,
-        sse: Boolean,
-        lastChunk: Boolean = false,
-    ): String =
-        if (sse) {
-            TypedServerSentEvent(
-                data = chunk,
-            ).toString {
-                Json.encodeToString(it)
-            } + "\r\n"
-        } else if (lastChunk) {
-            Json.encodeToString(value = chunk)
-        } else {
-            "${Json.encodeToString(value = chunk)},\r\n"
-        }
-
     private fun prepareFlow(
         responseId: String,
         model: String?,
@@ -0,0 +1,33 @@
+package dev.mokksy.aimocks.gemini.content
+
+import dev.mokksy.aimocks.core.RequestViewCache
+import dev.mokksy.aimocks.gemini.GenerateContentRequest
+
+/**
+ * Texts of a [GenerateContentRequest] inspected by [GeminiContentMatchers],
+ * derived once per request and shared by the matchers of all stubs.
+ */
+internal class GenerateContentRequestView(
+    request: GenerateContentRequest,
+) {
+    /**
+     * Texts of the system instruction parts.
+     */
+    val systemTexts: List<String> =
+        request.systemInstruction
+            ?.parts
+            ?.mapNotNull { it.text }
+            .orEmpty()
+
+    /**
+     * Texts of all parts of all contents.
+     */
+    val contentTexts: List<String> =
+        request.contents.flatMap { content -> content.parts.mapNotNull { it.text } }
+
+    companion object {
+        private val cache = RequestViewCache(::GenerateContentRequestView)
+
+        fun of(request: GenerateContentRequest): GenerateContentRequestView = cache.of(request)
+    }
+}
@@ -1,6 +1,7 @@
 package dev.mokksy.aimocks.ollama
 
 import dev.mokksy.aimocks.core.AbstractMockLlm
+import dev.mokksy.aimocks.core.json.containJsonKeyValue
 import dev.mokksy.aimocks.ollama.chat.ChatRequest
 import dev.mokksy.aimocks.ollama.chat.OllamaChatBuildingStep
 import dev.mokksy.aimocks.ollama.chat.OllamaChatRequestSpecification
@@ -11,11 +12,14 @@ import dev.mokksy.aimocks.ollama.generate.GenerateRequest
 import dev.mokksy.aimocks.ollama.generate.OllamaGenerateBuildingStep
 import dev.mokksy.aimocks.ollama.generate.OllamaGenerateRequestSpecification
 import dev.mokksy.mokksy.ServerConfiguration
-import io.kotest.assertions.json.containJsonKeyValue
 import io.kotest.matchers.string.contain
 import io.ktor.serialization.kotlinx.json.json
 import kotlinx.serialization.json.Json
 
+private const val GENERATE_PATH = "/api/generate"
+private const val CHAT_PATH = "/api/chat"
+private const val EMBED_PATH = "/api/embed"
+
 /**
  * Mock implementation of an Ollama-compatible service for testing purposes.
  *
@@ -70,48 +74,48 @@ public open class MockOllama(
                 val generateRequestSpec = OllamaGenerateRequestSpecification()
                 block(generateRequestSpec)
 
-                path("/api/generate")
-
-                body += generateRequestSpec.requestBody
+                path(GENERATE_PATH)
 
-                generateRequestSpec.model?.let {
-                    bodyString += containJsonKeyValue("model", it)
-                }
+                val route = stubPrefilter.register(GENERATE_PATH, "model", generateRequestSpec.model)
+                generateRequestSpec.requestBodyString += route.guard
 
                 generateRequestSpec.seed?.let {
-                    bodyString += containJsonKeyValue("$.options.seed", it)
+                    generateRequestSpec.requestBodyString += containJsonKeyValue("$.options.seed", it)
                 }
 
                 generateRequestSpec.temperature?.let {
-                    bodyString += containJsonKeyValue("$.options.temperature", it)
+                    generateRequestSpec.requestBodyString += containJsonKeyValue("$.options.temperature", it)
                 }
 
                 generateRequestSpec.topP?.let {
-                    bodyString += containJsonKeyValue("$.options.top_p", it)
+                    generateRequestSpec.requestBodyString += containJsonKeyValue("$.options.top_p", it)
                 }
 
                 generateRequestSpec.topK?.let {
-                    bodyString += containJsonKeyValue("$.options.top_k", it)
+                    generateRequestSpec.requestBodyString += containJsonKeyValue("$.options.top_k", it)
                 }
 
                 generateRequestSpec.maxTokens?.let {
-                    bodyString += containJsonKeyValue("$.options.num_predict", it)
+                    generateRequestSpec.requestBodyString += containJsonKeyValue("$.options.num_predict", it)
                 }
 
                 generateRequestSpec.template?.let {
-                    bodyString += containJsonKeyValue("template", it)
+                    generateRequestSpec.requestBodyString += containJsonKeyValue("template", it)
                 }
 
                 generateRequestSpec.stream?.let {
-                    bodyString += containJsonKeyValue("stream", it)
+                    generateRequestSpec.requestBodyString += containJsonKeyValue("stream", it)
                 }
 
-                bodyString += generateRequestSpec.requestBodyString
+                substringIndex.bind(generateRequestSpec.requestBodyString)
+                body += generateRequestSpec.compileRequestBody()
+                bodyString += generateRequestSpec.compileRequestBodyString()
             }
 
         return OllamaGenerateBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -136,43 +140,44 @@ public open class MockOllama(
                 val chatRequestSpec = OllamaChatRequestSpecification()
                 block(chatRequestSpec)
 
-                path("/api/chat")
+                path(CHAT_PATH)
 
-                chatRequestSpec.model?.let {
-                    bodyString += containJsonKeyValue("model", it)
-                }
+                val route = stubPrefilter.register(CHAT_PATH, "model", chatRequestSpec.model)
+                chatRequestSpec.requestBodyString += route.guard
 
                 chatRequestSpec.stream?.let {
-                    bodyString += containJsonKeyValue("stream", it)
+                    chatRequestSpec.requestBodyString += containJsonKeyValue("stream", it)
                 }
 
                 chatRequestSpec.seed?.let {
-                    bodyString += containJsonKeyValue("$.options.seed", it)
+                    chatRequestSpec.requestBodyString += containJsonKeyValue("$.options.seed", it)
                 }
 
                 chatRequestSpec.temperature?.let {
-                    bodyString += containJsonKeyValue("$.options.temperature", it)
+                    chatRequestSpec.requestBodyString += containJsonKeyValue("$.options.temperature", it)
                 }
 
                 chatRequestSpec.topP?.let {
-                    bodyString += containJsonKeyValue("$.options.top_p", it)
+                    chatRequestSpec.requestBodyString += containJsonKeyValue("$.options.top_p", it)
                 }
 
                 chatRequestSpec.topK?.let {
-                    bodyString += containJsonKeyValue("$.options.top_k", it)
+                    chatRequestSpec.requestBodyString += containJsonKeyValue("$.options.top_k", it)
                 }
 
                 chatRequestSpec.maxTokens?.let {
-                    bodyString += containJsonKeyValue("$.options.num_predict", it)
+                    chatRequestSpec.requestBodyString += containJsonKeyValue("$.options.num_predict", it)
                 }
 
-                body += chatRequestSpec.requestBody
-                bodyString += chatRequestSpec.requestBodyString
+                substringIndex.bind(chatRequestSpec.requestBodyString)
+                body += chatRequestSpec.compileRequestBody()
+                bodyString += chatRequestSpec.compileRequestBodyString()
             }
 
         return OllamaChatBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -198,15 +203,14 @@ public open class MockOllama(
                 val embedRequestSpec = OllamaEmbedRequestSpecification()
                 block(embedRequestSpec)
 
-                path("/api/embed")
+                path(EMBED_PATH)
 
-                embedRequestSpec.model?.let {
-                    bodyString += containJsonKeyValue("model", it)
-                }
+                val route = stubPrefilter.register(EMBED_PATH, "model", embedRequestSpec.model)
+                bodyString += route.guard
 
                 // Handle string input
                 embedRequestSpec.stringInput?.let {
-                    bodyString += containJsonKeyValue("input", it)
+                    bodyString += route.gate(containJsonKeyValue("input", it))
                 }
 
                 // Handle string list input
@@ -214,35 +218,38 @@ public open class MockOllama(
                     // For list inputs, we can't use containJsonKeyValue directly
                     // Instead, we'll check that the request body contains the input values
                     it.forEach { inputValue ->
-                        bodyString += contain(inputValue)
+                        bodyString += route.gate(contain(inputValue))
                     }
                 }
 
                 embedRequestSpec.truncate?.let {
-                    bodyString += containJsonKeyValue("truncate", it)
+                    bodyString += route.gate(containJsonKeyValue("truncate", it))
                 }
 
                 embedRequestSpec.options?.let { options ->
                     options.forEach { (key, value) ->
-                        bodyString += containJsonKeyValue("$.options.$key", value)
+                        bodyString += route.gate(containJsonKeyValue("$.options.$key", value))
                     }
                 }
 
                 embedRequestSpec.keepAlive?.let {
-                    bodyString += containJsonKeyValue("keep_alive", it)
+                    bodyString += route.gate(containJsonKeyValue("keep_alive", it))
                 }
 
                 embedRequestSpec.requestBodyString.forEach {
-                    bodyString += contain(it)
+                    bodyString += route.gate(contain(it))
                 }
             }
 
         return OllamaEmbedBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
+    override val routePrefixes: List<String> = listOf("/api")
+
     /**
      * Returns the base URL of the mock Ollama server.
      *
@@ -1,21 +1,36 @@
 package dev.mokksy.aimocks.ollama.chat
 
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.json.ResponseTemplate
+import dev.mokksy.aimocks.core.json.jsonString
+import dev.mokksy.aimocks.core.stream.FrameFormat
+import dev.mokksy.aimocks.core.stream.framed
+import dev.mokksy.aimocks.core.stream.monitoredBy
+import dev.mokksy.aimocks.core.time.approximateTokenCount
+import dev.mokksy.aimocks.core.time.joinFrames
+import dev.mokksy.aimocks.core.time.pacedBy
+import dev.mokksy.aimocks.core.time.responseDelay
+import dev.mokksy.aimocks.core.time.timedBy
+import dev.mokksy.aimocks.core.time.timingHeaders
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
 
 import io.ktor.http.ContentType
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.Flow
-import kotlinx.coroutines.flow.asFlow
 import kotlinx.coroutines.flow.emitAll
 import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.flow.map
-import kotlinx.serialization.json.Json
 import kotlin.random.Random.Default.nextInt
 import kotlin.time.Clock
 import kotlin.time.Instant
 
+/**
+ * Newline-delimited JSON with CRLF line endings.
+ */
+private val CRLF_NDJSON = FrameFormat(dataPrefix = "", lineEnd = "\r\n", frameEnd = "\r\n")
+
 /**
  * OllamaChatBuildingStep is a specialized implementation of [AbstractBuildingStep]
  * intended for constructing and managing chat completion responses as part of the Ollama
@@ -32,13 +47,16 @@ import kotlin.time.Instant
  * @param mokksy The [MokksyServer] instance used for handling mock request and response lifecycle.
  * @param buildingStep The underlying [BuildingStep] for managing and supporting response configurations
  *                     for Ollama Chat Completion requests.
+ * @param context State shared with the mock which created this step, e.g. its clock.
  */
-public class OllamaChatBuildingStep(
+public class OllamaChatBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<ChatRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<ChatRequest, OllamaChatResponseSpecification>(
         mokksy,
         buildingStep,
+        context,
     ) {
     /**
      * Configures a single, complete chat response for the mock Ollama chat completion API.
@@ -47,23 +65,17 @@ public class OllamaChatBuildingStep(
      * generates randomized timing and evaluation metadata, and constructs a [ChatResponse]
      * with the specified model, message, and completion details.
      */
-    @Suppress("MagicNumber")
     override infix fun responds(block: suspend OllamaChatResponseSpecification.() -> Unit) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val request = this.request.body()
             val chatResponseSpecification =
                 OllamaChatResponseSpecification()
             block.invoke(chatResponseSpecification)
-            delay = chatResponseSpecification.delay
+            delay = context.clock.responseDelay(chatResponseSpecification.delay)
+            headers += context.clock.timingHeaders(chatResponseSpecification.delay)
             contentType = ContentType.Application.Json
 
-            val promptEvalCount = nextInt(1, 200)
-            val evalCount = nextInt(1, 500)
-            val totalDuration = nextInt(10, 5000).toLong()
-            val loadDuration = nextInt(10, 5000).toLong()
-            val promptEvalDuration = nextInt(10, 5000).toLong()
-            val evalDuration = nextInt(10, 5000).toLong()
-
             body =
                 ChatResponse(
                     model = request.model,
@@ -71,16 +83,76 @@ public class OllamaChatBuildingStep(
                     message = chatResponseSpecification.createMessage(),
                     done = true,
                     doneReason = chatResponseSpecification.finishReason,
-                    totalDuration = totalDuration,
-                    loadDuration = loadDuration,
-                    promptEvalCount = promptEvalCount,
-                    promptEvalDuration = promptEvalDuration,
-                    evalCount = evalCount,
-                    evalDuration = evalDuration,
+                    totalDuration = randomDuration(),
+                    loadDuration = randomDuration(),
+                    promptEvalCount = randomPromptEvalCount(),
+                    promptEvalDuration = randomDuration(),
+                    evalCount = randomEvalCount(),
+                    evalDuration = randomDuration(),
                 )
         }
     }
 
+    /**
+     * Configures a response which does not depend on the request.
+     *
+     * The response is encoded once; only its `model`, `created_at` and timing and evaluation
+     * statistics are filled in on each request.
+     *
+     * @param block A configuration block applied once to an [OllamaChatResponseSpecification].
+     */
+    override infix fun respondsStatic(block: OllamaChatResponseSpecification.() -> Unit) {
+        val chatResponseSpecification = OllamaChatResponseSpecification().apply(block)
+        val template =
+            ResponseTemplate.compile(
+                serializer = ChatResponse.serializer(),
+                value =
+                    ChatResponse(
+                        model = "",
+                        createdAt = Instant.fromEpochSeconds(0),
+                        message = chatResponseSpecification.createMessage(),
+                        done = true,
+                        doneReason = chatResponseSpecification.finishReason,
+                    ),
+                fields =
+                    listOf(
+                        "model",
+                        "created_at",
+                        "total_duration",
+                        "load_duration",
+                        "prompt_eval_count",
+                        "prompt_eval_duration",
+                        "eval_count",
+                        "eval_duration",
+                    ),
+            )
+        if (template == null) {
+            super.respondsStatic(block)
+            return
+        }
+        respondsWithTemplate(template, chatResponseSpecification.delay) { request ->
+            listOf(
+                jsonString(request.model),
+                jsonString(Clock.System.now().toString()),
+                randomDuration().toString(),
+                randomDuration().toString(),
+                randomPromptEvalCount().toString(),
+                randomDuration().toString(),
+                randomEvalCount().toString(),
+                randomDuration().toString(),
+            )
+        }
+    }
+
+    @Suppress("MagicNumber")
+    private fun randomDuration(): Long = nextInt(10, 5000).toLong()
+
+    @Suppress("MagicNumber")
+    private fun randomPromptEvalCount(): Int = nextInt(1, 200)
+
+    @Suppress("MagicNumber")
+    private fun randomEvalCount(): Int = nextInt(1, 500)
+
     /**
      * Configures a streaming chat completion response using a user-defined specification block.
      *
@@ -93,6 +165,7 @@ public class OllamaChatBuildingStep(
     @OptIn(ExperimentalCoroutinesApi::class)
     public infix fun respondsStream(block: OllamaStreamingChatResponseSpecification.() -> Unit) {
         buildingStep.respondsWithStream {
+            context.stubMatched()
             val responseSpec =
                 OllamaStreamingChatResponseSpecification()
             block.invoke(responseSpec)
@@ -100,19 +173,23 @@ public class OllamaChatBuildingStep(
             headers += "Content-Type" to "application/x-ndjson"
             headers += "Connection" to "keep-alive"
 
-            val chunkFlow = responseSpec.responseFlow ?: responseSpec.responseChunks?.asFlow()
+            val chunkFlow = responseSpec.chunkFlow(context)
 
             if (chunkFlow == null) {
-                error("Either responseChunks or responseFlow must be defined")
+                error("Either responseChunks, responseFlow or a chunk generator must be defined")
             }
             val request = this.request.body()
-            delayBetweenChunks = responseSpec.delayBetweenChunks
-            delay = responseSpec.delay
+            delay = context.clock.responseDelay(responseSpec.delay)
+            headers += context.clock.timingHeaders(responseSpec.delay, responseSpec.delayBetweenChunks)
+            // a stream with a timing model is reported once, by the model
+            val framePacing = context.pacing.takeIf { responseSpec.timing == null }
             flow =
                 prepareFlow(
                     model = request.model,
-                    chunksFlow = chunkFlow,
-                )
+                    chunksFlow =
+                        chunkFlow.timedBy(responseSpec.timing, context.clock, ::approximateTokenCount, context.pacing),
+                ).pacedBy(context.clock, responseSpec.delayBetweenChunks, framePacing, ::joinFrames)
+                    .monitoredBy(context.streams)
         }
     }
 
@@ -165,7 +242,7 @@ public class OllamaChatBuildingStep(
                     done = true,
                 ),
             )
-        }.map { chunk -> Json.encodeToString(chunk) + "\r\n" }
+        }.framed(ChatResponse.serializer(), CRLF_NDJSON)
     }
 
     /**
@@ -2,6 +2,9 @@ package dev.mokksy.aimocks.ollama.embed
 
 import dev.mokksy.aimocks.core.AbstractBuildingStep
 import dev.mokksy.aimocks.core.EmbeddingUtils
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.time.responseDelay
+import dev.mokksy.aimocks.core.time.timingHeaders
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
 import io.ktor.http.ContentType
@@ -23,13 +26,16 @@ import kotlin.time.Clock
  * @param mokksy The mock server instance used for handling mock request and response lifecycle.
  * @param buildingStep The underlying building step for managing and supporting response configurations
  *                     for Ollama Embedding requests.
+ * @param context State shared with the mock which created this step, e.g. its clock.
  */
-public class OllamaEmbedBuildingStep(
+public class OllamaEmbedBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<EmbeddingsRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<EmbeddingsRequest, OllamaEmbedResponseSpecification>(
         mokksy,
         buildingStep,
+        context,
     ) {
     /**
      * Configures the mock embedding response for an embedding request using the provided specification block.
@@ -43,6 +49,7 @@ public class OllamaEmbedBuildingStep(
     @Suppress("MagicNumber")
     override infix fun responds(block: suspend OllamaEmbedResponseSpecification.() -> Unit) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val request = this.request.body()
             val embedResponseSpecification =
                 OllamaEmbedResponseSpecification()
@@ -51,7 +58,8 @@ public class OllamaEmbedBuildingStep(
                 embedResponseSpecification.embeddings
                     ?: request.input.map { EmbeddingUtils.generateEmbedding(it) }
             val modelName = embedResponseSpecification.model ?: request.model
-            delay = embedResponseSpecification.delay
+            delay = context.clock.responseDelay(embedResponseSpecification.delay)
+            headers += context.clock.timingHeaders(embedResponseSpecification.delay)
             contentType = ContentType.Application.Json
 
             val promptEvalCount = nextInt(1, 200)
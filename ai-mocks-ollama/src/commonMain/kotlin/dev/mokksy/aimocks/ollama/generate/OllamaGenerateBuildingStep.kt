@@ -1,17 +1,25 @@
 package dev.mokksy.aimocks.ollama.generate
 
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.stream.FrameFormat
+import dev.mokksy.aimocks.core.stream.framed
+import dev.mokksy.aimocks.core.stream.monitoredBy
+import dev.mokksy.aimocks.core.time.approximateTokenCount
+import dev.mokksy.aimocks.core.time.joinFrames
+import dev.mokksy.aimocks.core.time.pacedBy
+import dev.mokksy.aimocks.core.time.responseDelay
+import dev.mokksy.aimocks.core.time.timedBy
+import dev.mokksy.aimocks.core.time.timingHeaders
 import dev.mokksy.mokksy.BuildingStep
 import dev.mokksy.mokksy.MokksyServer
 
 import io.ktor.http.ContentType
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.Flow
-import kotlinx.coroutines.flow.asFlow
 import kotlinx.coroutines.flow.emitAll
 import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.flow.map
-import kotlinx.serialization.json.Json
 import kotlin.random.Random.Default.nextInt
 import kotlin.time.Clock
 import kotlin.time.Instant
@@ -32,13 +40,16 @@ import kotlin.time.Instant
  * @param mokksy The mock server instance used for handling mock request and response lifecycle.
  * @param buildingStep The underlying building step for managing and supporting response configurations
  *                     for Ollama Generate Completion requests.
+ * @param context State shared with the mock which created this step, e.g. its clock.
  */
-public class OllamaGenerateBuildingStep(
+public class OllamaGenerateBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<GenerateRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<GenerateRequest, OllamaGenerateResponseSpecification>(
         mokksy,
         buildingStep,
+        context,
     ) {
     /**
      * Configures a mock generate completion response for an Ollama generate request.
@@ -48,13 +59,15 @@ public class OllamaGenerateBuildingStep(
     @Suppress("MagicNumber")
     override infix fun responds(block: suspend OllamaGenerateResponseSpecification.() -> Unit) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val request = this.request.body()
             val generateResponseSpecification =
                 OllamaGenerateResponseSpecification()
             block.invoke(generateResponseSpecification)
             val responseContent = generateResponseSpecification.responseContent
             val doneReason = generateResponseSpecification.doneReason
-            delay = generateResponseSpecification.delay
+            delay = context.clock.responseDelay(generateResponseSpecification.delay)
+            headers += context.clock.timingHeaders(generateResponseSpecification.delay)
             contentType = ContentType.Application.Json
 
             val promptEvalCount = nextInt(1, 200)
@@ -90,6 +103,7 @@ public class OllamaGenerateBuildingStep(
         block: OllamaStreamingGenerateResponseSpecification.() -> Unit,
     ) {
         buildingStep.respondsWithStream {
+            context.stubMatched()
             val responseSpec =
                 OllamaStreamingGenerateResponseSpecification()
             block.invoke(responseSpec)
@@ -97,18 +111,24 @@ public class OllamaGenerateBuildingStep(
             headers += "Content-Type" to "application/x-ndjson"
             headers += "Connection" to "keep-alive"
 
-            val chunkFlow = responseSpec.responseFlow ?: responseSpec.responseChunks?.asFlow()
+            val chunkFlow = responseSpec.chunkFlow(context)
 
             if (chunkFlow == null) {
-                error("Either responseChunks or responseFlow must be defined")
+                error("Either responseChunks, responseFlow or a chunk generator must be defined")
             }
             val request = this.request.body()
+            delay = context.clock.responseDelay(responseSpec.delay)
+            headers += context.clock.timingHeaders(responseSpec.delay, responseSpec.delayBetweenChunks)
+            // a stream with a timing model is reported once, by the model
+            val framePacing = context.pacing.takeIf { responseSpec.timing == null }
             flow =
                 prepareFlow(
                     model = request.model,
-                    chunksFlow = chunkFlow,
+                    chunksFlow =
+                        chunkFlow.timedBy(responseSpec.timing, context.clock, ::approximateTokenCount, context.pacing),
                     doneReason = responseSpec.doneReason,
-                )
+                ).pacedBy(context.clock, responseSpec.delayBetweenChunks, framePacing, ::joinFrames)
+                    .monitoredBy(context.streams)
         }
     }
 
@@ -157,7 +177,7 @@ public class OllamaGenerateBuildingStep(
                     doneReason = doneReason,
                 ),
             )
-        }.map { chunk -> Json.encodeToString(chunk) + "\n" }
+        }.framed(GenerateResponse.serializer(), FrameFormat.NDJSON)
     }
 
     /**
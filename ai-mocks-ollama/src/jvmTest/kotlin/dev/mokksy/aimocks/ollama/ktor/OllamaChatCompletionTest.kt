@@ -6,6 +6,7 @@ import dev.mokksy.aimocks.ollama.chat.FunctionCall
 import dev.mokksy.aimocks.ollama.chat.Message
 import dev.mokksy.aimocks.ollama.mockOllama
 import dev.mokksy.aimocks.ollama.model.ModelOptions
+import io.kotest.matchers.nulls.shouldNotBeNull
 import io.kotest.matchers.shouldBe
 import io.kotest.matchers.types.shouldBeInstanceOf
 import io.ktor.client.call.body
@@ -74,6 +75,41 @@ internal class OllamaChatCompletionTest : AbstractOllamaKtorTest() {
         }
     }
 
+    @Test
+    suspend fun `Should respond to Chat Completion with static response`() {
+        val userMessage = "Static hello, $seedValue!?"
+        mockOllama.chat {
+            model = modelName
+            requestBodyContains(userMessage)
+            stream(false)
+        } respondsStatic {
+            content("Hi")
+        }
+
+        val request =
+            ChatRequest(
+                model = modelName,
+                messages = listOf(Message(role = "user", content = userMessage)),
+                stream = false,
+            )
+
+        val responses =
+            List(2) {
+                client
+                    .post("${mockOllama.baseUrl()}/api/chat") {
+                        contentType(ContentType.Application.Json)
+                        setBody(request)
+                    }.body<ChatResponse>()
+            }
+
+        responses.forEach {
+            it.message.content shouldBe "Hi"
+            it.model shouldBe modelName
+            it.done shouldBe true
+            it.evalCount.shouldNotBeNull()
+        }
+    }
+
     @Test
     suspend fun `Should respond to Chat Completion with tool calls`() {
         val userMessage = "Check weather for $seedValue"
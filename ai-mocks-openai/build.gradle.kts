@@ -37,6 +37,8 @@ kotlin {
         jvmMain {
             dependencies {
                 implementation(libs.ktor.server.netty)
+                // For InProcessOpenaiHttpClient, provided by the applications using it
+                compileOnly(libs.openai.java)
             }
         }
 
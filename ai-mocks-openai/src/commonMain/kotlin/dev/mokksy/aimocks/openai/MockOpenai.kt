@@ -1,8 +1,10 @@
 package dev.mokksy.aimocks.openai
 
 import dev.mokksy.aimocks.core.AbstractMockLlm
+import dev.mokksy.aimocks.core.json.containJsonKeyValue
 import dev.mokksy.aimocks.openai.completions.OpenaiChatCompletionRequestSpecification
 import dev.mokksy.aimocks.openai.completions.OpenaiChatCompletionsBuildingStep
+import dev.mokksy.aimocks.openai.completions.OpenaiCompletionsMatchers
 import dev.mokksy.aimocks.openai.embeddings.OpenaiEmbedBuildingStep
 import dev.mokksy.aimocks.openai.embeddings.OpenaiEmbedRequestSpecification
 import dev.mokksy.aimocks.openai.model.embeddings.CreateEmbeddingsRequest
@@ -13,12 +15,16 @@ import dev.mokksy.aimocks.openai.moderation.OpenaiModerationRequestSpecification
 import dev.mokksy.aimocks.openai.responses.OpenaiResponsesBuildingStep
 import dev.mokksy.aimocks.openai.responses.OpenaiResponsesRequestSpecification
 import dev.mokksy.mokksy.ServerConfiguration
-import io.kotest.assertions.json.containJsonKeyValue
 import io.kotest.matchers.string.contain
 import io.ktor.serialization.kotlinx.json.json
 import kotlinx.serialization.json.Json
 import java.util.function.Consumer
 
+private const val CHAT_COMPLETIONS_PATH = "/v1/chat/completions"
+private const val RESPONSES_PATH = "/v1/responses"
+private const val MODERATIONS_PATH = "/v1/moderations"
+private const val EMBEDDINGS_PATH = "/v1/embeddings"
+
 /**
  * Mock implementation of an OpenAI-compatible service for testing purposes.
  *
@@ -87,35 +93,40 @@ public open class MockOpenai(
                 val requestSpec = OpenaiChatCompletionRequestSpecification()
                 block(requestSpec)
 
-                path("/v1/chat/completions")
+                path(CHAT_COMPLETIONS_PATH)
 
-                body += requestSpec.requestBody
-                bodyString += requestSpec.requestBodyString
+                val route = stubPrefilter.register(CHAT_COMPLETIONS_PATH, "model", requestSpec.model)
+                requestSpec.requestBodyString += route.guard
+
+                requestSpec.model?.let {
+                    requestSpec.requestBody += OpenaiCompletionsMatchers.modelEquals(it)
+                }
 
                 requestSpec.temperature?.let {
-                    bodyString += containJsonKeyValue("temperature", it)
+                    requestSpec.requestBodyString += containJsonKeyValue("temperature", it)
                 }
 
                 requestSpec.maxTokens?.let {
-                    bodyString += containJsonKeyValue("max_completion_tokens", it)
+                    requestSpec.requestBodyString += containJsonKeyValue("max_completion_tokens", it)
                 }
 
                 requestSpec.seed?.let {
-                    bodyString += containJsonKeyValue("seed", it)
-                }
-
-                requestSpec.model?.let {
-                    bodyString += containJsonKeyValue("model", it)
+                    requestSpec.requestBodyString += containJsonKeyValue("seed", it)
                 }
 
                 requestSpec.topP?.let {
-                    bodyString += containJsonKeyValue("top_p", it)
+                    requestSpec.requestBodyString += containJsonKeyValue("top_p", it)
                 }
+
+                substringIndex.bind(requestSpec.requestBodyString)
+                body += requestSpec.compileRequestBody()
+                bodyString += requestSpec.compileRequestBodyString()
             }
 
         return OpenaiChatCompletionsBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -142,34 +153,32 @@ public open class MockOpenai(
                 val chatRequestSpec = OpenaiResponsesRequestSpecification()
                 block(chatRequestSpec)
 
-                path("/v1/responses")
+                path(RESPONSES_PATH)
 
-                body += chatRequestSpec.requestBody
+                val route = stubPrefilter.register(RESPONSES_PATH, "model", chatRequestSpec.model)
+                chatRequestSpec.requestBodyString += route.guard
 
                 chatRequestSpec.temperature?.let {
-                    bodyString += containJsonKeyValue("temperature", it)
+                    chatRequestSpec.requestBodyString += containJsonKeyValue("temperature", it)
                 }
 
                 chatRequestSpec.maxTokens?.let {
-                    bodyString += containJsonKeyValue("max_output_tokens", it)
-                }
-
-                chatRequestSpec.model?.let {
-                    bodyString += containJsonKeyValue("model", it)
+                    chatRequestSpec.requestBodyString += containJsonKeyValue("max_output_tokens", it)
                 }
 
                 chatRequestSpec.topP?.let {
-                    bodyString += containJsonKeyValue("top_p", it)
+                    chatRequestSpec.requestBodyString += containJsonKeyValue("top_p", it)
                 }
 
-                chatRequestSpec.requestBodyString.forEach {
-                    bodyString += it
-                }
+                substringIndex.bind(chatRequestSpec.requestBodyString)
+                body += chatRequestSpec.compileRequestBody()
+                bodyString += chatRequestSpec.compileRequestBodyString()
             }
 
         return OpenaiResponsesBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -209,22 +218,20 @@ public open class MockOpenai(
                 val reqSpec = OpenaiModerationRequestSpecification()
                 block(reqSpec)
 
-                path("/v1/moderations")
+                path(MODERATIONS_PATH)
 
-                body += reqSpec.requestBody
-
-                reqSpec.model?.let {
-                    bodyString += containJsonKeyValue("model", it)
-                }
+                val route = stubPrefilter.register(MODERATIONS_PATH, "model", reqSpec.model)
+                reqSpec.requestBodyString += route.guard
 
-                reqSpec.requestBodyString.forEach {
-                    bodyString += it
-                }
+                substringIndex.bind(reqSpec.requestBodyString)
+                body += reqSpec.compileRequestBody()
+                bodyString += reqSpec.compileRequestBodyString()
             }
 
         return OpenaiModerationBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -291,15 +298,14 @@ public open class MockOpenai(
                 val embedRequestSpec = OpenaiEmbedRequestSpecification()
                 block(embedRequestSpec)
 
-                path("/v1/embeddings")
+                path(EMBEDDINGS_PATH)
 
-                embedRequestSpec.model?.let {
-                    bodyString += containJsonKeyValue("model", it)
-                }
+                val route = stubPrefilter.register(EMBEDDINGS_PATH, "model", embedRequestSpec.model)
+                bodyString += route.guard
 
                 // Handle string input
                 embedRequestSpec.stringInput?.let {
-                    bodyString += containJsonKeyValue("input", it)
+                    bodyString += route.gate(containJsonKeyValue("input", it))
                 }
 
                 // Handle string list input
@@ -307,21 +313,22 @@ public open class MockOpenai(
                     // For list inputs, we can't use containJsonKeyValue directly.
                     // Instead, we'll check that the request body contains the input values
                     it.forEach { inputValue ->
-                        bodyString += contain(inputValue)
+                        bodyString += route.gate(contain(inputValue))
                     }
                 }
 
                 embedRequestSpec.user?.let {
-                    bodyString += containJsonKeyValue("user", it)
+                    bodyString += route.gate(containJsonKeyValue("user", it))
                 }
 
                 body += embedRequestSpec.requestBody
-                bodyString += embedRequestSpec.requestBodyString
+                bodyString += route.gate(substringIndex.bind(embedRequestSpec.requestBodyString))
             }
 
         return OpenaiEmbedBuildingStep(
             buildingStep = requestStep,
             mokksy = mokksy,
+            context = context.forStub(name),
         )
     }
 
@@ -329,5 +336,11 @@ public open class MockOpenai(
         block: Consumer<OpenaiModerationRequestSpecification>,
     ): OpenaiModerationBuildingStep = moderation(block)
 
-    override fun baseUrl(): String = "http://localhost:${port()}/v1"
+    override val routePrefixes: List<String> =
+        listOf(CHAT_COMPLETIONS_PATH, RESPONSES_PATH, MODERATIONS_PATH, EMBEDDINGS_PATH)
+
+    override val basePath: String
+        get() = "/v1"
+
+    override fun baseUrl(): String = "http://localhost:${port()}$basePath"
 }
@@ -0,0 +1,56 @@
+package dev.mokksy.aimocks.openai.completions
+
+import dev.mokksy.aimocks.core.RequestViewCache
+import dev.mokksy.aimocks.core.json.schema.SchemaHelper
+import dev.mokksy.aimocks.openai.ChatCompletionRequest
+import dev.mokksy.aimocks.openai.model.ChatCompletionRole
+import kotlinx.schema.json.JsonSchema
+
+/**
+ * Parts of a [ChatCompletionRequest] inspected by [OpenaiCompletionsMatchers],
+ * derived once per request and shared by the matchers of all stubs.
+ */
+internal class ChatCompletionRequestView(
+    request: ChatCompletionRequest,
+) {
+    /**
+     * Text of the first system or developer message.
+     */
+    val systemText: String? =
+        request.messages
+            .find {
+                it.role == ChatCompletionRole.SYSTEM ||
+                    it.role == ChatCompletionRole.DEVELOPER
+            }?.content
+            ?.asText()
+
+    /**
+     * Text of the first user message.
+     */
+    val userText: String? =
+        request.messages
+            .find { it.role == ChatCompletionRole.USER }
+            ?.content
+            ?.asText()
+
+    /**
+     * Function name to parsed parameters schema of the declared tools.
+     * A tool whose schema is missing or malformed maps to `null`.
+     * If several tools share a name, the first one wins.
+     */
+    val toolSchemas: Map<String, JsonSchema?> by lazy {
+        buildMap {
+            request.tools.orEmpty().forEach { tool ->
+                if (tool.function.name !in this) {
+                    put(tool.function.name, SchemaHelper.parseSchema(tool.function.parameters))
+                }
+            }
+        }
+    }
+
+    companion object {
+        private val cache = RequestViewCache(::ChatCompletionRequestView)
+
+        fun of(request: ChatCompletionRequest): ChatCompletionRequestView = cache.of(request)
+    }
+}
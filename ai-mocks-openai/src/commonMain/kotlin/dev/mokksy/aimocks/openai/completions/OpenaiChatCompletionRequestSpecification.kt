@@ -2,6 +2,8 @@ package dev.mokksy.aimocks.openai.completions
 
 import dev.mokksy.aimocks.core.AbstractInferenceRequestSpecification
 import dev.mokksy.aimocks.core.ModelRequestSpecification
+import dev.mokksy.aimocks.core.matching.MatcherCost
+import dev.mokksy.aimocks.core.matching.withCost
 import dev.mokksy.aimocks.openai.ChatCompletionRequest
 
 /**
@@ -33,11 +35,11 @@ public open class OpenaiChatCompletionRequestSpecification(
         }
 
     override fun systemMessageContains(substring: String) {
-        requestBody.add(OpenaiCompletionsMatchers.systemMessageContains(substring))
+        requestBody.add(OpenaiCompletionsMatchers.systemMessageContains(substring).withCost(MatcherCost.SUBSTRING))
     }
 
     override fun userMessageContains(substring: String) {
-        requestBody.add(OpenaiCompletionsMatchers.userMessageContains(substring))
+        requestBody.add(OpenaiCompletionsMatchers.userMessageContains(substring).withCost(MatcherCost.SUBSTRING))
     }
 
     /**
@@ -46,7 +48,7 @@ public open class OpenaiChatCompletionRequestSpecification(
      * @param functionName The name of the function to match
      */
     public fun hasToolWithFunction(functionName: String) {
-        requestBody.add(OpenaiCompletionsMatchers.hasToolWithFunction(functionName))
+        requestBody.add(OpenaiCompletionsMatchers.hasToolWithFunction(functionName).withCost(MatcherCost.SCALAR))
     }
 
     /**
@@ -59,7 +61,11 @@ public open class OpenaiChatCompletionRequestSpecification(
         functionName: String,
         parameterName: String,
     ) {
-        requestBody.add(OpenaiCompletionsMatchers.toolHasParameter(functionName, parameterName))
+        requestBody.add(
+            OpenaiCompletionsMatchers
+                .toolHasParameter(functionName, parameterName)
+                .withCost(MatcherCost.SCHEMA),
+        )
     }
 
     /**
@@ -74,7 +80,11 @@ public open class OpenaiChatCompletionRequestSpecification(
         parameterName: String,
         description: String,
     ) {
-        requestBody.add(OpenaiCompletionsMatchers.toolHasParameter(functionName, parameterName, description))
+        requestBody.add(
+            OpenaiCompletionsMatchers
+                .toolHasParameter(functionName, parameterName, description)
+                .withCost(MatcherCost.SCHEMA),
+        )
     }
 
     /**
@@ -90,7 +100,9 @@ public open class OpenaiChatCompletionRequestSpecification(
         expectedType: String,
     ) {
         requestBody.add(
-            OpenaiCompletionsMatchers.toolParameterHasType(functionName, parameterName, expectedType),
+            OpenaiCompletionsMatchers
+                .toolParameterHasType(functionName, parameterName, expectedType)
+                .withCost(MatcherCost.SCHEMA),
         )
     }
 
@@ -104,6 +116,10 @@ public open class OpenaiChatCompletionRequestSpecification(
         functionName: String,
         vararg requiredParams: String,
     ) {
-        requestBody.add(OpenaiCompletionsMatchers.toolRequiresParameters(functionName, *requiredParams))
+        requestBody.add(
+            OpenaiCompletionsMatchers
+                .toolRequiresParameters(functionName, *requiredParams)
+                .withCost(MatcherCost.SCHEMA),
+        )
     }
 }
@@ -1,6 +1,18 @@
 package dev.mokksy.aimocks.openai.completions
 
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.json.ResponseTemplate
+import dev.mokksy.aimocks.core.json.jsonString
+import dev.mokksy.aimocks.core.stream.FrameFormat
+import dev.mokksy.aimocks.core.stream.StreamFrameWriter
+import dev.mokksy.aimocks.core.stream.monitoredBy
+import dev.mokksy.aimocks.core.time.approximateTokenCount
+import dev.mokksy.aimocks.core.time.joinFrames
+import dev.mokksy.aimocks.core.time.pacedBy
+import dev.mokksy.aimocks.core.time.responseDelay
+import dev.mokksy.aimocks.core.time.timedBy
+import dev.mokksy.aimocks.core.time.timingHeaders
 import dev.mokksy.aimocks.openai.ChatCompletionRequest
 import dev.mokksy.aimocks.openai.ChatResponse
 import dev.mokksy.aimocks.openai.Choice
@@ -16,7 +28,6 @@ import dev.mokksy.mokksy.MokksyServer
 import io.ktor.http.ContentType
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.Flow
-import kotlinx.coroutines.flow.asFlow
 import kotlinx.coroutines.flow.emitAll
 import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.flow.map
@@ -26,7 +37,7 @@ import kotlin.concurrent.atomics.ExperimentalAtomicApi
 import kotlin.random.Random.Default.nextInt
 import kotlin.time.Clock
 
-private const val LINE_SEPARATOR = "\n\n"
+private val FRAME_FORMAT = FrameFormat(dataPrefix = "data:", lineEnd = "\n", frameEnd = "\n\n")
 
 /**
  * OpenaiChatCompletionsBuildingStep is a specialized implementation of [AbstractBuildingStep]
@@ -44,73 +55,132 @@ private const val LINE_SEPARATOR = "\n\n"
  * @param mokksy The mock server instance used for handling mock request and response lifecycle.
  * @param buildingStep The underlying building step for managing and supporting response configurations
  *                     for OpenAI Chat Completion requests.
+ * @param context State shared with the mock which created this step, e.g. its clock.
  * @see <a href="https://platform.openai.com/docs/api-reference/chat">Chat Completions API</a>
  * @author Konstantin Pavlov
  */
-public class OpenaiChatCompletionsBuildingStep(
+public class OpenaiChatCompletionsBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<ChatCompletionRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<ChatCompletionRequest, OpenaiChatResponseSpecification>(
         mokksy,
         buildingStep,
+        context,
     ) {
     @OptIn(ExperimentalAtomicApi::class)
     private val counter: AtomicLong = AtomicLong(0)
 
-    @OptIn(ExperimentalAtomicApi::class)
-    @Suppress("MagicNumber")
     override infix fun responds(block: suspend OpenaiChatResponseSpecification.() -> Unit) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val request = this.request.body()
             val chatResponseSpecification = OpenaiChatResponseSpecification()
             block.invoke(chatResponseSpecification)
-            val assistantContent = chatResponseSpecification.assistantContent
-            val finishReason = chatResponseSpecification.finishReason
-            delay = chatResponseSpecification.delay
+            delay = context.clock.responseDelay(chatResponseSpecification.delay)
+            headers += context.clock.timingHeaders(chatResponseSpecification.delay)
             contentType = ContentType.Application.Json
 
-            val promptTokens = nextInt(1, 200)
-            val completionTokens = nextInt(1, request.maxCompletionTokens ?: 500)
-            val reasoningTokens = completionTokens / 3
-            val acceptedPredictionTokens = (completionTokens - reasoningTokens) / 2
-            val rejectedPredictionTokens =
-                completionTokens - reasoningTokens - acceptedPredictionTokens
-
             body =
-                ChatResponse(
-                    id = "chatcmpl-${counter.addAndFetch(1).toString(16)}",
-                    objectType = "chat.completion",
+                createResponse(
+                    specification = chatResponseSpecification,
+                    id = nextId(),
                     created = Clock.System.now().epochSeconds,
                     model = request.model,
-                    usage =
-                        Usage(
-                            promptTokens = promptTokens,
-                            completionTokens = completionTokens,
-                            totalTokens = promptTokens + completionTokens,
-                            completionTokensDetails =
-                                CompletionTokensDetails(
-                                    reasoningTokens = reasoningTokens,
-                                    acceptedPredictionTokens = acceptedPredictionTokens,
-                                    rejectedPredictionTokens = rejectedPredictionTokens,
-                                ),
-                        ),
-                    choices =
-                        listOf(
-                            Choice(
-                                index = 0,
-                                message =
-                                    Message(
-                                        role = ChatCompletionRole.ASSISTANT,
-                                        content = MessageContent.Text(assistantContent),
-                                    ),
-                                finishReason = finishReason,
-                            ),
-                        ),
-                    systemFingerprint = "fp_44709d6fcb",
+                    usage = randomUsage(request.maxCompletionTokens),
                 )
         }
     }
 
+    /**
+     * Configures a response which does not depend on the request.
+     *
+     * The response is encoded once; only its `id`, `created`, `model` and `usage` fields
+     * are filled in on each request.
+     *
+     * @param block A configuration block applied once to an [OpenaiChatResponseSpecification].
+     */
+    override infix fun respondsStatic(block: OpenaiChatResponseSpecification.() -> Unit) {
+        val chatResponseSpecification = OpenaiChatResponseSpecification().apply(block)
+        val template =
+            ResponseTemplate.compile(
+                serializer = ChatResponse.serializer(),
+                value =
+                    createResponse(
+                        specification = chatResponseSpecification,
+                        id = "",
+                        created = 0,
+                        model = "",
+                        usage = randomUsage(null),
+                    ),
+                fields = listOf("id", "created", "model", "usage"),
+            )
+        if (template == null) {
+            super.respondsStatic(block)
+            return
+        }
+        respondsWithTemplate(template, chatResponseSpecification.delay) { request ->
+            listOf(
+                jsonString(nextId()),
+                Clock.System.now().epochSeconds.toString(),
+                jsonString(request.model),
+                Json.encodeToString(Usage.serializer(), randomUsage(request.maxCompletionTokens)),
+            )
+        }
+    }
+
+    @OptIn(ExperimentalAtomicApi::class)
+    private fun nextId(): String = "chatcmpl-${counter.addAndFetch(1).toString(16)}"
+
+    @Suppress("MagicNumber")
+    private fun randomUsage(maxCompletionTokens: Int?): Usage {
+        val promptTokens = nextInt(1, 200)
+        val completionTokens = nextInt(1, maxCompletionTokens ?: 500)
+        val reasoningTokens = completionTokens / 3
+        val acceptedPredictionTokens = (completionTokens - reasoningTokens) / 2
+        val rejectedPredictionTokens =
+            completionTokens - reasoningTokens - acceptedPredictionTokens
+        return Usage(
+            promptTokens = promptTokens,
+            completionTokens = completionTokens,
+            totalTokens = promptTokens + completionTokens,
+            completionTokensDetails =
+                CompletionTokensDetails(
+                    reasoningTokens = reasoningTokens,
+                    acceptedPredictionTokens = acceptedPredictionTokens,
+                    rejectedPredictionTokens = rejectedPredictionTokens,
+                ),
+        )
+    }
+
+    private fun createResponse(
+        specification: OpenaiChatResponseSpecification,
+        id: String,
+        created: Long,
+        model: String,
+        usage: Usage,
+    ): ChatResponse =
+        ChatResponse(
+            id = id,
+            objectType = "chat.completion",
+            created = created,
+            model = model,
+            usage = usage,
+            choices =
+                listOf(
+                    Choice(
+                        index = 0,
+                        message =
+                            Message(
+                                role = ChatCompletionRole.ASSISTANT,
+                                content = MessageContent.Text(specification.assistantContent),
+                            ),
+                        finishReason = specification.finishReason,
+                    ),
+                ),
+            systemFingerprint = "fp_44709d6fcb",
+        )
+
     /**
      * Configures a streaming response for a chat completions request by applying the provided specifications.
      *
@@ -127,6 +197,7 @@ public class OpenaiChatCompletionsBuildingStep(
     @OptIn(ExperimentalCoroutinesApi::class, ExperimentalAtomicApi::class)
     public infix fun respondsStream(block: OpenaiStreamingChatResponseSpecification.() -> Unit) {
         buildingStep.respondsWithStream {
+            context.stubMatched()
             val responseSpec =
                 OpenaiStreamingChatResponseSpecification()
             block.invoke(responseSpec)
@@ -136,20 +207,26 @@ public class OpenaiChatCompletionsBuildingStep(
 
             val id = counter.addAndFetch(1)
 
-            val chunkFlow = responseSpec.responseFlow ?: responseSpec.responseChunks?.asFlow()
+            val chunkFlow = responseSpec.chunkFlow(context)
 
             if (chunkFlow == null) {
-                error("Either responseChunks or responseFlow must be defined")
+                error("Either responseChunks, responseFlow or a chunk generator must be defined")
             }
             val request = this.request.body()
+            delay = context.clock.responseDelay(responseSpec.delay)
+            headers += context.clock.timingHeaders(responseSpec.delay, responseSpec.delayBetweenChunks)
+            // a stream with a timing model is reported once, by the model
+            val framePacing = context.pacing.takeIf { responseSpec.timing == null }
             flow =
                 prepareFlow(
                     id = id,
                     model = request.model,
-                    chunksFlow = chunkFlow,
+                    chunksFlow =
+                        chunkFlow.timedBy(responseSpec.timing, context.clock, ::approximateTokenCount, context.pacing),
                     finishReason = responseSpec.finishReason,
                     sendDone = responseSpec.sendDone,
-                )
+                ).pacedBy(context.clock, responseSpec.delayBetweenChunks, framePacing, ::joinFrames)
+                    .monitoredBy(context.streams)
         }
     }
 
@@ -162,37 +239,44 @@ public class OpenaiChatCompletionsBuildingStep(
     ): Flow<String> {
         val timestamp = Clock.System.now().epochSeconds
         return flow {
+            val frames = StreamFrameWriter(Chunk.serializer(), FRAME_FORMAT)
             emit(
-                createChunk(
-                    id = id,
-                    created = timestamp,
-                    model = model,
-                    role = ChatCompletionRole.ASSISTANT,
-                    content = "",
-                ),
-            )
-            emitAll(
-                chunksFlow.map {
+                frames.frame(
                     createChunk(
                         id = id,
                         created = timestamp,
                         model = model,
-                        content = it,
+                        role = ChatCompletionRole.ASSISTANT,
+                        content = "",
+                    ),
+                ),
+            )
+            emitAll(
+                chunksFlow.map {
+                    frames.frame(
+                        createChunk(
+                            id = id,
+                            created = timestamp,
+                            model = model,
+                            content = it,
+                        ),
                     )
                 },
             )
             emit(
-                createChunk(
-                    id = id,
-                    created = timestamp,
-                    model = model,
-                    finishReason = finishReason,
+                frames.frame(
+                    createChunk(
+                        id = id,
+                        created = timestamp,
+                        model = model,
+                        finishReason = finishReason,
+                    ),
                 ),
             )
             if (sendDone) {
-                emit("[DONE]")
+                emit(frames.rawFrame("[DONE]"))
             }
-        }.map { "data:$it$LINE_SEPARATOR" }
+        }
     }
 
     @Suppress("LongParameterList")
@@ -203,24 +287,21 @@ public class OpenaiChatCompletionsBuildingStep(
         role: ChatCompletionRole? = null,
         model: String,
         finishReason: String? = null,
-    ): String {
-        val chunk =
-            Chunk(
-                id = "chatcmpl-$id",
-                model = model,
-                objectType = "chat.completion.chunk",
-                choices =
-                    listOf(
-                        Choice(
-                            index = 0,
-                            delta = Delta(role = role, content = content),
-                            logprobs = null,
-                            finishReason = finishReason,
-                        ),
+    ): Chunk =
+        Chunk(
+            id = "chatcmpl-$id",
+            model = model,
+            objectType = "chat.completion.chunk",
+            choices =
+                listOf(
+                    Choice(
+                        index = 0,
+                        delta = Delta(role = role, content = content),
+                        logprobs = null,
+                        finishReason = finishReason,
                     ),
-                created = created,
-                systemFingerprint = "fp_44709d6fcb",
-            )
-        return Json.encodeToString(chunk)
-    }
+                ),
+            created = created,
+            systemFingerprint = "fp_44709d6fcb",
+        )
 }
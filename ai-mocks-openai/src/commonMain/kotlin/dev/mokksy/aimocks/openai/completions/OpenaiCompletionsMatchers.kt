@@ -1,8 +1,9 @@
 package dev.mokksy.aimocks.openai.completions
 
 import dev.mokksy.aimocks.core.json.schema.SchemaHelper
+import dev.mokksy.aimocks.core.matching.CostAware
+import dev.mokksy.aimocks.core.matching.MatcherCost
 import dev.mokksy.aimocks.openai.ChatCompletionRequest
-import dev.mokksy.aimocks.openai.model.ChatCompletionRole
 import io.kotest.matchers.Matcher
 import io.kotest.matchers.MatcherResult
 
@@ -13,17 +14,30 @@ import io.kotest.matchers.MatcherResult
  * @author Konstantin Pavlov
  */
 internal object OpenaiCompletionsMatchers {
+    /**
+     * Matches requests for the given model without touching the message list,
+     * so it is cheap enough to run before any content matcher.
+     */
+    fun modelEquals(model: String): Matcher<ChatCompletionRequest?> =
+        object : Matcher<ChatCompletionRequest?>, CostAware {
+            override val cost: MatcherCost = MatcherCost.SCALAR
+
+            override fun test(value: ChatCompletionRequest?): MatcherResult =
+                MatcherResult.Companion(
+                    value?.model == model,
+                    { "Model should be \"$model\"" },
+                    { "Model should not be \"$model\"" },
+                )
+
+            override fun toString(): String = "Model should be \"$model\""
+        }
+
     fun systemMessageContains(string: String): Matcher<ChatCompletionRequest?> =
         object : Matcher<ChatCompletionRequest?> {
             override fun test(value: ChatCompletionRequest?): MatcherResult =
                 MatcherResult.Companion(
                     value != null &&
-                        value.messages
-                            .find {
-                                it.role == ChatCompletionRole.SYSTEM ||
-                                    it.role == ChatCompletionRole.DEVELOPER
-                            }?.content
-                            ?.contains(string) == true,
+                        ChatCompletionRequestView.of(value).systemText?.contains(string) == true,
                     { "System message should contain \"$string\"" },
                     { "System message should not contain \"$string\"" },
                 )
@@ -36,10 +50,7 @@ internal object OpenaiCompletionsMatchers {
             override fun test(value: ChatCompletionRequest?): MatcherResult =
                 MatcherResult.Companion(
                     value != null &&
-                        value.messages
-                            .find { it.role == ChatCompletionRole.USER }
-                            ?.content
-                            ?.contains(string) == true,
+                        ChatCompletionRequestView.of(value).userText?.contains(string) == true,
                     { "User message should contain \"$string\"" },
                     { "User message should not contain \"$string\"" },
                 )
@@ -81,8 +92,7 @@ internal object OpenaiCompletionsMatchers {
     ): Matcher<ChatCompletionRequest?> =
         object : Matcher<ChatCompletionRequest?> {
             override fun test(value: ChatCompletionRequest?): MatcherResult {
-                val tool = value?.tools?.find { it.function.name == functionName }
-                val schema = tool?.function?.parameters?.let { SchemaHelper.parseSchema(it) }
+                val schema = value?.let { ChatCompletionRequestView.of(it).toolSchemas[functionName] }
                 val hasParameter =
                     schema?.let { SchemaHelper.hasProperty(it, parameterName) } == true
 
@@ -112,8 +122,7 @@ internal object OpenaiCompletionsMatchers {
     ): Matcher<ChatCompletionRequest?> =
         object : Matcher<ChatCompletionRequest?> {
             override fun test(value: ChatCompletionRequest?): MatcherResult {
-                val tool = value?.tools?.find { it.function.name == functionName }
-                val schema = tool?.function?.parameters?.let { SchemaHelper.parseSchema(it) }
+                val schema = value?.let { ChatCompletionRequestView.of(it).toolSchemas[functionName] }
                 val actualDescription =
                     schema?.let { SchemaHelper.getPropertyDescription(it, parameterName) }
                 val matches = actualDescription == description
@@ -150,8 +159,7 @@ internal object OpenaiCompletionsMatchers {
     ): Matcher<ChatCompletionRequest?> =
         object : Matcher<ChatCompletionRequest?> {
             override fun test(value: ChatCompletionRequest?): MatcherResult {
-                val tool = value?.tools?.find { it.function.name == functionName }
-                val schema = tool?.function?.parameters?.let { SchemaHelper.parseSchema(it) }
+                val schema = value?.let { ChatCompletionRequestView.of(it).toolSchemas[functionName] }
                 val actualTypes = schema?.let { SchemaHelper.getPropertyType(it, parameterName) }
                 val hasCorrectType = actualTypes?.contains(expectedType) == true
 
@@ -183,8 +191,7 @@ internal object OpenaiCompletionsMatchers {
     ): Matcher<ChatCompletionRequest?> =
         object : Matcher<ChatCompletionRequest?> {
             override fun test(value: ChatCompletionRequest?): MatcherResult {
-                val tool = value?.tools?.find { it.function.name == functionName }
-                val schema = tool?.function?.parameters?.let { SchemaHelper.parseSchema(it) }
+                val schema = value?.let { ChatCompletionRequestView.of(it).toolSchemas[functionName] }
                 val hasAllRequired =
                     schema?.let {
                         SchemaHelper.hasAllRequiredProperties(
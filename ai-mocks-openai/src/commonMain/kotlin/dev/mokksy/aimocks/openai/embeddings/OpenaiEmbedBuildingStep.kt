@@ -2,6 +2,9 @@ package dev.mokksy.aimocks.openai.embeddings
 
 import dev.mokksy.aimocks.core.AbstractBuildingStep
 import dev.mokksy.aimocks.core.EmbeddingUtils
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.time.responseDelay
+import dev.mokksy.aimocks.core.time.timingHeaders
 import dev.mokksy.aimocks.openai.model.embeddings.CreateEmbeddingsRequest
 import dev.mokksy.aimocks.openai.model.embeddings.Embeddings
 import dev.mokksy.aimocks.openai.model.embeddings.EmbeddingsResponse
@@ -26,15 +29,18 @@ import kotlin.random.Random.Default.nextInt
  * @param mokksy The mock server instance used for handling mock request and response lifecycle.
  * @param buildingStep The underlying building step for managing and supporting response configurations
  *                     for OpenAI Embedding requests.
+ * @param context State shared with the mock which created this step, e.g. its clock.
  *
  * @see <a href="https://platform.openai.com/docs/api-reference/embeddings">OpenAI Embeddings API</a>
  */
-public class OpenaiEmbedBuildingStep(
+public class OpenaiEmbedBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<CreateEmbeddingsRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<CreateEmbeddingsRequest, OpenaiEmbedResponseSpecification>(
         mokksy,
         buildingStep,
+        context,
     ) {
     /**
      * Configures the mock embedding response for an OpenAI embedding request using the provided specification block.
@@ -49,13 +55,15 @@ public class OpenaiEmbedBuildingStep(
     @Suppress("MagicNumber")
     override infix fun responds(block: suspend OpenaiEmbedResponseSpecification.() -> Unit) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val request = this.request.body()
             val responseSpecification = OpenaiEmbedResponseSpecification()
             block.invoke(responseSpecification)
             val embeddings =
                 responseSpecification.embeddings
                     ?: request.input.map { EmbeddingUtils.generateEmbedding(it) }
-            delay = responseSpecification.delay
+            delay = context.clock.responseDelay(responseSpecification.delay)
+            headers += context.clock.timingHeaders(responseSpecification.delay)
             contentType = ContentType.Application.Json
 
             val promptTokens = nextInt(1, 100)
@@ -1,6 +1,9 @@
 package dev.mokksy.aimocks.openai.moderation
 
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.time.responseDelay
+import dev.mokksy.aimocks.core.time.timingHeaders
 import dev.mokksy.aimocks.openai.model.moderation.CreateModerationRequest
 import dev.mokksy.aimocks.openai.model.moderation.Moderation
 import dev.mokksy.aimocks.openai.model.moderation.ModerationResult
@@ -15,14 +18,17 @@ import kotlin.concurrent.atomics.ExperimentalAtomicApi
  *
  * @param mokksy The mock server instance.
  * @param buildingStep The underlying building step for moderation requests.
+ * @param context State shared with the mock which created this step, e.g. its clock.
  * @see <a href="https://platform.openai.com/docs/api-reference/moderations">OpenAI Moderations API</a>
  */
-public class OpenaiModerationBuildingStep(
+public class OpenaiModerationBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<CreateModerationRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<CreateModerationRequest, OpenaiModerationResponseSpecification>(
         mokksy,
         buildingStep,
+        context,
     ) {
     @OptIn(ExperimentalAtomicApi::class)
     private val counter: AtomicLong = AtomicLong(0)
@@ -31,9 +37,11 @@ public class OpenaiModerationBuildingStep(
     @Suppress("MagicNumber")
     override infix fun responds(block: suspend OpenaiModerationResponseSpecification.() -> Unit) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val spec = OpenaiModerationResponseSpecification()
             block.invoke(spec)
-            delay = spec.delay
+            delay = context.clock.responseDelay(spec.delay)
+            headers += context.clock.timingHeaders(spec.delay)
             contentType = ContentType.Application.Json
             val id = spec.id ?: "modr-${counter.addAndFetch(1).toString(16)}"
             val createdModel = spec.model
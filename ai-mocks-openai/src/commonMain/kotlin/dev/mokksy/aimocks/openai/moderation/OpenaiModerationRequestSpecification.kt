@@ -1,6 +1,8 @@
 package dev.mokksy.aimocks.openai.moderation
 
 import dev.mokksy.aimocks.core.ModelRequestSpecification
+import dev.mokksy.aimocks.core.matching.MatcherCost
+import dev.mokksy.aimocks.core.matching.withCost
 import dev.mokksy.aimocks.openai.model.moderation.CreateModerationRequest
 
 /**
@@ -14,5 +16,5 @@ public class OpenaiModerationRequestSpecification :
      * Adds a matcher to ensure input contains the given substring.
      */
     public fun inputContains(substring: String): OpenaiModerationRequestSpecification =
-        apply { requestBody.add(OpenaiModerationMatchers.inputContains(substring)) }
+        apply { requestBody.add(OpenaiModerationMatchers.inputContains(substring).withCost(MatcherCost.SUBSTRING)) }
 }
@@ -1,6 +1,9 @@
 package dev.mokksy.aimocks.openai.responses
 
 import dev.mokksy.aimocks.core.AbstractBuildingStep
+import dev.mokksy.aimocks.core.MockContext
+import dev.mokksy.aimocks.core.time.responseDelay
+import dev.mokksy.aimocks.core.time.timingHeaders
 import dev.mokksy.aimocks.openai.model.OutputContent
 import dev.mokksy.aimocks.openai.model.OutputMessage
 import dev.mokksy.aimocks.openai.model.responses.CreateResponseRequest
@@ -25,15 +28,18 @@ import kotlin.time.Clock
  *
  * @param mokksy The instance of `MokksyServer` used for this building step.
  * @param buildingStep The building step associated with configuring responses of type `CreateResponseRequest`.
+ * @param context State shared with the mock which created this step, e.g. its clock.
  * @see <a href="https://platform.openai.com/docs/api-reference/responses">Responses API</a>
  * @author Konstantin Pavlov
  */
-public class OpenaiResponsesBuildingStep(
+public class OpenaiResponsesBuildingStep @JvmOverloads constructor(
     mokksy: MokksyServer,
     buildingStep: BuildingStep<CreateResponseRequest>,
+    context: MockContext = MockContext(),
 ) : AbstractBuildingStep<CreateResponseRequest, OpenaiResponsesResponseSpecification>(
         mokksy,
         buildingStep,
+        context,
     ) {
     @OptIn(ExperimentalAtomicApi::class)
     private val counter: AtomicLong = AtomicLong(0)
@@ -44,11 +50,13 @@ public class OpenaiResponsesBuildingStep(
         block: suspend OpenaiResponsesResponseSpecification.() -> Unit,
     ) {
         buildingStep.respondsWith {
+            context.stubMatched()
             val request = this.request.body()
             val chatResponseSpecification = OpenaiResponsesResponseSpecification()
             block.invoke(chatResponseSpecification)
             val assistantContent = chatResponseSpecification.assistantContent
-            delay = chatResponseSpecification.delay
+            delay = context.clock.responseDelay(chatResponseSpecification.delay)
+            headers += context.clock.timingHeaders(chatResponseSpecification.delay)
             contentType = ContentType.Application.Json
 
             val inputTokens = Random.nextInt(1, 200)
@@ -1,6 +1,8 @@
 package dev.mokksy.aimocks.openai.responses
 
 import dev.mokksy.aimocks.core.AbstractInferenceRequestSpecification
+import dev.mokksy.aimocks.core.matching.MatcherCost
+import dev.mokksy.aimocks.core.matching.withCost
 import dev.mokksy.aimocks.openai.model.responses.CreateResponseRequest
 import dev.mokksy.mokksy.utils.asBase64DataUrl
 import java.net.URL
@@ -32,11 +34,11 @@ public open class OpenaiResponsesRequestSpecification(
     }
 
     public fun instructionsContains(substring: String) {
-        requestBody.add(OpenaiResponsesMatchers.instructionsContains(substring))
+        requestBody.add(OpenaiResponsesMatchers.instructionsContains(substring).withCost(MatcherCost.SUBSTRING))
     }
 
     override fun userMessageContains(substring: String) {
-        requestBody.add(OpenaiResponsesMatchers.userMessageContains(substring))
+        requestBody.add(OpenaiResponsesMatchers.userMessageContains(substring).withCost(MatcherCost.SUBSTRING))
     }
 
     /**
@@ -45,7 +47,7 @@ public open class OpenaiResponsesRequestSpecification(
      * @param filename The name of the file to check for in the input.
      */
     public fun containsInputFileWithNamed(filename: String) {
-        requestBody.add(OpenaiResponsesMatchers.containsInputFileNamed(filename))
+        requestBody.add(OpenaiResponsesMatchers.containsInputFileNamed(filename).withCost(MatcherCost.SCALAR))
     }
 
     /**
@@ -54,7 +56,7 @@ public open class OpenaiResponsesRequestSpecification(
      * @param fileId The ID of the file to check for in the input.
      */
     public fun containsInputFileWithId(fileId: String) {
-        requestBody.add(OpenaiResponsesMatchers.containsInputFileWithId(fileId))
+        requestBody.add(OpenaiResponsesMatchers.containsInputFileWithId(fileId).withCost(MatcherCost.SCALAR))
     }
 
     /**
@@ -63,7 +65,7 @@ public open class OpenaiResponsesRequestSpecification(
      * @param imageUrl The URL of the image to check for in the input. Might be Base64 image url
      */
     public fun containsInputImageWithUrl(imageUrl: String) {
-        requestBody.add(OpenaiResponsesMatchers.containsInputImageWithUrl(imageUrl))
+        requestBody.add(OpenaiResponsesMatchers.containsInputImageWithUrl(imageUrl).withCost(MatcherCost.SCALAR))
     }
 
     /**
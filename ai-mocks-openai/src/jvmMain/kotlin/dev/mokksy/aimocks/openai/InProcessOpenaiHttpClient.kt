@@ -0,0 +1,148 @@
+package dev.mokksy.aimocks.openai
+
+import com.openai.core.RequestOptions
+import com.openai.core.http.Headers
+import com.openai.core.http.HttpRequest
+import dev.mokksy.aimocks.core.AbstractMockLlm
+import io.ktor.client.request.prepareRequest
+import io.ktor.client.request.setBody
+import io.ktor.client.request.url
+import io.ktor.client.statement.bodyAsChannel
+import io.ktor.http.ContentType
+import io.ktor.http.HttpMethod
+import io.ktor.http.appendPathSegments
+import io.ktor.http.content.ByteArrayContent
+import io.ktor.utils.io.jvm.javaio.toInputStream
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.launch
+import java.io.ByteArrayOutputStream
+import java.io.InputStream
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import io.ktor.client.HttpClient as KtorClient
+
+/**
+ * HTTP client of the official `openai-java` SDK serving its requests to a [mock] in-process, without a socket.
+ *
+ * Plug it into the SDK through its client options:
+ *
+ * ```kotlin
+ * val client =
+ *     OpenAIClientImpl(
+ *         ClientOptions
+ *             .builder()
+ *             .httpClient(InProcessOpenaiHttpClient(openai))
+ *             .baseUrl(openai.baseUrl())
+ *             .apiKey("dummy-key")
+ *             .build(),
+ *     )
+ * ```
+ *
+ * Requests go through the [in-process engine][AbstractMockLlm.inProcessEngine] of the mock,
+ * and the body of a streamed response is read as the mock writes it.
+ * Close each response, as the SDK does, to release its request.
+ *
+ * `openai-java` is not a dependency of this module: add it to use this client.
+ */
+public class InProcessOpenaiHttpClient(
+    mock: AbstractMockLlm,
+) : com.openai.core.http.HttpClient {
+    private val client =
+        KtorClient(mock.inProcessEngine) {
+            expectSuccess = false
+            followRedirects = false
+        }
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    override fun execute(
+        request: HttpRequest,
+        requestOptions: RequestOptions,
+    ): com.openai.core.http.HttpResponse =
+        try {
+            executeAsync(request, requestOptions).get()
+        } catch (e: ExecutionException) {
+            throw e.cause ?: e
+        }
+
+    @Suppress("TooGenericExceptionCaught")
+    override fun executeAsync(
+        request: HttpRequest,
+        requestOptions: RequestOptions,
+    ): CompletableFuture<com.openai.core.http.HttpResponse> {
+        val future = CompletableFuture<com.openai.core.http.HttpResponse>()
+        val job =
+            scope.launch {
+                try {
+                    client
+                        .prepareRequest {
+                            method = HttpMethod.parse(request.method.name)
+                            url(request.baseUrl)
+                            url {
+                                appendPathSegments(request.pathSegments)
+                                request.queryParams.keys().forEach { key ->
+                                    parameters.appendAll(key, request.queryParams.values(key))
+                                }
+                            }
+                            request.headers.names().forEach { name ->
+                                headers.appendAll(name, request.headers.values(name))
+                            }
+                            request.body?.let { body ->
+                                val bytes = ByteArrayOutputStream().also { body.writeTo(it) }.toByteArray()
+                                setBody(ByteArrayContent(bytes, body.contentType()?.let(ContentType::parse)))
+                            }
+                        }.execute { response ->
+                            // The body is readable until the response is closed
+                            val closed = CompletableDeferred<Unit>()
+                            future.complete(
+                                InProcessResponse(
+                                    statusCode = response.status.value,
+                                    headers =
+                                        Headers
+                                            .builder()
+                                            .apply {
+                                                response.headers.forEach { name, values ->
+                                                    values.forEach { put(name, it) }
+                                                }
+                                            }.build(),
+                                    body = response.bodyAsChannel().toInputStream(),
+                                    onClose = { closed.complete(Unit) },
+                                ),
+                            )
+                            closed.await()
+                        }
+                } catch (e: Throwable) {
+                    future.completeExceptionally(e)
+                }
+            }
+        future.whenComplete { _, _ -> if (future.isCancelled) job.cancel() }
+        return future
+    }
+
+    override fun close() {
+        scope.cancel()
+        client.close()
+    }
+}
+
+private class InProcessResponse(
+    private val statusCode: Int,
+    private val headers: Headers,
+    private val body: InputStream,
+    private val onClose: () -> Unit,
+) : com.openai.core.http.HttpResponse {
+    override fun statusCode(): Int = statusCode
+
+    override fun headers(): Headers = headers
+
+    override fun body(): InputStream = body
+
+    override fun close() {
+        body.close()
+        onClose()
+    }
+}
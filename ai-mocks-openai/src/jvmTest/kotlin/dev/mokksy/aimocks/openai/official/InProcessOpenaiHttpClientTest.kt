@@ -0,0 +1,68 @@
+package dev.mokksy.aimocks.openai.official
+
+import com.openai.client.OpenAIClient
+import com.openai.client.OpenAIClientImpl
+import com.openai.core.ClientOptions
+import com.openai.models.chat.completions.ChatCompletionCreateParams
+import dev.mokksy.aimocks.openai.AbstractMockOpenaiTest
+import dev.mokksy.aimocks.openai.InProcessOpenaiHttpClient
+import dev.mokksy.aimocks.openai.openai
+import io.kotest.matchers.shouldBe
+import org.junit.jupiter.api.Test
+
+internal class InProcessOpenaiHttpClientTest : AbstractMockOpenaiTest() {
+    private val client: OpenAIClient =
+        OpenAIClientImpl(
+            ClientOptions
+                .builder()
+                .httpClient(InProcessOpenaiHttpClient(openai))
+                .baseUrl(openai.baseUrl())
+                .apiKey("dummy-key-for-tests")
+                .build(),
+        )
+
+    private fun params(userMessage: String) =
+        ChatCompletionCreateParams
+            .builder()
+            .model(modelName)
+            .addUserMessage(userMessage)
+            .build()
+
+    @Test
+    fun `Should respond to Chat Completion in-process`() {
+        openai.completion("in-process-completion") {
+            model = modelName
+            userMessageContains("in-process completion")
+        } responds {
+            assistantContent = "Hello"
+            finishReason = "stop"
+        }
+
+        val result = client.chat().completions().create(params("Run the in-process completion"))
+
+        result.choices().first().message().content().orElseThrow() shouldBe "Hello"
+    }
+
+    @Test
+    fun `Should stream Chat Completion in-process`() {
+        openai.completion("in-process-streaming") {
+            model = modelName
+            userMessageContains("in-process streaming")
+        } respondsStream {
+            responseChunks = listOf("All", " we", " need", " is", " Love")
+            finishReason = "stop"
+        }
+
+        val result =
+            client.chat().completions().createStreaming(params("Run the in-process streaming")).use { response ->
+                response
+                    .stream()
+                    .flatMap { it.choices().stream() }
+                    .flatMap { it.delta().content().stream() }
+                    .toList()
+                    .joinToString("")
+            }
+
+        result shouldBe "All we need is Love"
+    }
+}
@@ -15,6 +15,7 @@ import io.kotest.assertions.throwables.shouldThrow
 import io.kotest.matchers.comparables.shouldBeGreaterThan
 import io.kotest.matchers.optional.shouldBePresent
 import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
 import io.ktor.http.ContentType
 import io.ktor.http.HttpStatusCode
 import org.junit.jupiter.api.Test
@@ -66,6 +67,39 @@ internal class ChatCompletionOpenaiTest : AbstractOpenaiTest() {
             .orElseThrow() shouldBe "Hello"
     }
 
+    @Test
+    fun `Should respond to Chat Completion with static response`() {
+        val systemMessage = "OpenAI static"
+        val userMessage = "Just say 'Hi!' and nothing else"
+        val testSeed = seedValue
+        openai.completion {
+            seed = testSeed
+            model = modelName
+            systemMessageContains(systemMessage)
+            userMessageContains(userMessage)
+        } respondsStatic {
+            assistantContent = "Hi"
+            finishReason = "stop"
+        }
+
+        val params =
+            createChatCompletionRequestParams(testSeed, systemMessage, userMessage)
+
+        val first = client.chat().completions().create(params)
+        val second = client.chat().completions().create(params)
+
+        first.validate()
+        second.validate()
+        first.model() shouldBe modelName
+        first
+            .choices()
+            .first()
+            .message()
+            .content()
+            .orElseThrow() shouldBe "Hi"
+        first.id() shouldNotBe second.id()
+    }
+
     @Test
     fun `Should respond with unexpected error`() {
         val systemMessage = "OpenAI official"
@@ -45,6 +45,9 @@ afterEvaluate {
                         runtimeOnly(
                             "io.netty:netty-transport-native-epoll:$nettyVersion:$archClassifier",
                         )
+                        runtimeOnly(
+                            "io.netty:netty-transport-native-io_uring:$nettyVersion:$archClassifier",
+                        )
                     }
 
                     osName.contains("mac") -> {
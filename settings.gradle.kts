@@ -7,6 +7,7 @@ include(
     ":ai-mocks-a2a",
     ":ai-mocks-a2a-models",
     ":ai-mocks-anthropic",
+    ":ai-mocks-benchmarks",
     ":ai-mocks-core",
     ":ai-mocks-gemini",
     ":ai-mocks-ollama",